@@ -0,0 +1,79 @@
+package com.localledger.benchmark;
+
+import com.localledger.entity.Broker;
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.TradeType;
+import com.localledger.generator.SyntheticLedgerGenerator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试的合成数据
+ * 所有基准使用同一随机种子，证券数量随交易条数增长（每 100 条交易一个证券，100 ~ 100000 个），券商固定 5 个。
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 20240101L;
+
+    public static final int BROKER_COUNT = 5;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 与交易条数匹配的数据生成器
+     */
+    public static SyntheticLedgerGenerator generator(int tradeCount) {
+        int symbolCount = Math.max(100, Math.min(tradeCount / 100, 100_000));
+        return new SyntheticLedgerGenerator(SEED, symbolCount, BROKER_COUNT);
+    }
+
+    /**
+     * 券商列表（ID 1..BROKER_COUNT）
+     */
+    public static List<Broker> brokers() {
+        List<Broker> brokers = new ArrayList<>(BROKER_COUNT);
+        for (long id = 1; id <= BROKER_COUNT; id++) {
+            Broker broker = new Broker("券商" + id, "US");
+            broker.setId(id);
+            brokers.add(broker);
+        }
+        return brokers;
+    }
+
+    /**
+     * 按交易记录汇总每个 (symbol, brokerId) 最终的台账余额，只保留持仓不为 0 的记录
+     * （即台账查询 findOpenBalancesAsOf 在最后一个交易日返回的结果）
+     */
+    public static List<PositionDailyDelta> openBalances(List<TradeRecord> trades) {
+        Map<String, PositionDailyDelta> balances = new LinkedHashMap<>();
+        for (TradeRecord trade : trades) {
+            PositionDailyDelta balance = balances.computeIfAbsent(trade.getSymbol() + "|" + trade.getBrokerId(), key -> {
+                PositionDailyDelta row = new PositionDailyDelta();
+                row.setSymbol(trade.getSymbol());
+                row.setBrokerId(trade.getBrokerId());
+                row.setName(trade.getName());
+                row.setUnderlyingSymbol(trade.getUnderlyingSymbol());
+                row.setAssetType(trade.getAssetType());
+                row.setCurrency(trade.getCurrency());
+                row.setBalance(0);
+                return row;
+            });
+            int delta = trade.getTradeType() == TradeType.BUY ? trade.getQuantity() : -trade.getQuantity();
+            balance.setQuantityDelta(delta);
+            balance.setBalance(balance.getBalance() + delta);
+            balance.setTradeDate(trade.getTradeDate());
+        }
+        List<PositionDailyDelta> open = new ArrayList<>(balances.size());
+        for (PositionDailyDelta balance : balances.values()) {
+            if (balance.getBalance() != 0) {
+                open.add(balance);
+            }
+        }
+        return open;
+    }
+}
@@ -0,0 +1,102 @@
+package com.localledger.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试用的内存替身
+ * 不启动 Spring 容器和数据库，用动态代理实现 Repository 接口，用反射注入 @Autowired 字段，
+ * 使基准测试只测量服务层自身的计算开销。
+ */
+public final class Fakes {
+
+    private Fakes() {
+    }
+
+    /**
+     * 创建 Repository 替身
+     * answers 中按方法名给出返回值；未列出的方法：save / saveAll 原样返回参数，
+     * 集合、Optional、Stream 返回空值，数值返回 0，其余返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (name) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Fake" + type.getSimpleName();
+                };
+            }
+            Function<Object[], Object> answer = answers.get(name);
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            if ((name.equals("save") || name.equals("saveAll")) && args != null && args.length == 1) {
+                return args[0];
+            }
+            return defaultValue(method.getReturnType());
+        };
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * 给对象（含父类）的字段赋值
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法注入字段: " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("字段不存在: " + target.getClass().getName() + "." + fieldName);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (List.class.isAssignableFrom(type) || type == Iterable.class || type == Collection.class) {
+            return Collections.emptyList();
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return Collections.emptySet();
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return Collections.emptyMap();
+        }
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type == Stream.class) {
+            return Stream.empty();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.localledger.service;
+
+import com.localledger.benchmark.BenchmarkData;
+import com.localledger.benchmark.Fakes;
+import com.localledger.dto.CostBasisSnapshot;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.TradeRecord;
+import com.localledger.generator.SyntheticLedgerGenerator;
+import com.localledger.repository.CostBasisCheckpointRepository;
+import com.localledger.repository.TradeRecordRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CostBasisService 平均持仓成本基准测试
+ * 关闭检查点，每次调用都从第一笔交易回放到最后一个交易日，测量移动加权平均成本的回放开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CostBasisServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int tradeCount;
+
+    private CostBasisService costBasisService;
+
+    private LocalDate asOfDate;
+
+    private String symbol;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticLedgerGenerator generator = BenchmarkData.generator(tradeCount);
+        List<TradeRecord> trades = generator.generateTrades(tradeCount);
+        List<TradeLine> lines = SyntheticLedgerGenerator.toLines(trades);
+        asOfDate = generator.getEndDate();
+        symbol = trades.get(trades.size() - 1).getSymbol();
+
+        costBasisService = new CostBasisService();
+        Fakes.inject(costBasisService, "tradeRecordRepository", Fakes.repository(TradeRecordRepository.class,
+                Map.of("streamLinesUntil", args -> lines.stream())));
+        Fakes.inject(costBasisService, "costBasisCheckpointRepository",
+                Fakes.repository(CostBasisCheckpointRepository.class, Map.of()));
+        Fakes.inject(costBasisService, "checkpointEnabled", false);
+    }
+
+    @Benchmark
+    public BigDecimal getAverageCost() {
+        return costBasisService.getAverageCost(symbol, 1L, asOfDate);
+    }
+
+    @Benchmark
+    public List<CostBasisSnapshot> calculateCostBasis() {
+        return costBasisService.calculateCostBasis(asOfDate, null);
+    }
+}
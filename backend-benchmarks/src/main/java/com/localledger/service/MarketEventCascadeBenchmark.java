@@ -0,0 +1,129 @@
+package com.localledger.service;
+
+import com.localledger.benchmark.BenchmarkData;
+import com.localledger.benchmark.Fakes;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.DividendInKindEvent;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+import com.localledger.entity.TradeRecord;
+import com.localledger.generator.SyntheticLedgerGenerator;
+import com.localledger.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MarketEventProcessingService 级联重算基准测试
+ * 模拟一次覆盖全部证券、从第一个交易日开始的批量导入后的级联重算：
+ * 拆股、代码变更、实物分红事件各占三分之一，回放的交易记录与数据库查询条件一致（事件涉及的 symbols、最后一个事件日期之前）。
+ * 交易记录变动事件同步分发给真实的 PositionLedgerService 等派生数据监听者，只有 Repository 为内存替身。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MarketEventCascadeBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int tradeCount;
+
+    @Param({"100", "1000"})
+    private int eventCount;
+
+    private MarketEventProcessingService marketEventProcessingService;
+
+    private Set<String> affectedSymbols;
+
+    private LocalDate sinceDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticLedgerGenerator generator = BenchmarkData.generator(tradeCount);
+        List<TradeRecord> trades = generator.generateTrades(tradeCount);
+        List<StockSplitEvent> splits = generator.generateStockSplits(eventCount / 3);
+        List<SymbolChangeEvent> changes = generator.generateSymbolChanges(eventCount / 3);
+        List<DividendInKindEvent> dividends = generator.generateDividendsInKind(eventCount - 2 * (eventCount / 3));
+        affectedSymbols = generator.allSymbols();
+        sinceDate = generator.getStartDate();
+
+        // 与 findLinesBySymbolInBeforeDate 相同的筛选条件
+        Set<String> replaySymbols = new HashSet<>();
+        LocalDate lastEventDate = sinceDate;
+        for (StockSplitEvent event : splits) {
+            replaySymbols.add(event.getSymbol());
+            lastEventDate = max(lastEventDate, event.getEventDate());
+        }
+        for (SymbolChangeEvent event : changes) {
+            replaySymbols.add(event.getSymbol());
+            replaySymbols.add(event.getOldSymbol());
+            lastEventDate = max(lastEventDate, event.getEventDate());
+        }
+        for (DividendInKindEvent event : dividends) {
+            replaySymbols.add(event.getSymbol());
+            lastEventDate = max(lastEventDate, event.getEventDate());
+        }
+        List<TradeLine> replayLines = new ArrayList<>();
+        for (TradeLine line : SyntheticLedgerGenerator.toLines(trades)) {
+            if (replaySymbols.contains(line.getSymbol()) && line.getTradeDate().isBefore(lastEventDate)) {
+                replayLines.add(line);
+            }
+        }
+
+        TradeRecordRepository tradeRecordRepository = Fakes.repository(TradeRecordRepository.class,
+                Map.of("findLinesBySymbolInBeforeDate", args -> replayLines));
+
+        CostBasisService costBasisService = new CostBasisService();
+        Fakes.inject(costBasisService, "tradeRecordRepository", tradeRecordRepository);
+        Fakes.inject(costBasisService, "costBasisCheckpointRepository",
+                Fakes.repository(CostBasisCheckpointRepository.class, Map.of()));
+
+        PositionLedgerService positionLedgerService = new PositionLedgerService();
+        Fakes.inject(positionLedgerService, "tradeRecordRepository", tradeRecordRepository);
+        Fakes.inject(positionLedgerService, "positionDailyDeltaRepository",
+                Fakes.repository(PositionDailyDeltaRepository.class, Map.of()));
+        CashLedgerService cashLedgerService = new CashLedgerService();
+        Fakes.inject(cashLedgerService, "cashBalanceCheckpointRepository",
+                Fakes.repository(CashBalanceCheckpointRepository.class, Map.of()));
+        PositionSnapshotCache positionSnapshotCache = new PositionSnapshotCache(0, new SimpleMeterRegistry());
+        DataVersionTracker dataVersionTracker = new DataVersionTracker();
+
+        // 与 Spring 同步分发 TradeRecordsChangedEvent 的效果一致：依次通知各个派生数据监听者
+        ApplicationEventPublisher applicationEventPublisher = event -> {
+            TradeRecordsChangedEvent changed = (TradeRecordsChangedEvent) event;
+            positionLedgerService.onTradeRecordsChanged(changed);
+            costBasisService.onTradeRecordsChanged(changed);
+            positionSnapshotCache.onTradeRecordsChanged(changed);
+            cashLedgerService.onTradeRecordsChanged(changed);
+            dataVersionTracker.onTradeRecordsChanged(changed);
+        };
+
+        marketEventProcessingService = new MarketEventProcessingService();
+        Fakes.inject(marketEventProcessingService, "applicationEventPublisher", applicationEventPublisher);
+        Fakes.inject(marketEventProcessingService, "tradeRecordRepository", tradeRecordRepository);
+        String findSince = "findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc";
+        Fakes.inject(marketEventProcessingService, "stockSplitEventRepository", Fakes.repository(
+                StockSplitEventRepository.class, Map.of(findSince, args -> splits)));
+        Fakes.inject(marketEventProcessingService, "symbolChangeEventRepository", Fakes.repository(
+                SymbolChangeEventRepository.class, Map.of(findSince, args -> changes)));
+        Fakes.inject(marketEventProcessingService, "dividendInKindEventRepository", Fakes.repository(
+                DividendInKindEventRepository.class, Map.of(findSince, args -> dividends)));
+        Fakes.inject(marketEventProcessingService, "meterRegistry", new SimpleMeterRegistry());
+        Fakes.inject(marketEventProcessingService, "dataVersionTracker", dataVersionTracker);
+    }
+
+    @Benchmark
+    public void processTradeImport() {
+        marketEventProcessingService.processTradeImport(affectedSymbols, sinceDate);
+    }
+
+    private static LocalDate max(LocalDate left, LocalDate right) {
+        return left.isAfter(right) ? left : right;
+    }
+}
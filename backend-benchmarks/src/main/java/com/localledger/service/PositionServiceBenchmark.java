@@ -0,0 +1,68 @@
+package com.localledger.service;
+
+import com.localledger.benchmark.BenchmarkData;
+import com.localledger.benchmark.Fakes;
+import com.localledger.dto.PositionSnapshot;
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.entity.TradeRecord;
+import com.localledger.generator.SyntheticLedgerGenerator;
+import com.localledger.repository.BrokerRepository;
+import com.localledger.repository.PositionDailyDeltaRepository;
+import com.localledger.repository.StrategyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PositionService.calculatePositions 基准测试
+ * 台账余额查询由替身直接返回合成交易汇总出的持仓余额，测量余额转换为持仓快照的开销；
+ * snapshotCache=true 时重复查询同一日期，台账余额从持仓快照缓存读取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PositionServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int tradeCount;
+
+    @Param({"false", "true"})
+    private boolean snapshotCache;
+
+    private PositionService positionService;
+
+    private LocalDate asOfDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticLedgerGenerator generator = BenchmarkData.generator(tradeCount);
+        List<TradeRecord> trades = generator.generateTrades(tradeCount);
+        List<PositionDailyDelta> balances = BenchmarkData.openBalances(trades);
+        asOfDate = generator.getEndDate();
+
+        DimensionCache dimensionCache = new DimensionCache();
+        Fakes.inject(dimensionCache, "brokerRepository", Fakes.repository(BrokerRepository.class,
+                Map.of("findAll", args -> BenchmarkData.brokers())));
+        Fakes.inject(dimensionCache, "strategyRepository", Fakes.repository(StrategyRepository.class, Map.of()));
+
+        positionService = new PositionService();
+        Fakes.inject(positionService, "positionDailyDeltaRepository", Fakes.repository(PositionDailyDeltaRepository.class,
+                Map.of("findOpenBalancesAsOf", args -> balances)));
+        Fakes.inject(positionService, "dimensionCache", dimensionCache);
+        Fakes.inject(positionService, "meterRegistry", new SimpleMeterRegistry());
+        Fakes.inject(positionService, "positionSnapshotCache",
+                new PositionSnapshotCache(snapshotCache ? Long.MAX_VALUE : 0, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public List<PositionSnapshot> calculatePositions() {
+        return positionService.calculatePositions(asOfDate, null);
+    }
+}
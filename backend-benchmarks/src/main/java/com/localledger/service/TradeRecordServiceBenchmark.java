@@ -0,0 +1,43 @@
+package com.localledger.service;
+
+import com.localledger.benchmark.BenchmarkData;
+import com.localledger.entity.TradeRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TradeRecordService.recalculateAmount 基准测试
+ * 每次调用对全部合成交易记录重新计算成交金额（股票、ETF、期权混合）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TradeRecordServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int tradeCount;
+
+    private TradeRecordService tradeRecordService;
+
+    private List<TradeRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkData.generator(tradeCount).generateTrades(tradeCount);
+        tradeRecordService = new TradeRecordService();
+    }
+
+    @Benchmark
+    public void recalculateAmount(Blackhole blackhole) {
+        for (TradeRecord record : records) {
+            tradeRecordService.recalculateAmount(record);
+            blackhole.consume(record.getAmount());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.localledger.service;
+
+import com.localledger.benchmark.BenchmarkData;
+import com.localledger.benchmark.Fakes;
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.service.verification.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TradeVerificationService.doVerify 基准测试
+ * 六条核对规则按生产顺序注册，invalidRatio 控制核对不通过的记录比例（0 时全部走快速路径）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TradeVerificationServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int tradeCount;
+
+    @Param({"0", "0.01"})
+    private double invalidRatio;
+
+    private TradeVerificationService tradeVerificationService;
+
+    private List<TradeRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkData.generator(tradeCount).generateTrades(tradeCount, invalidRatio);
+
+        tradeVerificationService = new TradeVerificationService();
+        Fakes.inject(tradeVerificationService, "rules", Arrays.<VerificationRule>asList(
+                new OptionSymbolFormatRule(),
+                new HkStockSymbolFormatRule(),
+                new OptionTriggerFeePriceRule(),
+                new UsStockSymbolFormatRule(),
+                new SymbolAssetTypeConsistencyRule(),
+                new TriggerRefTypeConsistencyRule()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tradeVerificationService.shutdown();
+    }
+
+    @Benchmark
+    public List<TradeVerificationResult.ErrorDetail> doVerify() {
+        return tradeVerificationService.doVerify(records).allErrors();
+    }
+}
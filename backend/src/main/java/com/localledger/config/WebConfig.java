@@ -0,0 +1,23 @@
+package com.localledger.config;
+
+import com.localledger.controller.ConditionalReadInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC 配置类
+ * 注册条件请求拦截器（ETag / Last-Modified）
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ConditionalReadInterceptor conditionalReadInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalReadInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,95 @@
+package com.localledger.controller;
+
+import com.localledger.dto.CashBalance;
+import com.localledger.dto.CashTimeline;
+import com.localledger.dto.PositionHistory;
+import com.localledger.service.CashLedgerService;
+import com.localledger.service.DataVersionTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 现金余额控制器
+ * 提供合并出入金记录和交易记录计算各券商、各币种可用现金的 API
+ *
+ * 查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor）。
+ */
+@RestController
+@RequestMapping("/api/cash")
+public class CashController {
+
+    @Autowired
+    private CashLedgerService cashLedgerService;
+
+    /**
+     * 计算截止到指定日期的现金余额
+     * GET /api/cash/balances?date=2026-03-08&brokerId=1
+     *
+     * @param date     截止日期（必填，格式 YYYY-MM-DD）
+     * @param brokerId 券商ID（可选，不传则查询所有券商）
+     */
+    @GetMapping("/balances")
+    @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.CASH_FLOW_RECORDS, DataVersionTracker.BROKERS})
+    public ResponseEntity<Map<String, Object>> getBalances(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long brokerId) {
+        try {
+            List<CashBalance> balances = cashLedgerService.calculateBalances(date, brokerId);
+            return buildSuccessResponse("查询成功", balances);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "现金余额计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 计算日期区间内的现金余额时间线（按采样粒度取每个周期末的余额）
+     * GET /api/cash/timeline?from=2024-01-01&to=2026-03-08&granularity=week&brokerId=1
+     *
+     * @param from        开始日期（必填，格式 YYYY-MM-DD）
+     * @param to          结束日期（必填，格式 YYYY-MM-DD）
+     * @param granularity 采样粒度：day / week / month（可选，默认 day）
+     * @param brokerId    券商ID（可选，不传则查询所有券商）
+     */
+    @GetMapping("/timeline")
+    @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.CASH_FLOW_RECORDS, DataVersionTracker.BROKERS})
+    public ResponseEntity<Map<String, Object>> getTimeline(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Long brokerId) {
+        try {
+            CashTimeline timeline = cashLedgerService.calculateTimeline(
+                    from, to, PositionHistory.Granularity.of(granularity), brokerId);
+            return buildSuccessResponse("查询成功", timeline);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "现金余额时间线计算失败: " + e.getMessage());
+        }
+    }
+
+    // ============ 响应构建工具方法 ============
+
+    private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("message", message);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ERROR");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
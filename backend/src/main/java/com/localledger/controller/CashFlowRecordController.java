@@ -3,6 +3,7 @@ package com.localledger.controller;
 import com.localledger.entity.CashFlowRecord;
 import com.localledger.entity.enums.RecordType;
 import com.localledger.service.CashFlowRecordService;
+import com.localledger.service.DataVersionTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -17,6 +18,8 @@ import java.util.Map;
 /**
  * 出入金记录控制器
  * 提供出入金记录的查询、新增等 API
+ *
+ * 查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor）。
  */
 @RestController
 @RequestMapping("/api/cash-flow-records")
@@ -30,6 +33,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records
      */
     @GetMapping
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getAllRecords() {
         List<CashFlowRecord> records = cashFlowRecordService.findAll();
         return buildSuccessResponse("查询成功", records);
@@ -40,6 +44,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records/{id}
      */
     @GetMapping("/{id}")
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordById(@PathVariable Long id) {
         return cashFlowRecordService.findById(id)
                 .map(record -> buildSuccessResponse("查询成功", record))
@@ -51,6 +56,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records/broker/{brokerId}
      */
     @GetMapping("/broker/{brokerId}")
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByBrokerId(@PathVariable Long brokerId) {
         List<CashFlowRecord> records = cashFlowRecordService.findByBrokerId(brokerId);
         return buildSuccessResponse("查询成功", records);
@@ -61,6 +67,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records/type/{recordType}
      */
     @GetMapping("/type/{recordType}")
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByType(@PathVariable RecordType recordType) {
         List<CashFlowRecord> records = cashFlowRecordService.findByRecordType(recordType);
         return buildSuccessResponse("查询成功", records);
@@ -71,6 +78,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records/date-range?startDate=2024-01-01&endDate=2024-12-31
      */
     @GetMapping("/date-range")
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -83,6 +91,7 @@ public class CashFlowRecordController {
      * GET /api/cash-flow-records/broker/{brokerId}/date-range?startDate=2024-01-01&endDate=2024-12-31
      */
     @GetMapping("/broker/{brokerId}/date-range")
+    @ConditionalRead(DataVersionTracker.CASH_FLOW_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByBrokerIdAndDateRange(
             @PathVariable Long brokerId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
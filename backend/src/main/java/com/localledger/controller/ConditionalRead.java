@@ -0,0 +1,21 @@
+package com.localledger.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记支持条件请求（If-None-Match / If-Modified-Since）的查询接口
+ * value 为响应内容所依赖的数据表（DataVersionTracker 中的表名常量），
+ * 这些表自客户端上次请求以来都没有变动时，ConditionalReadInterceptor 直接返回 304，不执行查询。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalRead {
+
+    /**
+     * 响应内容所依赖的数据表
+     */
+    String[] value();
+}
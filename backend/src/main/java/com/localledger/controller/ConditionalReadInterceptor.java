@@ -0,0 +1,71 @@
+package com.localledger.controller;
+
+import com.localledger.service.DataVersionTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 条件请求拦截器
+ * 对标注了 @ConditionalRead 的 GET 接口，按所依赖数据表的版本号生成 ETag、按最近一次变动时间生成 Last-Modified：
+ * - 客户端带上次的 ETag（If-None-Match）或时间（If-Modified-Since）且数据未变动时，直接返回 304，
+ *   不进入控制器，不查询数据库也不序列化响应
+ * - 否则照常执行查询，响应带上 ETag、Last-Modified 头
+ *
+ * If-Modified-Since 只精确到秒：读取之后、同一秒内提交的写入仍会落在客户端带回的那一秒里。
+ * 因此只带 If-Modified-Since 时，仅当相关表最近一次写入的精确提交时间不晚于该时间（即那一秒内没有写入）才返回 304，
+ * 否则只按 ETag 判断（不带 If-None-Match 时照常查询）。
+ *
+ * 响应同时带 Cache-Control: no-cache，要求浏览器每次都向服务端确认，不按 Last-Modified 启发式缓存。
+ * 304 响应计入 http.server.requests（status=304），可与 200 的次数对比条件请求的命中情况。
+ */
+@Component
+public class ConditionalReadInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalRead conditionalRead = handlerMethod.getMethodAnnotation(ConditionalRead.class);
+        if (conditionalRead == null) {
+            return true;
+        }
+        String[] tables = conditionalRead.value();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        String etag = dataVersionTracker.etag(tables);
+        long lastModified = dataVersionTracker.lastModified(tables);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (writtenAfterIfModifiedSince(request, lastModified)) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            return !webRequest.checkNotModified(etag);
+        }
+        // 未变动时 checkNotModified 已将响应状态置为 304，不再进入控制器
+        return !webRequest.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * 请求只带 If-Modified-Since（带 If-None-Match 时以 ETag 为准），且最近一次写入的精确提交时间晚于该时间
+     */
+    private static boolean writtenAfterIfModifiedSince(HttpServletRequest request, long lastModified) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            // 无法解析的时间与 Spring 的处理一致，视为没有该请求头
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified > ifModifiedSince;
+    }
+}
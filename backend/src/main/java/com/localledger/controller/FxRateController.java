@@ -0,0 +1,87 @@
+package com.localledger.controller;
+
+import com.localledger.dto.FxRateImportResult;
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+import com.localledger.service.DataVersionTracker;
+import com.localledger.service.FxRateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 汇率控制器
+ * 提供汇率的查询和 CSV 导入 API
+ *
+ * 查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor）。
+ */
+@RestController
+@RequestMapping("/api/fx-rates")
+public class FxRateController {
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    /**
+     * 查询日期区间内的汇率
+     * GET /api/fx-rates?startDate=2025-01-01&endDate=2025-12-31&currency=USD
+     *
+     * @param startDate 开始日期（必填，格式 YYYY-MM-DD）
+     * @param endDate   结束日期（必填，格式 YYYY-MM-DD）
+     * @param currency  币种（可选，不传则查询所有币种）
+     */
+    @GetMapping
+    @ConditionalRead(DataVersionTracker.FX_RATES)
+    public ResponseEntity<Map<String, Object>> getRates(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Currency currency) {
+        List<FxRate> rates = fxRateService.findByDateRange(currency, startDate, endDate);
+        return buildSuccessResponse("查询成功", rates);
+    }
+
+    /**
+     * 导入汇率（CSV，列 rateDate,currency,rate；rate 为 1 单位外币折合人民币）
+     * POST /api/fx-rates/import
+     * Content-Type: text/csv
+     * 任意一行校验失败则整批不写入；已存在的 (rateDate, currency) 更新汇率
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importCsv(@RequestBody String content) {
+        try {
+            FxRateImportResult result = fxRateService.importCsv(content);
+            return buildSuccessResponse(HttpStatus.CREATED, "导入成功，新增 " + result.getInsertedCount()
+                    + " 条，更新 " + result.getUpdatedCount() + " 条", result);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // ============ 响应构建工具方法 ============
+
+    private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
+        return buildSuccessResponse(HttpStatus.OK, message, data);
+    }
+
+    private ResponseEntity<Map<String, Object>> buildSuccessResponse(HttpStatus status, String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("message", message);
+        response.put("data", data);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ERROR");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -3,7 +3,9 @@ package com.localledger.controller;
 import com.localledger.entity.DividendInKindEvent;
 import com.localledger.entity.StockSplitEvent;
 import com.localledger.entity.SymbolChangeEvent;
+import com.localledger.service.DataVersionTracker;
 import com.localledger.service.DividendInKindEventService;
+import com.localledger.service.MarketEventCascadeJobService;
 import com.localledger.service.StockSplitEventService;
 import com.localledger.service.SymbolChangeEventService;
 import org.slf4j.Logger;
@@ -21,7 +23,11 @@ import java.util.Map;
 
 /**
  * 市场异动事件控制器
- * 提供代码变更、拆股、实物分红事件的查询、新增、修改、删除等 API
+ * 提供代码变更、拆股、实物分红事件的查询、新增、修改、删除等 API，以及级联重算任务的进度查询
+ *
+ * 异步级联重算模式下，新增/修改接口返回的事件带 cascadeJobId，删除接口返回 {"cascadeJobId": ...}，
+ * 可通过 GET /api/market-events/jobs/{id} 查询任务进度；同步模式下不返回任务ID。
+ * 事件查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor），任务进度查询不支持。
  */
 @RestController
 @RequestMapping("/api/market-events")
@@ -38,6 +44,9 @@ public class MarketEventController {
     @Autowired
     private DividendInKindEventService dividendInKindEventService;
 
+    @Autowired
+    private MarketEventCascadeJobService marketEventCascadeJobService;
+
     // ============================================================
     // 代码变更事件 API
     // ============================================================
@@ -47,6 +56,7 @@ public class MarketEventController {
      * GET /api/market-events/symbol-change
      */
     @GetMapping("/symbol-change")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getAllSymbolChangeEvents() {
         List<SymbolChangeEvent> events = symbolChangeEventService.findAll();
         return buildSuccessResponse("查询成功", events);
@@ -57,6 +67,7 @@ public class MarketEventController {
      * GET /api/market-events/symbol-change/{id}
      */
     @GetMapping("/symbol-change/{id}")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getSymbolChangeEventById(@PathVariable Long id) {
         return symbolChangeEventService.findById(id)
                 .map(event -> buildSuccessResponse("查询成功", event))
@@ -68,6 +79,7 @@ public class MarketEventController {
      * GET /api/market-events/symbol-change/by-symbol?symbol=xxx
      */
     @GetMapping("/symbol-change/by-symbol")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getSymbolChangeEventsBySymbol(@RequestParam String symbol) {
         List<SymbolChangeEvent> events = symbolChangeEventService.findBySymbol(symbol);
         return buildSuccessResponse("查询成功", events);
@@ -78,6 +90,7 @@ public class MarketEventController {
      * GET /api/market-events/symbol-change/by-date?startDate=xxx&endDate=xxx
      */
     @GetMapping("/symbol-change/by-date")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getSymbolChangeEventsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -121,8 +134,8 @@ public class MarketEventController {
     @DeleteMapping("/symbol-change/{id}")
     public ResponseEntity<Map<String, Object>> deleteSymbolChangeEvent(@PathVariable Long id) {
         try {
-            symbolChangeEventService.delete(id);
-            return buildSuccessResponse("删除成功", null);
+            Long cascadeJobId = symbolChangeEventService.delete(id);
+            return buildSuccessResponse("删除成功", cascadeJobId != null ? Map.of("cascadeJobId", cascadeJobId) : null);
         } catch (IllegalArgumentException e) {
             return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -137,6 +150,7 @@ public class MarketEventController {
      * GET /api/market-events/stock-split
      */
     @GetMapping("/stock-split")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getAllStockSplitEvents() {
         List<StockSplitEvent> events = stockSplitEventService.findAll();
         return buildSuccessResponse("查询成功", events);
@@ -147,6 +161,7 @@ public class MarketEventController {
      * GET /api/market-events/stock-split/{id}
      */
     @GetMapping("/stock-split/{id}")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getStockSplitEventById(@PathVariable Long id) {
         return stockSplitEventService.findById(id)
                 .map(event -> buildSuccessResponse("查询成功", event))
@@ -158,6 +173,7 @@ public class MarketEventController {
      * GET /api/market-events/stock-split/by-symbol?symbol=xxx
      */
     @GetMapping("/stock-split/by-symbol")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getStockSplitEventsBySymbol(@RequestParam String symbol) {
         List<StockSplitEvent> events = stockSplitEventService.findBySymbol(symbol);
         return buildSuccessResponse("查询成功", events);
@@ -168,6 +184,7 @@ public class MarketEventController {
      * GET /api/market-events/stock-split/by-date?startDate=xxx&endDate=xxx
      */
     @GetMapping("/stock-split/by-date")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getStockSplitEventsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -211,8 +228,8 @@ public class MarketEventController {
     @DeleteMapping("/stock-split/{id}")
     public ResponseEntity<Map<String, Object>> deleteStockSplitEvent(@PathVariable Long id) {
         try {
-            stockSplitEventService.delete(id);
-            return buildSuccessResponse("删除成功", null);
+            Long cascadeJobId = stockSplitEventService.delete(id);
+            return buildSuccessResponse("删除成功", cascadeJobId != null ? Map.of("cascadeJobId", cascadeJobId) : null);
         } catch (IllegalArgumentException e) {
             return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -227,6 +244,7 @@ public class MarketEventController {
      * GET /api/market-events/dividend-in-kind
      */
     @GetMapping("/dividend-in-kind")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getAllDividendInKindEvents() {
         List<DividendInKindEvent> events = dividendInKindEventService.findAll();
         return buildSuccessResponse("查询成功", events);
@@ -237,6 +255,7 @@ public class MarketEventController {
      * GET /api/market-events/dividend-in-kind/{id}
      */
     @GetMapping("/dividend-in-kind/{id}")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getDividendInKindEventById(@PathVariable Long id) {
         return dividendInKindEventService.findById(id)
                 .map(event -> buildSuccessResponse("查询成功", event))
@@ -248,6 +267,7 @@ public class MarketEventController {
      * GET /api/market-events/dividend-in-kind/by-symbol?symbol=xxx
      */
     @GetMapping("/dividend-in-kind/by-symbol")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getDividendInKindEventsBySymbol(@RequestParam String symbol) {
         List<DividendInKindEvent> events = dividendInKindEventService.findBySymbol(symbol);
         return buildSuccessResponse("查询成功", events);
@@ -258,6 +278,7 @@ public class MarketEventController {
      * GET /api/market-events/dividend-in-kind/by-date?startDate=xxx&endDate=xxx
      */
     @GetMapping("/dividend-in-kind/by-date")
+    @ConditionalRead(DataVersionTracker.MARKET_EVENTS)
     public ResponseEntity<Map<String, Object>> getDividendInKindEventsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -301,13 +322,28 @@ public class MarketEventController {
     @DeleteMapping("/dividend-in-kind/{id}")
     public ResponseEntity<Map<String, Object>> deleteDividendInKindEvent(@PathVariable Long id) {
         try {
-            dividendInKindEventService.delete(id);
-            return buildSuccessResponse("删除成功", null);
+            Long cascadeJobId = dividendInKindEventService.delete(id);
+            return buildSuccessResponse("删除成功", cascadeJobId != null ? Map.of("cascadeJobId", cascadeJobId) : null);
         } catch (IllegalArgumentException e) {
             return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
+    // ============================================================
+    // 级联重算任务 API
+    // ============================================================
+
+    /**
+     * 查询级联重算任务进度
+     * GET /api/market-events/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getCascadeJob(@PathVariable Long id) {
+        return marketEventCascadeJobService.findById(id)
+                .map(job -> buildSuccessResponse("查询成功", job))
+                .orElse(buildErrorResponse(HttpStatus.NOT_FOUND, "级联重算任务不存在, ID: " + id));
+    }
+
     // ============ 响应构建工具方法 ============
 
     private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
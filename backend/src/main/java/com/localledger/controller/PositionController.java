@@ -1,7 +1,12 @@
 package com.localledger.controller;
 
+import com.localledger.dto.CostBasisSnapshot;
+import com.localledger.dto.PositionHistory;
 import com.localledger.dto.PositionSnapshot;
+import com.localledger.service.CostBasisService;
+import com.localledger.service.DataVersionTracker;
 import com.localledger.service.PositionService;
+import com.localledger.service.TradeRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -16,6 +21,8 @@ import java.util.Map;
 /**
  * 持仓快照控制器
  * 提供根据交易记录计算持仓快照的 API
+ *
+ * 查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor）。
  */
 @RestController
 @RequestMapping("/api/positions")
@@ -24,6 +31,12 @@ public class PositionController {
     @Autowired
     private PositionService positionService;
 
+    @Autowired
+    private TradeRecordService tradeRecordService;
+
+    @Autowired
+    private CostBasisService costBasisService;
+
     /**
      * 计算截止到指定日期的持仓快照
      * GET /api/positions?date=2026-03-08&brokerId=1
@@ -32,6 +45,7 @@ public class PositionController {
      * @param brokerId 券商ID（可选，不传则查询所有券商）
      */
     @GetMapping
+    @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.BROKERS})
     public ResponseEntity<Map<String, Object>> getPositions(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(required = false) Long brokerId) {
@@ -43,6 +57,68 @@ public class PositionController {
         }
     }
 
+    /**
+     * 计算日期区间内的持仓历史序列（按采样粒度取每个周期末的持仓）
+     * GET /api/positions/history?from=2024-01-01&to=2026-03-08&granularity=week&brokerId=1
+     *
+     * @param from        开始日期（必填，格式 YYYY-MM-DD）
+     * @param to          结束日期（必填，格式 YYYY-MM-DD）
+     * @param granularity 采样粒度：day / week / month（可选，默认 day）
+     * @param brokerId    券商ID（可选，不传则查询所有券商）
+     */
+    @GetMapping("/history")
+    @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.BROKERS})
+    public ResponseEntity<Map<String, Object>> getPositionHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Long brokerId) {
+        try {
+            PositionHistory history = positionService.calculateHistory(
+                    from, to, PositionHistory.Granularity.of(granularity), brokerId);
+            return buildSuccessResponse("查询成功", history);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "持仓历史计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 计算截止到指定日期的持仓成本（移动加权平均法）
+     * GET /api/positions/cost-basis?date=2026-03-08&brokerId=1
+     *
+     * @param date     截止日期（必填，格式 YYYY-MM-DD）
+     * @param brokerId 券商ID（可选，不传则查询所有券商）
+     */
+    @GetMapping("/cost-basis")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
+    public ResponseEntity<Map<String, Object>> getCostBasis(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long brokerId) {
+        try {
+            List<CostBasisSnapshot> costBasis = costBasisService.calculateCostBasis(date, brokerId);
+            return buildSuccessResponse("查询成功", costBasis);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "持仓成本计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建持仓台账
+     * POST /api/positions/ledger/rebuild
+     * 用于数据修复（如直接在数据库中修改了交易记录）后重新生成台账，持仓成本检查点、现金余额检查点等派生数据一并重建
+     */
+    @PostMapping("/ledger/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildLedger() {
+        try {
+            tradeRecordService.rebuildDerivedData();
+            return buildSuccessResponse("持仓台账重建成功", null);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "持仓台账重建失败: " + e.getMessage());
+        }
+    }
+
     // ============ 响应构建工具方法 ============
 
     private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
@@ -0,0 +1,100 @@
+package com.localledger.controller;
+
+import com.localledger.dto.ProfitSummary;
+import com.localledger.service.ProfitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 盈亏分析控制器
+ * 提供按底层证券、策略、券商汇总已实现盈亏的 API
+ */
+@RestController
+@RequestMapping("/api/profit")
+public class ProfitController {
+
+    @Autowired
+    private ProfitService profitService;
+
+    /**
+     * 按底层证券汇总已实现盈亏（期权归入底层证券）
+     * GET /api/profit/by-symbol?startDate=2026-01-01&endDate=2026-03-31
+     *
+     * @param startDate 开始日期（可选，格式 YYYY-MM-DD）
+     * @param endDate   结束日期（可选，格式 YYYY-MM-DD）
+     */
+    @GetMapping("/by-symbol")
+    public ResponseEntity<Map<String, Object>> getProfitBySymbol(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<ProfitSummary> summaries = profitService.getProfitBySymbol(startDate, endDate);
+            return buildSuccessResponse("查询成功", summaries);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "盈亏计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按策略汇总已实现盈亏
+     * GET /api/profit/by-strategy?startDate=2026-01-01&endDate=2026-03-31
+     *
+     * @param startDate 开始日期（可选，格式 YYYY-MM-DD）
+     * @param endDate   结束日期（可选，格式 YYYY-MM-DD）
+     */
+    @GetMapping("/by-strategy")
+    public ResponseEntity<Map<String, Object>> getProfitByStrategy(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<ProfitSummary> summaries = profitService.getProfitByStrategy(startDate, endDate);
+            return buildSuccessResponse("查询成功", summaries);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "盈亏计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按券商汇总已实现盈亏
+     * GET /api/profit/by-broker?startDate=2026-01-01&endDate=2026-03-31
+     *
+     * @param startDate 开始日期（可选，格式 YYYY-MM-DD）
+     * @param endDate   结束日期（可选，格式 YYYY-MM-DD）
+     */
+    @GetMapping("/by-broker")
+    public ResponseEntity<Map<String, Object>> getProfitByBroker(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<ProfitSummary> summaries = profitService.getProfitByBroker(startDate, endDate);
+            return buildSuccessResponse("查询成功", summaries);
+        } catch (Exception e) {
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "盈亏计算失败: " + e.getMessage());
+        }
+    }
+
+    // ============ 响应构建工具方法 ============
+
+    private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("message", message);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ERROR");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -1,16 +1,26 @@
 package com.localledger.controller;
 
+import com.localledger.dto.TradeImportResult;
+import com.localledger.dto.TradeRecordPage;
+import com.localledger.dto.TradeRecordQuery;
 import com.localledger.dto.TradeStatistics;
 import com.localledger.dto.TradeVerificationResult;
 import com.localledger.entity.TradeRecord;
 import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import com.localledger.service.DataVersionTracker;
+import com.localledger.service.TradeImportService;
+import com.localledger.service.TradeRecordExportService;
 import com.localledger.service.TradeRecordService;
 import com.localledger.service.TradeVerificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -20,6 +30,8 @@ import java.util.Map;
 /**
  * 交易记录控制器
  * 提供交易记录的查询、新增、修改、删除等 API
+ *
+ * 查询接口支持条件请求：数据未变动时返回 304（见 ConditionalReadInterceptor）。
  */
 @RestController
 @RequestMapping("/api/trade-records")
@@ -31,14 +43,27 @@ public class TradeRecordController {
     @Autowired
     private TradeVerificationService tradeVerificationService;
 
+    @Autowired
+    private TradeRecordExportService tradeRecordExportService;
+
+    @Autowired
+    private TradeImportService tradeImportService;
+
     /**
      * 查询交易记录统计数据
-     * GET /api/trade-records/statistics
+     * GET /api/trade-records/statistics?baseCurrency=CNY
+     *
+     * @param baseCurrency 本位币（可选，传入时按交易日期汇率把各币种交易费用折算后汇总为 totalFee）
      */
     @GetMapping("/statistics")
-    public ResponseEntity<Map<String, Object>> getStatistics() {
-        TradeStatistics stats = tradeRecordService.getStatistics();
-        return buildSuccessResponse("查询成功", stats);
+    @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.FX_RATES})
+    public ResponseEntity<Map<String, Object>> getStatistics(@RequestParam(required = false) Currency baseCurrency) {
+        try {
+            TradeStatistics stats = tradeRecordService.getStatistics(baseCurrency);
+            return buildSuccessResponse("查询成功", stats);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     /**
@@ -46,16 +71,54 @@ public class TradeRecordController {
      * GET /api/trade-records
      */
     @GetMapping
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getAllRecords() {
         List<TradeRecord> records = tradeRecordService.findAll();
         return buildSuccessResponse("查询成功", records);
     }
 
+    /**
+     * 按组合条件分页查询交易记录（游标分页）
+     * GET /api/trade-records/query?brokerId=1&assetType=STOCK&startDate=2025-01-01&size=50
+     * 下一页：在相同条件上追加 cursorDate、cursorId（取上一页返回的 nextCursorDate、nextCursorId）
+     * 需要总条数时追加 includeTotal=true
+     */
+    @GetMapping("/query")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
+    public ResponseEntity<Map<String, Object>> queryRecords(@ModelAttribute TradeRecordQuery query) {
+        try {
+            TradeRecordPage page = tradeRecordService.query(query);
+            return buildSuccessResponse("查询成功", page);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 导出全部交易记录（流式写出，不在内存中构建完整列表）
+     * GET /api/trade-records/export?format=jsonl
+     * GET /api/trade-records/export?format=csv
+     * 返回类型须声明为 StreamingResponseBody，才会由流式返回值处理器写出；不支持的格式由 handleBadRequest 返回 400
+     *
+     * @param format 导出格式：jsonl（默认）或 csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRecords(@RequestParam(required = false) String format) {
+        TradeRecordExportService.Format exportFormat = TradeRecordExportService.Format.parse(format);
+        StreamingResponseBody body = output -> tradeRecordExportService.export(exportFormat, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"trade-records-" + LocalDate.now() + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     /**
      * 根据ID查询交易记录
      * GET /api/trade-records/{id}
      */
     @GetMapping("/{id}")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordById(@PathVariable Long id) {
         return tradeRecordService.findById(id)
                 .map(record -> buildSuccessResponse("查询成功", record))
@@ -67,6 +130,7 @@ public class TradeRecordController {
      * GET /api/trade-records/broker/{brokerId}
      */
     @GetMapping("/broker/{brokerId}")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByBrokerId(@PathVariable Long brokerId) {
         List<TradeRecord> records = tradeRecordService.findByBrokerId(brokerId);
         return buildSuccessResponse("查询成功", records);
@@ -77,6 +141,7 @@ public class TradeRecordController {
      * GET /api/trade-records/asset-type/{assetType}
      */
     @GetMapping("/asset-type/{assetType}")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByAssetType(@PathVariable AssetType assetType) {
         List<TradeRecord> records = tradeRecordService.findByAssetType(assetType);
         return buildSuccessResponse("查询成功", records);
@@ -87,6 +152,7 @@ public class TradeRecordController {
      * GET /api/trade-records/strategy/{strategyId}
      */
     @GetMapping("/strategy/{strategyId}")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByStrategyId(@PathVariable Long strategyId) {
         List<TradeRecord> records = tradeRecordService.findByStrategyId(strategyId);
         return buildSuccessResponse("查询成功", records);
@@ -97,6 +163,7 @@ public class TradeRecordController {
      * GET /api/trade-records/search?symbol=xxx
      */
     @GetMapping("/search")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> searchBySymbol(@RequestParam String symbol) {
         List<TradeRecord> records = tradeRecordService.searchBySymbol(symbol);
         return buildSuccessResponse("查询成功", records);
@@ -107,6 +174,7 @@ public class TradeRecordController {
      * GET /api/trade-records/date-range?startDate=2024-01-01&endDate=2024-12-31
      */
     @GetMapping("/date-range")
+    @ConditionalRead(DataVersionTracker.TRADE_RECORDS)
     public ResponseEntity<Map<String, Object>> getRecordsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -128,6 +196,38 @@ public class TradeRecordController {
         }
     }
 
+    /**
+     * 批量导入交易记录（JSON 数组）
+     * POST /api/trade-records/import
+     * Content-Type: application/json
+     * 任意一条校验失败则整批不写入
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> importJson(@RequestBody List<TradeRecord> records) {
+        try {
+            TradeImportResult result = tradeImportService.importJson(records);
+            return buildSuccessResponse(HttpStatus.CREATED, "导入成功，共 " + result.getImportedCount() + " 条", result);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 批量导入交易记录（CSV，列与导出的 CSV 一致）
+     * POST /api/trade-records/import
+     * Content-Type: text/csv
+     * 任意一行校验失败则整批不写入
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importCsv(@RequestBody String content) {
+        try {
+            TradeImportResult result = tradeImportService.importCsv(content);
+            return buildSuccessResponse(HttpStatus.CREATED, "导入成功，共 " + result.getImportedCount() + " 条", result);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * 更新交易记录
      * PUT /api/trade-records/{id}
@@ -158,17 +258,36 @@ public class TradeRecordController {
 
     /**
      * 交易数据核对
-     * GET /api/trade-records/verify
+     * GET /api/trade-records/verify?full=false&pushdown=false
      * 对所有未删除的交易记录执行数据核对，返回核对结果
+     * 默认只重新核对上次核对之后发生变动的记录，full=true 时全部重新核对，
+     * pushdown=true 时由数据库筛选可疑记录，只加载可疑记录核对
      */
     @GetMapping("/verify")
-    public ResponseEntity<Map<String, Object>> verifyTradeRecords() {
-        TradeVerificationResult result = tradeVerificationService.verifyAll();
+    public ResponseEntity<Map<String, Object>> verifyTradeRecords(
+            @RequestParam(defaultValue = "false") boolean full,
+            @RequestParam(defaultValue = "false") boolean pushdown) {
+        TradeVerificationResult result;
+        if (full) {
+            result = tradeVerificationService.reverifyAll();
+        } else if (pushdown) {
+            result = tradeVerificationService.verifyPushdown();
+        } else {
+            result = tradeVerificationService.verifyAll();
+        }
         String message = result.isPassed() ? "核对通过，所有交易记录数据正常" :
                 "核对完成，发现 " + result.getErrorCount() + " 条异常记录";
         return buildSuccessResponse(message, result);
     }
 
+    /**
+     * 未在接口内处理的参数校验失败（如不支持的导出格式）统一返回 400
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
     // ============ 响应构建工具方法 ============
 
     private ResponseEntity<Map<String, Object>> buildSuccessResponse(String message, Object data) {
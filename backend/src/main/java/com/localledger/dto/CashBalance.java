@@ -0,0 +1,94 @@
+package com.localledger.dto;
+
+import com.localledger.entity.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * 现金余额 DTO
+ * 截止某一日期每个 (brokerId, currency) 的可用现金：余额 = 净入金 + 交易净额 - 手续费
+ */
+public class CashBalance {
+
+    /** 券商ID */
+    private Long brokerId;
+
+    /** 券商名称 */
+    private String brokerName;
+
+    /** 币种 */
+    private Currency currency;
+
+    /** 净入金（入金 - 出金） */
+    private BigDecimal netDeposit;
+
+    /** 交易净额（卖出金额 - 买入金额） */
+    private BigDecimal tradeNet;
+
+    /** 手续费合计 */
+    private BigDecimal fees;
+
+    /** 现金余额 */
+    private BigDecimal balance;
+
+    public CashBalance() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public String getBrokerName() {
+        return brokerName;
+    }
+
+    public void setBrokerName(String brokerName) {
+        this.brokerName = brokerName;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getNetDeposit() {
+        return netDeposit;
+    }
+
+    public void setNetDeposit(BigDecimal netDeposit) {
+        this.netDeposit = netDeposit;
+    }
+
+    public BigDecimal getTradeNet() {
+        return tradeNet;
+    }
+
+    public void setTradeNet(BigDecimal tradeNet) {
+        this.tradeNet = tradeNet;
+    }
+
+    public BigDecimal getFees() {
+        return fees;
+    }
+
+    public void setFees(BigDecimal fees) {
+        this.fees = fees;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
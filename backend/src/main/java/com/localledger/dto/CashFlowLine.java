@@ -0,0 +1,67 @@
+package com.localledger.dto;
+
+import com.localledger.entity.CashFlowRecord;
+import com.localledger.entity.enums.Currency;
+import com.localledger.entity.enums.RecordType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 出入金记录只读行（现金余额回放用）
+ * 只包含计算现金余额所需的列，由 JPQL 构造表达式直接从 cash_flow_records 读取，
+ * 不经过实体加载和券商关联抓取。
+ */
+public class CashFlowLine {
+
+    private final Long id;
+    private final LocalDate recordDate;
+    private final Long brokerId;
+    private final RecordType recordType;
+    private final BigDecimal amount;
+    private final Currency currency;
+
+    public CashFlowLine(Long id, LocalDate recordDate, Long brokerId, RecordType recordType,
+                        BigDecimal amount, Currency currency) {
+        this.id = id;
+        this.recordDate = recordDate;
+        this.brokerId = brokerId;
+        this.recordType = recordType;
+        this.amount = amount;
+        this.currency = currency;
+    }
+
+    /**
+     * 从出入金记录实体构造
+     */
+    public static CashFlowLine of(CashFlowRecord record) {
+        return new CashFlowLine(record.getId(), record.getRecordDate(), record.getBrokerId(),
+                record.getRecordType(), record.getAmount(), record.getCurrency());
+    }
+
+    // ============ Getters ============
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+}
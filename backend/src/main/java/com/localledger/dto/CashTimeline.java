@@ -0,0 +1,114 @@
+package com.localledger.dto;
+
+import com.localledger.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 现金余额时间线 DTO
+ * 用于绘制一段时间内的可用现金走势：dates 为各采样点日期，每个 (brokerId, currency) 一条序列，
+ * balances[i] 为截止 dates[i]（含）的现金余额，与 dates 一一对应。
+ */
+public class CashTimeline {
+
+    /**
+     * 单个 (brokerId, currency) 的现金余额序列
+     */
+    public static class Series {
+
+        /** 券商ID */
+        private Long brokerId;
+
+        /** 券商名称 */
+        private String brokerName;
+
+        /** 币种 */
+        private Currency currency;
+
+        /** 各采样点的现金余额，与 CashTimeline.dates 一一对应 */
+        private BigDecimal[] balances;
+
+        public Series() {
+        }
+
+        // ============ Getters and Setters ============
+
+        public Long getBrokerId() {
+            return brokerId;
+        }
+
+        public void setBrokerId(Long brokerId) {
+            this.brokerId = brokerId;
+        }
+
+        public String getBrokerName() {
+            return brokerName;
+        }
+
+        public void setBrokerName(String brokerName) {
+            this.brokerName = brokerName;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public void setCurrency(Currency currency) {
+            this.currency = currency;
+        }
+
+        public BigDecimal[] getBalances() {
+            return balances;
+        }
+
+        public void setBalances(BigDecimal[] balances) {
+            this.balances = balances;
+        }
+    }
+
+    /** 采样粒度（与持仓历史序列相同） */
+    private PositionHistory.Granularity granularity;
+
+    /** 采样点日期（升序） */
+    private List<LocalDate> dates;
+
+    /** 现金余额序列（按券商ID、币种排序，截止结束日期仍未发生过现金变动的不返回） */
+    private List<Series> series;
+
+    public CashTimeline() {
+    }
+
+    public CashTimeline(PositionHistory.Granularity granularity, List<LocalDate> dates, List<Series> series) {
+        this.granularity = granularity;
+        this.dates = dates;
+        this.series = series;
+    }
+
+    // ============ Getters and Setters ============
+
+    public PositionHistory.Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(PositionHistory.Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+
+    public void setDates(List<LocalDate> dates) {
+        this.dates = dates;
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    public void setSeries(List<Series> series) {
+        this.series = series;
+    }
+}
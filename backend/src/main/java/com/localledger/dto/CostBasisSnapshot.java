@@ -0,0 +1,81 @@
+package com.localledger.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 持仓成本快照 DTO
+ * 用于展示截止某一日期每个 (symbol, brokerId) 的移动加权平均成本
+ */
+public class CostBasisSnapshot {
+
+    /** 证券代码 */
+    private String symbol;
+
+    /** 券商ID */
+    private Long brokerId;
+
+    /** 持仓数量 */
+    private Integer quantity;
+
+    /** 持仓成本池（持仓总成本） */
+    private BigDecimal costPool;
+
+    /** 平均持仓成本（精度4位小数） */
+    private BigDecimal averageCost;
+
+    public CostBasisSnapshot() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getCostPool() {
+        return costPool;
+    }
+
+    public void setCostPool(BigDecimal costPool) {
+        this.costPool = costPool;
+    }
+
+    public BigDecimal getAverageCost() {
+        return averageCost;
+    }
+
+    public void setAverageCost(BigDecimal averageCost) {
+        this.averageCost = averageCost;
+    }
+
+    @Override
+    public String toString() {
+        return "CostBasisSnapshot{" +
+                "symbol='" + symbol + '\'' +
+                ", brokerId=" + brokerId +
+                ", quantity=" + quantity +
+                ", costPool=" + costPool +
+                ", averageCost=" + averageCost +
+                '}';
+    }
+}
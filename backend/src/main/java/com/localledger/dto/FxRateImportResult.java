@@ -0,0 +1,65 @@
+package com.localledger.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 汇率导入结果 DTO
+ */
+public class FxRateImportResult {
+
+    /** 新增的汇率条数 */
+    private int insertedCount;
+
+    /** 汇率有变化而更新的条数（已存在且汇率相同的不计入） */
+    private int updatedCount;
+
+    /** 导入汇率的最早日期 */
+    private LocalDate startDate;
+
+    /** 导入汇率的最晚日期 */
+    private LocalDate endDate;
+
+    public FxRateImportResult() {
+    }
+
+    public FxRateImportResult(int insertedCount, int updatedCount, LocalDate startDate, LocalDate endDate) {
+        this.insertedCount = insertedCount;
+        this.updatedCount = updatedCount;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    // ============ Getters and Setters ============
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public void setInsertedCount(int insertedCount) {
+        this.insertedCount = insertedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
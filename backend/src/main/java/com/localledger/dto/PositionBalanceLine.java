@@ -0,0 +1,78 @@
+package com.localledger.dto;
+
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+
+import java.time.LocalDate;
+
+/**
+ * 持仓台账只读行（持仓历史序列、持仓快照缓存用）
+ * 只包含截止某日的持仓余额和展示所需的列，由 JPQL 构造表达式直接从 position_daily_deltas 读取，
+ * 不经过实体加载和持久化上下文，适用于按日期区间大批量扫描台账。
+ */
+public class PositionBalanceLine {
+
+    private final String symbol;
+    private final Long brokerId;
+    private final LocalDate tradeDate;
+    private final Integer balance;
+    private final String name;
+    private final String underlyingSymbol;
+    private final AssetType assetType;
+    private final Currency currency;
+
+    public PositionBalanceLine(String symbol, Long brokerId, LocalDate tradeDate, Integer balance, String name,
+                               String underlyingSymbol, AssetType assetType, Currency currency) {
+        this.symbol = symbol;
+        this.brokerId = brokerId;
+        this.tradeDate = tradeDate;
+        this.balance = balance;
+        this.name = name;
+        this.underlyingSymbol = underlyingSymbol;
+        this.assetType = assetType;
+        this.currency = currency;
+    }
+
+    /**
+     * 从台账实体构造
+     */
+    public static PositionBalanceLine of(PositionDailyDelta row) {
+        return new PositionBalanceLine(row.getSymbol(), row.getBrokerId(), row.getTradeDate(), row.getBalance(),
+                row.getName(), row.getUnderlyingSymbol(), row.getAssetType(), row.getCurrency());
+    }
+
+    // ============ Getters ============
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public Integer getBalance() {
+        return balance;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnderlyingSymbol() {
+        return underlyingSymbol;
+    }
+
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+}
@@ -0,0 +1,179 @@
+package com.localledger.dto;
+
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 持仓历史序列 DTO
+ * 用于绘制一段时间内的持仓走势：dates 为各采样点日期，每个 (symbol, brokerId) 一条序列，
+ * quantities[i] 为截止 dates[i]（含）的持仓数量，与 dates 一一对应。
+ */
+public class PositionHistory {
+
+    /**
+     * 采样粒度：按日、按周（周日）、按月（月末）取持仓，最后一个采样点为查询的结束日期
+     */
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        /**
+         * 解析请求参数（不区分大小写）
+         */
+        public static Granularity of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的采样粒度: " + value + "（可选 day / week / month）");
+            }
+        }
+
+        /**
+         * date 所在采样周期的最后一天
+         */
+        public LocalDate periodEnd(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+                case MONTH -> date.with(TemporalAdjusters.lastDayOfMonth());
+            };
+        }
+    }
+
+    /**
+     * 单个 (symbol, brokerId) 的持仓序列
+     */
+    public static class Series {
+
+        /** 证券代码 */
+        private String symbol;
+
+        /** 证券名称（取结束日期前最新的名称） */
+        private String name;
+
+        /** 证券类型 */
+        private AssetType assetType;
+
+        /** 币种 */
+        private Currency currency;
+
+        /** 券商ID */
+        private Long brokerId;
+
+        /** 券商名称 */
+        private String brokerName;
+
+        /** 各采样点的持仓数量，与 PositionHistory.dates 一一对应 */
+        private int[] quantities;
+
+        public Series() {
+        }
+
+        // ============ Getters and Setters ============
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public void setSymbol(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public AssetType getAssetType() {
+            return assetType;
+        }
+
+        public void setAssetType(AssetType assetType) {
+            this.assetType = assetType;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public void setCurrency(Currency currency) {
+            this.currency = currency;
+        }
+
+        public Long getBrokerId() {
+            return brokerId;
+        }
+
+        public void setBrokerId(Long brokerId) {
+            this.brokerId = brokerId;
+        }
+
+        public String getBrokerName() {
+            return brokerName;
+        }
+
+        public void setBrokerName(String brokerName) {
+            this.brokerName = brokerName;
+        }
+
+        public int[] getQuantities() {
+            return quantities;
+        }
+
+        public void setQuantities(int[] quantities) {
+            this.quantities = quantities;
+        }
+    }
+
+    /** 采样粒度 */
+    private Granularity granularity;
+
+    /** 采样点日期（升序） */
+    private List<LocalDate> dates;
+
+    /** 持仓序列（按券商ID、证券代码排序，区间内持仓始终为 0 的不返回） */
+    private List<Series> series;
+
+    public PositionHistory() {
+    }
+
+    public PositionHistory(Granularity granularity, List<LocalDate> dates, List<Series> series) {
+        this.granularity = granularity;
+        this.dates = dates;
+        this.series = series;
+    }
+
+    // ============ Getters and Setters ============
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+
+    public void setDates(List<LocalDate> dates) {
+        this.dates = dates;
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    public void setSeries(List<Series> series) {
+        this.series = series;
+    }
+}
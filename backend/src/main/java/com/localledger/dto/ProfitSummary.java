@@ -0,0 +1,144 @@
+package com.localledger.dto;
+
+import com.localledger.entity.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * 盈亏汇总 DTO
+ * 按某一维度（底层证券 / 策略 / 券商）+ 币种汇总的已实现盈亏，
+ * underlyingSymbol、strategyId、brokerId 中只有当前维度对应的字段有值
+ */
+public class ProfitSummary {
+
+    /** 底层证券代码（按证券汇总时有值，期权按底层证券归并） */
+    private String underlyingSymbol;
+
+    /** 策略ID（按策略汇总时有值，未分配策略的交易为 null） */
+    private Long strategyId;
+
+    /** 券商ID（按券商汇总时有值） */
+    private Long brokerId;
+
+    /** 维度名称（证券名称 / 策略名称 / 券商名称） */
+    private String name;
+
+    /** 币种 */
+    private Currency currency;
+
+    /** 已实现盈亏（不含费用，精度2位小数） */
+    private BigDecimal realizedProfit;
+
+    /** 交易费用合计 */
+    private BigDecimal totalFee;
+
+    /** 净盈亏 = 已实现盈亏 - 交易费用 */
+    private BigDecimal netProfit;
+
+    /** 交易笔数 */
+    private Integer tradeCount;
+
+    /** 产生已实现盈亏的平仓交易笔数 */
+    private Integer closedTradeCount;
+
+    public ProfitSummary() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public String getUnderlyingSymbol() {
+        return underlyingSymbol;
+    }
+
+    public void setUnderlyingSymbol(String underlyingSymbol) {
+        this.underlyingSymbol = underlyingSymbol;
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    public void setStrategyId(Long strategyId) {
+        this.strategyId = strategyId;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getRealizedProfit() {
+        return realizedProfit;
+    }
+
+    public void setRealizedProfit(BigDecimal realizedProfit) {
+        this.realizedProfit = realizedProfit;
+    }
+
+    public BigDecimal getTotalFee() {
+        return totalFee;
+    }
+
+    public void setTotalFee(BigDecimal totalFee) {
+        this.totalFee = totalFee;
+    }
+
+    public BigDecimal getNetProfit() {
+        return netProfit;
+    }
+
+    public void setNetProfit(BigDecimal netProfit) {
+        this.netProfit = netProfit;
+    }
+
+    public Integer getTradeCount() {
+        return tradeCount;
+    }
+
+    public void setTradeCount(Integer tradeCount) {
+        this.tradeCount = tradeCount;
+    }
+
+    public Integer getClosedTradeCount() {
+        return closedTradeCount;
+    }
+
+    public void setClosedTradeCount(Integer closedTradeCount) {
+        this.closedTradeCount = closedTradeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfitSummary{" +
+                "underlyingSymbol='" + underlyingSymbol + '\'' +
+                ", strategyId=" + strategyId +
+                ", brokerId=" + brokerId +
+                ", name='" + name + '\'' +
+                ", currency=" + currency +
+                ", realizedProfit=" + realizedProfit +
+                ", totalFee=" + totalFee +
+                ", netProfit=" + netProfit +
+                ", tradeCount=" + tradeCount +
+                ", closedTradeCount=" + closedTradeCount +
+                '}';
+    }
+}
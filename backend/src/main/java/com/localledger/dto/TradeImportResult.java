@@ -0,0 +1,65 @@
+package com.localledger.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 交易记录批量导入结果 DTO
+ */
+public class TradeImportResult {
+
+    /** 成功导入的交易记录条数 */
+    private int importedCount;
+
+    /** 导入记录涉及的证券代码（已按这些 symbols 统一执行或登记一次市场事件级联重算） */
+    private List<String> affectedSymbols;
+
+    /** 导入记录中最早的交易日期（级联重算的起始日期） */
+    private LocalDate earliestTradeDate;
+
+    /** 异步级联重算模式下登记的级联重算任务ID，同步模式下为 null */
+    private Long cascadeJobId;
+
+    public TradeImportResult() {
+    }
+
+    public TradeImportResult(int importedCount, List<String> affectedSymbols, LocalDate earliestTradeDate) {
+        this.importedCount = importedCount;
+        this.affectedSymbols = affectedSymbols;
+        this.earliestTradeDate = earliestTradeDate;
+    }
+
+    // ============ Getters and Setters ============
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public List<String> getAffectedSymbols() {
+        return affectedSymbols;
+    }
+
+    public void setAffectedSymbols(List<String> affectedSymbols) {
+        this.affectedSymbols = affectedSymbols;
+    }
+
+    public LocalDate getEarliestTradeDate() {
+        return earliestTradeDate;
+    }
+
+    public void setEarliestTradeDate(LocalDate earliestTradeDate) {
+        this.earliestTradeDate = earliestTradeDate;
+    }
+
+    public Long getCascadeJobId() {
+        return cascadeJobId;
+    }
+
+    public void setCascadeJobId(Long cascadeJobId) {
+        this.cascadeJobId = cascadeJobId;
+    }
+}
@@ -0,0 +1,125 @@
+package com.localledger.dto;
+
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import com.localledger.entity.enums.TradeType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 交易记录只读行（回放计算用）
+ * 只包含持仓台账、持仓成本、盈亏计算所需的列，由 JPQL 构造表达式直接从 trade_records 读取，
+ * 不经过实体加载、关联抓取和持久化上下文，适用于大批量扫描。
+ */
+public class TradeLine {
+
+    private final Long id;
+    private final LocalDate tradeDate;
+    private final String symbol;
+    private final String name;
+    private final String underlyingSymbol;
+    private final AssetType assetType;
+    private final Currency currency;
+    private final TradeType tradeType;
+    private final Integer quantity;
+    private final BigDecimal amount;
+    private final BigDecimal fee;
+    private final Long brokerId;
+    private final Long strategyId;
+
+    public TradeLine(Long id, LocalDate tradeDate, String symbol, String name, String underlyingSymbol,
+                     AssetType assetType, Currency currency, TradeType tradeType, Integer quantity,
+                     BigDecimal amount, BigDecimal fee, Long brokerId, Long strategyId) {
+        this.id = id;
+        this.tradeDate = tradeDate;
+        this.symbol = symbol;
+        this.name = name;
+        this.underlyingSymbol = underlyingSymbol;
+        this.assetType = assetType;
+        this.currency = currency;
+        this.tradeType = tradeType;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.fee = fee;
+        this.brokerId = brokerId;
+        this.strategyId = strategyId;
+    }
+
+    /**
+     * 从交易记录实体构造（如级联重算中刚生成的系统交易记录）
+     */
+    public static TradeLine of(TradeRecord record) {
+        return new TradeLine(record.getId(), record.getTradeDate(), record.getSymbol(), record.getName(),
+                record.getUnderlyingSymbol(), record.getAssetType(), record.getCurrency(), record.getTradeType(),
+                record.getQuantity(), record.getAmount(), record.getFee(), record.getBrokerId(), record.getStrategyId());
+    }
+
+    // ============ Getters ============
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnderlyingSymbol() {
+        return underlyingSymbol;
+    }
+
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public TradeType getTradeType() {
+        return tradeType;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getFee() {
+        return fee;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    @Override
+    public String toString() {
+        return "TradeLine{" +
+                "id=" + id +
+                ", tradeDate=" + tradeDate +
+                ", symbol='" + symbol + '\'' +
+                ", brokerId=" + brokerId +
+                ", tradeType=" + tradeType +
+                ", quantity=" + quantity +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.localledger.dto;
+
+import com.localledger.entity.TradeRecord;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 交易记录分页查询结果 DTO
+ * 下一页请求时把 nextCursorDate / nextCursorId 作为 cursorDate / cursorId 传回
+ */
+public class TradeRecordPage {
+
+    /** 当前页的交易记录（按交易日期、ID 倒序） */
+    private List<TradeRecord> items;
+
+    /** 是否还有下一页 */
+    private boolean hasMore;
+
+    /** 下一页游标：当前页最后一条记录的交易日期（没有下一页时为 null） */
+    private LocalDate nextCursorDate;
+
+    /** 下一页游标：当前页最后一条记录的ID（没有下一页时为 null） */
+    private Long nextCursorId;
+
+    /** 满足筛选条件的总条数（仅在 includeTotal=true 时返回） */
+    private Long totalCount;
+
+    public TradeRecordPage() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public List<TradeRecord> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TradeRecord> items) {
+        this.items = items;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public LocalDate getNextCursorDate() {
+        return nextCursorDate;
+    }
+
+    public void setNextCursorDate(LocalDate nextCursorDate) {
+        this.nextCursorDate = nextCursorDate;
+    }
+
+    public Long getNextCursorId() {
+        return nextCursorId;
+    }
+
+    public void setNextCursorId(Long nextCursorId) {
+        this.nextCursorId = nextCursorId;
+    }
+
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Long totalCount) {
+        this.totalCount = totalCount;
+    }
+}
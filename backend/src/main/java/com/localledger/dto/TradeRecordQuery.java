@@ -0,0 +1,166 @@
+package com.localledger.dto;
+
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TriggerRefType;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * 交易记录分页查询条件 DTO
+ * 所有筛选条件均可选、可任意组合；分页使用 (tradeDate, id) 游标，按交易日期、ID 倒序翻页
+ */
+public class TradeRecordQuery {
+
+    /** 券商ID */
+    private Long brokerId;
+
+    /** 证券类型 */
+    private AssetType assetType;
+
+    /** 策略ID */
+    private Long strategyId;
+
+    /** 底层证券代码（精确匹配，不区分大小写） */
+    private String underlyingSymbol;
+
+    /** 证券代码（模糊匹配，不区分大小写） */
+    private String symbol;
+
+    /** 开始日期（含） */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    /** 结束日期（含） */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    /** 触发来源 */
+    private TradeTrigger tradeTrigger;
+
+    /** 触发关联类型 */
+    private TriggerRefType triggerRefType;
+
+    /** 游标：上一页最后一条记录的交易日期（首页不传） */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate cursorDate;
+
+    /** 游标：上一页最后一条记录的ID（首页不传，与 cursorDate 同时传入） */
+    private Long cursorId;
+
+    /** 每页条数 */
+    private Integer size;
+
+    /** 是否返回满足筛选条件的总条数（需要额外一次 COUNT 查询，默认不返回） */
+    private boolean includeTotal;
+
+    public TradeRecordQuery() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    public void setAssetType(AssetType assetType) {
+        this.assetType = assetType;
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    public void setStrategyId(Long strategyId) {
+        this.strategyId = strategyId;
+    }
+
+    public String getUnderlyingSymbol() {
+        return underlyingSymbol;
+    }
+
+    public void setUnderlyingSymbol(String underlyingSymbol) {
+        this.underlyingSymbol = underlyingSymbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public TradeTrigger getTradeTrigger() {
+        return tradeTrigger;
+    }
+
+    public void setTradeTrigger(TradeTrigger tradeTrigger) {
+        this.tradeTrigger = tradeTrigger;
+    }
+
+    public TriggerRefType getTriggerRefType() {
+        return triggerRefType;
+    }
+
+    public void setTriggerRefType(TriggerRefType triggerRefType) {
+        this.triggerRefType = triggerRefType;
+    }
+
+    public LocalDate getCursorDate() {
+        return cursorDate;
+    }
+
+    public void setCursorDate(LocalDate cursorDate) {
+        this.cursorDate = cursorDate;
+    }
+
+    public Long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(Long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public boolean isIncludeTotal() {
+        return includeTotal;
+    }
+
+    public void setIncludeTotal(boolean includeTotal) {
+        this.includeTotal = includeTotal;
+    }
+}
@@ -1,5 +1,7 @@
 package com.localledger.dto;
 
+import com.localledger.entity.enums.Currency;
+
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -34,10 +36,16 @@ public class TradeStatistics {
     /** 总交易费用（HKD） */
     private BigDecimal totalFeeHKD;
 
+    /** 折算本位币（请求参数 baseCurrency，未指定时为 null） */
+    private Currency baseCurrency;
+
+    /** 按交易日期汇率折算为本位币的总交易费用（未指定本位币时为 null） */
+    private BigDecimal totalFee;
+
     /** 涉及证券数量（underlyingSymbol 去重计数） */
     private Long distinctSymbolCount;
 
-    /** Top 5 最常交易的证券，每项包含 symbol 和 count */
+    /** Top 10 最常交易的证券，每项包含 symbol 和 count */
     private List<Map<String, Object>> topSymbols;
 
     public TradeStatistics() {
@@ -109,6 +117,22 @@ public class TradeStatistics {
         this.totalFeeHKD = totalFeeHKD;
     }
 
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(Currency baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    public BigDecimal getTotalFee() {
+        return totalFee;
+    }
+
+    public void setTotalFee(BigDecimal totalFee) {
+        this.totalFee = totalFee;
+    }
+
     public Long getDistinctSymbolCount() {
         return distinctSymbolCount;
     }
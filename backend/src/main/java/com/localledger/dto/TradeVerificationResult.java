@@ -24,6 +24,11 @@ public class TradeVerificationResult {
      */
     private int errorCount;
 
+    /**
+     * 本次实际重新核对的记录数（其余记录直接使用已保存的核对结果）
+     */
+    private int recheckedCount;
+
     /**
      * 异常记录详情列表
      */
@@ -162,6 +167,14 @@ public class TradeVerificationResult {
         this.errorCount = errorCount;
     }
 
+    public int getRecheckedCount() {
+        return recheckedCount;
+    }
+
+    public void setRecheckedCount(int recheckedCount) {
+        this.recheckedCount = recheckedCount;
+    }
+
     public List<ErrorDetail> getErrors() {
         return errors;
     }
@@ -1,36 +1,18 @@
 package com.localledger.entity;
 
 import jakarta.persistence.*;
-import java.time.LocalDateTime;
 
 /**
  * 基础实体类
- * 包含所有实体的公共字段
+ * 包含所有实体的公共字段（自增主键 + 审计字段）
  */
 @MappedSuperclass
-public abstract class BaseEntity {
+public abstract class BaseEntity extends AuditableEntity {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(name = "created_at", nullable = false, updatable = false)
-    private LocalDateTime createdAt;
-    
-    @Column(name = "updated_at")
-    private LocalDateTime updatedAt;
-    
-    @PrePersist
-    protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
-    }
-    
-    @PreUpdate
-    protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
-    }
-    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -39,20 +21,4 @@ public abstract class BaseEntity {
     public void setId(Long id) {
         this.id = id;
     }
-    
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
-    }
-    
-    public void setCreatedAt(LocalDateTime createdAt) {
-        this.createdAt = createdAt;
-    }
-    
-    public LocalDateTime getUpdatedAt() {
-        return updatedAt;
-    }
-    
-    public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
-    }
 }
@@ -66,6 +66,12 @@ public abstract class BaseMarketEvent extends BaseEntity {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
 
+    /**
+     * 异步级联重算模式下，本次新增/修改登记的级联重算任务ID（不持久化，仅随接口响应返回）
+     */
+    @Transient
+    private Long cascadeJobId;
+
     // ============ Getters and Setters ============
 
     public String getSymbol() {
@@ -131,4 +137,12 @@ public abstract class BaseMarketEvent extends BaseEntity {
     public void setProcessedAt(LocalDateTime processedAt) {
         this.processedAt = processedAt;
     }
+
+    public Long getCascadeJobId() {
+        return cascadeJobId;
+    }
+
+    public void setCascadeJobId(Long cascadeJobId) {
+        this.cascadeJobId = cascadeJobId;
+    }
 }
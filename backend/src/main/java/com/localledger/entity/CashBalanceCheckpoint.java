@@ -0,0 +1,129 @@
+package com.localledger.entity;
+
+import com.localledger.entity.enums.Currency;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 现金余额检查点实体类
+ * 对应数据库 cash_balance_checkpoints 表
+ *
+ * 同一 checkpointDate 下的所有行构成截止该日期（含）的完整现金余额快照。
+ * 由 CashLedgerService 在计算现金余额时生成，交易记录或出入金记录变动时按日期整体失效。
+ */
+@Entity
+@Table(name = "cash_balance_checkpoints",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cash_balance_checkpoints_key",
+                columnNames = {"checkpoint_date", "broker_id", "currency"}))
+public class CashBalanceCheckpoint extends BaseEntity {
+
+    /**
+     * 检查点日期（含当日全部交易和出入金）
+     */
+    @Column(name = "checkpoint_date", nullable = false)
+    private LocalDate checkpointDate;
+
+    /**
+     * 券商ID
+     */
+    @Column(name = "broker_id", nullable = false)
+    private Long brokerId;
+
+    /**
+     * 币种
+     */
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    @Column(name = "currency", nullable = false, columnDefinition = "currency_enum")
+    private Currency currency;
+
+    /**
+     * 截止检查点日期的净入金（入金 - 出金）
+     */
+    @Column(name = "net_deposit", nullable = false, precision = 20, scale = 2)
+    private BigDecimal netDeposit;
+
+    /**
+     * 截止检查点日期的交易净额（卖出金额 - 买入金额）
+     */
+    @Column(name = "trade_net", nullable = false, precision = 20, scale = 2)
+    private BigDecimal tradeNet;
+
+    /**
+     * 截止检查点日期的手续费合计
+     */
+    @Column(name = "fees", nullable = false, precision = 20, scale = 2)
+    private BigDecimal fees;
+
+    // ============ Constructors ============
+
+    public CashBalanceCheckpoint() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public LocalDate getCheckpointDate() {
+        return checkpointDate;
+    }
+
+    public void setCheckpointDate(LocalDate checkpointDate) {
+        this.checkpointDate = checkpointDate;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getNetDeposit() {
+        return netDeposit;
+    }
+
+    public void setNetDeposit(BigDecimal netDeposit) {
+        this.netDeposit = netDeposit;
+    }
+
+    public BigDecimal getTradeNet() {
+        return tradeNet;
+    }
+
+    public void setTradeNet(BigDecimal tradeNet) {
+        this.tradeNet = tradeNet;
+    }
+
+    public BigDecimal getFees() {
+        return fees;
+    }
+
+    public void setFees(BigDecimal fees) {
+        this.fees = fees;
+    }
+
+    @Override
+    public String toString() {
+        return "CashBalanceCheckpoint{" +
+                "id=" + getId() +
+                ", checkpointDate=" + checkpointDate +
+                ", brokerId=" + brokerId +
+                ", currency=" + currency +
+                ", netDeposit=" + netDeposit +
+                ", tradeNet=" + tradeNet +
+                ", fees=" + fees +
+                '}';
+    }
+}
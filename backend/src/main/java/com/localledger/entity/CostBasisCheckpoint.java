@@ -0,0 +1,109 @@
+package com.localledger.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 持仓成本检查点实体类
+ * 对应数据库 cost_basis_checkpoints 表
+ *
+ * 同一 checkpointDate 下的所有行构成截止该日期（含）的完整移动加权平均成本快照。
+ * 由 CostBasisService 在计算持仓成本时生成，某个 (symbol, brokerId) 的交易记录变动时只重算该键在变动日期及之后的行。
+ */
+@Entity
+@Table(name = "cost_basis_checkpoints",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cost_basis_checkpoints_key",
+                columnNames = {"checkpoint_date", "symbol", "broker_id"}))
+public class CostBasisCheckpoint extends BaseEntity {
+
+    /**
+     * 检查点日期（含当日全部交易）
+     */
+    @Column(name = "checkpoint_date", nullable = false)
+    private LocalDate checkpointDate;
+
+    /**
+     * 证券代码
+     */
+    @Column(name = "symbol", nullable = false, length = 50)
+    private String symbol;
+
+    /**
+     * 券商ID
+     */
+    @Column(name = "broker_id", nullable = false)
+    private Long brokerId;
+
+    /**
+     * 截止检查点日期的持仓数量
+     */
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    /**
+     * 截止检查点日期的持仓成本池（精度6位小数）
+     */
+    @Column(name = "cost_pool", nullable = false, precision = 24, scale = 6)
+    private BigDecimal costPool;
+
+    // ============ Constructors ============
+
+    public CostBasisCheckpoint() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public LocalDate getCheckpointDate() {
+        return checkpointDate;
+    }
+
+    public void setCheckpointDate(LocalDate checkpointDate) {
+        this.checkpointDate = checkpointDate;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getCostPool() {
+        return costPool;
+    }
+
+    public void setCostPool(BigDecimal costPool) {
+        this.costPool = costPool;
+    }
+
+    @Override
+    public String toString() {
+        return "CostBasisCheckpoint{" +
+                "id=" + getId() +
+                ", checkpointDate=" + checkpointDate +
+                ", symbol='" + symbol + '\'' +
+                ", brokerId=" + brokerId +
+                ", quantity=" + quantity +
+                ", costPool=" + costPool +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.localledger.entity;
+
+import com.localledger.entity.enums.Currency;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 汇率实体类
+ * 对应数据库 fx_rates 表
+ *
+ * rate 为 1 单位 currency 折合人民币的金额；人民币为记账本位币，汇率固定为 1，不在表中保存。
+ */
+@Entity
+@Table(name = "fx_rates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_fx_rates_date_currency",
+                columnNames = {"rate_date", "currency"}))
+public class FxRate extends BaseEntity {
+
+    /**
+     * 汇率日期
+     */
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate rateDate;
+
+    /**
+     * 币种（不含人民币）
+     */
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    @Column(name = "currency", nullable = false, columnDefinition = "currency_enum")
+    private Currency currency;
+
+    /**
+     * 1 单位该币种折合人民币金额
+     */
+    @Column(name = "rate", nullable = false, precision = 20, scale = 8)
+    private BigDecimal rate;
+
+    // ============ Constructors ============
+
+    public FxRate() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public LocalDate getRateDate() {
+        return rateDate;
+    }
+
+    public void setRateDate(LocalDate rateDate) {
+        this.rateDate = rateDate;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public String toString() {
+        return "FxRate{" +
+                "id=" + getId() +
+                ", rateDate=" + rateDate +
+                ", currency=" + currency +
+                ", rate=" + rate +
+                '}';
+    }
+}
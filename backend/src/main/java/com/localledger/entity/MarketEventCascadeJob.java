@@ -0,0 +1,167 @@
+package com.localledger.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.localledger.entity.enums.CascadeJobStatus;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 市场事件级联重算任务实体类
+ * 对应数据库 market_event_cascade_jobs 表
+ *
+ * 异步级联重算模式下，市场事件的新增/修改/删除登记一个任务，由 MarketEventCascadeWorker 在后台执行。
+ * 同一证券代码集合只保留一个 PENDING 任务，重复登记时起始日期取较早者。
+ */
+@Entity
+@Table(name = "market_event_cascade_jobs")
+public class MarketEventCascadeJob extends BaseEntity {
+
+    /**
+     * 受影响的证券代码（升序，逗号分隔）
+     */
+    @Column(name = "symbols", nullable = false, columnDefinition = "TEXT")
+    private String symbols;
+
+    /**
+     * 证券代码集合的 SHA-256 摘要（去重键，不参与 JSON 序列化）
+     */
+    @JsonIgnore
+    @Column(name = "symbols_hash", nullable = false, length = 64)
+    private String symbolsHash;
+
+    /**
+     * 从该日期（含）开始的事件需要重算
+     */
+    @Column(name = "since_date", nullable = false)
+    private LocalDate sinceDate;
+
+    /**
+     * 任务状态：PENDING-等待执行，RUNNING-执行中，COMPLETED-已完成，FAILED-失败
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private CascadeJobStatus status = CascadeJobStatus.PENDING;
+
+    /**
+     * 需要重算的事件数（开始执行后确定）
+     */
+    @Column(name = "total_events")
+    private Integer totalEvents;
+
+    /**
+     * 已重算的事件数
+     */
+    @Column(name = "processed_events", nullable = false)
+    private Integer processedEvents = 0;
+
+    /**
+     * 失败原因
+     */
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    /**
+     * 开始执行时间
+     */
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 执行结束时间
+     */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // ============ Constructors ============
+
+    public MarketEventCascadeJob() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public String getSymbols() {
+        return symbols;
+    }
+
+    public void setSymbols(String symbols) {
+        this.symbols = symbols;
+    }
+
+    public String getSymbolsHash() {
+        return symbolsHash;
+    }
+
+    public void setSymbolsHash(String symbolsHash) {
+        this.symbolsHash = symbolsHash;
+    }
+
+    public LocalDate getSinceDate() {
+        return sinceDate;
+    }
+
+    public void setSinceDate(LocalDate sinceDate) {
+        this.sinceDate = sinceDate;
+    }
+
+    public CascadeJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CascadeJobStatus status) {
+        this.status = status;
+    }
+
+    public Integer getTotalEvents() {
+        return totalEvents;
+    }
+
+    public void setTotalEvents(Integer totalEvents) {
+        this.totalEvents = totalEvents;
+    }
+
+    public Integer getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public void setProcessedEvents(Integer processedEvents) {
+        this.processedEvents = processedEvents;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "MarketEventCascadeJob{" +
+                "id=" + getId() +
+                ", symbols='" + symbols + '\'' +
+                ", sinceDate=" + sinceDate +
+                ", status=" + status +
+                ", totalEvents=" + totalEvents +
+                ", processedEvents=" + processedEvents +
+                '}';
+    }
+}
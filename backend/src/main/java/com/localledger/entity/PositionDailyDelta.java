@@ -0,0 +1,175 @@
+package com.localledger.entity;
+
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+
+import java.time.LocalDate;
+
+/**
+ * 每日持仓变动台账实体类
+ * 对应数据库 position_daily_deltas 表
+ *
+ * 每个 (symbol, brokerId, tradeDate) 一行，记录当日持仓净变动和截止当日的累计持仓。
+ * 由 PositionLedgerService 根据交易记录增量维护，不直接对外写入。
+ */
+@Entity
+@Table(name = "position_daily_deltas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_position_daily_deltas_key",
+                columnNames = {"symbol", "broker_id", "trade_date"}))
+public class PositionDailyDelta extends BaseEntity {
+
+    /**
+     * 证券代码
+     */
+    @Column(name = "symbol", nullable = false, length = 50)
+    private String symbol;
+
+    /**
+     * 券商ID
+     */
+    @Column(name = "broker_id", nullable = false)
+    private Long brokerId;
+
+    /**
+     * 交易日期
+     */
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    /**
+     * 当日持仓净变动（BUY 为正，SELL 为负）
+     */
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+
+    /**
+     * 截止当日（含）的累计持仓数量
+     */
+    @Column(name = "balance", nullable = false)
+    private Integer balance;
+
+    /**
+     * 截止当日最新的证券名称（取最近一条非空名称）
+     */
+    @Column(name = "name", length = 200)
+    private String name;
+
+    /**
+     * 底层证券代码
+     */
+    @Column(name = "underlying_symbol", length = 50)
+    private String underlyingSymbol;
+
+    /**
+     * 证券类型
+     */
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    @Column(name = "asset_type", nullable = false, columnDefinition = "asset_type_enum")
+    private AssetType assetType;
+
+    /**
+     * 币种
+     */
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    @Column(name = "currency", nullable = false, columnDefinition = "currency_enum")
+    private Currency currency;
+
+    // ============ Constructors ============
+
+    public PositionDailyDelta() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public void setTradeDate(LocalDate tradeDate) {
+        this.tradeDate = tradeDate;
+    }
+
+    public Integer getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public void setQuantityDelta(Integer quantityDelta) {
+        this.quantityDelta = quantityDelta;
+    }
+
+    public Integer getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Integer balance) {
+        this.balance = balance;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUnderlyingSymbol() {
+        return underlyingSymbol;
+    }
+
+    public void setUnderlyingSymbol(String underlyingSymbol) {
+        this.underlyingSymbol = underlyingSymbol;
+    }
+
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    public void setAssetType(AssetType assetType) {
+        this.assetType = assetType;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionDailyDelta{" +
+                "id=" + getId() +
+                ", symbol='" + symbol + '\'' +
+                ", brokerId=" + brokerId +
+                ", tradeDate=" + tradeDate +
+                ", quantityDelta=" + quantityDelta +
+                ", balance=" + balance +
+                ", name='" + name + '\'' +
+                ", assetType=" + assetType +
+                ", currency=" + currency +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package com.localledger.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.localledger.entity.enums.AssetType;
 import com.localledger.entity.enums.Currency;
 import com.localledger.entity.enums.TradeTrigger;
@@ -18,7 +19,17 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "trade_records")
-public class TradeRecord extends BaseEntity {
+public class TradeRecord extends AuditableEntity {
+
+    /**
+     * 主键（序列生成，每次从 trade_records_id_seq 预取 50 个ID）
+     * 不使用 IDENTITY：IDENTITY 主键要求每条 INSERT 立即执行以取回ID，会使 Hibernate 的 JDBC 批量插入失效，
+     * 改用序列后批量导入和级联重算生成的交易记录可以按 hibernate.jdbc.batch_size 批量写入
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_records_id_seq")
+    @SequenceGenerator(name = "trade_records_id_seq", sequenceName = "trade_records_id_seq", allocationSize = 50)
+    private Long id;
 
     /**
      * 交易日期
@@ -33,9 +44,11 @@ public class TradeRecord extends BaseEntity {
     private Long brokerId;
 
     /**
-     * 关联的券商实体（只读，用于查询时自动关联券商信息）
+     * 关联的券商实体（只读，懒加载，不参与 JSON 序列化）
+     * 列表查询和回放计算只使用 brokerId，前端按 brokerId 解析券商名称
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "broker_id", insertable = false, updatable = false)
     private Broker broker;
 
@@ -113,9 +126,11 @@ public class TradeRecord extends BaseEntity {
     private Long strategyId;
 
     /**
-     * 关联的策略实体（只读，用于查询时自动关联策略信息）
+     * 关联的策略实体（只读，懒加载，不参与 JSON 序列化）
+     * 列表查询和回放计算只使用 strategyId，前端按 strategyId 解析策略名称
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "strategy_id", insertable = false, updatable = false)
     private Strategy strategy;
 
@@ -153,6 +168,14 @@ public class TradeRecord extends BaseEntity {
 
     // ============ Getters and Setters ============
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public LocalDate getTradeDate() {
         return tradeDate;
     }
@@ -0,0 +1,119 @@
+package com.localledger.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 交易记录核对结果实体类
+ * 对应数据库 trade_verification_checks 表
+ *
+ * 每条交易记录一行，保存最近一次核对时的规则版本、交易记录更新时间和异常详情（JSON 数组）。
+ * 由 TradeVerificationService 维护，交易记录在核对之后被修改或规则版本变化时重新核对。
+ */
+@Entity
+@Table(name = "trade_verification_checks")
+public class TradeVerificationCheck extends AuditableEntity {
+
+    /**
+     * 交易记录ID
+     */
+    @Id
+    @Column(name = "record_id")
+    private Long recordId;
+
+    /**
+     * 核对时的证券代码（记录的证券代码被修改后，原证券代码组也需要重新核对）
+     */
+    @Column(name = "symbol", nullable = false, length = 50)
+    private String symbol;
+
+    /**
+     * 核对时的规则版本
+     */
+    @Column(name = "rule_version", nullable = false, length = 64)
+    private String ruleVersion;
+
+    /**
+     * 核对时交易记录的更新时间
+     */
+    @Column(name = "record_updated_at")
+    private LocalDateTime recordUpdatedAt;
+
+    /**
+     * 逐条规则的异常详情（JSON 数组），无异常为 null
+     */
+    @Column(name = "record_errors", columnDefinition = "TEXT")
+    private String recordErrors;
+
+    /**
+     * 跨记录规则的异常详情（JSON 数组），无异常为 null
+     */
+    @Column(name = "aggregate_errors", columnDefinition = "TEXT")
+    private String aggregateErrors;
+
+    // ============ Constructors ============
+
+    public TradeVerificationCheck() {
+    }
+
+    // ============ Getters and Setters ============
+
+    public Long getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(Long recordId) {
+        this.recordId = recordId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getRuleVersion() {
+        return ruleVersion;
+    }
+
+    public void setRuleVersion(String ruleVersion) {
+        this.ruleVersion = ruleVersion;
+    }
+
+    public LocalDateTime getRecordUpdatedAt() {
+        return recordUpdatedAt;
+    }
+
+    public void setRecordUpdatedAt(LocalDateTime recordUpdatedAt) {
+        this.recordUpdatedAt = recordUpdatedAt;
+    }
+
+    public String getRecordErrors() {
+        return recordErrors;
+    }
+
+    public void setRecordErrors(String recordErrors) {
+        this.recordErrors = recordErrors;
+    }
+
+    public String getAggregateErrors() {
+        return aggregateErrors;
+    }
+
+    public void setAggregateErrors(String aggregateErrors) {
+        this.aggregateErrors = aggregateErrors;
+    }
+
+    @Override
+    public String toString() {
+        return "TradeVerificationCheck{" +
+                "recordId=" + recordId +
+                ", symbol='" + symbol + '\'' +
+                ", ruleVersion='" + ruleVersion + '\'' +
+                ", recordUpdatedAt=" + recordUpdatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.localledger.entity.enums;
+
+/**
+ * 市场事件级联重算任务状态枚举
+ */
+public enum CascadeJobStatus {
+    /** 等待执行 — 同一证券代码集合的重复登记会合并到该任务 */
+    PENDING,
+    /** 执行中 */
+    RUNNING,
+    /** 已完成 — 涉及的市场事件已全部重算，processed = true */
+    COMPLETED,
+    /** 失败 — 级联重算事务已回滚，失败原因见 errorMessage */
+    FAILED
+}
@@ -0,0 +1,400 @@
+package com.localledger.generator;
+
+import com.localledger.entity.BaseMarketEvent;
+import com.localledger.entity.Broker;
+import com.localledger.entity.DividendInKindEvent;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.TriggerRefType;
+import com.localledger.repository.BrokerRepository;
+import com.localledger.service.DimensionCache;
+import com.localledger.service.MarketEventProcessingService;
+import com.localledger.service.TradeRecordService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 合成账本数据批量写入（generate-data profile）
+ * 启动时用 SyntheticLedgerGenerator 生成交易记录和市场事件，通过 PostgreSQL COPY 直接写入
+ * trade_records、events_stock_split、events_symbol_change、events_dividend_in_kind 四张表，写入完成后应用退出。
+ *
+ * 写入流程：
+ * 1. 新建 brokers 个券商（名称带随机种子，重复执行不冲突），生成数据中的券商序号映射为新券商的ID
+ * 2. 先从 trade_records_id_seq 预留交易记录主键，生成器的ID（1..N）映射为预留的主键后连同 id 列一起写入，
+ *    期权到期记录的 trigger_ref_id 同样映射，指向实际写入的开仓记录
+ * 3. 交易记录边生成边写入 COPY 缓冲区，内存占用与交易条数无关
+ * 4. 市场事件写入后 processed = false
+ * 5. 全量重建持仓台账等派生数据；process-events 开启时对事件涉及的 symbols 从第一个交易日起执行一次级联重算，
+ *    生成拆股、代码变更、实物分红对应的系统交易记录
+ *
+ * 生成规模等参数见 application-generate-data.properties，可在命令行用 --ledger.generator.xxx=value 覆盖。
+ * 数据只追加不清理，请在专用的测试库中使用。
+ */
+@Component
+@Profile("generate-data")
+public class SyntheticDataLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+
+    /**
+     * COPY 缓冲区达到该字符数时发送一次
+     */
+    private static final int COPY_BUFFER_CHARS = 1 << 20;
+
+    /**
+     * 每写入多少条交易记录输出一次进度日志
+     */
+    private static final int PROGRESS_INTERVAL = 1_000_000;
+
+    /**
+     * 交易记录主键序列每次 nextval 预留的ID个数（与 TradeRecord 的 allocationSize、序列步长一致）
+     * nextval 返回 v 时，(v - ID_BLOCK_SIZE, v] 归本次调用方使用
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final String RESERVE_IDS_SQL = "SELECT nextval('trade_records_id_seq') FROM generate_series(1, ?)";
+
+    static final String TRADE_COPY_SQL = "COPY trade_records (id, trade_date, broker_id, asset_type, symbol, name, " +
+            "underlying_symbol, trade_type, quantity, price, amount, fee, currency, trade_trigger, trigger_ref_id, " +
+            "trigger_ref_type, is_deleted) FROM STDIN";
+
+    private static final String EVENT_COLUMNS = "symbol, underlying_symbol_name, currency, event_date, description, " +
+            "is_deleted, processed";
+
+    @Value("${ledger.generator.seed:20240101}")
+    private long seed;
+
+    @Value("${ledger.generator.trades:100000}")
+    private int tradeCount;
+
+    @Value("${ledger.generator.symbols:1000}")
+    private int symbolCount;
+
+    @Value("${ledger.generator.brokers:3}")
+    private int brokerCount;
+
+    @Value("${ledger.generator.stock-splits:30}")
+    private int stockSplitCount;
+
+    @Value("${ledger.generator.symbol-changes:10}")
+    private int symbolChangeCount;
+
+    @Value("${ledger.generator.dividends-in-kind:10}")
+    private int dividendInKindCount;
+
+    @Value("${ledger.generator.invalid-ratio:0}")
+    private double invalidRatio;
+
+    @Value("${ledger.generator.process-events:true}")
+    private boolean processEvents;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BrokerRepository brokerRepository;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private TradeRecordService tradeRecordService;
+
+    @Autowired
+    private MarketEventProcessingService marketEventProcessingService;
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        long startedAt = System.currentTimeMillis();
+        log.info("Synthetic data generation started: seed={}, trades={}, symbols={}, brokers={}, splits={}, " +
+                        "symbolChanges={}, dividendsInKind={}, invalidRatio={}",
+                seed, tradeCount, symbolCount, brokerCount, stockSplitCount, symbolChangeCount,
+                dividendInKindCount, invalidRatio);
+
+        SyntheticLedgerGenerator generator = new SyntheticLedgerGenerator(seed, symbolCount, brokerCount);
+        long[] brokerIds = createBrokers();
+
+        List<StockSplitEvent> splits = generator.generateStockSplits(stockSplitCount);
+        List<SymbolChangeEvent> changes = generator.generateSymbolChanges(symbolChangeCount);
+        List<DividendInKindEvent> dividends = generator.generateDividendsInKind(dividendInKindCount);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+            TradeIds tradeIds = reserveTradeIds(connection, tradeCount);
+            CopyWriter trades = new CopyWriter(pgConnection.getCopyAPI().copyIn(TRADE_COPY_SQL));
+            generator.generateTrades(tradeCount, invalidRatio, record -> {
+                writeTrade(trades, record, tradeIds, brokerIds[(int) (record.getBrokerId() - 1)]);
+                if (trades.rows % PROGRESS_INTERVAL == 0) {
+                    log.info("Synthetic trade records written: {}", trades.rows);
+                }
+            });
+            trades.finish();
+
+            CopyWriter splitWriter = new CopyWriter(pgConnection.getCopyAPI().copyIn(
+                    "COPY events_stock_split (" + EVENT_COLUMNS + ", ratio_from, ratio_to) FROM STDIN"));
+            for (StockSplitEvent event : splits) {
+                writeEvent(splitWriter, event);
+                splitWriter.field(event.getRatioFrom()).field(event.getRatioTo()).endRow();
+            }
+            splitWriter.finish();
+
+            CopyWriter changeWriter = new CopyWriter(pgConnection.getCopyAPI().copyIn(
+                    "COPY events_symbol_change (" + EVENT_COLUMNS + ", old_symbol, new_symbol, " +
+                            "new_underlying_symbol_name) FROM STDIN"));
+            for (SymbolChangeEvent event : changes) {
+                writeEvent(changeWriter, event);
+                changeWriter.field(event.getOldSymbol()).field(event.getNewSymbol())
+                        .field(event.getNewUnderlyingSymbolName()).endRow();
+            }
+            changeWriter.finish();
+
+            CopyWriter dividendWriter = new CopyWriter(pgConnection.getCopyAPI().copyIn(
+                    "COPY events_dividend_in_kind (" + EVENT_COLUMNS + ", dividend_symbol, dividend_symbol_name, " +
+                            "dividend_currency, ratio_from, ratio_to, fair_value_per_share) FROM STDIN"));
+            for (DividendInKindEvent event : dividends) {
+                writeEvent(dividendWriter, event);
+                dividendWriter.field(event.getDividendSymbol()).field(event.getDividendSymbolName())
+                        .field(event.getDividendCurrency()).field(event.getRatioFrom()).field(event.getRatioTo())
+                        .field(event.getFairValuePerShare()).endRow();
+            }
+            dividendWriter.finish();
+
+            connection.commit();
+            log.info("Synthetic data copied: trades={}, splits={}, symbolChanges={}, dividendsInKind={}, elapsed={}ms",
+                    trades.rows, splitWriter.rows, changeWriter.rows, dividendWriter.rows,
+                    System.currentTimeMillis() - startedAt);
+        }
+
+        // 写入后维护派生数据
+        tradeRecordService.rebuildDerivedData();
+        if (processEvents) {
+            Set<String> eventSymbols = new TreeSet<>();
+            splits.forEach(event -> eventSymbols.add(event.getSymbol()));
+            changes.forEach(event -> eventSymbols.add(event.getOldSymbol()));
+            dividends.forEach(event -> {
+                eventSymbols.add(event.getSymbol());
+                eventSymbols.add(event.getDividendSymbol());
+            });
+            if (!eventSymbols.isEmpty()) {
+                marketEventProcessingService.processTradeImport(eventSymbols, generator.getStartDate());
+            }
+        }
+        log.info("Synthetic data generation finished: elapsed={}ms", System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 新建券商，返回按序号排列的券商ID
+     */
+    private long[] createBrokers() {
+        List<Broker> brokers = new ArrayList<>(brokerCount);
+        for (int i = 1; i <= brokerCount; i++) {
+            Broker broker = new Broker("合成券商-" + seed + "-" + i, i % 2 == 1 ? "US" : "HK");
+            broker.setDescription("合成数据生成器创建");
+            brokers.add(broker);
+        }
+        List<Broker> saved = brokerRepository.saveAll(brokers);
+        dimensionCache.invalidate();
+        long[] ids = new long[saved.size()];
+        for (int i = 0; i < saved.size(); i++) {
+            ids[i] = saved.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * 从 trade_records_id_seq 预留至少 count 个交易记录主键
+     * 每次 nextval 预留一段 ID_BLOCK_SIZE 个ID（与 Hibernate 的分配方式相同），不与其他写入方冲突；
+     * 并发写入时各段之间可能不连续，但仍按生成顺序递增。
+     */
+    static TradeIds reserveTradeIds(Connection connection, int count) throws SQLException {
+        // 多取一段：新建序列的第一个值小于段大小，其区间含非正数，舍弃不用
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE + 1;
+        long[] blockEnds = new long[blocks];
+        int size = 0;
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_IDS_SQL)) {
+            statement.setInt(1, blocks);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long blockEnd = resultSet.getLong(1);
+                    if (blockEnd >= ID_BLOCK_SIZE) {
+                        blockEnds[size++] = blockEnd;
+                    }
+                }
+            }
+        }
+        return new TradeIds(Arrays.copyOf(blockEnds, size));
+    }
+
+    /**
+     * 写入一条交易记录：生成器ID换成预留的主键，期权到期记录关联的开仓记录ID同样换成主键
+     */
+    static void writeTrade(CopyWriter writer, TradeRecord record, TradeIds tradeIds, long brokerId) {
+        Long triggerRefId = record.getTriggerRefId();
+        if (record.getTriggerRefType() == TriggerRefType.OPTION_EXPIRE) {
+            triggerRefId = tradeIds.of(triggerRefId);
+        }
+        writer.field(tradeIds.of(record.getId()))
+                .field(record.getTradeDate())
+                .field(brokerId)
+                .field(record.getAssetType())
+                .field(record.getSymbol())
+                .field(record.getName())
+                .field(record.getUnderlyingSymbol())
+                .field(record.getTradeType())
+                .field(record.getQuantity())
+                .field(record.getPrice())
+                .field(record.getAmount())
+                .field(record.getFee())
+                .field(record.getCurrency())
+                .field(record.getTradeTrigger())
+                .field(triggerRefId)
+                .field(record.getTriggerRefType())
+                .field(record.getIsDeleted())
+                .endRow();
+    }
+
+    private static void writeEvent(CopyWriter writer, BaseMarketEvent event) {
+        writer.field(event.getSymbol())
+                .field(event.getUnderlyingSymbolName())
+                .field(event.getCurrency())
+                .field(event.getEventDate())
+                .field("合成数据生成器创建")
+                .field(event.getIsDeleted())
+                .field(event.getProcessed());
+    }
+
+    /**
+     * 预留的交易记录主键：生成器ID（从 1 开始）按顺序映射到各段预留的ID
+     */
+    static class TradeIds {
+
+        /**
+         * 各段的最后一个ID（即 nextval 的返回值），升序
+         */
+        private final long[] blockEnds;
+
+        TradeIds(long[] blockEnds) {
+            this.blockEnds = blockEnds;
+        }
+
+        /**
+         * 生成器ID对应的主键
+         */
+        long of(long generatorId) {
+            long offset = generatorId - 1;
+            int block = (int) (offset / ID_BLOCK_SIZE);
+            if (offset < 0 || block >= blockEnds.length) {
+                throw new IllegalStateException("交易记录ID超出预留范围: " + generatorId);
+            }
+            return blockEnds[block] - ID_BLOCK_SIZE + 1 + offset % ID_BLOCK_SIZE;
+        }
+    }
+
+    /**
+     * COPY 文本格式的写入器：字段以制表符分隔、每行以换行结束，null 写作 \N
+     * 行数据先写入缓冲区，达到 COPY_BUFFER_CHARS 后发送给数据库
+     */
+    static class CopyWriter {
+
+        private final CopyIn copyIn;
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private boolean rowStarted;
+
+        long rows;
+
+        CopyWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        CopyWriter field(Object value) {
+            if (rowStarted) {
+                buffer.append('\t');
+            }
+            rowStarted = true;
+            if (value == null) {
+                buffer.append("\\N");
+            } else if (value instanceof BigDecimal decimal) {
+                buffer.append(decimal.toPlainString());
+            } else {
+                appendEscaped(buffer, value.toString());
+            }
+            return this;
+        }
+
+        void endRow() {
+            buffer.append('\n');
+            rowStarted = false;
+            rows++;
+            if (buffer.length() >= COPY_BUFFER_CHARS) {
+                send();
+            }
+        }
+
+        /**
+         * 发送剩余数据并结束 COPY，返回数据库确认写入的行数
+         */
+        long finish() throws SQLException {
+            send();
+            return copyIn.endCopy();
+        }
+
+        String buffered() {
+            return buffer.toString();
+        }
+
+        private void send() {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IllegalStateException("COPY 写入失败", e);
+            }
+            buffer.setLength(0);
+        }
+
+        /**
+         * 转义 COPY 文本格式中的特殊字符：反斜杠、制表符、换行、回车
+         */
+        static void appendEscaped(StringBuilder target, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> target.append("\\\\");
+                    case '\t' -> target.append("\\t");
+                    case '\n' -> target.append("\\n");
+                    case '\r' -> target.append("\\r");
+                    default -> target.append(c);
+                }
+            }
+        }
+    }
+}
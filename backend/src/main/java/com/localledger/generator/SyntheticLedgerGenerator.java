@@ -0,0 +1,416 @@
+package com.localledger.generator;
+
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.BaseMarketEvent;
+import com.localledger.entity.DividendInKindEvent;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TradeType;
+import com.localledger.entity.enums.TriggerRefType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 合成账本数据生成器
+ * 按固定随机种子生成可复现的交易记录和市场事件，用于性能基准测试和大数据量场景的本地验证。
+ *
+ * 证券池按序号每 10 个一组：6 只美股、1 只美股 ETF、1 只港股、以该组第一只美股为底层的 1 个看涨期权和 1 个看跌期权，
+ * 生成的记录均满足交易记录核对规则（可按比例混入核对不通过的记录）。
+ * 交易记录按 ID 升序、交易日期非递减排列，每个 (symbol, brokerId) 只在有持仓时卖出，持仓不会为负，
+ * 期权过了到期日后按到期处理；
+ * 市场事件只作用于美股，事件日期落在交易日期范围内。
+ *
+ * 同一组参数（种子、证券数、券商数）多次生成的结果完全相同。非线程安全。
+ */
+public class SyntheticLedgerGenerator {
+
+    /**
+     * 默认的第一笔交易日期
+     */
+    public static final LocalDate DEFAULT_START_DATE = LocalDate.of(2015, 1, 2);
+
+    /**
+     * 交易日期覆盖的天数（约 10 年）
+     */
+    private static final int SPAN_DAYS = 3650;
+
+    private static final int GROUP_SIZE = 10;
+
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final BigDecimal OPTION_MULTIPLIER = BigDecimal.valueOf(100);
+
+    private final Random random;
+
+    private final int brokerCount;
+
+    private final LocalDate startDate;
+
+    private final List<Instrument> instruments;
+
+    /**
+     * 交易日期实例按天缓存复用，大数据量时不为每条记录单独创建 LocalDate
+     */
+    private final LocalDate[] days = new LocalDate[SPAN_DAYS + 1];
+
+    /**
+     * @param seed        随机种子
+     * @param symbolCount 证券数量（至少 10 个，向上取整到 10 的倍数）
+     * @param brokerCount 券商数量，券商ID取 1..brokerCount
+     */
+    public SyntheticLedgerGenerator(long seed, int symbolCount, int brokerCount) {
+        if (symbolCount <= 0 || brokerCount <= 0) {
+            throw new IllegalArgumentException("证券数量和券商数量必须大于0");
+        }
+        this.random = new Random(seed);
+        this.brokerCount = brokerCount;
+        this.startDate = DEFAULT_START_DATE;
+        for (int i = 0; i <= SPAN_DAYS; i++) {
+            days[i] = startDate.plusDays(i);
+        }
+        int groups = (symbolCount + GROUP_SIZE - 1) / GROUP_SIZE;
+        this.instruments = new ArrayList<>(groups * GROUP_SIZE);
+        for (int i = 0; i < groups * GROUP_SIZE; i++) {
+            instruments.add(newInstrument(i));
+        }
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return days[SPAN_DAYS];
+    }
+
+    /**
+     * 所有美股代码（市场事件的作用对象）
+     */
+    public List<String> stockSymbols() {
+        List<String> symbols = new ArrayList<>();
+        for (Instrument instrument : instruments) {
+            if (instrument.assetType == AssetType.STOCK && instrument.currency == Currency.USD) {
+                symbols.add(instrument.symbol);
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * 所有证券代码
+     */
+    public Set<String> allSymbols() {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (Instrument instrument : instruments) {
+            symbols.add(instrument.symbol);
+        }
+        return symbols;
+    }
+
+    /**
+     * 生成指定条数的交易记录（ID 从 1 开始），全部满足核对规则
+     */
+    public List<TradeRecord> generateTrades(int count) {
+        return generateTrades(count, 0);
+    }
+
+    /**
+     * 生成指定条数的交易记录（ID 从 1 开始）
+     *
+     * @param invalidRatio 核对不通过的记录所占比例（0 ~ 1），用于核对规则的基准测试
+     */
+    public List<TradeRecord> generateTrades(int count, double invalidRatio) {
+        List<TradeRecord> records = new ArrayList<>(count);
+        generateTrades(count, invalidRatio, records::add);
+        return records;
+    }
+
+    /**
+     * 逐条生成交易记录并交给 sink 处理，不在内存中保留，用于千万级数据的批量写入
+     * 期权过了到期日仍有持仓时，生成一条期权到期记录（OPTION / OPTION_EXPIRE，全部卖出，价格和费用为 0，
+     * trigger_ref_id 为该持仓最后一笔开仓记录的 ID），到期后不再开仓，改为交易其底层美股。
+     *
+     * @param invalidRatio 核对不通过的记录所占比例（0 ~ 1）
+     */
+    public void generateTrades(int count, double invalidRatio, Consumer<TradeRecord> sink) {
+        int[] holdings = new int[instruments.size() * brokerCount];
+        long[] lastOpenIds = new long[instruments.size() * brokerCount];
+        for (int i = 0; i < count; i++) {
+            long id = (long) i + 1;
+            LocalDate tradeDate = days[(int) ((long) i * SPAN_DAYS / Math.max(count, 1))];
+            int instrumentIndex = random.nextInt(instruments.size());
+            Instrument instrument = instruments.get(instrumentIndex);
+            long brokerId = 1 + random.nextInt(brokerCount);
+            int slot = instrumentIndex * brokerCount + (int) (brokerId - 1);
+
+            TradeRecord record;
+            if (instrument.expiry != null && instrument.expiry.isBefore(tradeDate) && holdings[slot] > 0) {
+                record = newRecord(id, tradeDate, instrument, brokerId, TradeType.SELL, holdings[slot],
+                        BigDecimal.ZERO, BigDecimal.ZERO);
+                record.setTradeTrigger(TradeTrigger.OPTION);
+                record.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
+                record.setTriggerRefId(lastOpenIds[slot]);
+                holdings[slot] = 0;
+            } else {
+                if (instrument.expiry != null && instrument.expiry.isBefore(tradeDate)) {
+                    instrumentIndex = instrument.underlyingIndex;
+                    instrument = instruments.get(instrumentIndex);
+                    slot = instrumentIndex * brokerCount + (int) (brokerId - 1);
+                }
+                boolean option = instrument.expiry != null;
+                int quantity = option ? 1 + random.nextInt(10) : 100 * (1 + random.nextInt(10));
+                TradeType tradeType = TradeType.BUY;
+                if (holdings[slot] > 0 && random.nextInt(10) < 4) {
+                    tradeType = TradeType.SELL;
+                    quantity = Math.min(quantity, holdings[slot]);
+                } else {
+                    lastOpenIds[slot] = id;
+                }
+                holdings[slot] += tradeType == TradeType.BUY ? quantity : -quantity;
+
+                BigDecimal price = instrument.basePrice
+                        .multiply(BigDecimal.valueOf(80 + random.nextInt(41)))
+                        .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+                record = newRecord(id, tradeDate, instrument, brokerId, tradeType, quantity, price,
+                        BigDecimal.valueOf(random.nextInt(500), 2));
+            }
+            if (invalidRatio > 0 && random.nextDouble() < invalidRatio) {
+                corrupt(record);
+            }
+            sink.accept(record);
+        }
+    }
+
+    /**
+     * 生成指定个数的拆股事件（ID 从 1 开始，按事件日期升序）
+     */
+    public List<StockSplitEvent> generateStockSplits(int count) {
+        List<String> stocks = stockSymbols();
+        List<StockSplitEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StockSplitEvent event = new StockSplitEvent();
+            event.setId((long) i + 1);
+            fillEvent(event, stocks.get(random.nextInt(stocks.size())), eventDate(i, count));
+            event.setRatioFrom(1);
+            event.setRatioTo(2 + random.nextInt(3));
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * 生成指定个数的代码变更事件（ID 从 1 开始，按事件日期升序），新代码为原代码后加字母 Z
+     */
+    public List<SymbolChangeEvent> generateSymbolChanges(int count) {
+        List<String> stocks = stockSymbols();
+        List<SymbolChangeEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String oldSymbol = stocks.get(random.nextInt(stocks.size()));
+            SymbolChangeEvent event = new SymbolChangeEvent();
+            event.setId((long) i + 1);
+            fillEvent(event, oldSymbol, eventDate(i, count));
+            event.setOldSymbol(oldSymbol);
+            event.setNewSymbol(oldSymbol + "Z");
+            event.setNewUnderlyingSymbolName(oldSymbol + "Z Inc");
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * 生成指定个数的实物分红事件（ID 从 1 开始，按事件日期升序），分红证券为另一只美股
+     */
+    public List<DividendInKindEvent> generateDividendsInKind(int count) {
+        List<String> stocks = stockSymbols();
+        List<DividendInKindEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String symbol = stocks.get(random.nextInt(stocks.size()));
+            String dividendSymbol = stocks.get(random.nextInt(stocks.size()));
+            DividendInKindEvent event = new DividendInKindEvent();
+            event.setId((long) i + 1);
+            fillEvent(event, symbol, eventDate(i, count));
+            event.setDividendSymbol(dividendSymbol);
+            event.setDividendSymbolName(dividendSymbol + " Inc");
+            event.setDividendCurrency(Currency.USD);
+            event.setRatioFrom(10);
+            event.setRatioTo(1);
+            event.setFairValuePerShare(BigDecimal.valueOf(1000 + random.nextInt(9000), 2));
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * 转换为回放计算使用的 TradeLine（顺序不变）
+     */
+    public static List<TradeLine> toLines(List<TradeRecord> records) {
+        List<TradeLine> lines = new ArrayList<>(records.size());
+        for (TradeRecord record : records) {
+            lines.add(new TradeLine(record.getId(), record.getTradeDate(), record.getSymbol(), record.getName(),
+                    record.getUnderlyingSymbol(), record.getAssetType(), record.getCurrency(), record.getTradeType(),
+                    record.getQuantity(), record.getAmount(), record.getFee(), record.getBrokerId(),
+                    record.getStrategyId()));
+        }
+        return lines;
+    }
+
+    // ============================================================
+    // 内部方法
+    // ============================================================
+
+    private void fillEvent(BaseMarketEvent event, String symbol, LocalDate eventDate) {
+        event.setSymbol(symbol);
+        event.setUnderlyingSymbolName(symbol + " Inc");
+        event.setCurrency(Currency.USD);
+        event.setEventDate(eventDate);
+        event.setIsDeleted(false);
+        event.setProcessed(false);
+    }
+
+    /**
+     * 第 index 个事件的日期：均匀分布在交易日期范围内（跳过第一天，保证事件前已有持仓）
+     */
+    private LocalDate eventDate(int index, int count) {
+        return days[1 + (int) ((long) index * (SPAN_DAYS - 1) / Math.max(count, 1))];
+    }
+
+    private static TradeRecord newRecord(long id, LocalDate tradeDate, Instrument instrument, long brokerId,
+                                         TradeType tradeType, int quantity, BigDecimal price, BigDecimal fee) {
+        BigDecimal amount = price.multiply(BigDecimal.valueOf(quantity));
+        if (instrument.expiry != null) {
+            amount = amount.multiply(OPTION_MULTIPLIER);
+        }
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setTradeDate(tradeDate);
+        record.setSymbol(instrument.symbol);
+        record.setName(instrument.name);
+        record.setUnderlyingSymbol(instrument.underlyingSymbol);
+        record.setAssetType(instrument.assetType);
+        record.setCurrency(instrument.currency);
+        record.setTradeType(tradeType);
+        record.setQuantity(quantity);
+        record.setPrice(price);
+        record.setAmount(amount);
+        record.setFee(fee);
+        record.setBrokerId(brokerId);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    /**
+     * 把记录改成一处核对不通过的错误：美股代码带数字，港股代码带字母，期权代码缺少类型标识，
+     * ETF（代码格式不受规则约束）改为触发类型与关联类型不一致
+     */
+    private static void corrupt(TradeRecord record) {
+        if (record.getAssetType() == AssetType.OPTION_CALL || record.getAssetType() == AssetType.OPTION_PUT) {
+            record.setSymbol(record.getUnderlyingSymbol() + "-" + record.getSymbol().substring(
+                    record.getUnderlyingSymbol().length() + 1, record.getUnderlyingSymbol().length() + 9));
+        } else if (record.getAssetType() == AssetType.ETF) {
+            record.setTradeTrigger(TradeTrigger.OPTION);
+            record.setTriggerRefType(TriggerRefType.STOCK_SPLIT);
+            record.setTriggerRefId(1L);
+        } else if (record.getCurrency() == Currency.HKD) {
+            record.setSymbol(record.getSymbol() + "HK");
+        } else {
+            record.setSymbol(record.getSymbol() + "1");
+        }
+    }
+
+    /**
+     * 第 index 个证券：组内序号 0-5 为美股，6 为美股 ETF，7 为港股，8 / 9 为以组内第一只美股为底层的看涨 / 看跌期权
+     */
+    private Instrument newInstrument(int index) {
+        int position = index % GROUP_SIZE;
+        BigDecimal basePrice = BigDecimal.valueOf(500 + random.nextInt(50000), 2);
+        if (position <= 5) {
+            String symbol = letters(index);
+            return new Instrument(symbol, symbol + " Inc", symbol, AssetType.STOCK, Currency.USD, basePrice, null, index);
+        }
+        if (position == 6) {
+            String symbol = letters(index);
+            return new Instrument(symbol, symbol + " ETF", symbol, AssetType.ETF, Currency.USD, basePrice, null, index);
+        }
+        if (position == 7) {
+            String symbol = String.format("%05d", index);
+            return new Instrument(symbol, "港股" + symbol, symbol, AssetType.STOCK, Currency.HKD, basePrice, null, index);
+        }
+        String underlying = letters(index - position);
+        LocalDate expiry = startDate.plusDays(30 + random.nextInt(SPAN_DAYS));
+        int strike = 10 + random.nextInt(500);
+        boolean call = position == 8;
+        String symbol = underlying + "-" + expiry.format(EXPIRY_FORMAT) + "-" + (call ? "C" : "P") + strike;
+        BigDecimal premium = BigDecimal.valueOf(10 + random.nextInt(2000), 2);
+        return new Instrument(symbol, symbol, underlying, call ? AssetType.OPTION_CALL : AssetType.OPTION_PUT,
+                Currency.USD, premium, expiry, index - position);
+    }
+
+    /**
+     * 序号转换为 4 位大写字母代码（AAAA、AAAB ...），序号唯一则代码唯一
+     */
+    private static String letters(int index) {
+        char[] chars = new char[4];
+        int value = index;
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = (char) ('A' + value % 26);
+            value /= 26;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 证券池中的一个证券
+     */
+    private static final class Instrument {
+
+        private final String symbol;
+
+        private final String name;
+
+        private final String underlyingSymbol;
+
+        private final AssetType assetType;
+
+        private final Currency currency;
+
+        private final BigDecimal basePrice;
+
+        /**
+         * 期权到期日，非期权为 null
+         */
+        private final LocalDate expiry;
+
+        /**
+         * 底层证券在证券池中的序号（非期权为自身序号）
+         */
+        private final int underlyingIndex;
+
+        Instrument(String symbol, String name, String underlyingSymbol, AssetType assetType, Currency currency,
+                   BigDecimal basePrice, LocalDate expiry, int underlyingIndex) {
+            this.symbol = symbol;
+            this.name = name;
+            this.underlyingSymbol = underlyingSymbol;
+            this.assetType = assetType;
+            this.currency = currency;
+            this.basePrice = basePrice;
+            this.expiry = expiry;
+            this.underlyingIndex = underlyingIndex;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.localledger.repository;
+
+import com.localledger.entity.CashBalanceCheckpoint;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 现金余额检查点 Repository 接口
+ * 提供 cash_balance_checkpoints 表的数据访问方法
+ *
+ * 检查点由读请求顺带保存，与写入事务的失效（删除）并发时用 PostgreSQL 事务级咨询锁互斥：
+ * 失效检查点的写入事务持有共享锁直到提交，保存检查点的读事务尝试获取排他锁，获取不到时本次不保存。
+ */
+public interface CashBalanceCheckpointRepository extends BaseRepository<CashBalanceCheckpoint, Long> {
+
+    /**
+     * 查询不晚于指定日期的最近一个检查点日期，没有检查点时返回 null
+     */
+    @Query("SELECT MAX(c.checkpointDate) FROM CashBalanceCheckpoint c WHERE c.checkpointDate <= :date")
+    LocalDate findLatestCheckpointDateOnOrBefore(@Param("date") LocalDate date);
+
+    /**
+     * 查询某个检查点日期下的全部现金余额
+     */
+    List<CashBalanceCheckpoint> findByCheckpointDate(LocalDate checkpointDate);
+
+    /**
+     * 删除指定日期当天及之后的所有检查点（这些检查点已包含被变动的记录）
+     */
+    @Modifying
+    @Query("DELETE FROM CashBalanceCheckpoint c WHERE c.checkpointDate >= :date")
+    void deleteFromDate(@Param("date") LocalDate date);
+
+    /**
+     * 保存一份检查点：同一 (checkpoint_date, broker_id, currency) 已存在时跳过，返回实际写入的行数
+     * 各数组按下标一一对应
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cash_balance_checkpoints " +
+            "(checkpoint_date, broker_id, currency, net_deposit, trade_net, fees, created_at, updated_at) " +
+            "SELECT :checkpointDate, t.broker_id, CAST(t.currency AS currency_enum), t.net_deposit, t.trade_net, t.fees, " +
+            "LOCALTIMESTAMP, LOCALTIMESTAMP " +
+            "FROM unnest(:brokerIds, :currencies, :netDeposits, :tradeNets, :fees) " +
+            "AS t(broker_id, currency, net_deposit, trade_net, fees) " +
+            "ON CONFLICT (checkpoint_date, broker_id, currency) DO NOTHING", nativeQuery = true)
+    int insertIgnoringExisting(@Param("checkpointDate") LocalDate checkpointDate, @Param("brokerIds") Long[] brokerIds,
+                               @Param("currencies") String[] currencies, @Param("netDeposits") BigDecimal[] netDeposits,
+                               @Param("tradeNets") BigDecimal[] tradeNets, @Param("fees") BigDecimal[] fees);
+
+    /**
+     * 失效检查点前获取共享锁（事务提交或回滚时释放），等待正在保存检查点的读事务结束
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock_shared(hashtext('cash_balance_checkpoints')) AS text)",
+            nativeQuery = true)
+    String lockForInvalidate();
+
+    /**
+     * 保存检查点前尝试获取排他锁（事务结束时释放），有写入事务正在失效检查点时立即返回 false
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('cash_balance_checkpoints'))", nativeQuery = true)
+    boolean tryLockForSave();
+}
@@ -1,10 +1,17 @@
 package com.localledger.repository;
 
+import com.localledger.dto.CashFlowLine;
 import com.localledger.entity.CashFlowRecord;
 import com.localledger.entity.enums.RecordType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 出入金记录 Repository 接口
@@ -12,6 +19,12 @@ import java.util.List;
  */
 public interface CashFlowRecordRepository extends BaseRepository<CashFlowRecord, Long> {
 
+    /**
+     * 出入金记录只读行的 JPQL 构造表达式（不加载实体和券商关联）
+     */
+    String CASH_FLOW_LINE_SELECT = "SELECT new com.localledger.dto.CashFlowLine(c.id, c.recordDate, c.brokerId, " +
+            "c.recordType, c.amount, c.currency) FROM CashFlowRecord c ";
+
     /**
      * 查询所有未删除的记录（按日期倒序）
      */
@@ -36,4 +49,21 @@ public interface CashFlowRecordRepository extends BaseRepository<CashFlowRecord,
      * 根据券商ID和日期范围查询未删除的记录
      */
     List<CashFlowRecord> findByBrokerIdAndRecordDateBetweenAndIsDeletedFalseOrderByRecordDateDesc(Long brokerId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 流式读取截止某日期（含）的所有未删除出入金记录（按日期、ID 正序）
+     * 调用方需在事务中使用并关闭 Stream
+     */
+    @Query(CASH_FLOW_LINE_SELECT + "WHERE c.recordDate <= :asOfDate AND c.isDeleted = false ORDER BY c.recordDate ASC, c.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<CashFlowLine> streamLinesUntil(@Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 流式读取 (afterDate, asOfDate] 区间内的所有未删除出入金记录（按日期、ID 正序）
+     * 调用方需在事务中使用并关闭 Stream
+     */
+    @Query(CASH_FLOW_LINE_SELECT + "WHERE c.recordDate > :afterDate AND c.recordDate <= :asOfDate AND c.isDeleted = false " +
+            "ORDER BY c.recordDate ASC, c.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<CashFlowLine> streamLinesBetween(@Param("afterDate") LocalDate afterDate, @Param("asOfDate") LocalDate asOfDate);
 }
@@ -0,0 +1,97 @@
+package com.localledger.repository;
+
+import com.localledger.entity.CostBasisCheckpoint;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 持仓成本检查点 Repository 接口
+ * 提供 cost_basis_checkpoints 表的数据访问方法
+ *
+ * 检查点由读请求顺带保存，与写入事务的失效（重算）并发时用 PostgreSQL 事务级咨询锁互斥：
+ * 失效检查点的写入事务持有共享锁直到提交，保存检查点的读事务尝试获取排他锁，获取不到时本次不保存；
+ * 重算同一 (symbol, brokerId) 检查点的写入事务之间另用按键的排他锁串行。
+ */
+public interface CostBasisCheckpointRepository extends BaseRepository<CostBasisCheckpoint, Long> {
+
+    /**
+     * 查询不晚于指定日期的最近一个检查点日期，没有检查点时返回 null
+     */
+    @Query("SELECT MAX(c.checkpointDate) FROM CostBasisCheckpoint c WHERE c.checkpointDate <= :date")
+    LocalDate findLatestCheckpointDateOnOrBefore(@Param("date") LocalDate date);
+
+    /**
+     * 查询早于指定日期的最近一个检查点日期，没有检查点时返回 null
+     */
+    @Query("SELECT MAX(c.checkpointDate) FROM CostBasisCheckpoint c WHERE c.checkpointDate < :date")
+    LocalDate findLatestCheckpointDateBefore(@Param("date") LocalDate date);
+
+    /**
+     * 查询指定日期当天及之后的全部检查点日期（升序）
+     */
+    @Query("SELECT DISTINCT c.checkpointDate FROM CostBasisCheckpoint c WHERE c.checkpointDate >= :date " +
+            "ORDER BY c.checkpointDate ASC")
+    List<LocalDate> findCheckpointDatesFrom(@Param("date") LocalDate date);
+
+    /**
+     * 查询某个检查点日期下的全部成本状态
+     */
+    List<CostBasisCheckpoint> findByCheckpointDate(LocalDate checkpointDate);
+
+    /**
+     * 查询某个检查点日期下单个 (symbol, brokerId) 的成本状态，该日期无持仓时返回空
+     */
+    Optional<CostBasisCheckpoint> findByCheckpointDateAndSymbolAndBrokerId(LocalDate checkpointDate, String symbol,
+                                                                          Long brokerId);
+
+    /**
+     * 删除某个 (symbol, brokerId) 在指定日期当天及之后的检查点行
+     */
+    @Modifying
+    @Query("DELETE FROM CostBasisCheckpoint c WHERE c.symbol = :symbol AND c.brokerId = :brokerId " +
+            "AND c.checkpointDate >= :date")
+    void deleteBySymbolAndBrokerIdFromDate(@Param("symbol") String symbol, @Param("brokerId") Long brokerId,
+                                           @Param("date") LocalDate date);
+
+    /**
+     * 写入检查点行：同一 (checkpoint_date, symbol, broker_id) 已存在时跳过，返回实际写入的行数
+     * 各数组按下标一一对应
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cost_basis_checkpoints " +
+            "(checkpoint_date, symbol, broker_id, quantity, cost_pool, created_at, updated_at) " +
+            "SELECT t.checkpoint_date, t.symbol, t.broker_id, t.quantity, t.cost_pool, LOCALTIMESTAMP, LOCALTIMESTAMP " +
+            "FROM unnest(:checkpointDates, :symbols, :brokerIds, :quantities, :costPools) " +
+            "AS t(checkpoint_date, symbol, broker_id, quantity, cost_pool) " +
+            "ON CONFLICT (checkpoint_date, symbol, broker_id) DO NOTHING", nativeQuery = true)
+    int insertIgnoringExisting(@Param("checkpointDates") LocalDate[] checkpointDates,
+                               @Param("symbols") String[] symbols, @Param("brokerIds") Long[] brokerIds,
+                               @Param("quantities") Integer[] quantities, @Param("costPools") BigDecimal[] costPools);
+
+    /**
+     * 失效检查点前获取共享锁（事务提交或回滚时释放），等待正在保存检查点的读事务结束
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock_shared(hashtext('cost_basis_checkpoints')) AS text)",
+            nativeQuery = true)
+    String lockForInvalidate();
+
+    /**
+     * 重算某个 (symbol, brokerId) 的检查点前获取该键的排他锁（事务结束时释放），
+     * 等待同一键上尚未提交的重算，之后的读取包含其交易记录变动
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock(hashtext('cost_basis_checkpoints'), " +
+            "hashtext(:symbol || '|' || :brokerId)) AS text)", nativeQuery = true)
+    String lockKeyForInvalidate(@Param("symbol") String symbol, @Param("brokerId") Long brokerId);
+
+    /**
+     * 保存检查点前尝试获取排他锁（事务结束时释放），有写入事务正在失效检查点时立即返回 false
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('cost_basis_checkpoints'))", nativeQuery = true)
+    boolean tryLockForSave();
+}
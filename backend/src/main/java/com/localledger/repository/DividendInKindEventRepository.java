@@ -38,16 +38,8 @@ public interface DividendInKindEventRepository extends BaseRepository<DividendIn
     List<DividendInKindEvent> findByIsDeletedFalseOrderByEventDateDesc();
 
     /**
-     * 查询涉及指定 symbols 集合（匹配 symbol 或 dividendSymbol），且在指定日期当天及之后的所有未删除事件
-     * 用于级联重算
+     * 查询在指定日期当天及之后的所有未删除事件（按事件日期升序）
+     * 用于级联重算：与另外两类事件一起构建 MarketEventGraph，计算受影响事件的传递闭包
      */
-    @org.springframework.data.jpa.repository.Query(
-        "SELECT e FROM DividendInKindEvent e WHERE e.isDeleted = false " +
-        "AND (e.symbol IN :symbols OR e.dividendSymbol IN :symbols) " +
-        "AND e.eventDate >= :eventDate ORDER BY e.eventDate ASC"
-    )
-    List<DividendInKindEvent> findAffectedEvents(
-        @org.springframework.data.repository.query.Param("symbols") java.util.Collection<String> symbols,
-        @org.springframework.data.repository.query.Param("eventDate") java.time.LocalDate eventDate
-    );
+    List<DividendInKindEvent> findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(LocalDate eventDate);
 }
@@ -0,0 +1,29 @@
+package com.localledger.repository;
+
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 汇率 Repository 接口
+ * 提供 fx_rates 表的数据访问方法
+ */
+public interface FxRateRepository extends BaseRepository<FxRate, Long> {
+
+    /**
+     * 查询全部汇率（按币种、日期正序，用于加载内存汇率表）
+     */
+    List<FxRate> findAllByOrderByCurrencyAscRateDateAsc();
+
+    /**
+     * 查询日期区间内的汇率（按币种、日期正序）
+     */
+    List<FxRate> findByRateDateBetweenOrderByCurrencyAscRateDateAsc(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 查询某个币种在日期区间内的汇率（按日期正序）
+     */
+    List<FxRate> findByCurrencyAndRateDateBetweenOrderByRateDateAsc(Currency currency, LocalDate startDate, LocalDate endDate);
+}
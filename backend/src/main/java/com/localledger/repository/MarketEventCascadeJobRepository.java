@@ -0,0 +1,43 @@
+package com.localledger.repository;
+
+import com.localledger.entity.MarketEventCascadeJob;
+import com.localledger.entity.enums.CascadeJobStatus;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 市场事件级联重算任务 Repository 接口
+ * 提供 market_event_cascade_jobs 表的数据访问方法
+ *
+ * 登记任务使用 PostgreSQL 的 INSERT ... ON CONFLICT 在一条语句内完成合并；领取任务时先锁定等待中的任务行（FOR UPDATE），
+ * 避免并发登记的合并结果被覆盖或任务被重复执行。
+ */
+public interface MarketEventCascadeJobRepository extends BaseRepository<MarketEventCascadeJob, Long> {
+
+    /**
+     * 登记任务：同一证券代码集合已有 PENDING 任务时合并（起始日期取较早者），否则新建，返回任务ID
+     */
+    @Query(value = "INSERT INTO market_event_cascade_jobs (symbols, symbols_hash, since_date, status) " +
+            "VALUES (:symbols, :symbolsHash, :sinceDate, 'PENDING') " +
+            "ON CONFLICT (symbols_hash) WHERE status = 'PENDING' DO UPDATE " +
+            "SET since_date = LEAST(market_event_cascade_jobs.since_date, EXCLUDED.since_date) " +
+            "RETURNING id", nativeQuery = true)
+    Long upsertPending(@Param("symbols") String symbols, @Param("symbolsHash") String symbolsHash,
+                       @Param("sinceDate") LocalDate sinceDate);
+
+    /**
+     * 锁定全部 PENDING 任务（按登记顺序），用于合并领取
+     * 正在被登记事务合并（行被锁定）的任务跳过，登记事务提交后会再次触发领取
+     */
+    @Query(value = "SELECT * FROM market_event_cascade_jobs WHERE status = 'PENDING' " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MarketEventCascadeJob> lockPending();
+
+    /**
+     * 按状态查询任务
+     */
+    List<MarketEventCascadeJob> findByStatusOrderByIdAsc(CascadeJobStatus status);
+}
@@ -0,0 +1,101 @@
+package com.localledger.repository;
+
+import com.localledger.dto.PositionBalanceLine;
+import com.localledger.entity.PositionDailyDelta;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 每日持仓变动台账 Repository 接口
+ * 提供 position_daily_deltas 表的数据访问方法
+ */
+public interface PositionDailyDeltaRepository extends BaseRepository<PositionDailyDelta, Long> {
+
+    /**
+     * 持仓历史序列只读取 PositionBalanceLine 所需的列，不加载实体
+     */
+    String BALANCE_LINE_SELECT = "SELECT new com.localledger.dto.PositionBalanceLine(d.symbol, d.brokerId, " +
+            "d.tradeDate, d.balance, d.name, d.underlyingSymbol, d.assetType, d.currency) FROM PositionDailyDelta d ";
+
+    /**
+     * 查询截止某日期每个 (symbol, brokerId) 的最后一行台账（即截止该日期的持仓余额）
+     * 只返回持仓不为 0 的行
+     */
+    @Query(value = "SELECT * FROM (" +
+            "SELECT DISTINCT ON (d.symbol, d.broker_id) d.* FROM position_daily_deltas d " +
+            "WHERE d.trade_date <= :date " +
+            "ORDER BY d.symbol, d.broker_id, d.trade_date DESC" +
+            ") latest WHERE latest.balance <> 0 ORDER BY latest.broker_id, latest.symbol",
+            nativeQuery = true)
+    List<PositionDailyDelta> findOpenBalancesAsOf(@Param("date") LocalDate date);
+
+    /**
+     * 查询截止某日期、指定券商下每个 symbol 的最后一行台账
+     * 只返回持仓不为 0 的行
+     */
+    @Query(value = "SELECT * FROM (" +
+            "SELECT DISTINCT ON (d.symbol) d.* FROM position_daily_deltas d " +
+            "WHERE d.trade_date <= :date AND d.broker_id = :brokerId " +
+            "ORDER BY d.symbol, d.trade_date DESC" +
+            ") latest WHERE latest.balance <> 0 ORDER BY latest.symbol",
+            nativeQuery = true)
+    List<PositionDailyDelta> findOpenBalancesAsOfAndBrokerId(@Param("date") LocalDate date,
+                                                             @Param("brokerId") Long brokerId);
+
+    /**
+     * 查询日期区间内（含首尾）的所有台账行，按交易日期升序，用于计算持仓历史序列
+     */
+    @Query(BALANCE_LINE_SELECT + "WHERE d.tradeDate BETWEEN :from AND :to ORDER BY d.tradeDate ASC")
+    List<PositionBalanceLine> findBalanceLinesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 查询指定券商在日期区间内（含首尾）的所有台账行，按交易日期升序，用于计算持仓历史序列
+     */
+    @Query(BALANCE_LINE_SELECT + "WHERE d.brokerId = :brokerId AND d.tradeDate BETWEEN :from AND :to " +
+            "ORDER BY d.tradeDate ASC")
+    List<PositionBalanceLine> findBalanceLinesBetweenAndBrokerId(@Param("from") LocalDate from,
+                                                                 @Param("to") LocalDate to,
+                                                                 @Param("brokerId") Long brokerId);
+
+    /**
+     * 查询某个 (symbol, brokerId) 在指定日期之前的最后一行台账，作为增量重算的起点
+     */
+    Optional<PositionDailyDelta> findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc(
+            String symbol, Long brokerId, LocalDate date);
+
+    /**
+     * 删除某个 (symbol, brokerId) 在指定日期当天及之后的所有台账行
+     */
+    @Modifying
+    @Query("DELETE FROM PositionDailyDelta d WHERE d.symbol = :symbol AND d.brokerId = :brokerId AND d.tradeDate >= :date")
+    void deleteBySymbolAndBrokerIdFromDate(@Param("symbol") String symbol,
+                                           @Param("brokerId") Long brokerId,
+                                           @Param("date") LocalDate date);
+
+    /**
+     * 增量重算台账前获取共享锁（事务提交或回滚时释放），与全量重建互斥，不同键的增量重算之间互不阻塞
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock_shared(hashtext('position_daily_deltas')) AS text)",
+            nativeQuery = true)
+    String lockForRefresh();
+
+    /**
+     * 增量重算某个 (symbol, brokerId) 的台账前获取该键的排他锁（事务结束时释放），
+     * 同一键上的重算依次执行，后执行的一方能读到前一方已提交的交易记录和台账行
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock(hashtext(:symbol), CAST(:brokerId AS int)) AS text)",
+            nativeQuery = true)
+    String lockKeyForRefresh(@Param("symbol") String symbol, @Param("brokerId") Long brokerId);
+
+    /**
+     * 全量重建台账前获取排他锁（事务结束时释放），等待进行中的增量重算结束，重建期间新的增量重算等待重建提交
+     */
+    @Query(value = "SELECT CAST(pg_advisory_xact_lock(hashtext('position_daily_deltas')) AS text)",
+            nativeQuery = true)
+    String lockForRebuild();
+}
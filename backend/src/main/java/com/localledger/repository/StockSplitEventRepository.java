@@ -39,8 +39,8 @@ public interface StockSplitEventRepository extends BaseRepository<StockSplitEven
     List<StockSplitEvent> findBySymbolAndEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(String symbol, LocalDate eventDate);
 
     /**
-     * 查询涉及指定 symbols 集合，且在指定日期当天及之后的所有未删除事件（按事件日期升序）
-     * 用于级联重算
+     * 查询在指定日期当天及之后的所有未删除事件（按事件日期升序）
+     * 用于级联重算：与另外两类事件一起构建 MarketEventGraph，计算受影响事件的传递闭包
      */
-    List<StockSplitEvent> findBySymbolInAndEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(java.util.Collection<String> symbols, LocalDate eventDate);
+    List<StockSplitEvent> findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(LocalDate eventDate);
 }
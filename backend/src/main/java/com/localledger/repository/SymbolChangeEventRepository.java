@@ -43,16 +43,8 @@ public interface SymbolChangeEventRepository extends BaseRepository<SymbolChange
     List<SymbolChangeEvent> findByIsDeletedFalseOrderByEventDateDesc();
 
     /**
-     * 查询涉及指定 symbols 集合（匹配 oldSymbol 或 newSymbol），且在指定日期当天及之后的所有未删除事件
-     * 用于级联重算
+     * 查询在指定日期当天及之后的所有未删除事件（按事件日期升序）
+     * 用于级联重算：与另外两类事件一起构建 MarketEventGraph，计算受影响事件的传递闭包
      */
-    @org.springframework.data.jpa.repository.Query(
-        "SELECT e FROM SymbolChangeEvent e WHERE e.isDeleted = false " +
-        "AND (e.oldSymbol IN :symbols OR e.newSymbol IN :symbols) " +
-        "AND e.eventDate >= :eventDate ORDER BY e.eventDate ASC"
-    )
-    List<SymbolChangeEvent> findAffectedEvents(
-        @org.springframework.data.repository.query.Param("symbols") java.util.Collection<String> symbols,
-        @org.springframework.data.repository.query.Param("eventDate") LocalDate eventDate
-    );
+    List<SymbolChangeEvent> findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(LocalDate eventDate);
 }
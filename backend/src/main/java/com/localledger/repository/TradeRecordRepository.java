@@ -1,29 +1,49 @@
 package com.localledger.repository;
 
+import com.localledger.dto.TradeLine;
 import com.localledger.entity.TradeRecord;
 import com.localledger.entity.enums.AssetType;
 import com.localledger.entity.enums.Currency;
 import com.localledger.entity.enums.TradeTrigger;
 import com.localledger.entity.enums.TriggerRefType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 交易记录 Repository 接口
  * 提供交易记录表的数据访问方法
  */
-public interface TradeRecordRepository extends BaseRepository<TradeRecord, Long> {
+public interface TradeRecordRepository extends BaseRepository<TradeRecord, Long>, JpaSpecificationExecutor<TradeRecord> {
+
+    /**
+     * 回放计算只读取 TradeLine 所需的列，不加载实体，也不抓取券商、策略关联
+     */
+    String TRADE_LINE_SELECT = "SELECT new com.localledger.dto.TradeLine(t.id, t.tradeDate, t.symbol, t.name, " +
+            "t.underlyingSymbol, t.assetType, t.currency, t.tradeType, t.quantity, t.amount, t.fee, " +
+            "t.brokerId, t.strategyId) FROM TradeRecord t ";
 
     /**
      * 查询所有未删除的交易记录（按ID倒序）
      */
     List<TradeRecord> findByIsDeletedFalseOrderByIdDesc();
 
+    /**
+     * 查询指定证券代码（大写，忽略大小写匹配）的所有未删除交易记录（按ID倒序）
+     */
+    @Query("SELECT t FROM TradeRecord t WHERE t.isDeleted = false AND UPPER(t.symbol) IN :symbols ORDER BY t.id DESC")
+    List<TradeRecord> findByUpperSymbolInOrderByIdDesc(@Param("symbols") java.util.Collection<String> symbols);
+
     /**
      * 查询所有未删除的交易记录（按交易日期倒序）
      */
@@ -67,28 +87,36 @@ public interface TradeRecordRepository extends BaseRepository<TradeRecord, Long>
     long countByIsDeletedFalse();
 
     /**
-     * 按证券类型统计未删除记录数
+     * 一次聚合查询交易记录页面顶部的统计数据（总数、各证券类型数量、各币种费用、去重证券数量）
+     * 使用 FILTER 子句在一次表扫描中完成所有分组统计
      */
-    long countByAssetTypeAndIsDeletedFalse(AssetType assetType);
+    @Query(value = "SELECT COUNT(*) AS \"totalCount\", " +
+            "COUNT(*) FILTER (WHERE t.asset_type = 'STOCK') AS \"stockCount\", " +
+            "COUNT(*) FILTER (WHERE t.asset_type = 'OPTION_CALL') AS \"optionCallCount\", " +
+            "COUNT(*) FILTER (WHERE t.asset_type = 'OPTION_PUT') AS \"optionPutCount\", " +
+            "COUNT(*) FILTER (WHERE t.asset_type = 'ETF') AS \"etfCount\", " +
+            "COALESCE(SUM(t.fee) FILTER (WHERE t.currency = 'USD'), 0) AS \"totalFeeUSD\", " +
+            "COALESCE(SUM(t.fee) FILTER (WHERE t.currency = 'CNY'), 0) AS \"totalFeeCNY\", " +
+            "COALESCE(SUM(t.fee) FILTER (WHERE t.currency = 'HKD'), 0) AS \"totalFeeHKD\", " +
+            "COUNT(DISTINCT t.underlying_symbol) AS \"distinctSymbolCount\" " +
+            "FROM trade_records t WHERE t.is_deleted = false",
+            nativeQuery = true)
+    StatisticsRow aggregateStatistics();
 
     /**
-     * 按币种统计未删除记录的交易费用总和
-     */
-    @Query("SELECT COALESCE(SUM(t.fee), 0) FROM TradeRecord t WHERE t.currency = :currency AND t.isDeleted = false")
-    BigDecimal sumFeeByIsDeletedFalseAndCurrency(@Param("currency") Currency currency);
-
-    /**
-     * 统计未删除记录中不同底层证券代码的数量（去重计数）
+     * 查询 Top N 最常交易的底层证券（按交易次数降序），N 由分页参数决定，在数据库端截断
+     * 返回结果为 Object[]，其中 [0] 是 underlyingSymbol，[1] 是交易次数
      */
-    @Query("SELECT COUNT(DISTINCT t.underlyingSymbol) FROM TradeRecord t WHERE t.isDeleted = false")
-    long countDistinctUnderlyingSymbol();
+    @Query("SELECT t.underlyingSymbol, COUNT(t) as cnt FROM TradeRecord t WHERE t.isDeleted = false AND t.underlyingSymbol IS NOT NULL GROUP BY t.underlyingSymbol ORDER BY cnt DESC")
+    List<Object[]> findTopTradedSymbols(Pageable pageable);
 
     /**
-     * 查询 Top N 最常交易的底层证券（按交易次数降序）
-     * 返回结果为 Object[]，其中 [0] 是 underlyingSymbol，[1] 是交易次数
+     * 按 (币种, 交易日期) 汇总未删除交易记录的手续费，用于按交易日期汇率折算为本位币
+     * 返回结果为 Object[]，其中 [0] 是 Currency，[1] 是交易日期，[2] 是手续费合计
      */
-    @Query("SELECT t.underlyingSymbol, COUNT(t) as cnt FROM TradeRecord t WHERE t.isDeleted = false AND t.underlyingSymbol IS NOT NULL GROUP BY t.underlyingSymbol ORDER BY cnt DESC")
-    List<Object[]> findTopTradedSymbols();
+    @Query("SELECT t.currency, t.tradeDate, SUM(t.fee) FROM TradeRecord t WHERE t.isDeleted = false AND t.fee <> 0 " +
+            "GROUP BY t.currency, t.tradeDate")
+    List<Object[]> sumFeesByCurrencyAndTradeDate();
 
     /**
      * 查询截止某日期的所有未删除交易记录（按交易日期正序，方便按时间顺序计算持仓）
@@ -100,6 +128,107 @@ public interface TradeRecordRepository extends BaseRepository<TradeRecord, Long>
      */
     List<TradeRecord> findByTradeDateLessThanEqualAndBrokerIdAndIsDeletedFalseOrderByTradeDateAsc(LocalDate date, Long brokerId);
 
+    /**
+     * 查询某个 (symbol, brokerId) 在指定日期当天及之后的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于增量重算持仓台账
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.symbol = :symbol AND t.brokerId = :brokerId AND t.tradeDate >= :date " +
+            "AND t.isDeleted = false ORDER BY t.tradeDate ASC, t.id ASC")
+    List<TradeLine> findLinesBySymbolAndBrokerIdFromDate(@Param("symbol") String symbol,
+                                                         @Param("brokerId") Long brokerId,
+                                                         @Param("date") LocalDate date);
+
+    /**
+     * 查询某个 (symbol, brokerId) 截止某日期（含）的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于从头重算单个 (symbol, brokerId) 的持仓成本检查点
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.symbol = :symbol AND t.brokerId = :brokerId AND t.tradeDate <= :asOfDate " +
+            "AND t.isDeleted = false ORDER BY t.tradeDate ASC, t.id ASC")
+    List<TradeLine> findLinesBySymbolAndBrokerIdUntil(@Param("symbol") String symbol,
+                                                      @Param("brokerId") Long brokerId,
+                                                      @Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 查询某个 (symbol, brokerId) 在 (afterDate, asOfDate] 区间内的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于从检查点之后重算单个 (symbol, brokerId) 的持仓成本检查点
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.symbol = :symbol AND t.brokerId = :brokerId " +
+            "AND t.tradeDate > :afterDate AND t.tradeDate <= :asOfDate " +
+            "AND t.isDeleted = false ORDER BY t.tradeDate ASC, t.id ASC")
+    List<TradeLine> findLinesBySymbolAndBrokerIdBetween(@Param("symbol") String symbol,
+                                                        @Param("brokerId") Long brokerId,
+                                                        @Param("afterDate") LocalDate afterDate,
+                                                        @Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 查询所有未删除交易记录（按 symbol、券商、交易日期、ID 正序）
+     * 用于全量重建持仓台账
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.isDeleted = false ORDER BY t.symbol ASC, t.brokerId ASC, t.tradeDate ASC, t.id ASC")
+    List<TradeLine> findAllLinesOrderBySymbolAndBroker();
+
+    /**
+     * 查询指定 symbols 在某日期之前的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于级联重算时一次性加载回放所需的交易记录
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.symbol IN :symbols AND t.tradeDate < :date AND t.isDeleted = false " +
+            "ORDER BY t.tradeDate ASC, t.id ASC")
+    List<TradeLine> findLinesBySymbolInBeforeDate(@Param("symbols") java.util.Collection<String> symbols,
+                                                  @Param("date") LocalDate date);
+
+    /**
+     * 流式读取所有未删除交易记录（按交易日期、ID 正序）
+     * 用于盈亏计算的全量回放，调用方需在事务内使用并关闭 Stream
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.isDeleted = false ORDER BY t.tradeDate ASC, t.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeLine> streamAllLines();
+
+    /**
+     * 流式读取截止某日期（含）的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于持仓成本从头回放，调用方需在事务内使用并关闭 Stream
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.tradeDate <= :asOfDate AND t.isDeleted = false ORDER BY t.tradeDate ASC, t.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeLine> streamLinesUntil(@Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 流式读取 (afterDate, asOfDate] 区间内的所有未删除交易记录（按交易日期、ID 正序）
+     * 用于持仓成本从检查点之后继续回放，调用方需在事务内使用并关闭 Stream
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.tradeDate > :afterDate AND t.tradeDate <= :asOfDate AND t.isDeleted = false " +
+            "ORDER BY t.tradeDate ASC, t.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeLine> streamLinesBetween(@Param("afterDate") LocalDate afterDate, @Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 流式读取截止某日期（含）的所有产生现金收付的未删除交易记录（按交易日期、ID 正序）
+     * 市场事件生成的系统交易（实物分红公允价值、拆合股成本划转）不涉及现金，不返回。
+     * 用于现金余额从头回放，调用方需在事务内使用并关闭 Stream
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.tradeDate <= :asOfDate AND t.isDeleted = false " +
+            "AND t.tradeTrigger <> com.localledger.entity.enums.TradeTrigger.MARKET_EVENT " +
+            "ORDER BY t.tradeDate ASC, t.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeLine> streamCashLinesUntil(@Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 流式读取 (afterDate, asOfDate] 区间内产生现金收付的未删除交易记录（按交易日期、ID 正序）
+     * 用于现金余额从检查点之后继续回放，调用方需在事务内使用并关闭 Stream
+     */
+    @Query(TRADE_LINE_SELECT + "WHERE t.tradeDate > :afterDate AND t.tradeDate <= :asOfDate AND t.isDeleted = false " +
+            "AND t.tradeTrigger <> com.localledger.entity.enums.TradeTrigger.MARKET_EVENT " +
+            "ORDER BY t.tradeDate ASC, t.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeLine> streamCashLinesBetween(@Param("afterDate") LocalDate afterDate, @Param("asOfDate") LocalDate asOfDate);
+
+    /**
+     * 流式读取所有未删除交易记录实体（按交易日期、ID 正序）
+     * 用于导出完整交易历史，调用方需在事务内使用并关闭 Stream
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TradeRecord> streamByIsDeletedFalseOrderByTradeDateAscIdAsc();
+
     // ============ 触发来源相关查询方法 ============
 
     /**
@@ -135,4 +264,27 @@ public interface TradeRecordRepository extends BaseRepository<TradeRecord, Long>
      * 用于自动填充市场事件中的 currency 和 name 等字段
      */
     Optional<TradeRecord> findFirstBySymbolAndIsDeletedFalseOrderByTradeDateDesc(String symbol);
+
+    /**
+     * 交易记录统计聚合查询的结果行
+     */
+    interface StatisticsRow {
+        Long getTotalCount();
+
+        Long getStockCount();
+
+        Long getOptionCallCount();
+
+        Long getOptionPutCount();
+
+        Long getEtfCount();
+
+        BigDecimal getTotalFeeUSD();
+
+        BigDecimal getTotalFeeCNY();
+
+        BigDecimal getTotalFeeHKD();
+
+        Long getDistinctSymbolCount();
+    }
 }
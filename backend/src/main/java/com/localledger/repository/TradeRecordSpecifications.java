@@ -0,0 +1,71 @@
+package com.localledger.repository;
+
+import com.localledger.dto.TradeRecordQuery;
+import com.localledger.entity.TradeRecord;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易记录动态查询条件
+ * 根据 TradeRecordQuery 中传入的筛选条件拼接 WHERE 子句，未传入的条件不参与查询
+ */
+public final class TradeRecordSpecifications {
+
+    private TradeRecordSpecifications() {
+    }
+
+    /**
+     * 未删除且满足所有已传入筛选条件的交易记录
+     */
+    public static Specification<TradeRecord> matching(TradeRecordQuery query) {
+        return (root, cq, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isFalse(root.get("isDeleted")));
+            if (query.getBrokerId() != null) {
+                predicates.add(cb.equal(root.get("brokerId"), query.getBrokerId()));
+            }
+            if (query.getAssetType() != null) {
+                predicates.add(cb.equal(root.get("assetType"), query.getAssetType()));
+            }
+            if (query.getStrategyId() != null) {
+                predicates.add(cb.equal(root.get("strategyId"), query.getStrategyId()));
+            }
+            if (query.getUnderlyingSymbol() != null && !query.getUnderlyingSymbol().isBlank()) {
+                predicates.add(cb.equal(cb.upper(root.get("underlyingSymbol")),
+                        query.getUnderlyingSymbol().trim().toUpperCase()));
+            }
+            if (query.getSymbol() != null && !query.getSymbol().isBlank()) {
+                predicates.add(cb.like(cb.upper(root.get("symbol")),
+                        "%" + query.getSymbol().trim().toUpperCase() + "%"));
+            }
+            if (query.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("tradeDate"), query.getStartDate()));
+            }
+            if (query.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("tradeDate"), query.getEndDate()));
+            }
+            if (query.getTradeTrigger() != null) {
+                predicates.add(cb.equal(root.get("tradeTrigger"), query.getTradeTrigger()));
+            }
+            if (query.getTriggerRefType() != null) {
+                predicates.add(cb.equal(root.get("triggerRefType"), query.getTriggerRefType()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 按 (tradeDate, id) 倒序排列时位于游标之后的记录：
+     * tradeDate < cursorDate OR (tradeDate = cursorDate AND id < cursorId)
+     */
+    public static Specification<TradeRecord> after(LocalDate cursorDate, Long cursorId) {
+        return (root, cq, cb) -> cb.or(
+                cb.lessThan(root.get("tradeDate"), cursorDate),
+                cb.and(cb.equal(root.get("tradeDate"), cursorDate),
+                        cb.lessThan(root.get("id"), cursorId)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.localledger.repository;
+
+import com.localledger.entity.TradeVerificationCheck;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 交易记录核对结果 Repository 接口
+ * 提供 trade_verification_checks 表的数据访问方法
+ */
+public interface TradeVerificationCheckRepository extends BaseRepository<TradeVerificationCheck, Long> {
+
+    /**
+     * 统计指定规则版本的核对结果数量
+     */
+    long countByRuleVersion(String ruleVersion);
+
+    /**
+     * 查询需要重新核对的未删除交易记录的证券代码（大写）：
+     * 尚无核对结果、规则版本不一致，或核对之后被修改过
+     */
+    @Query("SELECT DISTINCT UPPER(t.symbol) FROM TradeRecord t LEFT JOIN TradeVerificationCheck c ON c.recordId = t.id " +
+            "WHERE t.isDeleted = false AND (c.recordId IS NULL OR c.ruleVersion <> :ruleVersion " +
+            "OR (t.updatedAt IS NOT NULL AND (c.recordUpdatedAt IS NULL OR t.updatedAt <> c.recordUpdatedAt)))")
+    List<String> findStaleRecordSymbols(@Param("ruleVersion") String ruleVersion);
+
+    /**
+     * 查询已失效的核对结果在核对时的证券代码（大写）：
+     * 记录已删除、规则版本不一致，或记录在核对之后被修改过（证券代码可能已变化，原证券代码组需要重新核对）
+     */
+    @Query("SELECT DISTINCT UPPER(c.symbol) FROM TradeVerificationCheck c LEFT JOIN TradeRecord t ON t.id = c.recordId " +
+            "WHERE t.id IS NULL OR t.isDeleted = true OR c.ruleVersion <> :ruleVersion " +
+            "OR (t.updatedAt IS NOT NULL AND (c.recordUpdatedAt IS NULL OR t.updatedAt <> c.recordUpdatedAt))")
+    List<String> findStaleCheckSymbols(@Param("ruleVersion") String ruleVersion);
+
+    /**
+     * 查询存在异常的核对结果（按交易记录ID倒序）
+     */
+    @Query("SELECT c FROM TradeVerificationCheck c WHERE c.recordErrors IS NOT NULL OR c.aggregateErrors IS NOT NULL " +
+            "ORDER BY c.recordId DESC")
+    List<TradeVerificationCheck> findFailedOrderByRecordIdDesc();
+
+    /**
+     * 删除指定交易记录的核对结果
+     */
+    @Modifying
+    @Query("DELETE FROM TradeVerificationCheck c WHERE c.recordId IN :recordIds")
+    void deleteByRecordIdIn(@Param("recordIds") Collection<Long> recordIds);
+
+    /**
+     * 删除已删除（或不存在）的交易记录的核对结果
+     */
+    @Modifying
+    @Query("DELETE FROM TradeVerificationCheck c WHERE NOT EXISTS " +
+            "(SELECT 1 FROM TradeRecord t WHERE t.id = c.recordId AND t.isDeleted = false)")
+    void deleteOrphans();
+}
@@ -19,6 +19,12 @@ public class BrokerService {
     @Autowired
     private BrokerRepository brokerRepository;
 
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
     /**
      * 查询所有券商
      */
@@ -76,7 +82,10 @@ public class BrokerService {
         if (brokerRepository.existsByBrokerName(broker.getBrokerName())) {
             throw new IllegalArgumentException("券商名称已存在: " + broker.getBrokerName());
         }
-        return brokerRepository.save(broker);
+        Broker saved = brokerRepository.save(broker);
+        dimensionCache.invalidate();
+        dataVersionTracker.markChanged(DataVersionTracker.BROKERS);
+        return saved;
     }
 
     /**
@@ -100,7 +109,10 @@ public class BrokerService {
         existing.setPhone(brokerData.getPhone());
         existing.setIsActive(brokerData.getIsActive());
 
-        return brokerRepository.save(existing);
+        Broker saved = brokerRepository.save(existing);
+        dimensionCache.invalidate();
+        dataVersionTracker.markChanged(DataVersionTracker.BROKERS);
+        return saved;
     }
 
     /**
@@ -112,5 +124,7 @@ public class BrokerService {
             throw new IllegalArgumentException("券商不存在, ID: " + id);
         }
         brokerRepository.deleteById(id);
+        dimensionCache.invalidate();
+        dataVersionTracker.markChanged(DataVersionTracker.BROKERS);
     }
 }
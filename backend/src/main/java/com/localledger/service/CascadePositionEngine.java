@@ -0,0 +1,159 @@
+package com.localledger.service;
+
+import com.localledger.dto.PositionSnapshot;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.TradeRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 级联重算专用的持仓回放引擎
+ *
+ * 级联重算时每个事件都需要「事件前一天」的持仓快照。若每个事件都从头计算持仓，
+ * N 个事件就要扫描 N 次交易表。本引擎在一次级联中只加载一次交易记录，
+ * 按日期顺序向前推进，与按日期排序的事件交替进行：
+ * 1. snapshotBefore(eventDate)：把 eventDate 之前的交易全部计入持仓，返回当前持仓快照
+ * 2. addGenerated(records)：把事件生成的系统交易记录插入待回放队列，供后续事件看到
+ *
+ * 回放的同时用 CostBasisBook 维护移动加权平均成本，代码变更事件可直接取事件前一天的平均成本，
+ * 无需再按券商重新查询交易记录。
+ *
+ * 整个级联的回放成本为 O(N + T)（N 为事件数，T 为交易记录数）。
+ * 引擎只在单次级联内使用，非线程安全。
+ */
+class CascadePositionEngine {
+
+    /**
+     * 回放顺序：交易日期升序，同一天按ID升序（尚未保存的记录ID为空，排在最后）
+     */
+    private static final Comparator<TradeLine> REPLAY_ORDER = Comparator
+            .comparing(TradeLine::getTradeDate)
+            .thenComparing(TradeLine::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Iterator<TradeLine> trades;
+
+    private TradeLine nextTrade;
+
+    /**
+     * 事件生成的系统交易记录，按回放顺序排列
+     */
+    private final PriorityQueue<TradeLine> generated = new PriorityQueue<>(REPLAY_ORDER);
+
+    /**
+     * 当前持仓：key = symbol|brokerId
+     */
+    private final Map<String, PositionSnapshot> positions = new LinkedHashMap<>();
+
+    /**
+     * 与当前持仓同步推进的持仓成本
+     */
+    private final CostBasisBook costBasis = new CostBasisBook();
+
+    /**
+     * @param records 级联涉及 symbols 的所有未删除交易记录（按交易日期、ID 升序）
+     */
+    CascadePositionEngine(List<TradeLine> records) {
+        this.trades = records.iterator();
+        this.nextTrade = trades.hasNext() ? trades.next() : null;
+    }
+
+    /**
+     * 推进到指定事件日期之前（不含当天），返回此时持仓数量大于0的持仓快照
+     * 等价于 PositionService.calculatePositions(eventDate - 1, null) 的结果，但只回放增量部分
+     *
+     * @param eventDate 事件日期，必须不早于上一次调用时的日期
+     */
+    List<PositionSnapshot> snapshotBefore(LocalDate eventDate) {
+        while (true) {
+            TradeLine next = peekNext();
+            if (next == null || !next.getTradeDate().isBefore(eventDate)) {
+                break;
+            }
+            apply(pollNext());
+        }
+
+        List<PositionSnapshot> snapshot = new ArrayList<>();
+        for (PositionSnapshot position : positions.values()) {
+            if (position.getQuantity() > 0) {
+                snapshot.add(copyOf(position));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 查询某个 (symbol, brokerId) 在最近一次 snapshotBefore 时点的平均持仓成本（精度4位小数）
+     * 等价于按事件前一天（含）回放该 (symbol, brokerId) 全部交易记录得到的移动加权平均成本
+     */
+    BigDecimal averageCost(String symbol, Long brokerId) {
+        return costBasis.averageCost(symbol, brokerId);
+    }
+
+    /**
+     * 登记事件生成的系统交易记录，使其在后续事件的持仓快照中生效
+     */
+    void addGenerated(List<TradeRecord> records) {
+        for (TradeRecord record : records) {
+            generated.add(TradeLine.of(record));
+        }
+    }
+
+    private TradeLine peekNext() {
+        TradeLine pending = generated.peek();
+        if (nextTrade == null) {
+            return pending;
+        }
+        if (pending == null) {
+            return nextTrade;
+        }
+        return REPLAY_ORDER.compare(pending, nextTrade) < 0 ? pending : nextTrade;
+    }
+
+    private TradeLine pollNext() {
+        TradeLine next = peekNext();
+        if (next == nextTrade) {
+            nextTrade = trades.hasNext() ? trades.next() : null;
+        } else {
+            generated.poll();
+        }
+        return next;
+    }
+
+    private void apply(TradeLine record) {
+        String key = record.getSymbol() + "|" + record.getBrokerId();
+        PositionSnapshot position = positions.computeIfAbsent(key, k -> {
+            PositionSnapshot snapshot = new PositionSnapshot();
+            snapshot.setSymbol(record.getSymbol());
+            snapshot.setName(record.getName());
+            snapshot.setUnderlyingSymbol(record.getUnderlyingSymbol());
+            snapshot.setAssetType(record.getAssetType());
+            snapshot.setCurrency(record.getCurrency());
+            snapshot.setBrokerId(record.getBrokerId());
+            snapshot.setQuantity(0);
+            return snapshot;
+        });
+
+        position.setQuantity(position.getQuantity() + PositionLedgerService.calculateQuantityDelta(record));
+        costBasis.apply(record);
+
+        // 更新名称（取最新的名称）
+        if (record.getName() != null && !record.getName().isEmpty()) {
+            position.setName(record.getName());
+        }
+    }
+
+    private static PositionSnapshot copyOf(PositionSnapshot source) {
+        PositionSnapshot copy = new PositionSnapshot();
+        copy.setSymbol(source.getSymbol());
+        copy.setName(source.getName());
+        copy.setUnderlyingSymbol(source.getUnderlyingSymbol());
+        copy.setAssetType(source.getAssetType());
+        copy.setCurrency(source.getCurrency());
+        copy.setBrokerId(source.getBrokerId());
+        copy.setBrokerName(source.getBrokerName());
+        copy.setQuantity(source.getQuantity());
+        return copy;
+    }
+}
@@ -0,0 +1,132 @@
+package com.localledger.service;
+
+import com.localledger.dto.CashFlowLine;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.enums.Currency;
+import com.localledger.entity.enums.RecordType;
+import com.localledger.entity.enums.TradeType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 现金簿
+ * 按 (brokerId, currency) 维护净入金、交易净额和手续费，出入金记录和交易记录按日期顺序逐条计入即可得到任意时点的现金余额。
+ *
+ * - DEPOSIT:    净入金 += 金额
+ * - WITHDRAWAL: 净入金 -= 金额
+ * - BUY:        交易净额 -= 成交金额，手续费 += 手续费
+ * - SELL:       交易净额 += 成交金额，手续费 += 手续费
+ * 现金余额 = 净入金 + 交易净额 - 手续费（各币种分开计算，不做汇率折算）
+ *
+ * 现金簿只做内存计算，由调用方决定回放哪些记录（市场事件生成的系统交易不涉及现金，由查询排除），非线程安全。
+ */
+public class CashBook {
+
+    private final Map<String, Account> accounts = new LinkedHashMap<>();
+
+    /**
+     * 计入一条交易记录
+     */
+    public void apply(TradeLine record) {
+        Account account = account(record.getBrokerId(), record.getCurrency());
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
+        if (record.getTradeType() == TradeType.BUY) {
+            account.tradeNet = account.tradeNet.subtract(amount);
+        } else if (record.getTradeType() == TradeType.SELL) {
+            account.tradeNet = account.tradeNet.add(amount);
+        }
+        if (record.getFee() != null) {
+            account.fees = account.fees.add(record.getFee());
+        }
+    }
+
+    /**
+     * 计入一条出入金记录
+     */
+    public void apply(CashFlowLine record) {
+        Account account = account(record.getBrokerId(), record.getCurrency());
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
+        if (record.getRecordType() == RecordType.DEPOSIT) {
+            account.netDeposit = account.netDeposit.add(amount);
+        } else if (record.getRecordType() == RecordType.WITHDRAWAL) {
+            account.netDeposit = account.netDeposit.subtract(amount);
+        }
+    }
+
+    /**
+     * 从检查点恢复某个 (brokerId, currency) 的现金状态
+     */
+    public void restore(Long brokerId, Currency currency, BigDecimal netDeposit, BigDecimal tradeNet, BigDecimal fees) {
+        Account account = new Account(brokerId, currency);
+        account.netDeposit = netDeposit;
+        account.tradeNet = tradeNet;
+        account.fees = fees;
+        accounts.put(keyOf(brokerId, currency), account);
+    }
+
+    /**
+     * 当前所有 (brokerId, currency) 的现金状态
+     */
+    public Collection<Account> accounts() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+
+    private Account account(Long brokerId, Currency currency) {
+        return accounts.computeIfAbsent(keyOf(brokerId, currency), k -> new Account(brokerId, currency));
+    }
+
+    private static String keyOf(Long brokerId, Currency currency) {
+        return brokerId + "|" + currency;
+    }
+
+    // ============================================================
+    // 内部类：单个 (brokerId, currency) 的现金状态
+    // ============================================================
+
+    /**
+     * 单个 (brokerId, currency) 的净入金、交易净额与手续费
+     */
+    public static class Account {
+        private final Long brokerId;
+        private final Currency currency;
+        private BigDecimal netDeposit = BigDecimal.ZERO;
+        private BigDecimal tradeNet = BigDecimal.ZERO;
+        private BigDecimal fees = BigDecimal.ZERO;
+
+        Account(Long brokerId, Currency currency) {
+            this.brokerId = brokerId;
+            this.currency = currency;
+        }
+
+        public Long getBrokerId() {
+            return brokerId;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public BigDecimal getNetDeposit() {
+            return netDeposit;
+        }
+
+        public BigDecimal getTradeNet() {
+            return tradeNet;
+        }
+
+        public BigDecimal getFees() {
+            return fees;
+        }
+
+        /**
+         * 现金余额 = 净入金 + 交易净额 - 手续费
+         */
+        public BigDecimal balance() {
+            return netDeposit.add(tradeNet).subtract(fees);
+        }
+    }
+}
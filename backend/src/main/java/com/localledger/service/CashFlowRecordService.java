@@ -25,6 +25,12 @@ public class CashFlowRecordService {
     @Autowired
     private BrokerRepository brokerRepository;
 
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    @Autowired
+    private CashLedgerService cashLedgerService;
+
     /**
      * 查询所有未删除的出入金记录（按日期倒序）
      */
@@ -81,7 +87,10 @@ public class CashFlowRecordService {
         if (record.getAmount() == null || record.getAmount().signum() <= 0) {
             throw new IllegalArgumentException("金额必须大于0");
         }
-        return cashFlowRecordRepository.save(record);
+        CashFlowRecord saved = cashFlowRecordRepository.save(record);
+        cashLedgerService.invalidateFrom(saved.getRecordDate());
+        dataVersionTracker.markChanged(DataVersionTracker.CASH_FLOW_RECORDS);
+        return saved;
     }
 
     /**
@@ -93,5 +102,7 @@ public class CashFlowRecordService {
                 .orElseThrow(() -> new IllegalArgumentException("出入金记录不存在, ID: " + id));
         record.setIsDeleted(true);
         cashFlowRecordRepository.save(record);
+        cashLedgerService.invalidateFrom(record.getRecordDate());
+        dataVersionTracker.markChanged(DataVersionTracker.CASH_FLOW_RECORDS);
     }
 }
@@ -0,0 +1,365 @@
+package com.localledger.service;
+
+import com.localledger.dto.CashBalance;
+import com.localledger.dto.CashFlowLine;
+import com.localledger.dto.CashTimeline;
+import com.localledger.dto.PositionHistory;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.CashBalanceCheckpoint;
+import com.localledger.repository.CashBalanceCheckpointRepository;
+import com.localledger.repository.CashFlowRecordRepository;
+import com.localledger.repository.TradeRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 现金余额服务
+ * 合并出入金记录和交易记录，计算截止任意日期每个 (brokerId, currency) 的可用现金及其时间走势。
+ *
+ * 计算流程：
+ * 1. 取不晚于查询日期（时间线取第一个采样点）的最近一个检查点，恢复到 CashBook（没有检查点则从 0 开始）
+ * 2. 分别流式读取检查点之后的出入金记录和交易记录（两者均按日期、ID 正序），
+ *    按日期归并后一次遍历计入现金簿；时间线在越过每个采样点时记录当时的余额
+ * 3. 若开启检查点，回放途中把查询日期上一个月末的现金状态保存为新检查点，供后续查询直接恢复；
+ *    需要保存时先尝试获取检查点排他锁（获取不到则本次不保存），持有到本次计算的事务结束；
+ *    失效检查点的写入事务持有共享锁到提交，因此不会有尚未提交的变动被读进新检查点，
+ *    两者并发时写入事务等待本次回放结束（每个月末检查点失效后只保存一次）
+ *
+ * 市场事件生成的系统交易（实物分红、拆合股）不涉及现金收付，由 Repository 查询排除；
+ * 各币种分开计算，不做汇率折算。
+ *
+ * 检查点在交易记录变动时（监听 TradeRecordsChangedEvent）、在出入金记录变动时由 CashFlowRecordService
+ * 调用 invalidateFrom 按日期整体失效。每次计算的耗时记录在计时器 ledger.cash（标签 query：balances / timeline）中。
+ */
+@Service
+public class CashLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(CashLedgerService.class);
+
+    static final String METRIC_CASH = "ledger.cash";
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private CashFlowRecordRepository cashFlowRecordRepository;
+
+    @Autowired
+    private CashBalanceCheckpointRepository cashBalanceCheckpointRepository;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 是否在计算现金余额时保存月末检查点
+     */
+    @Value("${ledger.cash.checkpoint-enabled:true}")
+    private boolean checkpointEnabled = true;
+
+    /**
+     * 计算截止到指定日期（含）的现金余额
+     * 只返回发生过现金变动的 (brokerId, currency)，按券商ID、币种排序
+     *
+     * @param asOfDate 截止日期
+     * @param brokerId 券商ID（可选，null 表示查询所有券商）
+     */
+    @Transactional
+    public List<CashBalance> calculateBalances(LocalDate asOfDate, Long brokerId) {
+        return meterRegistry.timer(METRIC_CASH, "query", "balances")
+                .record(() -> doCalculateBalances(asOfDate, brokerId));
+    }
+
+    private List<CashBalance> doCalculateBalances(LocalDate asOfDate, Long brokerId) {
+        CashBook book = replay(asOfDate, Collections.emptyList(), null);
+
+        Map<Long, String> brokerNameMap = dimensionCache.brokerNames();
+        List<CashBalance> result = new ArrayList<>();
+        for (CashBook.Account account : sortedAccounts(book, brokerId)) {
+            CashBalance balance = new CashBalance();
+            balance.setBrokerId(account.getBrokerId());
+            balance.setBrokerName(brokerNameMap.getOrDefault(account.getBrokerId(), "未知券商"));
+            balance.setCurrency(account.getCurrency());
+            balance.setNetDeposit(account.getNetDeposit());
+            balance.setTradeNet(account.getTradeNet());
+            balance.setFees(account.getFees());
+            balance.setBalance(account.balance());
+            result.add(balance);
+        }
+        return result;
+    }
+
+    /**
+     * 计算日期区间内的现金余额时间线
+     *
+     * @param from        开始日期（含）
+     * @param to          结束日期（含）
+     * @param granularity 采样粒度
+     * @param brokerId    可选，按券商筛选；为 null 则查询所有券商
+     */
+    @Transactional
+    public CashTimeline calculateTimeline(LocalDate from, LocalDate to, PositionHistory.Granularity granularity,
+                                          Long brokerId) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        List<LocalDate> dates = PositionService.samplingDates(from, to, granularity);
+        return meterRegistry.timer(METRIC_CASH, "query", "timeline")
+                .record(() -> doCalculateTimeline(granularity, brokerId, dates));
+    }
+
+    private CashTimeline doCalculateTimeline(PositionHistory.Granularity granularity, Long brokerId,
+                                             List<LocalDate> dates) {
+        // 1. 一次回放到结束日期，每越过一个采样点记录所有账户的当前余额
+        Map<String, BigDecimal[]> balances = new LinkedHashMap<>();
+        CashBook book = replay(dates.get(dates.size() - 1), dates, (index, current) -> {
+            for (CashBook.Account account : current.accounts()) {
+                balances.computeIfAbsent(account.getBrokerId() + "|" + account.getCurrency(),
+                        k -> new BigDecimal[dates.size()])[index] = account.balance();
+            }
+        });
+
+        // 2. 转换为序列（账户首次出现之前的采样点余额为 0）
+        Map<Long, String> brokerNameMap = dimensionCache.brokerNames();
+        List<CashTimeline.Series> series = new ArrayList<>();
+        for (CashBook.Account account : sortedAccounts(book, brokerId)) {
+            BigDecimal[] values = balances.get(account.getBrokerId() + "|" + account.getCurrency());
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    values[i] = BigDecimal.ZERO;
+                }
+            }
+            CashTimeline.Series item = new CashTimeline.Series();
+            item.setBrokerId(account.getBrokerId());
+            item.setBrokerName(brokerNameMap.getOrDefault(account.getBrokerId(), "未知券商"));
+            item.setCurrency(account.getCurrency());
+            item.setBalances(values);
+            series.add(item);
+        }
+        return new CashTimeline(granularity, dates, series);
+    }
+
+    /**
+     * 交易记录变动后使受影响的检查点失效
+     */
+    @EventListener
+    @Transactional
+    public void onTradeRecordsChanged(TradeRecordsChangedEvent event) {
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidateFrom(event.fromDate());
+        }
+    }
+
+    /**
+     * 出入金记录或交易记录在指定日期发生变动，删除该日期当天及之后的检查点
+     */
+    @Transactional
+    public void invalidateFrom(LocalDate date) {
+        cashBalanceCheckpointRepository.lockForInvalidate();
+        cashBalanceCheckpointRepository.deleteFromDate(date);
+    }
+
+    /**
+     * 删除全部检查点（如全量重建持仓台账时）
+     */
+    @Transactional
+    public void invalidateAll() {
+        cashBalanceCheckpointRepository.lockForInvalidate();
+        cashBalanceCheckpointRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 采样回调：回放越过第 index 个采样点时，以当时的现金簿调用
+     */
+    private interface SampleListener {
+        void onSample(int index, CashBook book);
+    }
+
+    /**
+     * 从最近的检查点开始，按日期归并回放出入金记录和交易记录到指定日期（含），返回此时的现金簿
+     *
+     * @param asOfDate    截止日期
+     * @param sampleDates 采样点日期（升序，均不晚于截止日期），不需要采样时传空列表
+     * @param listener    采样回调，sampleDates 为空时可为 null
+     */
+    private CashBook replay(LocalDate asOfDate, List<LocalDate> sampleDates, SampleListener listener) {
+        LocalDate startDate = sampleDates.isEmpty() ? asOfDate : sampleDates.get(0);
+        LocalDate checkpointDate = cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(startDate);
+        LocalDate pendingCheckpointDate = nextCheckpointDate(asOfDate, sampleDates, checkpointDate);
+        if (pendingCheckpointDate != null) {
+            if (cashBalanceCheckpointRepository.tryLockForSave()) {
+                // 持有排他锁期间没有未提交的失效，重新查找检查点，之后的读取包含此前提交的全部变动
+                checkpointDate = cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(startDate);
+                pendingCheckpointDate = nextCheckpointDate(asOfDate, sampleDates, checkpointDate);
+            } else {
+                // 有写入事务正在失效检查点（本次读取的数据可能已经过期）或其他请求正在保存检查点，本次不保存
+                log.debug("Cash balance checkpoint skipped, checkpoint lock is held: asOfDate={}", asOfDate);
+                pendingCheckpointDate = null;
+            }
+        }
+
+        CashBook book = new CashBook();
+        if (checkpointDate != null) {
+            for (CashBalanceCheckpoint checkpoint : cashBalanceCheckpointRepository.findByCheckpointDate(checkpointDate)) {
+                book.restore(checkpoint.getBrokerId(), checkpoint.getCurrency(),
+                        checkpoint.getNetDeposit(), checkpoint.getTradeNet(), checkpoint.getFees());
+            }
+        }
+        List<CashBalanceCheckpoint> newCheckpoints = null;
+        int nextSample = 0;
+        int replayed = 0;
+
+        try (Stream<CashFlowLine> flowStream = checkpointDate == null
+                ? cashFlowRecordRepository.streamLinesUntil(asOfDate)
+                : cashFlowRecordRepository.streamLinesBetween(checkpointDate, asOfDate);
+             Stream<TradeLine> tradeStream = checkpointDate == null
+                ? tradeRecordRepository.streamCashLinesUntil(asOfDate)
+                : tradeRecordRepository.streamCashLinesBetween(checkpointDate, asOfDate)) {
+            Iterator<CashFlowLine> flows = flowStream.iterator();
+            Iterator<TradeLine> trades = tradeStream.iterator();
+            CashFlowLine flow = flows.hasNext() ? flows.next() : null;
+            TradeLine trade = trades.hasNext() ? trades.next() : null;
+
+            while (flow != null || trade != null) {
+                // 同一日期先计入出入金，再计入交易（不影响日终余额）
+                boolean takeFlow = trade == null
+                        || (flow != null && !flow.getRecordDate().isAfter(trade.getTradeDate()));
+                LocalDate date = takeFlow ? flow.getRecordDate() : trade.getTradeDate();
+
+                while (nextSample < sampleDates.size() && sampleDates.get(nextSample).isBefore(date)) {
+                    listener.onSample(nextSample++, book);
+                }
+                if (pendingCheckpointDate != null && date.isAfter(pendingCheckpointDate)) {
+                    newCheckpoints = toCheckpoints(book, pendingCheckpointDate);
+                    pendingCheckpointDate = null;
+                }
+
+                if (takeFlow) {
+                    book.apply(flow);
+                    flow = flows.hasNext() ? flows.next() : null;
+                } else {
+                    book.apply(trade);
+                    trade = trades.hasNext() ? trades.next() : null;
+                }
+                replayed++;
+            }
+        }
+        while (nextSample < sampleDates.size()) {
+            listener.onSample(nextSample++, book);
+        }
+        if (pendingCheckpointDate != null) {
+            newCheckpoints = toCheckpoints(book, pendingCheckpointDate);
+        }
+
+        // 游标关闭后再写入检查点
+        if (newCheckpoints != null && !newCheckpoints.isEmpty()) {
+            int saved = insertCheckpoints(newCheckpoints);
+            log.info("Cash balance checkpoint saved: date={}, rows={}",
+                    newCheckpoints.get(0).getCheckpointDate(), saved);
+        }
+        log.debug("Cash balances replayed: asOfDate={}, fromCheckpoint={}, records={}", asOfDate, checkpointDate, replayed);
+        return book;
+    }
+
+    /**
+     * 本次回放需要保存的检查点日期：查询日期所在月的上一个月末（查询日期恰为月末时取查询日期本身）
+     * 只在开启检查点、该日期已经过去且晚于现有检查点时保存，否则返回 null
+     *
+     * @param checkpointDate 回放起点的检查点日期；时间线从第一个采样点之前的检查点开始回放，
+     *                       但区间内可能已有更晚的检查点，此时要与截止日期前最近的检查点比较
+     */
+    private LocalDate nextCheckpointDate(LocalDate asOfDate, List<LocalDate> sampleDates, LocalDate checkpointDate) {
+        if (!checkpointEnabled) {
+            return null;
+        }
+        LocalDate existingCheckpointDate = sampleDates.isEmpty()
+                ? checkpointDate
+                : cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate);
+        LocalDate monthEnd = asOfDate.equals(asOfDate.withDayOfMonth(asOfDate.lengthOfMonth()))
+                ? asOfDate
+                : asOfDate.withDayOfMonth(1).minusDays(1);
+        if (!monthEnd.isBefore(LocalDate.now())) {
+            return null;
+        }
+        if (existingCheckpointDate != null && !monthEnd.isAfter(existingCheckpointDate)) {
+            return null;
+        }
+        return monthEnd;
+    }
+
+    /**
+     * 写入检查点行，已存在的 (checkpointDate, brokerId, currency) 跳过，返回实际写入的行数
+     */
+    private int insertCheckpoints(List<CashBalanceCheckpoint> checkpoints) {
+        int size = checkpoints.size();
+        Long[] brokerIds = new Long[size];
+        String[] currencies = new String[size];
+        BigDecimal[] netDeposits = new BigDecimal[size];
+        BigDecimal[] tradeNets = new BigDecimal[size];
+        BigDecimal[] fees = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            CashBalanceCheckpoint checkpoint = checkpoints.get(i);
+            brokerIds[i] = checkpoint.getBrokerId();
+            currencies[i] = checkpoint.getCurrency().name();
+            netDeposits[i] = checkpoint.getNetDeposit();
+            tradeNets[i] = checkpoint.getTradeNet();
+            fees[i] = checkpoint.getFees();
+        }
+        return cashBalanceCheckpointRepository.insertIgnoringExisting(checkpoints.get(0).getCheckpointDate(),
+                brokerIds, currencies, netDeposits, tradeNets, fees);
+    }
+
+    /**
+     * 将现金簿当前状态转换为检查点行
+     */
+    private static List<CashBalanceCheckpoint> toCheckpoints(CashBook book, LocalDate checkpointDate) {
+        List<CashBalanceCheckpoint> checkpoints = new ArrayList<>();
+        for (CashBook.Account account : book.accounts()) {
+            CashBalanceCheckpoint checkpoint = new CashBalanceCheckpoint();
+            checkpoint.setCheckpointDate(checkpointDate);
+            checkpoint.setBrokerId(account.getBrokerId());
+            checkpoint.setCurrency(account.getCurrency());
+            checkpoint.setNetDeposit(account.getNetDeposit());
+            checkpoint.setTradeNet(account.getTradeNet());
+            checkpoint.setFees(account.getFees());
+            checkpoints.add(checkpoint);
+        }
+        return checkpoints;
+    }
+
+    /**
+     * 按券商筛选并按券商ID、币种排序的账户列表
+     */
+    private static List<CashBook.Account> sortedAccounts(CashBook book, Long brokerId) {
+        List<CashBook.Account> accounts = new ArrayList<>();
+        for (CashBook.Account account : book.accounts()) {
+            if (brokerId == null || brokerId.equals(account.getBrokerId())) {
+                accounts.add(account);
+            }
+        }
+        accounts.sort(Comparator.comparing(CashBook.Account::getBrokerId)
+                .thenComparing(CashBook.Account::getCurrency));
+        return accounts;
+    }
+}
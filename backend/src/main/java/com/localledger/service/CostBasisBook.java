@@ -0,0 +1,124 @@
+package com.localledger.service;
+
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.enums.TradeType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 移动加权平均成本簿
+ * 按 (symbol, brokerId) 维护持仓数量和持仓成本池，交易记录按日期顺序逐条计入即可得到任意时点的平均成本。
+ *
+ * 使用移动加权平均法：
+ * - BUY:  持仓成本池 += 买入金额，持仓数量 += 买入数量
+ * - SELL: 持仓成本池 -= 卖出数量 × 当前平均成本，持仓数量 -= 卖出数量
+ * 平均成本 = 持仓成本池 / 当前持仓数量
+ *
+ * 成本簿只做内存计算，由调用方决定回放哪些交易记录（级联重算、成本查询、检查点恢复等），非线程安全。
+ *
+ * TODO: 当前使用移动加权平均法，未来在做盈亏分析时需要深度考虑成本计算方式，
+ *       可能需要支持 FIFO、LIFO 等不同算法。
+ */
+public class CostBasisBook {
+
+    private final Map<String, Holding> holdings = new LinkedHashMap<>();
+
+    /**
+     * 计入一条交易记录
+     */
+    public void apply(TradeLine record) {
+        Holding holding = holdings.computeIfAbsent(keyOf(record.getSymbol(), record.getBrokerId()),
+                k -> new Holding(record.getSymbol(), record.getBrokerId()));
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
+        if (record.getTradeType() == TradeType.BUY) {
+            holding.costPool = holding.costPool.add(amount);
+            holding.quantity += record.getQuantity();
+        } else if (record.getTradeType() == TradeType.SELL) {
+            if (holding.quantity > 0) {
+                // 卖出时按当前平均成本减少成本池
+                BigDecimal avgCostBeforeSell = holding.costPool.divide(BigDecimal.valueOf(holding.quantity), 6, RoundingMode.HALF_UP);
+                holding.costPool = holding.costPool.subtract(avgCostBeforeSell.multiply(BigDecimal.valueOf(record.getQuantity())));
+            }
+            holding.quantity -= record.getQuantity();
+        }
+    }
+
+    /**
+     * 从检查点恢复某个 (symbol, brokerId) 的持仓数量和成本池
+     */
+    public void restore(String symbol, Long brokerId, int quantity, BigDecimal costPool) {
+        Holding holding = new Holding(symbol, brokerId);
+        holding.quantity = quantity;
+        holding.costPool = costPool;
+        holdings.put(keyOf(symbol, brokerId), holding);
+    }
+
+    /**
+     * 查询某个 (symbol, brokerId) 当前的平均持仓成本（精度4位小数），无持仓时返回 0
+     */
+    public BigDecimal averageCost(String symbol, Long brokerId) {
+        Holding holding = holdings.get(keyOf(symbol, brokerId));
+        return holding != null ? holding.averageCost() : BigDecimal.ZERO;
+    }
+
+    /**
+     * 当前所有 (symbol, brokerId) 的持仓成本状态
+     */
+    public Collection<Holding> holdings() {
+        return Collections.unmodifiableCollection(holdings.values());
+    }
+
+    private static String keyOf(String symbol, Long brokerId) {
+        return symbol + "|" + brokerId;
+    }
+
+    // ============================================================
+    // 内部类：单个 (symbol, brokerId) 的持仓成本状态
+    // ============================================================
+
+    /**
+     * 单个 (symbol, brokerId) 的持仓数量与持仓成本池
+     */
+    public static class Holding {
+        private final String symbol;
+        private final Long brokerId;
+        private int quantity;
+        private BigDecimal costPool = BigDecimal.ZERO;
+
+        Holding(String symbol, Long brokerId) {
+            this.symbol = symbol;
+            this.brokerId = brokerId;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public Long getBrokerId() {
+            return brokerId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getCostPool() {
+            return costPool;
+        }
+
+        /**
+         * 平均持仓成本（精度4位小数），无持仓时返回 0
+         */
+        public BigDecimal averageCost() {
+            if (quantity <= 0) {
+                return BigDecimal.ZERO;
+            }
+            return costPool.divide(BigDecimal.valueOf(quantity), 4, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.localledger.service;
+
+import com.localledger.dto.CostBasisSnapshot;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.CostBasisCheckpoint;
+import com.localledger.repository.CostBasisCheckpointRepository;
+import com.localledger.repository.TradeRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 持仓成本服务
+ * 按移动加权平均法计算截止任意日期每个 (symbol, brokerId) 的持仓成本。
+ *
+ * 计算流程：
+ * 1. 取不晚于查询日期的最近一个检查点，恢复到 CostBasisBook（没有检查点则从 0 开始）
+ * 2. 流式读取检查点之后、查询日期之前（含）的交易记录，一次遍历计入成本簿
+ * 3. 若开启检查点，回放途中把查询日期上一个月末的成本状态保存为新检查点，供后续查询直接恢复；
+ *    需要保存时先尝试获取检查点排他锁（获取不到则本次不保存），持有到本次计算的事务结束；
+ *    失效检查点的写入事务持有共享锁到提交，因此不会有尚未提交的变动被读进新检查点，
+ *    两者并发时写入事务等待本次回放结束（每个月末检查点失效后只保存一次）
+ *
+ * 某个 (symbol, brokerId) 的交易记录变动时（监听 TradeRecordsChangedEvent），只重算该键在变动日期当天及之后
+ * 各检查点日期的行，其他键的检查点保留；同一检查点日期下的行仍是一份完整快照（无持仓的键不保存行）。
+ */
+@Service
+public class CostBasisService {
+
+    private static final Logger log = LoggerFactory.getLogger(CostBasisService.class);
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private CostBasisCheckpointRepository costBasisCheckpointRepository;
+
+    /**
+     * 是否在计算持仓成本时保存月末检查点
+     */
+    @Value("${ledger.cost-basis.checkpoint-enabled:true}")
+    private boolean checkpointEnabled = true;
+
+    /**
+     * 计算截止到指定日期（含）的持仓成本
+     * 只返回持仓数量大于0的记录，按券商ID、证券代码排序
+     * 虽然是查询，但回放途中可能保存月末检查点并持有检查点锁，因此有意使用读写事务而不是只读事务
+     *
+     * @param asOfDate 截止日期
+     * @param brokerId 券商ID（可选，null 表示查询所有券商）
+     */
+    @Transactional
+    public List<CostBasisSnapshot> calculateCostBasis(LocalDate asOfDate, Long brokerId) {
+        CostBasisBook book = replay(asOfDate);
+
+        List<CostBasisSnapshot> result = new ArrayList<>();
+        for (CostBasisBook.Holding holding : book.holdings()) {
+            if (holding.getQuantity() <= 0) {
+                continue;
+            }
+            if (brokerId != null && !brokerId.equals(holding.getBrokerId())) {
+                continue;
+            }
+            CostBasisSnapshot snapshot = new CostBasisSnapshot();
+            snapshot.setSymbol(holding.getSymbol());
+            snapshot.setBrokerId(holding.getBrokerId());
+            snapshot.setQuantity(holding.getQuantity());
+            snapshot.setCostPool(holding.getCostPool());
+            snapshot.setAverageCost(holding.averageCost());
+            result.add(snapshot);
+        }
+        result.sort(Comparator.comparing(CostBasisSnapshot::getBrokerId)
+                .thenComparing(CostBasisSnapshot::getSymbol));
+        return result;
+    }
+
+    /**
+     * 计算某个 (symbol, brokerId) 截止指定日期（含）的平均持仓成本（精度4位小数），无持仓时返回 0
+     * 与 calculateCostBasis 相同，可能保存月末检查点，因此使用读写事务
+     */
+    @Transactional
+    public BigDecimal getAverageCost(String symbol, Long brokerId, LocalDate asOfDate) {
+        return replay(asOfDate).averageCost(symbol, brokerId);
+    }
+
+    /**
+     * 交易记录变动后使受影响的检查点失效
+     */
+    @EventListener
+    @Transactional
+    public void onTradeRecordsChanged(TradeRecordsChangedEvent event) {
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidateFrom(event.symbol(), event.brokerId(), event.fromDate());
+        }
+    }
+
+    /**
+     * 某个 (symbol, brokerId) 的交易记录在指定日期发生变动，重算该键在该日期当天及之后各检查点日期的成本状态
+     * 以变动日期之前最近一个检查点中该键的状态为起点（没有则从 0 开始），只回放该键的交易记录
+     */
+    @Transactional
+    public void invalidateFrom(String symbol, Long brokerId, LocalDate date) {
+        costBasisCheckpointRepository.lockForInvalidate();
+        costBasisCheckpointRepository.lockKeyForInvalidate(symbol, brokerId);
+        List<LocalDate> checkpointDates = costBasisCheckpointRepository.findCheckpointDatesFrom(date);
+        if (checkpointDates.isEmpty()) {
+            return;
+        }
+
+        CostBasisBook book = new CostBasisBook();
+        LocalDate baseDate = costBasisCheckpointRepository.findLatestCheckpointDateBefore(date);
+        if (baseDate != null) {
+            costBasisCheckpointRepository.findByCheckpointDateAndSymbolAndBrokerId(baseDate, symbol, brokerId)
+                    .ifPresent(checkpoint -> book.restore(symbol, brokerId,
+                            checkpoint.getQuantity(), checkpoint.getCostPool()));
+        }
+        LocalDate lastDate = checkpointDates.get(checkpointDates.size() - 1);
+        List<TradeLine> lines = baseDate == null
+                ? tradeRecordRepository.findLinesBySymbolAndBrokerIdUntil(symbol, brokerId, lastDate)
+                : tradeRecordRepository.findLinesBySymbolAndBrokerIdBetween(symbol, brokerId, baseDate, lastDate);
+
+        List<CostBasisCheckpoint> checkpoints = new ArrayList<>();
+        int next = 0;
+        for (TradeLine line : lines) {
+            while (line.getTradeDate().isAfter(checkpointDates.get(next))) {
+                checkpoints.addAll(toCheckpoints(book, checkpointDates.get(next++)));
+            }
+            book.apply(line);
+        }
+        while (next < checkpointDates.size()) {
+            checkpoints.addAll(toCheckpoints(book, checkpointDates.get(next++)));
+        }
+
+        costBasisCheckpointRepository.deleteBySymbolAndBrokerIdFromDate(symbol, brokerId, date);
+        if (!checkpoints.isEmpty()) {
+            insertCheckpoints(checkpoints);
+        }
+        log.debug("Cost basis checkpoints recalculated: symbol={}, brokerId={}, fromDate={}, dates={}, rows={}",
+                symbol, brokerId, date, checkpointDates.size(), checkpoints.size());
+    }
+
+    /**
+     * 删除全部检查点（如全量重建持仓台账时）
+     */
+    @Transactional
+    public void invalidateAll() {
+        costBasisCheckpointRepository.lockForInvalidate();
+        costBasisCheckpointRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 从最近的检查点开始回放到指定日期（含），返回此时的成本簿
+     */
+    private CostBasisBook replay(LocalDate asOfDate) {
+        LocalDate checkpointDate = costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate);
+        LocalDate pendingCheckpointDate = nextCheckpointDate(asOfDate, checkpointDate);
+        if (pendingCheckpointDate != null) {
+            if (costBasisCheckpointRepository.tryLockForSave()) {
+                // 持有排他锁期间没有未提交的失效，重新查找检查点，之后的读取包含此前提交的全部变动
+                checkpointDate = costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate);
+                pendingCheckpointDate = nextCheckpointDate(asOfDate, checkpointDate);
+            } else {
+                // 有写入事务正在失效检查点（本次读取的数据可能已经过期）或其他请求正在保存检查点，本次不保存
+                log.debug("Cost basis checkpoint skipped, checkpoint lock is held: asOfDate={}", asOfDate);
+                pendingCheckpointDate = null;
+            }
+        }
+
+        CostBasisBook book = new CostBasisBook();
+        if (checkpointDate != null) {
+            for (CostBasisCheckpoint checkpoint : costBasisCheckpointRepository.findByCheckpointDate(checkpointDate)) {
+                book.restore(checkpoint.getSymbol(), checkpoint.getBrokerId(),
+                        checkpoint.getQuantity(), checkpoint.getCostPool());
+            }
+        }
+        List<CostBasisCheckpoint> newCheckpoints = null;
+        int replayed = 0;
+
+        try (Stream<TradeLine> stream = checkpointDate == null
+                ? tradeRecordRepository.streamLinesUntil(asOfDate)
+                : tradeRecordRepository.streamLinesBetween(checkpointDate, asOfDate)) {
+            Iterator<TradeLine> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                TradeLine record = iterator.next();
+                if (pendingCheckpointDate != null && record.getTradeDate().isAfter(pendingCheckpointDate)) {
+                    newCheckpoints = toCheckpoints(book, pendingCheckpointDate);
+                    pendingCheckpointDate = null;
+                }
+                book.apply(record);
+                replayed++;
+            }
+        }
+        if (pendingCheckpointDate != null) {
+            newCheckpoints = toCheckpoints(book, pendingCheckpointDate);
+        }
+
+        // 游标关闭后再写入检查点
+        if (newCheckpoints != null && !newCheckpoints.isEmpty()) {
+            int saved = insertCheckpoints(newCheckpoints);
+            log.info("Cost basis checkpoint saved: date={}, rows={}",
+                    newCheckpoints.get(0).getCheckpointDate(), saved);
+        }
+        log.debug("Cost basis replayed: asOfDate={}, fromCheckpoint={}, trades={}", asOfDate, checkpointDate, replayed);
+        return book;
+    }
+
+    /**
+     * 本次回放需要保存的检查点日期：查询日期所在月的上一个月末（查询日期恰为月末时取查询日期本身）
+     * 只在开启检查点、该日期已经过去且晚于现有检查点时保存，否则返回 null
+     */
+    private LocalDate nextCheckpointDate(LocalDate asOfDate, LocalDate existingCheckpointDate) {
+        if (!checkpointEnabled) {
+            return null;
+        }
+        LocalDate monthEnd = asOfDate.equals(asOfDate.withDayOfMonth(asOfDate.lengthOfMonth()))
+                ? asOfDate
+                : asOfDate.withDayOfMonth(1).minusDays(1);
+        if (!monthEnd.isBefore(LocalDate.now())) {
+            return null;
+        }
+        if (existingCheckpointDate != null && !monthEnd.isAfter(existingCheckpointDate)) {
+            return null;
+        }
+        return monthEnd;
+    }
+
+    /**
+     * 写入检查点行，已存在的 (checkpointDate, symbol, brokerId) 跳过，返回实际写入的行数
+     */
+    private int insertCheckpoints(List<CostBasisCheckpoint> checkpoints) {
+        int size = checkpoints.size();
+        LocalDate[] checkpointDates = new LocalDate[size];
+        String[] symbols = new String[size];
+        Long[] brokerIds = new Long[size];
+        Integer[] quantities = new Integer[size];
+        BigDecimal[] costPools = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            CostBasisCheckpoint checkpoint = checkpoints.get(i);
+            checkpointDates[i] = checkpoint.getCheckpointDate();
+            symbols[i] = checkpoint.getSymbol();
+            brokerIds[i] = checkpoint.getBrokerId();
+            quantities[i] = checkpoint.getQuantity();
+            costPools[i] = checkpoint.getCostPool();
+        }
+        return costBasisCheckpointRepository.insertIgnoringExisting(checkpointDates, symbols, brokerIds,
+                quantities, costPools);
+    }
+
+    /**
+     * 将成本簿当前状态转换为检查点行（跳过数量和成本池都为 0 的记录）
+     */
+    private static List<CostBasisCheckpoint> toCheckpoints(CostBasisBook book, LocalDate checkpointDate) {
+        List<CostBasisCheckpoint> checkpoints = new ArrayList<>();
+        for (CostBasisBook.Holding holding : book.holdings()) {
+            if (holding.getQuantity() == 0 && holding.getCostPool().signum() == 0) {
+                continue;
+            }
+            CostBasisCheckpoint checkpoint = new CostBasisCheckpoint();
+            checkpoint.setCheckpointDate(checkpointDate);
+            checkpoint.setSymbol(holding.getSymbol());
+            checkpoint.setBrokerId(holding.getBrokerId());
+            checkpoint.setQuantity(holding.getQuantity());
+            checkpoint.setCostPool(holding.getCostPool());
+            checkpoints.add(checkpoint);
+        }
+        return checkpoints;
+    }
+}
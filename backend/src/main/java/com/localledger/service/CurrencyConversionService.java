@@ -0,0 +1,107 @@
+package com.localledger.service;
+
+import com.localledger.entity.enums.Currency;
+import com.localledger.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 币种折算服务
+ * 把不同币种的金额按交易日期的汇率折算为指定的本位币，供统计类接口汇总使用。
+ *
+ * 汇率整体加载为内存中的 FxRateTable，按汇率数据版本（DataVersionTracker.FX_RATES）缓存：
+ * 1. 应用启动后加载，之后折算只做内存二分查找，不访问数据库
+ * 2. 汇率导入提交后版本号变化，下次折算时重新加载
+ *
+ * 调用方应先在数据库中按 (币种, 日期) 汇总金额，再逐项折算（同一天同一币种的汇率相同，结果与逐条折算一致）。
+ */
+@Service
+public class CurrencyConversionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CurrencyConversionService.class);
+
+    @Autowired
+    private FxRateRepository fxRateRepository;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    /**
+     * 最近一次加载的汇率表（与汇率数据版本绑定）
+     */
+    private volatile CachedTable cachedTable;
+
+    /**
+     * 某日期某币种的一笔金额
+     */
+    public record DatedAmount(Currency currency, LocalDate date, BigDecimal amount) {
+    }
+
+    /**
+     * 应用启动后预先加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rates();
+    }
+
+    /**
+     * 当前汇率表；批量折算时取一次后重复使用，保证同一批金额使用同一份汇率
+     */
+    public FxRateTable rates() {
+        long version = dataVersionTracker.current(DataVersionTracker.FX_RATES);
+        CachedTable cached = cachedTable;
+        if (cached != null && cached.version == version) {
+            return cached.table;
+        }
+        FxRateTable table = FxRateTable.of(fxRateRepository.findAllByOrderByCurrencyAscRateDateAsc());
+        cachedTable = new CachedTable(version, table);
+        log.debug("FX rate table loaded: version={}, rates={}", version, table.size());
+        return table;
+    }
+
+    /**
+     * 按指定日期的汇率折算金额（精度2位小数）
+     *
+     * @throws IllegalArgumentException 缺少所需的汇率
+     */
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        return rates().convert(amount, from, to, date).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 把一批金额按各自日期的汇率折算为本位币后求和（精度2位小数）
+     *
+     * @throws IllegalArgumentException 缺少所需的汇率
+     */
+    public BigDecimal sum(Collection<DatedAmount> amounts, Currency baseCurrency) {
+        FxRateTable table = rates();
+        BigDecimal total = BigDecimal.ZERO;
+        for (DatedAmount amount : amounts) {
+            total = total.add(table.convert(amount.amount(), amount.currency(), baseCurrency, amount.date()));
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 某一数据版本下的汇率表
+     */
+    private static class CachedTable {
+        private final long version;
+        private final FxRateTable table;
+
+        CachedTable(long version, FxRateTable table) {
+            this.version = version;
+            this.table = table;
+        }
+    }
+}
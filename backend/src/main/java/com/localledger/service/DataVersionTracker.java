@@ -0,0 +1,132 @@
+package com.localledger.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据版本追踪器
+ * 按数据表维护一个单调递增的版本号，数据变动的事务提交后版本号 +1。
+ * 基于交易记录等数据计算的内存缓存（如盈亏统计）记录计算时的版本号，版本号变化即视为缓存失效。
+ *
+ * 版本号同时用作查询接口的 ETag / Last-Modified（ConditionalReadInterceptor）：
+ * ETag 由启动时间和相关表的版本号组成，Last-Modified 为相关表最近一次变动的精确提交时间（毫秒，未变动过时为启动时间所在的整秒）。
+ * Last-Modified / If-Modified-Since 只精确到秒，同一秒内的多次写入只能靠 ETag 区分，见 ConditionalReadInterceptor。
+ *
+ * 版本号只保存在内存中，应用重启后从 0 开始，缓存也随之重建；ETag 带有启动时间，重启前后不会重复。
+ */
+@Component
+public class DataVersionTracker {
+
+    /** 交易记录表（含持仓台账，台账只随交易记录变动） */
+    public static final String TRADE_RECORDS = "trade_records";
+
+    /** 出入金记录表 */
+    public static final String CASH_FLOW_RECORDS = "cash_flow_records";
+
+    /** 市场事件表（拆股、代码变更、实物分红三张表共用一个版本号） */
+    public static final String MARKET_EVENTS = "market_events";
+
+    /** 券商表 */
+    public static final String BROKERS = "brokers";
+
+    /** 汇率表 */
+    public static final String FX_RATES = "fx_rates";
+
+    /**
+     * 启动时间，作为未变动过的表的 Last-Modified
+     */
+    private final long startedAt = System.currentTimeMillis();
+
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 查询某张表的当前版本号
+     */
+    public long current(String table) {
+        return version(table).counter.get();
+    }
+
+    /**
+     * 某张表最近一次变动的提交时间（毫秒），未变动过时为启动时间所在的整秒
+     */
+    public long lastModified(String table) {
+        return version(table).changedAt;
+    }
+
+    /**
+     * 若干张表当前版本的弱 ETag，任一张表变动后 ETag 随之变化
+     */
+    public String etag(String... tables) {
+        StringBuilder etag = new StringBuilder("W/\"").append(Long.toString(startedAt, 36));
+        for (String table : tables) {
+            etag.append('-').append(current(table));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * 若干张表中最近一次变动的提交时间（毫秒）
+     */
+    public long lastModified(String... tables) {
+        long lastModified = startedAt / 1000 * 1000;
+        for (String table : tables) {
+            lastModified = Math.max(lastModified, lastModified(table));
+        }
+        return lastModified;
+    }
+
+    /**
+     * 交易记录变动（TradeRecordsChangedEvent）后标记交易记录表变动
+     */
+    @EventListener
+    public void onTradeRecordsChanged(TradeRecordsChangedEvent event) {
+        markChanged(TRADE_RECORDS);
+    }
+
+    /**
+     * 标记某张表的数据发生变动
+     * 在事务中调用时，版本号在事务提交后才递增，避免其他线程在提交前用旧数据重建缓存；
+     * 事务回滚则不递增。不在事务中调用时立即递增。
+     */
+    public void markChanged(String table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version(table).increment();
+                }
+            });
+        } else {
+            version(table).increment();
+        }
+    }
+
+    private Version version(String table) {
+        // 未变动过的表取启动时间所在的整秒：启动后的写入一定晚于它，带该时间的 If-Modified-Since 可以直接返回 304
+        return versions.computeIfAbsent(table, k -> new Version(startedAt / 1000 * 1000));
+    }
+
+    /**
+     * 单张表的版本号和最近一次变动时间
+     */
+    private static class Version {
+        private final AtomicLong counter = new AtomicLong();
+        private volatile long changedAt;
+
+        Version(long changedAt) {
+            this.changedAt = changedAt;
+        }
+
+        void increment() {
+            // 先更新时间再递增版本号：读到新版本号时，Last-Modified 不会早于该次变动
+            changedAt = Math.max(changedAt, System.currentTimeMillis());
+            counter.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.localledger.service;
+
+import com.localledger.entity.Broker;
+import com.localledger.entity.Strategy;
+import com.localledger.repository.BrokerRepository;
+import com.localledger.repository.StrategyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 维度数据缓存（券商、策略）
+ * 券商和策略数据量小、变动少，但交易记录的新增 / 修改校验、持仓和盈亏的名称解析都要频繁读取。
+ * 本缓存把两张表的 ID→名称 映射整体保存在内存中：
+ * 1. 应用启动后加载，之后读取只访问 volatile 快照，不加锁、不访问数据库
+ * 2. BrokerService / StrategyService 写入时调用 invalidate()，事务提交后丢弃快照，下次读取时重新加载
+ *
+ * 策略缓存包含已软删除的策略，与 existsById 的语义一致：历史交易记录仍可引用已删除的策略。
+ */
+@Component
+public class DimensionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DimensionCache.class);
+
+    @Autowired
+    private BrokerRepository brokerRepository;
+
+    @Autowired
+    private StrategyRepository strategyRepository;
+
+    /**
+     * 当前快照，为 null 表示需要重新加载
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 失效次数，用于丢弃加载期间已经过期的快照
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 应用启动后预先加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        load();
+    }
+
+    /**
+     * 券商是否存在
+     */
+    public boolean brokerExists(Long brokerId) {
+        return brokerId != null && load().brokerNames.containsKey(brokerId);
+    }
+
+    /**
+     * 策略是否存在（含已软删除的策略）
+     */
+    public boolean strategyExists(Long strategyId) {
+        return strategyId != null && load().strategyNames.containsKey(strategyId);
+    }
+
+    /**
+     * 查询券商名称，不存在时返回 null
+     */
+    public String brokerName(Long brokerId) {
+        return brokerId == null ? null : load().brokerNames.get(brokerId);
+    }
+
+    /**
+     * 查询策略名称，不存在时返回 null
+     */
+    public String strategyName(Long strategyId) {
+        return strategyId == null ? null : load().strategyNames.get(strategyId);
+    }
+
+    /**
+     * 全部券商 ID→名称（只读）
+     */
+    public Map<Long, String> brokerNames() {
+        return load().brokerNames;
+    }
+
+    /**
+     * 全部策略 ID→名称（只读，含已软删除的策略）
+     */
+    public Map<Long, String> strategyNames() {
+        return load().strategyNames;
+    }
+
+    /**
+     * 标记券商或策略数据发生变动
+     * 在事务中调用时，快照在事务提交后才丢弃，避免其他线程在提交前用旧数据重新加载；
+     * 事务回滚则保留快照。不在事务中调用时立即丢弃。
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard();
+                }
+            });
+        } else {
+            discard();
+        }
+    }
+
+    private void discard() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 返回当前快照，快照失效时加载新快照
+     */
+    private Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            long loadingGeneration = generation.get();
+            Map<Long, String> brokerNames = new HashMap<>();
+            for (Broker broker : brokerRepository.findAll()) {
+                brokerNames.put(broker.getId(), broker.getBrokerName());
+            }
+            Map<Long, String> strategyNames = new HashMap<>();
+            for (Strategy strategy : strategyRepository.findAll()) {
+                strategyNames.put(strategy.getId(), strategy.getStrategyName());
+            }
+            current = new Snapshot(Collections.unmodifiableMap(brokerNames), Collections.unmodifiableMap(strategyNames));
+            // 加载期间发生过失效，本次结果只用于当前调用，不缓存
+            if (generation.get() == loadingGeneration) {
+                snapshot = current;
+            }
+            log.debug("Dimension cache loaded: brokers={}, strategies={}", brokerNames.size(), strategyNames.size());
+            return current;
+        }
+    }
+
+    /**
+     * 某一时刻的维度数据快照（不可变）
+     */
+    private static class Snapshot {
+        private final Map<Long, String> brokerNames;
+        private final Map<Long, String> strategyNames;
+
+        Snapshot(Map<Long, String> brokerNames, Map<Long, String> strategyNames) {
+            this.brokerNames = brokerNames;
+            this.strategyNames = strategyNames;
+        }
+    }
+}
@@ -88,7 +88,7 @@ public class DividendInKindEventService {
         DividendInKindEvent saved = dividendInKindEventRepository.save(event);
         log.info("Dividend-in-kind event saved: id={}, symbol={}, dividendSymbol={}, eventDate={}",
                 saved.getId(), saved.getSymbol(), saved.getDividendSymbol(), saved.getEventDate());
-        marketEventProcessingService.processDividendInKindEvent(saved);
+        saved.setCascadeJobId(marketEventProcessingService.processDividendInKindEvent(saved));
         return saved;
     }
 
@@ -128,16 +128,18 @@ public class DividendInKindEventService {
         affectedSymbols.add(saved.getSymbol());
         affectedSymbols.add(saved.getDividendSymbol());
         java.time.LocalDate sinceDate = oldDate.isBefore(saved.getEventDate()) ? oldDate : saved.getEventDate();
-        marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate);
+        saved.setCascadeJobId(marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate));
 
         return saved;
     }
 
     /**
      * 软删除实物分红事件，并级联重算后续事件
+     *
+     * @return 异步级联重算模式下登记的任务ID，同步模式下为 null
      */
     @Transactional
-    public void delete(Long id) {
+    public Long delete(Long id) {
         DividendInKindEvent existing = dividendInKindEventRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("实物分红事件不存在, ID: " + id));
         existing.setIsDeleted(true);
@@ -146,14 +148,14 @@ public class DividendInKindEventService {
         dividendInKindEventRepository.save(existing);
 
         // 先清理被删除事件自身关联的系统交易记录
-        tradeRecordRepository.deleteByTriggerRefTypeAndTriggerRefIdIn(
+        marketEventProcessingService.deleteSystemTradeRecords(
                 TriggerRefType.DIVIDEND_IN_KIND, List.of(existing.getId()));
 
         // 删除后级联重算
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(existing.getSymbol());
         affectedSymbols.add(existing.getDividendSymbol());
-        marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
+        return marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
     }
 
     /**
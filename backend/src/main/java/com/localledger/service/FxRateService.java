@@ -0,0 +1,224 @@
+package com.localledger.service;
+
+import com.localledger.dto.FxRateImportResult;
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+import com.localledger.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 汇率业务逻辑服务
+ * 负责从本地 CSV 导入每日汇率（1 单位外币折合人民币），折算由 CurrencyConversionService 在内存中完成。
+ *
+ * CSV 按表头列名取值，必填列 rateDate（YYYY-MM-DD）、currency（HKD / USD）、rate（大于 0）；
+ * 同一 (rateDate, currency) 已存在时更新汇率，重复导入同一文件不会产生重复数据。
+ * 配置 ledger.fx.import-file 后，应用启动时自动导入该文件。
+ */
+@Service
+@Transactional(readOnly = true)
+public class FxRateService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    /**
+     * 单次导入的最大条数
+     */
+    static final int MAX_IMPORT_ROWS = 100000;
+
+    /**
+     * 校验失败时最多返回的错误条数
+     */
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private static final List<String> REQUIRED_CSV_COLUMNS = Arrays.asList("rateDate", "currency", "rate");
+
+    @Autowired
+    private FxRateRepository fxRateRepository;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    /**
+     * 启动时导入的本地汇率 CSV 文件路径，为空表示不导入
+     */
+    @Value("${ledger.fx.import-file:}")
+    private String importFile = "";
+
+    /**
+     * 查询汇率（按币种、日期正序）
+     *
+     * @param currency  币种（可选，null 表示全部币种）
+     * @param startDate 开始日期（含）
+     * @param endDate   结束日期（含）
+     */
+    public List<FxRate> findByDateRange(Currency currency, LocalDate startDate, LocalDate endDate) {
+        if (currency != null) {
+            return fxRateRepository.findByCurrencyAndRateDateBetweenOrderByRateDateAsc(currency, startDate, endDate);
+        }
+        return fxRateRepository.findByRateDateBetweenOrderByCurrencyAscRateDateAsc(startDate, endDate);
+    }
+
+    /**
+     * 应用启动后导入 ledger.fx.import-file 指定的本地汇率文件
+     * 文件不存在或校验失败时只记录日志，不影响启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void importLocalFile() {
+        if (importFile == null || importFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(importFile);
+        try {
+            FxRateImportResult result = importCsv(Files.readString(path, StandardCharsets.UTF_8));
+            log.info("FX rate file imported: file={}, inserted={}, updated={}",
+                    path, result.getInsertedCount(), result.getUpdatedCount());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("FX rate file import failed: file={}, reason={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 导入 CSV 格式的汇率
+     *
+     * @param content CSV 文本（首行为表头，可带 UTF-8 BOM）
+     * @throws IllegalArgumentException 格式错误或校验不通过，整批不写入
+     */
+    @Transactional
+    public FxRateImportResult importCsv(String content) {
+        List<String[]> rows = TradeImportService.parseCsv(content);
+        if (rows.size() <= 1) {
+            throw new IllegalArgumentException("导入内容为空");
+        }
+        if (rows.size() - 1 > MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException("单次最多导入 " + MAX_IMPORT_ROWS + " 条汇率，本次 " + (rows.size() - 1) + " 条");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] header = rows.get(0);
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim(), i);
+        }
+        for (String column : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV 缺少必填列: " + column);
+            }
+        }
+
+        // 1. 逐行校验，同一 (日期, 币种) 出现多次时以最后一行为准
+        Map<String, FxRate> imported = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 1; i < rows.size(); i++) {
+            try {
+                FxRate rate = toRate(rows.get(i), columns);
+                imported.put(keyOf(rate.getRateDate(), rate.getCurrency()), rate);
+            } catch (IllegalArgumentException e) {
+                errors.add("第 " + (i + 1) + " 行: " + e.getMessage());
+            }
+        }
+        throwIfErrors(errors);
+
+        // 2. 与已有汇率合并：已存在的更新汇率，不存在的新增
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        for (FxRate rate : imported.values()) {
+            if (startDate == null || rate.getRateDate().isBefore(startDate)) {
+                startDate = rate.getRateDate();
+            }
+            if (endDate == null || rate.getRateDate().isAfter(endDate)) {
+                endDate = rate.getRateDate();
+            }
+        }
+        Map<String, FxRate> existing = new HashMap<>();
+        for (FxRate rate : fxRateRepository.findByRateDateBetweenOrderByCurrencyAscRateDateAsc(startDate, endDate)) {
+            existing.put(keyOf(rate.getRateDate(), rate.getCurrency()), rate);
+        }
+        List<FxRate> changed = new ArrayList<>();
+        int inserted = 0;
+        for (Map.Entry<String, FxRate> entry : imported.entrySet()) {
+            FxRate current = existing.get(entry.getKey());
+            if (current == null) {
+                changed.add(entry.getValue());
+                inserted++;
+            } else if (current.getRate().compareTo(entry.getValue().getRate()) != 0) {
+                current.setRate(entry.getValue().getRate());
+                changed.add(current);
+            }
+        }
+        if (!changed.isEmpty()) {
+            fxRateRepository.saveAll(changed);
+            dataVersionTracker.markChanged(DataVersionTracker.FX_RATES);
+        }
+        log.info("FX rates imported: rows={}, inserted={}, updated={}, startDate={}, endDate={}",
+                imported.size(), inserted, changed.size() - inserted, startDate, endDate);
+        return new FxRateImportResult(inserted, changed.size() - inserted, startDate, endDate);
+    }
+
+    /**
+     * 按表头列名把一行 CSV 转换为汇率
+     */
+    private static FxRate toRate(String[] row, Map<String, Integer> columns) {
+        LocalDate rateDate = parse(row, columns, "rateDate", LocalDate::parse);
+        Currency currency = parse(row, columns, "currency", value -> Currency.valueOf(value.toUpperCase(Locale.ROOT)));
+        BigDecimal rate = parse(row, columns, "rate", BigDecimal::new);
+        if (rateDate == null || currency == null || rate == null) {
+            throw new IllegalArgumentException("rateDate、currency、rate 不能为空");
+        }
+        if (currency == Currency.CNY) {
+            throw new IllegalArgumentException("人民币为记账本位币，汇率固定为 1，无需导入");
+        }
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("rate 必须大于0");
+        }
+        FxRate fxRate = new FxRate();
+        fxRate.setRateDate(rateDate);
+        fxRate.setCurrency(currency);
+        fxRate.setRate(rate);
+        return fxRate;
+    }
+
+    private static <T> T parse(String[] row, Map<String, Integer> columns, String column,
+                               Function<String, T> parser) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.length || row[index].trim().isEmpty()) {
+            return null;
+        }
+        String value = row[index].trim();
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(column + " 格式错误: " + value);
+        }
+    }
+
+    private static String keyOf(LocalDate date, Currency currency) {
+        return date + "|" + currency;
+    }
+
+    private static void throwIfErrors(List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("导入校验失败，共 ").append(errors.size()).append(" 处错误，未写入任何汇率: ");
+        message.append(String.join("; ", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS))));
+        if (errors.size() > MAX_REPORTED_ERRORS) {
+            message.append("; ...");
+        }
+        throw new IllegalArgumentException(message.toString());
+    }
+}
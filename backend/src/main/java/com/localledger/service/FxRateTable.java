@@ -0,0 +1,147 @@
+package com.localledger.service;
+
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存汇率表（不可变）
+ * 每个币种的汇率按日期升序保存在两个并列数组中（日期以 epochDay 表示），
+ * 查询某日汇率时二分查找不晚于该日的最近一个日期，O(log n)，不访问数据库。
+ *
+ * 汇率为 1 单位外币折合人民币的金额；人民币为记账本位币，汇率固定为 1。
+ * 任意两种币种之间按人民币交叉折算：amount × rate(from) / rate(to)。
+ */
+public class FxRateTable {
+
+    /**
+     * 交叉折算的中间精度（最终金额由调用方按需要舍入）
+     */
+    private static final int CONVERSION_SCALE = 10;
+
+    private static final FxRateTable EMPTY = new FxRateTable(new EnumMap<>(Currency.class));
+
+    private final Map<Currency, Series> series;
+
+    private FxRateTable(Map<Currency, Series> series) {
+        this.series = series;
+    }
+
+    /**
+     * 空汇率表（只能折算人民币及相同币种）
+     */
+    public static FxRateTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由汇率记录构造，记录顺序任意；同一 (币种, 日期) 出现多次时取最后一条
+     */
+    public static FxRateTable of(Collection<FxRate> rates) {
+        Map<Currency, List<FxRate>> grouped = new EnumMap<>(Currency.class);
+        for (FxRate rate : rates) {
+            if (rate.getCurrency() == Currency.CNY) {
+                continue;
+            }
+            grouped.computeIfAbsent(rate.getCurrency(), k -> new ArrayList<>()).add(rate);
+        }
+        Map<Currency, Series> series = new EnumMap<>(Currency.class);
+        for (Map.Entry<Currency, List<FxRate>> entry : grouped.entrySet()) {
+            List<FxRate> list = entry.getValue();
+            list.sort(Comparator.comparing(FxRate::getRateDate));
+            long[] days = new long[list.size()];
+            BigDecimal[] values = new BigDecimal[list.size()];
+            int size = 0;
+            for (FxRate rate : list) {
+                long day = rate.getRateDate().toEpochDay();
+                if (size > 0 && days[size - 1] == day) {
+                    size--;
+                }
+                days[size] = day;
+                values[size] = rate.getRate();
+                size++;
+            }
+            series.put(entry.getKey(), new Series(Arrays.copyOf(days, size), Arrays.copyOf(values, size)));
+        }
+        return new FxRateTable(series);
+    }
+
+    /**
+     * 某币种在指定日期的汇率（1 单位折合人民币），当日没有汇率时取之前最近一个日期的汇率
+     *
+     * @throws IllegalArgumentException 该日期及之前没有该币种的汇率
+     */
+    public BigDecimal rate(Currency currency, LocalDate date) {
+        if (currency == Currency.CNY) {
+            return BigDecimal.ONE;
+        }
+        Series s = series.get(currency);
+        int index = s == null ? -1 : s.indexOnOrBefore(date.toEpochDay());
+        if (index < 0) {
+            throw new IllegalArgumentException("缺少 " + currency + " 在 " + date + " 及之前的汇率");
+        }
+        return s.rates[index];
+    }
+
+    /**
+     * 按指定日期的汇率把金额从 from 币种折算为 to 币种（不舍入，精度由调用方决定）
+     *
+     * @throws IllegalArgumentException 缺少所需的汇率
+     */
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to, LocalDate date) {
+        if (from == to || amount.signum() == 0) {
+            return amount;
+        }
+        BigDecimal cny = amount.multiply(rate(from, date));
+        if (to == Currency.CNY) {
+            return cny;
+        }
+        return cny.divide(rate(to, date), CONVERSION_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 汇率条数
+     */
+    public int size() {
+        int size = 0;
+        for (Series s : series.values()) {
+            size += s.days.length;
+        }
+        return size;
+    }
+
+    // ============================================================
+    // 内部类：单个币种的汇率序列
+    // ============================================================
+
+    /**
+     * 单个币种按日期升序的汇率
+     */
+    private static class Series {
+        private final long[] days;
+        private final BigDecimal[] rates;
+
+        Series(long[] days, BigDecimal[] rates) {
+            this.days = days;
+            this.rates = rates;
+        }
+
+        /**
+         * 不晚于指定日期的最近一个下标，没有时返回 -1
+         */
+        int indexOnOrBefore(long day) {
+            int index = Arrays.binarySearch(days, day);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
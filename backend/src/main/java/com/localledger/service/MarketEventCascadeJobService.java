@@ -0,0 +1,203 @@
+package com.localledger.service;
+
+import com.localledger.entity.MarketEventCascadeJob;
+import com.localledger.entity.enums.CascadeJobStatus;
+import com.localledger.repository.MarketEventCascadeJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 市场事件级联重算任务服务
+ * 负责任务的登记（去重合并）、领取、完成 / 失败状态维护，以及执行中任务的进度查询。
+ *
+ * 任务登记后发布 JobEnqueued 事件，MarketEventCascadeWorker 在登记事务提交后领取并执行。
+ * 执行中任务的进度（已重算事件数）只保存在内存中，任务结束时写入数据库。
+ *
+ * 领取时合并重叠的任务：以最早登记的等待中任务为起点，把证券代码集合与之（直接或间接）有交集的等待中任务一并领取，
+ * 由一次级联重算处理全部证券代码的并集、从最早的起始日期开始。短时间内连续编辑同一证券的多个事件只需重算一次。
+ */
+@Service
+@Transactional(readOnly = true)
+public class MarketEventCascadeJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketEventCascadeJobService.class);
+
+    /**
+     * 任务登记事件，在登记事务提交后由 MarketEventCascadeWorker 处理
+     */
+    public record JobEnqueued(Long jobId) {
+    }
+
+    @Autowired
+    private MarketEventCascadeJobRepository marketEventCascadeJobRepository;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 执行中任务的进度：jobId -> {已重算事件数, 事件总数}
+     */
+    private final Map<Long, int[]> runningProgress = new ConcurrentHashMap<>();
+
+    /**
+     * 登记级联重算任务，返回任务ID
+     * 同一证券代码集合已有等待执行的任务时合并到该任务，起始日期取较早者
+     *
+     * @param affectedSymbols 受影响的 symbol 集合
+     * @param sinceDate       从该日期（含）开始的事件需要重算
+     */
+    @Transactional
+    public Long enqueue(Set<String> affectedSymbols, LocalDate sinceDate) {
+        String symbols = String.join(",", new TreeSet<>(affectedSymbols));
+        Long jobId = marketEventCascadeJobRepository.upsertPending(symbols, sha256(symbols), sinceDate);
+        log.info("Market event cascade job enqueued: id={}, symbols={}, sinceDate={}", jobId, symbols, sinceDate);
+        applicationEventPublisher.publishEvent(new JobEnqueued(jobId));
+        return jobId;
+    }
+
+    /**
+     * 查询任务，执行中的任务附带内存中的最新进度
+     */
+    public Optional<MarketEventCascadeJob> findById(Long id) {
+        return marketEventCascadeJobRepository.findById(id).map(job -> {
+            int[] progress = runningProgress.get(id);
+            if (job.getStatus() == CascadeJobStatus.RUNNING && progress != null) {
+                job.setProcessedEvents(progress[0]);
+                job.setTotalEvents(progress[1]);
+            }
+            return job;
+        });
+    }
+
+    /**
+     * 领取一批等待执行的任务（状态置为 RUNNING）：最早登记的任务，以及证券代码集合与之直接或间接有交集的其他任务。
+     * 没有可领取的任务时返回空列表
+     */
+    @Transactional
+    public List<MarketEventCascadeJob> claimNextBatch() {
+        List<MarketEventCascadeJob> pending = marketEventCascadeJobRepository.lockPending();
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MarketEventCascadeJob> batch = overlappingWithFirst(pending);
+        LocalDateTime now = LocalDateTime.now();
+        for (MarketEventCascadeJob job : batch) {
+            job.setStatus(CascadeJobStatus.RUNNING);
+            job.setStartedAt(now);
+            runningProgress.put(job.getId(), new int[]{0, 0});
+        }
+        marketEventCascadeJobRepository.saveAll(batch);
+        return batch;
+    }
+
+    /**
+     * 从第一个任务开始，反复吸收证券代码集合与已选任务并集有交集的任务，直到不再增加
+     */
+    static List<MarketEventCascadeJob> overlappingWithFirst(List<MarketEventCascadeJob> pending) {
+        List<MarketEventCascadeJob> batch = new ArrayList<>();
+        List<MarketEventCascadeJob> remaining = new ArrayList<>(pending);
+        Set<String> symbols = new HashSet<>();
+        batch.add(remaining.remove(0));
+        symbols.addAll(symbolsOf(batch.get(0)));
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (Iterator<MarketEventCascadeJob> it = remaining.iterator(); it.hasNext(); ) {
+                MarketEventCascadeJob job = it.next();
+                Set<String> jobSymbols = symbolsOf(job);
+                if (!Collections.disjoint(symbols, jobSymbols)) {
+                    batch.add(job);
+                    symbols.addAll(jobSymbols);
+                    it.remove();
+                    grown = true;
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 任务的证券代码集合
+     */
+    static Set<String> symbolsOf(MarketEventCascadeJob job) {
+        return new TreeSet<>(Arrays.asList(job.getSymbols().split(",")));
+    }
+
+    /**
+     * 更新执行中任务的进度（只更新内存）
+     */
+    public void reportProgress(Collection<Long> jobIds, int processedEvents, int totalEvents) {
+        for (Long jobId : jobIds) {
+            runningProgress.put(jobId, new int[]{processedEvents, totalEvents});
+        }
+    }
+
+    /**
+     * 标记任务已完成
+     */
+    @Transactional
+    public void complete(Collection<Long> jobIds) {
+        jobIds.forEach(jobId -> finish(jobId, CascadeJobStatus.COMPLETED, null));
+    }
+
+    /**
+     * 标记任务失败（级联重算事务已回滚，已重算事件数保留失败时的进度）
+     */
+    @Transactional
+    public void fail(Collection<Long> jobIds, String errorMessage) {
+        jobIds.forEach(jobId -> finish(jobId, CascadeJobStatus.FAILED, errorMessage));
+    }
+
+    /**
+     * 将上次运行时被中断的任务（RUNNING 状态，事务已回滚）标记为失败，并按原证券代码集合和起始日期重新登记
+     */
+    @Transactional
+    public int requeueInterrupted() {
+        List<MarketEventCascadeJob> interrupted =
+                marketEventCascadeJobRepository.findByStatusOrderByIdAsc(CascadeJobStatus.RUNNING);
+        for (MarketEventCascadeJob job : interrupted) {
+            Long newJobId = enqueue(symbolsOf(job), job.getSinceDate());
+            job.setStatus(CascadeJobStatus.FAILED);
+            job.setErrorMessage("执行被中断，已重新登记为任务 " + newJobId);
+            job.setFinishedAt(LocalDateTime.now());
+            marketEventCascadeJobRepository.save(job);
+            log.warn("Interrupted market event cascade job requeued: id={}, newId={}", job.getId(), newJobId);
+        }
+        return interrupted.size();
+    }
+
+    private void finish(Long jobId, CascadeJobStatus status, String errorMessage) {
+        MarketEventCascadeJob job = marketEventCascadeJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("级联重算任务不存在, ID: " + jobId));
+        int[] progress = runningProgress.remove(jobId);
+        if (progress != null) {
+            job.setProcessedEvents(progress[0]);
+            job.setTotalEvents(progress[1]);
+        }
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage);
+        job.setFinishedAt(LocalDateTime.now());
+        marketEventCascadeJobRepository.save(job);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
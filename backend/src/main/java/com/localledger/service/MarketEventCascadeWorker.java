@@ -0,0 +1,141 @@
+package com.localledger.service;
+
+import com.localledger.entity.MarketEventCascadeJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 市场事件级联重算任务执行器
+ * 在单个后台线程中按登记顺序逐个执行级联重算任务，保证同一时间只有一个级联重算在修改系统交易记录。
+ *
+ * 触发时机：
+ * - 任务登记事务提交后（登记事务回滚则不触发）
+ * - 应用启动后：上次运行时被中断的任务重新登记，并执行所有等待中的任务
+ *
+ * 触发后等待 debounce 时间（期间再次触发则重新计时，但距第一次触发最多等待 MAX_DEBOUNCE_FACTOR 倍的 debounce 时间），
+ * 使连续编辑登记的任务都进入等待状态，再由 MarketEventCascadeJobService.claimNextBatch 合并领取，一次级联重算处理完。
+ * 每次执行都会循环领取直到没有等待中的任务；执行期间登记的新任务在当前批次结束后继续执行。
+ */
+@Component
+public class MarketEventCascadeWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketEventCascadeWorker.class);
+
+    @Autowired
+    private MarketEventCascadeJobService marketEventCascadeJobService;
+
+    @Autowired
+    private MarketEventProcessingService marketEventProcessingService;
+
+    /**
+     * 连续触发时最长等待时间与 debounce 时间的倍数，避免持续编辑时任务一直得不到执行
+     */
+    private static final int MAX_DEBOUNCE_FACTOR = 10;
+
+    @Value("${ledger.market-event.cascade-debounce-ms:1000}")
+    private long debounceMs;
+
+    /**
+     * 后台线程为守护线程，不阻止应用退出；退出时未完成的任务事务回滚，下次启动时重新登记
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "market-event-cascade");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 最近一次安排的领取循环，及本轮（上一次领取循环开始之后）第一次触发的时间
+     */
+    private ScheduledFuture<?> scheduledDrain;
+
+    private long firstTriggeredAt;
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobEnqueued(MarketEventCascadeJobService.JobEnqueued event) {
+        scheduleDrain();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeAfterStartup() {
+        int requeued = marketEventCascadeJobService.requeueInterrupted();
+        if (requeued > 0) {
+            log.info("Requeued {} interrupted market event cascade jobs", requeued);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * 安排一次领取循环：已有尚未开始的领取循环时推迟到 debounce 时间之后，但不晚于本轮第一次触发后的最长等待时间
+     */
+    private synchronized void scheduleDrain() {
+        long now = System.currentTimeMillis();
+        // 取消成功说明上一次安排的领取循环尚未开始，沿用本轮第一次触发的时间
+        boolean pending = scheduledDrain != null && scheduledDrain.cancel(false);
+        if (!pending) {
+            firstTriggeredAt = now;
+        }
+        long delay = Math.max(0, Math.min(debounceMs, firstTriggeredAt + debounceMs * MAX_DEBOUNCE_FACTOR - now));
+        scheduledDrain = executor.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 循环领取并执行等待中的任务，直到没有可领取的任务
+     */
+    void drain() {
+        synchronized (this) {
+            scheduledDrain = null;
+        }
+        List<MarketEventCascadeJob> batch;
+        while (!(batch = marketEventCascadeJobService.claimNextBatch()).isEmpty()) {
+            run(batch);
+        }
+    }
+
+    /**
+     * 用一次级联重算执行一批任务：证券代码取并集，起始日期取最早的
+     */
+    private void run(List<MarketEventCascadeJob> batch) {
+        List<Long> jobIds = batch.stream().map(MarketEventCascadeJob::getId).toList();
+        Set<String> symbols = new TreeSet<>();
+        LocalDate sinceDate = null;
+        for (MarketEventCascadeJob job : batch) {
+            symbols.addAll(MarketEventCascadeJobService.symbolsOf(job));
+            if (sinceDate == null || job.getSinceDate().isBefore(sinceDate)) {
+                sinceDate = job.getSinceDate();
+            }
+        }
+        long startedAt = System.currentTimeMillis();
+        log.info("Market event cascade jobs started: ids={}, symbols={}, sinceDate={}", jobIds, symbols, sinceDate);
+        try {
+            marketEventProcessingService.runCascadeJob(symbols, sinceDate,
+                    (processed, total) -> marketEventCascadeJobService.reportProgress(jobIds, processed, total));
+            marketEventCascadeJobService.complete(jobIds);
+            log.info("Market event cascade jobs completed: ids={}, elapsed={}ms", jobIds, System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            log.error("Market event cascade jobs failed: ids={}", jobIds, e);
+            marketEventCascadeJobService.fail(jobIds, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        }
+    }
+}
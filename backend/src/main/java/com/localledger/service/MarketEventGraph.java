@@ -0,0 +1,150 @@
+package com.localledger.service;
+
+import com.localledger.entity.BaseMarketEvent;
+import com.localledger.entity.DividendInKindEvent;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+
+import java.util.*;
+
+/**
+ * 市场事件依赖图
+ *
+ * 以证券代码为节点、市场事件为边，边按处理顺序（事件日期升序，同一天内 代码变更 > 拆股 > 实物分红）编号：
+ * - 拆股：symbol 自环
+ * - 代码变更：oldSymbol → newSymbol
+ * - 实物分红：symbol → dividendSymbol
+ *
+ * 级联重算需要的不只是直接涉及受影响 symbols 的事件：代码变更 A→B 重算后 B 的持仓随之变化，
+ * 之后 B 的拆股、B 派发的实物分红也要重算，依此类推。affectedEvents 从初始 symbols 出发按处理顺序遍历，
+ * 一个事件被纳入后，它改变持仓的 symbols 从该事件起也成为受影响的 symbols，
+ * 一次遍历得到全部受影响事件（已按处理顺序排列），不必每传递一层就查询一次数据库。
+ *
+ * 图只在单次级联内使用，非线程安全。
+ */
+class MarketEventGraph {
+
+    /**
+     * 同一天内的事件处理优先级（数字越小优先级越高）
+     * 代码变更 > 拆股 > 实物分红
+     */
+    private static final int PRIORITY_SYMBOL_CHANGE = 1;
+    private static final int PRIORITY_STOCK_SPLIT = 2;
+    private static final int PRIORITY_DIVIDEND_IN_KIND = 3;
+
+    /**
+     * 处理顺序：事件日期升序，同一天按优先级升序，再按事件ID升序
+     */
+    static final Comparator<BaseMarketEvent> PROCESSING_ORDER = Comparator
+            .comparing(BaseMarketEvent::getEventDate)
+            .thenComparingInt(MarketEventGraph::priorityOf)
+            .thenComparing(BaseMarketEvent::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * 所有边（事件），按处理顺序排列；边的编号即在本列表中的下标
+     */
+    private final List<BaseMarketEvent> edges;
+
+    /**
+     * 节点的邻接表：symbol -> 涉及该 symbol 的边编号（升序）
+     */
+    private final Map<String, List<Integer>> incidentEdges = new HashMap<>();
+
+    /**
+     * @param splits    拆股事件
+     * @param changes   代码变更事件
+     * @param dividends 实物分红事件
+     */
+    MarketEventGraph(List<StockSplitEvent> splits, List<SymbolChangeEvent> changes, List<DividendInKindEvent> dividends) {
+        edges = new ArrayList<>(splits.size() + changes.size() + dividends.size());
+        edges.addAll(splits);
+        edges.addAll(changes);
+        edges.addAll(dividends);
+        edges.sort(PROCESSING_ORDER);
+        for (int i = 0; i < edges.size(); i++) {
+            for (String symbol : involvedSymbols(edges.get(i))) {
+                incidentEdges.computeIfAbsent(symbol, k -> new ArrayList<>()).add(i);
+            }
+        }
+    }
+
+    /**
+     * 计算受影响事件的传递闭包，按处理顺序返回
+     * 涉及（任一端为）受影响 symbol 的事件都需要重算；事件被纳入后，其改变持仓的 symbols 从该事件起也成为受影响的 symbols
+     *
+     * @param symbols 初始受影响的 symbols（从图中第一个事件起受影响）
+     */
+    List<BaseMarketEvent> affectedEvents(Set<String> symbols) {
+        // 待访问的边编号，按编号（即处理顺序）从小到大访问
+        PriorityQueue<Integer> frontier = new PriorityQueue<>();
+        Set<String> affectedSymbols = new HashSet<>();
+        for (String symbol : symbols) {
+            if (affectedSymbols.add(symbol)) {
+                frontier.addAll(incidentEdges.getOrDefault(symbol, Collections.emptyList()));
+            }
+        }
+
+        List<BaseMarketEvent> affected = new ArrayList<>();
+        int last = -1;
+        while (!frontier.isEmpty()) {
+            int index = frontier.poll();
+            if (index == last) {
+                continue;
+            }
+            last = index;
+            BaseMarketEvent event = edges.get(index);
+            affected.add(event);
+            for (String symbol : changedSymbols(event)) {
+                if (affectedSymbols.add(symbol)) {
+                    // 只有该事件之后的边受影响
+                    for (int next : incidentEdges.getOrDefault(symbol, Collections.emptyList())) {
+                        if (next > index) {
+                            frontier.add(next);
+                        }
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 事件涉及的 symbols（任一 symbol 受影响，事件就需要重算）
+     */
+    static Set<String> involvedSymbols(BaseMarketEvent event) {
+        if (event instanceof SymbolChangeEvent change) {
+            return symbols(change.getOldSymbol(), change.getNewSymbol());
+        }
+        if (event instanceof DividendInKindEvent dividend) {
+            return symbols(dividend.getSymbol(), dividend.getDividendSymbol());
+        }
+        return Set.of(event.getSymbol());
+    }
+
+    /**
+     * 事件生成的系统交易记录会改变持仓的 symbols
+     */
+    static Set<String> changedSymbols(BaseMarketEvent event) {
+        if (event instanceof SymbolChangeEvent change) {
+            return symbols(change.getOldSymbol(), change.getNewSymbol());
+        }
+        if (event instanceof DividendInKindEvent dividend) {
+            return Set.of(dividend.getDividendSymbol());
+        }
+        return Set.of(event.getSymbol());
+    }
+
+    private static Set<String> symbols(String first, String second) {
+        return first.equals(second) ? Set.of(first) : Set.of(first, second);
+    }
+
+    private static int priorityOf(BaseMarketEvent event) {
+        if (event instanceof SymbolChangeEvent) {
+            return PRIORITY_SYMBOL_CHANGE;
+        }
+        if (event instanceof DividendInKindEvent) {
+            return PRIORITY_DIVIDEND_IN_KIND;
+        }
+        return PRIORITY_STOCK_SPLIT;
+    }
+}
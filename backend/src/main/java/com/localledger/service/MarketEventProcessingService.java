@@ -1,12 +1,17 @@
 package com.localledger.service;
 
 import com.localledger.dto.PositionSnapshot;
+import com.localledger.dto.TradeLine;
 import com.localledger.entity.*;
 import com.localledger.entity.enums.*;
 import com.localledger.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +20,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -26,25 +32,34 @@ import java.util.stream.Collectors;
  * 核心流程：
  * 1. 确定受影响的 symbols
  * 2. 找出这些 symbols 在事件日期当天及之后的所有市场事件，按时间排序
+ *    由 MarketEventGraph 计算传递闭包：事件重算后持仓发生变化的 symbols（如代码变更的新代码、实物分红的分红证券）
+ *    在该事件之后的事件同样需要重算
  * 3. 删除这些事件关联的所有系统交易记录
  * 4. 按排序后的顺序逐个重新处理每个事件（生成系统交易记录）
+ *    事件前的持仓由 CascadePositionEngine 在一次回放中按日期顺序依次给出，不再每个事件重算一次持仓
  * 5. 整个流程包裹在数据库事务中
+ *
+ * 异步模式（ledger.market-event.async-cascade=true）下，公共入口方法只重置受影响事件的 processed 状态，
+ * 并登记一个级联重算任务（返回任务ID），由 MarketEventCascadeWorker 在后台调用 runCascadeJob 执行；
+ * processed / processedAt 在任务完成后才更新。同步模式下入口方法直接执行级联重算，返回 null。
+ *
+ * 监控指标（标签 type 为事件的 TriggerRefType）：
+ * - ledger.cascade：每次级联重算的总耗时
+ * - ledger.cascade.event：单个事件的处理耗时（含生成记录的写入），计数即处理的事件数
+ * - ledger.cascade.records.deleted / ledger.cascade.records.generated：删除 / 生成的系统交易记录数
  */
 @Service
 public class MarketEventProcessingService {
 
     private static final Logger log = LoggerFactory.getLogger(MarketEventProcessingService.class);
 
-    /**
-     * 同一天内的事件处理优先级（数字越小优先级越高）
-     * 代码变更 > 拆股 > 实物分红
-     */
-    private static final int PRIORITY_SYMBOL_CHANGE = 1;
-    private static final int PRIORITY_STOCK_SPLIT = 2;
-    private static final int PRIORITY_DIVIDEND_IN_KIND = 3;
+    static final String METRIC_CASCADE = "ledger.cascade";
+    static final String METRIC_CASCADE_EVENT = "ledger.cascade.event";
+    static final String METRIC_RECORDS_DELETED = "ledger.cascade.records.deleted";
+    static final String METRIC_RECORDS_GENERATED = "ledger.cascade.records.generated";
 
     @Autowired
-    private PositionService positionService;
+    private ApplicationEventPublisher applicationEventPublisher;
 
     @Autowired
     private TradeRecordRepository tradeRecordRepository;
@@ -58,6 +73,33 @@ public class MarketEventProcessingService {
     @Autowired
     private DividendInKindEventRepository dividendInKindEventRepository;
 
+    @Autowired
+    private MarketEventCascadeJobService marketEventCascadeJobService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    @Value("${ledger.market-event.async-cascade:false}")
+    private boolean asyncCascade;
+
+    /**
+     * 级联重算进度回调
+     */
+    @FunctionalInterface
+    public interface CascadeProgress {
+
+        CascadeProgress NONE = (processedEvents, totalEvents) -> {
+        };
+
+        /**
+         * 确定需要重算的事件后调用一次（processedEvents = 0），之后每处理完一个事件调用一次
+         */
+        void update(int processedEvents, int totalEvents);
+    }
+
     // ============================================================
     // 公共入口方法：由各事件 Service 的 create/update/delete 调用
     // ============================================================
@@ -65,41 +107,47 @@ public class MarketEventProcessingService {
     /**
      * 处理拆股事件（新增或修改后触发）
      * 包含级联重算机制
+     *
+     * @return 异步模式下登记的级联重算任务ID，同步模式下为 null
      */
     @Transactional
-    public void processStockSplitEvent(StockSplitEvent event) {
+    public Long processStockSplitEvent(StockSplitEvent event) {
         log.info("Processing stock split event: id={}, symbol={}, eventDate={}", event.getId(), event.getSymbol(), event.getEventDate());
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(event.getSymbol());
-        cascadeRecalculate(affectedSymbols, event.getEventDate());
+        return cascadeRecalculate(affectedSymbols, event.getEventDate());
     }
 
     /**
      * 处理代码变更事件（新增或修改后触发）
      * 包含级联重算机制
+     *
+     * @return 异步模式下登记的级联重算任务ID，同步模式下为 null
      */
     @Transactional
-    public void processSymbolChangeEvent(SymbolChangeEvent event) {
+    public Long processSymbolChangeEvent(SymbolChangeEvent event) {
         log.info("Processing symbol change event: id={}, oldSymbol={}, newSymbol={}, eventDate={}",
                 event.getId(), event.getOldSymbol(), event.getNewSymbol(), event.getEventDate());
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(event.getOldSymbol());
         affectedSymbols.add(event.getNewSymbol());
-        cascadeRecalculate(affectedSymbols, event.getEventDate());
+        return cascadeRecalculate(affectedSymbols, event.getEventDate());
     }
 
     /**
      * 处理实物分红事件（新增或修改后触发）
      * 包含级联重算机制
+     *
+     * @return 异步模式下登记的级联重算任务ID，同步模式下为 null
      */
     @Transactional
-    public void processDividendInKindEvent(DividendInKindEvent event) {
+    public Long processDividendInKindEvent(DividendInKindEvent event) {
         log.info("Processing dividend-in-kind event: id={}, symbol={}, dividendSymbol={}, eventDate={}",
                 event.getId(), event.getSymbol(), event.getDividendSymbol(), event.getEventDate());
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(event.getSymbol());
         affectedSymbols.add(event.getDividendSymbol());
-        cascadeRecalculate(affectedSymbols, event.getEventDate());
+        return cascadeRecalculate(affectedSymbols, event.getEventDate());
     }
 
     /**
@@ -108,27 +156,97 @@ public class MarketEventProcessingService {
      *
      * @param affectedSymbols 受影响的 symbol 集合
      * @param eventDate       被删除事件的日期
+     * @return 异步模式下登记的级联重算任务ID，同步模式下为 null
      */
     @Transactional
-    public void processEventDeletion(Set<String> affectedSymbols, LocalDate eventDate) {
+    public Long processEventDeletion(Set<String> affectedSymbols, LocalDate eventDate) {
         log.info("Processing cascade recalculation after event deletion: symbols={}, eventDate={}", affectedSymbols, eventDate);
-        cascadeRecalculate(affectedSymbols, eventDate);
+        return cascadeRecalculate(affectedSymbols, eventDate);
+    }
+
+    /**
+     * 处理交易记录批量导入后的级联重算
+     * 导入的交易可能早于已处理的市场事件，需要对受影响 symbols 在最早导入日期及之后的事件统一重算一次
+     *
+     * @param affectedSymbols 导入记录涉及的 symbol 集合
+     * @param sinceDate       导入记录中最早的交易日期
+     * @return 异步模式下登记的级联重算任务ID，同步模式下为 null
+     */
+    @Transactional
+    public Long processTradeImport(Set<String> affectedSymbols, LocalDate sinceDate) {
+        log.info("Processing cascade recalculation after trade import: symbols={}, sinceDate={}", affectedSymbols, sinceDate);
+        return cascadeRecalculate(affectedSymbols, sinceDate);
+    }
+
+    /**
+     * 物理删除指定市场事件生成的系统交易记录，并同步重算受影响的持仓台账
+     *
+     * @param refType 触发关联类型（STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND）
+     * @param refIds  事件ID列表
+     */
+    @Transactional
+    public void deleteSystemTradeRecords(TriggerRefType refType, Collection<Long> refIds) {
+        List<TradeRecord> staleRecords = tradeRecordRepository
+                .findByTriggerRefTypeAndTriggerRefIdInAndIsDeletedFalse(refType, refIds);
+        tradeRecordRepository.deleteByTriggerRefTypeAndTriggerRefIdIn(refType, refIds);
+        meterRegistry.counter(METRIC_RECORDS_DELETED, "type", refType.name()).increment(staleRecords.size());
+        TradeRecordsChangedEvent.forRecords(staleRecords).forEach(applicationEventPublisher::publishEvent);
     }
 
     // ============================================================
     // 核心：级联重算机制
     // ============================================================
 
+    /**
+     * 执行级联重算任务（由 MarketEventCascadeWorker 在后台线程调用，整个任务在一个事务中完成）
+     *
+     * @param affectedSymbols 受影响的 symbol 集合
+     * @param sinceDate       从该日期（含）开始的事件需要重算
+     * @param progress        进度回调
+     */
+    @Transactional
+    public void runCascadeJob(Set<String> affectedSymbols, LocalDate sinceDate, CascadeProgress progress) {
+        dataVersionTracker.markChanged(DataVersionTracker.MARKET_EVENTS);
+        timedCascade(affectedSymbols, sinceDate, progress);
+    }
+
+    /**
+     * 级联重算入口：同步模式下直接执行；异步模式下重置受影响事件的 processed 状态并登记任务
+     *
+     * @return 异步模式下登记的任务ID，同步模式下为 null
+     */
+    private Long cascadeRecalculate(Set<String> affectedSymbols, LocalDate sinceDate) {
+        // 事件的新增 / 修改 / 删除都经过这里，级联重算还会更新事件的 processed 状态
+        dataVersionTracker.markChanged(DataVersionTracker.MARKET_EVENTS);
+        if (asyncCascade) {
+            resetProcessedStatus(collectAffectedEvents(affectedSymbols, sinceDate));
+            return marketEventCascadeJobService.enqueue(affectedSymbols, sinceDate);
+        }
+        timedCascade(affectedSymbols, sinceDate, CascadeProgress.NONE);
+        return null;
+    }
+
+    private void timedCascade(Set<String> affectedSymbols, LocalDate sinceDate, CascadeProgress progress) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            doCascadeRecalculate(affectedSymbols, sinceDate, progress);
+        } finally {
+            sample.stop(meterRegistry.timer(METRIC_CASCADE));
+        }
+    }
+
     /**
      * 级联重算：找出受影响的所有后续事件，删除旧交易记录，按时间顺序重新生成
      *
      * @param affectedSymbols 受影响的 symbol 集合
      * @param sinceDate       从该日期（含）开始的事件需要重算
+     * @param progress        进度回调
      */
-    private void cascadeRecalculate(Set<String> affectedSymbols, LocalDate sinceDate) {
+    private void doCascadeRecalculate(Set<String> affectedSymbols, LocalDate sinceDate, CascadeProgress progress) {
         // 1. 收集所有受影响的事件（按时间+优先级排序）
         List<EventWrapper> allEvents = collectAffectedEvents(affectedSymbols, sinceDate);
         log.info("Cascade recalculation: found {} affected events", allEvents.size());
+        progress.update(0, allEvents.size());
 
         if (allEvents.isEmpty()) {
             return;
@@ -143,18 +261,29 @@ public class MarketEventProcessingService {
 
         // 3. 批量删除旧的系统交易记录
         for (Map.Entry<TriggerRefType, List<Long>> entry : idsToDelete.entrySet()) {
-            tradeRecordRepository.deleteByTriggerRefTypeAndTriggerRefIdIn(entry.getKey(), entry.getValue());
+            deleteSystemTradeRecords(entry.getKey(), entry.getValue());
             log.info("Deleted system trade records for triggerRefType={}, eventIds={}", entry.getKey(), entry.getValue());
         }
 
         // 4. 将所有事件的 processed 状态重置为 false
         resetProcessedStatus(allEvents);
 
-        // 5. 按排序顺序逐个处理每个事件
+        // 5. 一次性加载回放所需的交易记录，构建级联持仓引擎
+        CascadePositionEngine engine = new CascadePositionEngine(loadReplayRecords(allEvents));
+
+        // 6. 按排序顺序逐个处理每个事件
+        List<TradeRecord> allGenerated = new ArrayList<>();
+        int processedEvents = 0;
         for (EventWrapper wrapper : allEvents) {
-            List<TradeRecord> generatedRecords = processOneEvent(wrapper);
+            long eventStart = System.nanoTime();
+            String type = wrapper.triggerRefType.name();
+            List<PositionSnapshot> positions = engine.snapshotBefore(wrapper.eventDate);
+            List<TradeRecord> generatedRecords = processOneEvent(wrapper, positions, engine);
             if (!generatedRecords.isEmpty()) {
                 tradeRecordRepository.saveAll(generatedRecords);
+                // 生成的记录计入引擎，保证后续事件计算持仓时能看到本事件生成的记录
+                engine.addGenerated(generatedRecords);
+                allGenerated.addAll(generatedRecords);
                 log.info("Event {} (id={}) generated {} system trade records",
                         wrapper.triggerRefType, wrapper.eventId, generatedRecords.size());
             } else {
@@ -163,7 +292,32 @@ public class MarketEventProcessingService {
             }
             // 标记为已处理
             markAsProcessed(wrapper);
+            meterRegistry.counter(METRIC_RECORDS_GENERATED, "type", type).increment(generatedRecords.size());
+            meterRegistry.timer(METRIC_CASCADE_EVENT, "type", type)
+                    .record(System.nanoTime() - eventStart, TimeUnit.NANOSECONDS);
+            progress.update(++processedEvents, allEvents.size());
         }
+
+        // 7. 所有事件处理完后统一通知派生数据（持仓台账等）维护
+        TradeRecordsChangedEvent.forRecords(allGenerated).forEach(applicationEventPublisher::publishEvent);
+    }
+
+    /**
+     * 加载级联回放所需的交易记录：所有事件读取持仓的 symbols 在最后一个事件日期之前的未删除交易记录
+     * （旧的系统交易记录此时已被删除）
+     */
+    private List<TradeLine> loadReplayRecords(List<EventWrapper> events) {
+        Set<String> replaySymbols = new HashSet<>();
+        for (EventWrapper wrapper : events) {
+            replaySymbols.add(wrapper.event.getSymbol());
+            if (wrapper.event instanceof SymbolChangeEvent changeEvent) {
+                replaySymbols.add(changeEvent.getOldSymbol());
+            }
+        }
+        LocalDate lastEventDate = events.get(events.size() - 1).eventDate;
+        List<TradeLine> records = tradeRecordRepository.findLinesBySymbolInBeforeDate(replaySymbols, lastEventDate);
+        log.debug("Cascade replay loaded {} trade records for symbols={}", records.size(), replaySymbols);
+        return records;
     }
 
     // ============================================================
@@ -173,37 +327,30 @@ public class MarketEventProcessingService {
     /**
      * 收集所有受影响的市场事件，按 eventDate 升序 + 同一天内固定优先级排序
      * 同一天内顺序：代码变更 > 拆股 > 实物分红
+     *
+     * 一次加载 sinceDate 当天及之后的全部事件构建 MarketEventGraph，在内存中计算受影响事件的传递闭包
      */
     private List<EventWrapper> collectAffectedEvents(Set<String> symbols, LocalDate sinceDate) {
-        List<EventWrapper> allEvents = new ArrayList<>();
+        MarketEventGraph graph = new MarketEventGraph(
+                stockSplitEventRepository.findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(sinceDate),
+                symbolChangeEventRepository.findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(sinceDate),
+                dividendInKindEventRepository.findByEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(sinceDate));
 
-        // 查询拆股事件
-        List<StockSplitEvent> splitEvents = stockSplitEventRepository
-                .findBySymbolInAndEventDateGreaterThanEqualAndIsDeletedFalseOrderByEventDateAsc(symbols, sinceDate);
-        for (StockSplitEvent e : splitEvents) {
-            allEvents.add(new EventWrapper(e.getEventDate(), PRIORITY_STOCK_SPLIT,
-                    TriggerRefType.STOCK_SPLIT, e.getId(), e));
+        List<EventWrapper> allEvents = new ArrayList<>();
+        for (BaseMarketEvent event : graph.affectedEvents(symbols)) {
+            allEvents.add(new EventWrapper(triggerRefTypeOf(event), event));
         }
+        return allEvents;
+    }
 
-        // 查询代码变更事件
-        List<SymbolChangeEvent> changeEvents = symbolChangeEventRepository.findAffectedEvents(symbols, sinceDate);
-        for (SymbolChangeEvent e : changeEvents) {
-            allEvents.add(new EventWrapper(e.getEventDate(), PRIORITY_SYMBOL_CHANGE,
-                    TriggerRefType.SYMBOL_CHANGE, e.getId(), e));
+    private static TriggerRefType triggerRefTypeOf(BaseMarketEvent event) {
+        if (event instanceof SymbolChangeEvent) {
+            return TriggerRefType.SYMBOL_CHANGE;
         }
-
-        // 查询实物分红事件
-        List<DividendInKindEvent> dividendEvents = dividendInKindEventRepository.findAffectedEvents(symbols, sinceDate);
-        for (DividendInKindEvent e : dividendEvents) {
-            allEvents.add(new EventWrapper(e.getEventDate(), PRIORITY_DIVIDEND_IN_KIND,
-                    TriggerRefType.DIVIDEND_IN_KIND, e.getId(), e));
+        if (event instanceof DividendInKindEvent) {
+            return TriggerRefType.DIVIDEND_IN_KIND;
         }
-
-        // 排序：先按日期升序，同一天按优先级升序
-        allEvents.sort(Comparator.comparing(EventWrapper::getEventDate)
-                .thenComparingInt(EventWrapper::getPriority));
-
-        return allEvents;
+        return TriggerRefType.STOCK_SPLIT;
     }
 
     // ============================================================
@@ -212,12 +359,16 @@ public class MarketEventProcessingService {
 
     /**
      * 处理单个市场事件，返回生成的系统交易记录列表
+     *
+     * @param positions 事件前一天的持仓快照
+     * @param engine    级联持仓引擎（提供事件前一天的平均持仓成本）
      */
-    private List<TradeRecord> processOneEvent(EventWrapper wrapper) {
+    private List<TradeRecord> processOneEvent(EventWrapper wrapper, List<PositionSnapshot> positions,
+                                              CascadePositionEngine engine) {
         return switch (wrapper.triggerRefType) {
-            case STOCK_SPLIT -> processStockSplit((StockSplitEvent) wrapper.event);
-            case SYMBOL_CHANGE -> processSymbolChange((SymbolChangeEvent) wrapper.event);
-            case DIVIDEND_IN_KIND -> processDividendInKind((DividendInKindEvent) wrapper.event);
+            case STOCK_SPLIT -> processStockSplit((StockSplitEvent) wrapper.event, positions);
+            case SYMBOL_CHANGE -> processSymbolChange((SymbolChangeEvent) wrapper.event, positions, engine);
+            case DIVIDEND_IN_KIND -> processDividendInKind((DividendInKindEvent) wrapper.event, positions);
             default -> {
                 log.warn("Unknown event type: {}", wrapper.triggerRefType);
                 yield Collections.emptyList();
@@ -234,13 +385,9 @@ public class MarketEventProcessingService {
      * 对持有该 symbol 的每个券商，生成一条 BUY 记录，数量 = 原持仓 × (ratioTo/ratioFrom - 1)
      * 价格=0，金额=0，费用=0
      */
-    private List<TradeRecord> processStockSplit(StockSplitEvent event) {
+    private List<TradeRecord> processStockSplit(StockSplitEvent event, List<PositionSnapshot> positions) {
         List<TradeRecord> records = new ArrayList<>();
 
-        // 计算事件前一天的持仓快照
-        LocalDate dayBefore = event.getEventDate().minusDays(1);
-        List<PositionSnapshot> positions = positionService.calculatePositions(dayBefore, null);
-
         // 筛选持有该 symbol 的持仓
         List<PositionSnapshot> relevantPositions = positions.stream()
                 .filter(p -> event.getSymbol().equals(p.getSymbol()))
@@ -299,13 +446,10 @@ public class MarketEventProcessingService {
      * ② BUY newSymbol 同等数量（价格=平均成本）
      * 排除期权类型
      */
-    private List<TradeRecord> processSymbolChange(SymbolChangeEvent event) {
+    private List<TradeRecord> processSymbolChange(SymbolChangeEvent event, List<PositionSnapshot> positions,
+                                                  CascadePositionEngine engine) {
         List<TradeRecord> records = new ArrayList<>();
 
-        // 计算事件前一天的持仓快照
-        LocalDate dayBefore = event.getEventDate().minusDays(1);
-        List<PositionSnapshot> positions = positionService.calculatePositions(dayBefore, null);
-
         // 筛选持有 oldSymbol 的持仓，排除期权
         List<PositionSnapshot> relevantPositions = positions.stream()
                 .filter(p -> event.getOldSymbol().equals(p.getSymbol()))
@@ -320,8 +464,8 @@ public class MarketEventProcessingService {
         }
 
         for (PositionSnapshot position : relevantPositions) {
-            // 计算平均持仓成本
-            BigDecimal avgCost = calculateAverageCost(position.getSymbol(), position.getBrokerId(), dayBefore);
+            // 事件前一天的平均持仓成本（移动加权平均法，与持仓快照同一次回放得出）
+            BigDecimal avgCost = engine.averageCost(position.getSymbol(), position.getBrokerId());
             BigDecimal totalCost = avgCost.multiply(BigDecimal.valueOf(position.getQuantity()));
 
             // ① SELL oldSymbol
@@ -382,13 +526,9 @@ public class MarketEventProcessingService {
      * Quantity = floor(holdingQty × ratioTo / ratioFrom)
      * Price = fairValuePerShare
      */
-    private List<TradeRecord> processDividendInKind(DividendInKindEvent event) {
+    private List<TradeRecord> processDividendInKind(DividendInKindEvent event, List<PositionSnapshot> positions) {
         List<TradeRecord> records = new ArrayList<>();
 
-        // 计算事件前一天的持仓快照
-        LocalDate dayBefore = event.getEventDate().minusDays(1);
-        List<PositionSnapshot> positions = positionService.calculatePositions(dayBefore, null);
-
         // 筛选持有该 symbol 且 quantity > 0 的持仓
         List<PositionSnapshot> relevantPositions = positions.stream()
                 .filter(p -> event.getSymbol().equals(p.getSymbol()))
@@ -448,49 +588,6 @@ public class MarketEventProcessingService {
     // 辅助方法
     // ============================================================
 
-    /**
-     * 计算某个 symbol 在某个券商下截止指定日期的加权平均持仓成本
-     *
-     * 使用移动加权平均法：
-     * - BUY:  持仓成本池 += 买入金额，持仓数量 += 买入数量
-     * - SELL: 持仓成本池 -= 卖出数量 × 当前平均成本，持仓数量 -= 卖出数量
-     * 最终平均成本 = 持仓成本池 / 当前持仓数量
-     *
-     * TODO: 当前使用移动加权平均法，未来在做盈亏分析时需要深度考虑成本计算方式，
-     *       可能需要支持 FIFO、LIFO 等不同算法，届时需重构此方法。
-     */
-    private BigDecimal calculateAverageCost(String symbol, Long brokerId, LocalDate asOfDate) {
-        List<TradeRecord> records = tradeRecordRepository
-                .findByTradeDateLessThanEqualAndBrokerIdAndIsDeletedFalseOrderByTradeDateAsc(asOfDate, brokerId);
-
-        BigDecimal costPool = BigDecimal.ZERO;  // 持仓成本池
-        int holdingQty = 0;                      // 当前持仓数量
-
-        for (TradeRecord record : records) {
-            if (!symbol.equals(record.getSymbol())) {
-                continue;
-            }
-            BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
-            if (record.getTradeType() == TradeType.BUY) {
-                costPool = costPool.add(amount);
-                holdingQty += record.getQuantity();
-            } else if (record.getTradeType() == TradeType.SELL) {
-                if (holdingQty > 0) {
-                    // 卖出时按当前平均成本减少成本池
-                    BigDecimal avgCostBeforeSell = costPool.divide(BigDecimal.valueOf(holdingQty), 6, RoundingMode.HALF_UP);
-                    costPool = costPool.subtract(avgCostBeforeSell.multiply(BigDecimal.valueOf(record.getQuantity())));
-                }
-                holdingQty -= record.getQuantity();
-            }
-        }
-
-        if (holdingQty <= 0) {
-            return BigDecimal.ZERO;
-        }
-
-        return costPool.divide(BigDecimal.valueOf(holdingQty), 4, RoundingMode.HALF_UP);
-    }
-
     /**
      * 重置事件列表中所有事件的 processed 状态为 false
      */
@@ -553,33 +650,23 @@ public class MarketEventProcessingService {
     }
 
     // ============================================================
-    // 内部类：事件包装器，用于统一排序
+    // 内部类：事件包装器，用于统一处理
     // ============================================================
 
     /**
-     * 事件包装器，将不同类型的市场事件统一封装，便于排序和处理
+     * 事件包装器，将不同类型的市场事件统一封装，便于分发处理
      */
     private static class EventWrapper {
         private final LocalDate eventDate;
-        private final int priority;
         private final TriggerRefType triggerRefType;
         private final Long eventId;
         private final BaseMarketEvent event;
 
-        EventWrapper(LocalDate eventDate, int priority, TriggerRefType triggerRefType, Long eventId, BaseMarketEvent event) {
-            this.eventDate = eventDate;
-            this.priority = priority;
+        EventWrapper(TriggerRefType triggerRefType, BaseMarketEvent event) {
+            this.eventDate = event.getEventDate();
             this.triggerRefType = triggerRefType;
-            this.eventId = eventId;
+            this.eventId = event.getId();
             this.event = event;
         }
-
-        LocalDate getEventDate() {
-            return eventDate;
-        }
-
-        int getPriority() {
-            return priority;
-        }
     }
 }
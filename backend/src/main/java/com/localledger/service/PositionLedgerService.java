@@ -0,0 +1,180 @@
+package com.localledger.service;
+
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.dto.TradeLine;
+import com.localledger.repository.PositionDailyDeltaRepository;
+import com.localledger.repository.TradeRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 持仓台账维护服务
+ * 负责增量维护 position_daily_deltas 表，使持仓快照查询变成按日期截取的索引查找，而不是回放全部交易历史。
+ *
+ * 维护时机：
+ * 1. 交易记录变动（监听 TradeRecordsChangedEvent：单条增删改、批量导入、市场事件级联重算）
+ * 2. 应用启动时台账为空则全量回填
+ *
+ * 台账行的重算以 (symbol, brokerId, fromDate) 为单位：以 fromDate 之前的最后一行为起点，
+ * 重新累加 fromDate 当天及之后的交易记录，成本只与该 (symbol, brokerId) 自身的历史长度相关。
+ * 其他基于交易记录的派生数据（持仓成本检查点、持仓快照缓存、现金余额检查点等）各自监听同一事件维护，不经过本服务。
+ *
+ * 并发：增量重算在读取起点行之前获取该 (symbol, brokerId) 的事务级排他锁（PostgreSQL advisory lock），
+ * 同一键上的两个写入事务依次重算，后一方读到前一方已提交的交易记录和台账行，不会基于过期的起点行写入
+ * （丢失更新或违反 uk_position_daily_deltas_key）；全量重建持有排他的整表锁，与所有增量重算互斥。
+ */
+@Service
+@Transactional(readOnly = true)
+public class PositionLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionLedgerService.class);
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private PositionDailyDeltaRepository positionDailyDeltaRepository;
+
+    /**
+     * 交易记录变动后重算台账：全部变动时全量重建，否则只重算变动的 (symbol, brokerId)
+     */
+    @EventListener
+    @Transactional
+    public void onTradeRecordsChanged(TradeRecordsChangedEvent event) {
+        if (event.isAll()) {
+            rebuildAll();
+        } else {
+            refresh(event.symbol(), event.brokerId(), event.fromDate());
+        }
+    }
+
+    /**
+     * 从指定日期（含）开始重算某个 (symbol, brokerId) 的台账
+     *
+     * @param symbol   证券代码
+     * @param brokerId 券商ID
+     * @param fromDate 发生变动的最早交易日期
+     */
+    @Transactional
+    public void refresh(String symbol, Long brokerId, LocalDate fromDate) {
+        positionDailyDeltaRepository.lockForRefresh();
+        positionDailyDeltaRepository.lockKeyForRefresh(symbol, brokerId);
+        PositionDailyDelta previous = positionDailyDeltaRepository
+                .findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc(symbol, brokerId, fromDate)
+                .orElse(null);
+        List<TradeLine> records = tradeRecordRepository.findLinesBySymbolAndBrokerIdFromDate(symbol, brokerId, fromDate);
+
+        positionDailyDeltaRepository.deleteBySymbolAndBrokerIdFromDate(symbol, brokerId, fromDate);
+        List<PositionDailyDelta> rows = buildRows(records, previous);
+        if (!rows.isEmpty()) {
+            positionDailyDeltaRepository.saveAll(rows);
+        }
+        log.debug("Position ledger refreshed: symbol={}, brokerId={}, fromDate={}, trades={}, rows={}",
+                symbol, brokerId, fromDate, records.size(), rows.size());
+    }
+
+    /**
+     * 全量重建台账
+     */
+    @Transactional
+    public void rebuildAll() {
+        positionDailyDeltaRepository.lockForRebuild();
+        positionDailyDeltaRepository.deleteAllInBatch();
+        List<TradeLine> records = tradeRecordRepository.findAllLinesOrderBySymbolAndBroker();
+
+        List<PositionDailyDelta> rows = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= records.size(); i++) {
+            boolean keyChanged = i == records.size()
+                    || !records.get(i).getSymbol().equals(records.get(start).getSymbol())
+                    || !records.get(i).getBrokerId().equals(records.get(start).getBrokerId());
+            if (keyChanged) {
+                rows.addAll(buildRows(records.subList(start, i), null));
+                start = i;
+            }
+        }
+        positionDailyDeltaRepository.saveAll(rows);
+        log.info("Position ledger rebuilt: trades={}, rows={}", records.size(), rows.size());
+    }
+
+    /**
+     * 应用启动后，若台账为空而交易记录不为空，则全量回填台账
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (positionDailyDeltaRepository.count() == 0 && tradeRecordRepository.countByIsDeletedFalse() > 0) {
+            log.info("Position ledger is empty, backfilling from trade records");
+            rebuildAll();
+        }
+    }
+
+    /**
+     * 将同一 (symbol, brokerId) 下按日期正序排列的交易记录折叠为每日台账行
+     *
+     * @param records  同一 (symbol, brokerId) 的交易记录（按交易日期、ID 正序）
+     * @param previous 起始日期之前的最后一行台账，为 null 表示从 0 开始累加
+     */
+    static List<PositionDailyDelta> buildRows(List<TradeLine> records, PositionDailyDelta previous) {
+        List<PositionDailyDelta> rows = new ArrayList<>();
+        int balance = previous != null ? previous.getBalance() : 0;
+        String name = previous != null ? previous.getName() : null;
+
+        PositionDailyDelta current = null;
+        for (TradeLine record : records) {
+            if (current == null || !current.getTradeDate().equals(record.getTradeDate())) {
+                PositionDailyDelta template = current != null ? current : previous;
+                current = new PositionDailyDelta();
+                current.setSymbol(record.getSymbol());
+                current.setBrokerId(record.getBrokerId());
+                current.setTradeDate(record.getTradeDate());
+                current.setQuantityDelta(0);
+                current.setName(name);
+                // 证券类型、币种、底层代码沿用该 (symbol, brokerId) 第一条交易记录的值
+                current.setAssetType(template != null ? template.getAssetType() : record.getAssetType());
+                current.setCurrency(template != null ? template.getCurrency() : record.getCurrency());
+                current.setUnderlyingSymbol(template != null ? template.getUnderlyingSymbol() : record.getUnderlyingSymbol());
+                rows.add(current);
+            }
+
+            int delta = calculateQuantityDelta(record);
+            balance += delta;
+            current.setQuantityDelta(current.getQuantityDelta() + delta);
+            current.setBalance(balance);
+
+            // 更新名称（取最新的名称）
+            if (record.getName() != null && !record.getName().isEmpty()) {
+                name = record.getName();
+                current.setName(name);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 根据交易类型计算当前 symbol 的数量变动
+     *
+     * TradeType 仅有 BUY / SELL 两个值：
+     * - BUY: 持仓增加
+     * - SELL: 持仓减少
+     */
+    static int calculateQuantityDelta(TradeLine record) {
+        int quantity = record.getQuantity();
+        switch (record.getTradeType()) {
+            case BUY:
+                return quantity;
+            case SELL:
+                return -quantity;
+            default:
+                return 0;
+        }
+    }
+}
@@ -1,35 +1,60 @@
 package com.localledger.service;
 
+import com.localledger.dto.PositionBalanceLine;
+import com.localledger.dto.PositionHistory;
 import com.localledger.dto.PositionSnapshot;
-import com.localledger.entity.TradeRecord;
-import com.localledger.entity.enums.TradeType;
-import com.localledger.repository.BrokerRepository;
-import com.localledger.repository.TradeRecordRepository;
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.repository.PositionDailyDeltaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 持仓计算服务
- * 根据交易记录计算截止某一时刻的持仓快照
+ * 根据持仓台账（position_daily_deltas）计算截止某一时刻的持仓快照
  *
  * TradeType 已精简为 BUY / SELL 两个值，持仓计算逻辑统一且简洁。
  * 期权行权 / 被指派等场景会生成独立的股票侧交易记录（TradeType = BUY/SELL），
  * 不再需要在持仓计算中做特殊的行权影响处理。
+ *
+ * 台账由 PositionLedgerService 随交易记录变动增量维护，
+ * 快照查询只需取每个 (symbol, brokerId) 在截止日期及之前的最后一行，不再回放全部交易历史。
+ * 查询结果按 (截止日期, 券商ID) 缓存在 PositionSnapshotCache 中，缓存自行监听 TradeRecordsChangedEvent，
+ * 在写入事务提交后按日期和券商精确丢弃受影响的缓存项。
+ *
+ * 持仓历史序列（calculateHistory）同样基于台账：取开始日期前的余额作为起点，按日期顺序读取一次区间内的台账行，
+ * 在各采样点记录当时的余额，一次查询得到整段走势，不必逐个日期调用 calculatePositions。
+ *
+ * 每次计算的耗时记录在计时器 ledger.positions.calculate（标签 scope：all / broker）
+ * 和 ledger.positions.history（标签 granularity）中。
  */
 @Service
 @Transactional(readOnly = true)
 public class PositionService {
 
+    static final String METRIC_CALCULATE = "ledger.positions.calculate";
+    static final String METRIC_HISTORY = "ledger.positions.history";
+
+    /**
+     * 持仓历史序列的最大采样点数（按日采样约 10 年）
+     */
+    static final int MAX_HISTORY_POINTS = 3660;
+
+    @Autowired
+    private PositionDailyDeltaRepository positionDailyDeltaRepository;
+
     @Autowired
-    private TradeRecordRepository tradeRecordRepository;
+    private DimensionCache dimensionCache;
 
     @Autowired
-    private BrokerRepository brokerRepository;
+    private PositionSnapshotCache positionSnapshotCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     /**
      * 计算截止到指定日期的持仓快照
@@ -39,88 +64,136 @@ public class PositionService {
      * @return 持仓快照列表（按券商分组，每个 symbol+brokerId 独立一条记录）
      */
     public List<PositionSnapshot> calculatePositions(LocalDate targetDate, Long brokerId) {
-        // 1. 查询截止日期内的所有交易记录
-        List<TradeRecord> records;
-        if (brokerId != null) {
-            records = tradeRecordRepository.findByTradeDateLessThanEqualAndBrokerIdAndIsDeletedFalseOrderByTradeDateAsc(targetDate, brokerId);
-        } else {
-            records = tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate);
-        }
+        return meterRegistry.timer(METRIC_CALCULATE, "scope", brokerId != null ? "broker" : "all")
+                .record(() -> doCalculatePositions(targetDate, brokerId));
+    }
 
-        if (records.isEmpty()) {
+    private List<PositionSnapshot> doCalculatePositions(LocalDate targetDate, Long brokerId) {
+        // 1. 查询截止日期每个 (symbol, brokerId) 的台账余额（已过滤持仓为0的记录），优先取自持仓快照缓存
+        List<PositionBalanceLine> balances = positionSnapshotCache.get(targetDate, brokerId,
+                () -> loadOpenBalances(targetDate, brokerId));
+
+        if (balances.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 2. 构建券商名称映射
-        Map<Long, String> brokerNameMap = buildBrokerNameMap(records);
-
-        // 3. 按 (symbol, brokerId) 维度聚合计算持仓
-        Map<String, PositionSnapshot> positionMap = new LinkedHashMap<>();
-
-        for (TradeRecord record : records) {
-            String key = record.getSymbol() + "|" + record.getBrokerId();
-            PositionSnapshot position = positionMap.computeIfAbsent(key, k -> {
-                PositionSnapshot snapshot = new PositionSnapshot();
-                snapshot.setSymbol(record.getSymbol());
-                snapshot.setName(record.getName());
-                snapshot.setUnderlyingSymbol(record.getUnderlyingSymbol());
-                snapshot.setAssetType(record.getAssetType());
-                snapshot.setCurrency(record.getCurrency());
-                snapshot.setBrokerId(record.getBrokerId());
-                snapshot.setBrokerName(brokerNameMap.getOrDefault(record.getBrokerId(), "未知券商"));
-                snapshot.setQuantity(0);
-                return snapshot;
-            });
-
-            // 根据交易类型计算持仓数量变动
-            int delta = calculateQuantityDelta(record);
-            position.setQuantity(position.getQuantity() + delta);
-
-            // 更新名称（取最新的名称）
-            if (record.getName() != null && !record.getName().isEmpty()) {
-                position.setName(record.getName());
-            }
+        // 2. 券商名称映射（取自维度缓存，不访问数据库）
+        Map<Long, String> brokerNameMap = dimensionCache.brokerNames();
+
+        // 3. 转换为持仓快照
+        List<PositionSnapshot> positions = new ArrayList<>(balances.size());
+        for (PositionBalanceLine balance : balances) {
+            PositionSnapshot snapshot = new PositionSnapshot();
+            snapshot.setSymbol(balance.getSymbol());
+            snapshot.setName(balance.getName());
+            snapshot.setUnderlyingSymbol(balance.getUnderlyingSymbol());
+            snapshot.setAssetType(balance.getAssetType());
+            snapshot.setCurrency(balance.getCurrency());
+            snapshot.setBrokerId(balance.getBrokerId());
+            snapshot.setBrokerName(brokerNameMap.getOrDefault(balance.getBrokerId(), "未知券商"));
+            snapshot.setQuantity(balance.getBalance());
+            positions.add(snapshot);
         }
+        return positions;
+    }
 
-        // 4. 过滤掉持仓为0的记录，返回结果
-        return positionMap.values().stream()
-                .filter(p -> p.getQuantity() != 0)
-                .collect(Collectors.toList());
+    private List<PositionBalanceLine> loadOpenBalances(LocalDate targetDate, Long brokerId) {
+        List<PositionDailyDelta> rows;
+        if (brokerId != null) {
+            rows = positionDailyDeltaRepository.findOpenBalancesAsOfAndBrokerId(targetDate, brokerId);
+        } else {
+            rows = positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate);
+        }
+        return rows.stream().map(PositionBalanceLine::of).toList();
     }
 
     /**
-     * 根据交易类型计算当前 symbol 的数量变动
+     * 计算日期区间内的持仓历史序列
      *
-     * TradeType 仅有 BUY / SELL 两个值：
-     * - BUY: 持仓增加
-     * - SELL: 持仓减少
+     * @param from        开始日期（含）
+     * @param to          结束日期（含）
+     * @param granularity 采样粒度
+     * @param brokerId    可选，按券商筛选；为 null 则查询所有券商
      */
-    private int calculateQuantityDelta(TradeRecord record) {
-        TradeType tradeType = record.getTradeType();
-        int quantity = record.getQuantity();
-
-        switch (tradeType) {
-            case BUY:
-                return quantity;
-            case SELL:
-                return -quantity;
-            default:
-                return 0;
+    public PositionHistory calculateHistory(LocalDate from, LocalDate to, PositionHistory.Granularity granularity,
+                                            Long brokerId) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
         }
+        List<LocalDate> dates = samplingDates(from, to, granularity);
+        return meterRegistry.timer(METRIC_HISTORY, "granularity", granularity.name().toLowerCase(Locale.ROOT))
+                .record(() -> doCalculateHistory(from, to, granularity, brokerId, dates));
+    }
+
+    private PositionHistory doCalculateHistory(LocalDate from, LocalDate to, PositionHistory.Granularity granularity,
+                                               Long brokerId, List<LocalDate> dates) {
+        // 1. 起点：开始日期前一天的余额；区间内的台账行按日期升序
+        LocalDate before = from.minusDays(1);
+        List<PositionDailyDelta> opening;
+        List<PositionBalanceLine> rows;
+        if (brokerId != null) {
+            opening = positionDailyDeltaRepository.findOpenBalancesAsOfAndBrokerId(before, brokerId);
+            rows = positionDailyDeltaRepository.findBalanceLinesBetweenAndBrokerId(from, to, brokerId);
+        } else {
+            opening = positionDailyDeltaRepository.findOpenBalancesAsOf(before);
+            rows = positionDailyDeltaRepository.findBalanceLinesBetween(from, to);
+        }
+
+        // 2. 按日期推进，每到一个采样点记录所有序列的当前余额
+        Map<String, PositionBalanceLine> latest = new LinkedHashMap<>();
+        Map<String, int[]> quantities = new HashMap<>();
+        for (PositionDailyDelta row : opening) {
+            latest.put(row.getSymbol() + "|" + row.getBrokerId(), PositionBalanceLine.of(row));
+        }
+        int next = 0;
+        for (int i = 0; i < dates.size(); i++) {
+            LocalDate date = dates.get(i);
+            while (next < rows.size() && !rows.get(next).getTradeDate().isAfter(date)) {
+                PositionBalanceLine row = rows.get(next++);
+                latest.put(row.getSymbol() + "|" + row.getBrokerId(), row);
+            }
+            for (Map.Entry<String, PositionBalanceLine> entry : latest.entrySet()) {
+                int balance = entry.getValue().getBalance();
+                if (balance != 0) {
+                    quantities.computeIfAbsent(entry.getKey(), k -> new int[dates.size()])[i] = balance;
+                }
+            }
+        }
+
+        // 3. 转换为序列（区间内持仓始终为 0 的不返回）
+        Map<Long, String> brokerNameMap = dimensionCache.brokerNames();
+        List<PositionHistory.Series> series = new ArrayList<>(quantities.size());
+        for (Map.Entry<String, int[]> entry : quantities.entrySet()) {
+            PositionBalanceLine row = latest.get(entry.getKey());
+            PositionHistory.Series item = new PositionHistory.Series();
+            item.setSymbol(row.getSymbol());
+            item.setName(row.getName());
+            item.setAssetType(row.getAssetType());
+            item.setCurrency(row.getCurrency());
+            item.setBrokerId(row.getBrokerId());
+            item.setBrokerName(brokerNameMap.getOrDefault(row.getBrokerId(), "未知券商"));
+            item.setQuantities(entry.getValue());
+            series.add(item);
+        }
+        series.sort(Comparator.comparing(PositionHistory.Series::getBrokerId)
+                .thenComparing(PositionHistory.Series::getSymbol));
+        return new PositionHistory(granularity, dates, series);
     }
 
     /**
-     * 构建券商ID→名称的映射
+     * 采样点日期：从开始日期所在周期起，每个周期的最后一天，最后一个采样点为结束日期
      */
-    private Map<Long, String> buildBrokerNameMap(List<TradeRecord> records) {
-        Set<Long> brokerIds = records.stream()
-                .map(TradeRecord::getBrokerId)
-                .collect(Collectors.toSet());
-
-        Map<Long, String> map = new HashMap<>();
-        for (Long id : brokerIds) {
-            brokerRepository.findById(id).ifPresent(broker -> map.put(id, broker.getBrokerName()));
+    static List<LocalDate> samplingDates(LocalDate from, LocalDate to, PositionHistory.Granularity granularity) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate date = granularity.periodEnd(from);
+        while (date.isBefore(to)) {
+            dates.add(date);
+            if (dates.size() >= MAX_HISTORY_POINTS) {
+                throw new IllegalArgumentException("采样点过多（超过 " + MAX_HISTORY_POINTS + " 个），请缩短日期区间或改用更粗的采样粒度");
+            }
+            date = granularity.periodEnd(date.plusDays(1));
         }
-        return map;
+        dates.add(to);
+        return dates;
     }
 }
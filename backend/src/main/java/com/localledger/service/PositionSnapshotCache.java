@@ -0,0 +1,184 @@
+package com.localledger.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.localledger.dto.PositionBalanceLine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 持仓快照缓存
+ * 缓存 (截止日期, 券商ID) 对应的台账余额，仪表盘重复加载同一日期的持仓时直接从内存返回。
+ * 缓存的是台账余额而不是 PositionSnapshot：券商名称每次读取时从 DimensionCache 解析，券商改名不需要失效本缓存。
+ *
+ * 失效规则：截止日期为 D、券商为 B 的缓存项只依赖 B 在 D 及之前的台账行，
+ * 券商 B 的交易记录从 fromDate 起变动时（监听 TradeRecordsChangedEvent，台账随之重算），只丢弃截止日期 ≥ fromDate
+ * 且券商为 B 或不限券商的缓存项；全部交易记录变动时丢弃全部缓存项。
+ * 与 DimensionCache 相同，在事务中失效时等到事务提交后才丢弃，并用失效次数丢弃加载期间已经过期的结果。
+ *
+ * 缓存按持仓行数加权限制容量（ledger.positions.snapshot-cache.max-weight，≤ 0 表示不缓存），
+ * 命中 / 未命中、淘汰等统计通过 cache.* 指标（标签 cache=positions.snapshot）暴露，
+ * 因台账变动丢弃的缓存项数记录在计数器 ledger.positions.snapshot-cache.invalidated 中。
+ */
+@Component
+public class PositionSnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionSnapshotCache.class);
+
+    static final String CACHE_NAME = "positions.snapshot";
+    static final String METRIC_INVALIDATED = "ledger.positions.snapshot-cache.invalidated";
+
+    @Value("${ledger.positions.snapshot-cache.max-weight:200000}")
+    private long maxWeight;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Key, List<PositionBalanceLine>> cache;
+
+    /**
+     * 失效次数，用于丢弃加载期间已经过期的结果
+     */
+    private long generation;
+
+    public PositionSnapshotCache() {
+    }
+
+    /**
+     * 不经过 Spring 容器直接构造（单元测试、基准测试用）
+     */
+    PositionSnapshotCache(long maxWeight, MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight;
+        this.meterRegistry = meterRegistry;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        if (maxWeight <= 0) {
+            log.info("Position snapshot cache disabled");
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, List<PositionBalanceLine> balances) -> 1 + balances.size())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 读取截止日期的台账余额，未命中时调用 loader 加载并缓存
+     *
+     * @param date     截止日期（含当天）
+     * @param brokerId 券商ID，为 null 表示所有券商
+     * @param loader   从数据库加载台账余额
+     */
+    public List<PositionBalanceLine> get(LocalDate date, Long brokerId, Supplier<List<PositionBalanceLine>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        Key key = new Key(date, brokerId);
+        long loadingGeneration;
+        synchronized (this) {
+            loadingGeneration = generation;
+        }
+        List<PositionBalanceLine> balances = cache.getIfPresent(key);
+        if (balances != null) {
+            return balances;
+        }
+        balances = List.copyOf(loader.get());
+        synchronized (this) {
+            // 加载期间发生过失效，本次结果只用于当前调用，不缓存
+            if (generation == loadingGeneration) {
+                cache.put(key, balances);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * 交易记录变动后丢弃受影响的缓存项
+     */
+    @EventListener
+    public void onTradeRecordsChanged(TradeRecordsChangedEvent event) {
+        if (event.isAll()) {
+            invalidateAll();
+        } else {
+            invalidateFrom(event.brokerId(), event.fromDate());
+        }
+    }
+
+    /**
+     * 某个券商的台账从指定日期（含）起发生变动
+     * 丢弃截止日期在 fromDate 当天及之后、券商为 brokerId 或不限券商的缓存项
+     */
+    public void invalidateFrom(Long brokerId, LocalDate fromDate) {
+        afterCommit(() -> discard(key -> !key.date().isBefore(fromDate)
+                && (key.brokerId() == null || key.brokerId().equals(brokerId))));
+    }
+
+    /**
+     * 台账全量重建，丢弃全部缓存项
+     */
+    public void invalidateAll() {
+        afterCommit(() -> discard(key -> true));
+    }
+
+    /**
+     * 在事务中调用时，事务提交后才执行（事务回滚则不执行）；不在事务中调用时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void discard(Predicate<Key> stale) {
+        AtomicInteger removed = new AtomicInteger();
+        synchronized (this) {
+            generation++;
+            cache.asMap().keySet().removeIf(key -> {
+                if (stale.test(key)) {
+                    removed.incrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        }
+        if (removed.get() > 0) {
+            meterRegistry.counter(METRIC_INVALIDATED).increment(removed.get());
+        }
+    }
+
+    /**
+     * 缓存键：截止日期 + 券商ID（null 表示所有券商）
+     */
+    record Key(LocalDate date, Long brokerId) {
+    }
+}
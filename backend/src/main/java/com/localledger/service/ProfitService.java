@@ -0,0 +1,214 @@
+package com.localledger.service;
+
+import com.localledger.dto.ProfitSummary;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.enums.Currency;
+import com.localledger.repository.TradeRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 盈亏分析服务
+ * 为个股 / 策略 / 账户盈亏分析页面提供按底层证券、策略、券商汇总的已实现盈亏。
+ *
+ * 计算流程：
+ * 1. 按交易日期、ID 顺序流式读取全部未删除交易记录，一次遍历计入 RealizedProfitBook，
+ *    每笔交易得到一条盈亏明细（已实现盈亏 + 费用）
+ * 2. 盈亏明细缓存在内存中，与交易记录的数据版本（DataVersionTracker）绑定，交易记录变动后下次查询时重建
+ * 3. 每次查询按日期区间过滤明细，再按维度 + 币种汇总
+ *
+ * 期权的成交金额已包含 ×100 合约乘数，按 underlyingSymbol 汇总时期权权利金盈亏归入对应的正股。
+ * 已实现盈亏归属于平仓交易的交易日期、策略和券商。不同币种分别汇总，不做汇率换算。
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProfitService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfitService.class);
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    /**
+     * 最近一次计算的盈亏明细
+     */
+    private volatile ProfitLedger cachedLedger;
+
+    /**
+     * 按底层证券汇总已实现盈亏（期权归入底层证券）
+     *
+     * @param startDate 开始日期（可选，含）
+     * @param endDate   结束日期（可选，含）
+     */
+    public List<ProfitSummary> getProfitBySymbol(LocalDate startDate, LocalDate endDate) {
+        ProfitLedger ledger = loadLedger();
+        return summarize(ledger, startDate, endDate, ProfitEntry::underlyingSymbol, (summary, key) -> {
+            summary.setUnderlyingSymbol((String) key);
+            summary.setName(ledger.symbolNames.get(key));
+        });
+    }
+
+    /**
+     * 按策略汇总已实现盈亏（未分配策略的交易汇总为 strategyId = null 的一行）
+     *
+     * @param startDate 开始日期（可选，含）
+     * @param endDate   结束日期（可选，含）
+     */
+    public List<ProfitSummary> getProfitByStrategy(LocalDate startDate, LocalDate endDate) {
+        Map<Long, String> strategyNames = dimensionCache.strategyNames();
+        return summarize(loadLedger(), startDate, endDate, ProfitEntry::strategyId, (summary, key) -> {
+            summary.setStrategyId((Long) key);
+            summary.setName(key == null ? "未分配策略" : strategyNames.getOrDefault(key, "未知策略"));
+        });
+    }
+
+    /**
+     * 按券商汇总已实现盈亏
+     *
+     * @param startDate 开始日期（可选，含）
+     * @param endDate   结束日期（可选，含）
+     */
+    public List<ProfitSummary> getProfitByBroker(LocalDate startDate, LocalDate endDate) {
+        Map<Long, String> brokerNames = dimensionCache.brokerNames();
+        return summarize(loadLedger(), startDate, endDate, ProfitEntry::brokerId, (summary, key) -> {
+            summary.setBrokerId((Long) key);
+            summary.setName(brokerNames.getOrDefault(key, "未知券商"));
+        });
+    }
+
+    // ============================================================
+    // 盈亏明细计算与缓存
+    // ============================================================
+
+    /**
+     * 获取与当前交易记录数据版本一致的盈亏明细，版本变化时重新计算
+     */
+    private ProfitLedger loadLedger() {
+        long version = dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS);
+        ProfitLedger ledger = cachedLedger;
+        if (ledger != null && ledger.version == version) {
+            return ledger;
+        }
+        synchronized (this) {
+            ledger = cachedLedger;
+            if (ledger == null || ledger.version != version) {
+                ledger = buildLedger(version);
+                cachedLedger = ledger;
+            }
+            return ledger;
+        }
+    }
+
+    /**
+     * 一次流式遍历全部交易记录，生成盈亏明细
+     */
+    private ProfitLedger buildLedger(long version) {
+        RealizedProfitBook book = new RealizedProfitBook();
+        List<ProfitEntry> entries = new ArrayList<>();
+        Map<String, String> symbolNames = new HashMap<>();
+
+        try (Stream<TradeLine> stream = tradeRecordRepository.streamAllLines()) {
+            Iterator<TradeLine> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                TradeLine record = iterator.next();
+                BigDecimal realized = book.apply(record);
+                entries.add(new ProfitEntry(record.getTradeDate(), record.getUnderlyingSymbol(),
+                        record.getStrategyId(), record.getBrokerId(), record.getCurrency(), realized,
+                        record.getFee() != null ? record.getFee() : BigDecimal.ZERO));
+                // 证券名称取最新的非空名称
+                if (record.getName() != null && !record.getName().isEmpty()) {
+                    symbolNames.put(record.getUnderlyingSymbol(), record.getName());
+                }
+            }
+        }
+        log.info("Profit ledger rebuilt: version={}, trades={}", version, entries.size());
+        return new ProfitLedger(version, entries, symbolNames);
+    }
+
+    /**
+     * 按维度 + 币种汇总盈亏明细，结果按净盈亏降序排列
+     */
+    private static List<ProfitSummary> summarize(ProfitLedger ledger, LocalDate startDate, LocalDate endDate,
+                                                 Function<ProfitEntry, Object> keyFn,
+                                                 BiConsumer<ProfitSummary, Object> keyWriter) {
+        Map<List<Object>, ProfitSummary> summaries = new LinkedHashMap<>();
+        for (ProfitEntry entry : ledger.entries) {
+            if (startDate != null && entry.tradeDate().isBefore(startDate)) {
+                continue;
+            }
+            if (endDate != null && entry.tradeDate().isAfter(endDate)) {
+                continue;
+            }
+            Object key = keyFn.apply(entry);
+            ProfitSummary summary = summaries.computeIfAbsent(Arrays.asList(key, entry.currency()), k -> {
+                ProfitSummary s = new ProfitSummary();
+                keyWriter.accept(s, key);
+                s.setCurrency(entry.currency());
+                s.setRealizedProfit(BigDecimal.ZERO);
+                s.setTotalFee(BigDecimal.ZERO);
+                s.setTradeCount(0);
+                s.setClosedTradeCount(0);
+                return s;
+            });
+            summary.setTradeCount(summary.getTradeCount() + 1);
+            summary.setTotalFee(summary.getTotalFee().add(entry.fee()));
+            if (entry.realized() != null) {
+                summary.setRealizedProfit(summary.getRealizedProfit().add(entry.realized()));
+                summary.setClosedTradeCount(summary.getClosedTradeCount() + 1);
+            }
+        }
+
+        List<ProfitSummary> result = new ArrayList<>(summaries.values());
+        for (ProfitSummary summary : result) {
+            summary.setRealizedProfit(summary.getRealizedProfit().setScale(2, RoundingMode.HALF_UP));
+            summary.setNetProfit(summary.getRealizedProfit().subtract(summary.getTotalFee()));
+        }
+        result.sort(Comparator.comparing(ProfitSummary::getNetProfit).reversed());
+        return result;
+    }
+
+    // ============================================================
+    // 内部类
+    // ============================================================
+
+    /**
+     * 单笔交易的盈亏明细
+     *
+     * @param realized 已实现盈亏，非平仓交易为 null
+     */
+    private record ProfitEntry(LocalDate tradeDate, String underlyingSymbol, Long strategyId, Long brokerId,
+                               Currency currency, BigDecimal realized, BigDecimal fee) {
+    }
+
+    /**
+     * 某一数据版本下的全部盈亏明细
+     */
+    private static class ProfitLedger {
+        private final long version;
+        private final List<ProfitEntry> entries;
+        private final Map<String, String> symbolNames;
+
+        ProfitLedger(long version, List<ProfitEntry> entries, Map<String, String> symbolNames) {
+            this.version = version;
+            this.entries = entries;
+            this.symbolNames = symbolNames;
+        }
+    }
+}
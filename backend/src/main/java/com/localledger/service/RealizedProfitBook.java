@@ -0,0 +1,79 @@
+package com.localledger.service;
+
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.enums.TradeType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 已实现盈亏计算簿
+ * 按 (symbol, brokerId) 以移动加权平均法维护持仓，交易记录按日期顺序逐条计入，平仓时得出已实现盈亏。
+ *
+ * 与 CostBasisBook 的区别：盈亏计算需要支持空头持仓（如先卖出开仓的期权），
+ * 持仓数量带符号（正数=多头，负数=空头），成本池记录多头的买入成本或空头的卖出所得。
+ * - 开仓 / 加仓（持仓为 0 或与交易方向相同）：成本池 += 成交金额，持仓 += 带符号数量
+ * - 平仓（与持仓方向相反）：按平均成本结转被平掉部分，
+ *   多头平仓盈亏 = 卖出金额 - 结转成本，空头平仓盈亏 = 结转所得 - 买入金额
+ * - 反手（平仓数量超过持仓）：超出部分按成交金额比例作为反方向新开仓
+ *
+ * 成交金额已包含期权 ×100 合约乘数，费用不计入成本，由调用方单独汇总。
+ * 只做内存计算，非线程安全。
+ */
+class RealizedProfitBook {
+
+    private final Map<String, Holding> holdings = new HashMap<>();
+
+    /**
+     * 计入一条交易记录，返回该笔交易产生的已实现盈亏（未平仓时返回 null）
+     */
+    BigDecimal apply(TradeLine record) {
+        int quantity = record.getQuantity() != null ? record.getQuantity() : 0;
+        if (quantity <= 0) {
+            return null;
+        }
+        int signedQty = record.getTradeType() == TradeType.BUY ? quantity : -quantity;
+        BigDecimal amount = record.getAmount() != null ? record.getAmount() : BigDecimal.ZERO;
+        Holding holding = holdings.computeIfAbsent(record.getSymbol() + "|" + record.getBrokerId(), k -> new Holding());
+
+        // 开仓或加仓
+        if (holding.quantity == 0 || Integer.signum(holding.quantity) == Integer.signum(signedQty)) {
+            holding.pool = holding.pool.add(amount);
+            holding.quantity += signedQty;
+            return null;
+        }
+
+        // 平仓：按平均成本结转被平掉的部分
+        int openQty = Math.abs(holding.quantity);
+        int closeQty = Math.min(quantity, openQty);
+        BigDecimal avgCost = holding.pool.divide(BigDecimal.valueOf(openQty), 6, RoundingMode.HALF_UP);
+        BigDecimal closedBasis = avgCost.multiply(BigDecimal.valueOf(closeQty));
+        BigDecimal closeAmount = closeQty == quantity
+                ? amount
+                : amount.multiply(BigDecimal.valueOf(closeQty)).divide(BigDecimal.valueOf(quantity), 6, RoundingMode.HALF_UP);
+        BigDecimal realized = holding.quantity > 0
+                ? closeAmount.subtract(closedBasis)
+                : closedBasis.subtract(closeAmount);
+
+        holding.quantity += Integer.signum(signedQty) * closeQty;
+        holding.pool = holding.quantity == 0 ? BigDecimal.ZERO : holding.pool.subtract(closedBasis);
+
+        // 反手：超出持仓的部分作为反方向新开仓
+        int remaining = quantity - closeQty;
+        if (remaining > 0) {
+            holding.quantity = Integer.signum(signedQty) * remaining;
+            holding.pool = amount.subtract(closeAmount);
+        }
+        return realized;
+    }
+
+    /**
+     * 单个 (symbol, brokerId) 的带符号持仓数量与成本池
+     */
+    private static class Holding {
+        private int quantity;
+        private BigDecimal pool = BigDecimal.ZERO;
+    }
+}
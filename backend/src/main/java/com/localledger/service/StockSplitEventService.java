@@ -84,7 +84,7 @@ public class StockSplitEventService {
 
         StockSplitEvent saved = stockSplitEventRepository.save(event);
         log.info("Stock split event saved: id={}, symbol={}, eventDate={}", saved.getId(), saved.getSymbol(), saved.getEventDate());
-        marketEventProcessingService.processStockSplitEvent(saved);
+        saved.setCascadeJobId(marketEventProcessingService.processStockSplitEvent(saved));
         return saved;
     }
 
@@ -117,16 +117,18 @@ public class StockSplitEventService {
         affectedSymbols.add(oldSymbol);
         affectedSymbols.add(saved.getSymbol());
         java.time.LocalDate sinceDate = oldDate.isBefore(saved.getEventDate()) ? oldDate : saved.getEventDate();
-        marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate);
+        saved.setCascadeJobId(marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate));
 
         return saved;
     }
 
     /**
      * 软删除拆股事件，并级联重算后续事件
+     *
+     * @return 异步级联重算模式下登记的任务ID，同步模式下为 null
      */
     @Transactional
-    public void delete(Long id) {
+    public Long delete(Long id) {
         StockSplitEvent existing = stockSplitEventRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("拆股事件不存在, ID: " + id));
         existing.setIsDeleted(true);
@@ -135,13 +137,13 @@ public class StockSplitEventService {
         stockSplitEventRepository.save(existing);
 
         // 先清理被删除事件自身关联的系统交易记录
-        tradeRecordRepository.deleteByTriggerRefTypeAndTriggerRefIdIn(
+        marketEventProcessingService.deleteSystemTradeRecords(
                 TriggerRefType.STOCK_SPLIT, List.of(existing.getId()));
 
         // 删除后级联重算
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(existing.getSymbol());
-        marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
+        return marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
     }
 
     /**
@@ -19,6 +19,9 @@ public class StrategyService {
     @Autowired
     private StrategyRepository strategyRepository;
 
+    @Autowired
+    private DimensionCache dimensionCache;
+
     /**
      * 查询所有未删除的策略
      */
@@ -42,7 +45,9 @@ public class StrategyService {
         if (strategyRepository.existsByStrategyNameAndIsDeletedFalse(strategy.getStrategyName())) {
             throw new IllegalArgumentException("策略名称已存在: " + strategy.getStrategyName());
         }
-        return strategyRepository.save(strategy);
+        Strategy saved = strategyRepository.save(strategy);
+        dimensionCache.invalidate();
+        return saved;
     }
 
     /**
@@ -62,7 +67,9 @@ public class StrategyService {
 
         existing.setStrategyName(strategyData.getStrategyName());
         existing.setDescription(strategyData.getDescription());
-        return strategyRepository.save(existing);
+        Strategy saved = strategyRepository.save(existing);
+        dimensionCache.invalidate();
+        return saved;
     }
 
     /**
@@ -74,5 +81,6 @@ public class StrategyService {
                 .orElseThrow(() -> new IllegalArgumentException("策略不存在, ID: " + id));
         strategy.setIsDeleted(true);
         strategyRepository.save(strategy);
+        dimensionCache.invalidate();
     }
 }
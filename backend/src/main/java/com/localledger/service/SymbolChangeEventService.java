@@ -103,7 +103,7 @@ public class SymbolChangeEventService {
         SymbolChangeEvent saved = symbolChangeEventRepository.save(event);
         log.info("Symbol change event saved: id={}, {}=>{}, eventDate={}",
                 saved.getId(), saved.getOldSymbol(), saved.getNewSymbol(), saved.getEventDate());
-        marketEventProcessingService.processSymbolChangeEvent(saved);
+        saved.setCascadeJobId(marketEventProcessingService.processSymbolChangeEvent(saved));
         return saved;
     }
 
@@ -139,16 +139,18 @@ public class SymbolChangeEventService {
         affectedSymbols.add(saved.getOldSymbol());
         affectedSymbols.add(saved.getNewSymbol());
         java.time.LocalDate sinceDate = oldDate.isBefore(saved.getEventDate()) ? oldDate : saved.getEventDate();
-        marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate);
+        saved.setCascadeJobId(marketEventProcessingService.processEventDeletion(affectedSymbols, sinceDate));
 
         return saved;
     }
 
     /**
      * 软删除代码变更事件，并级联重算后续事件
+     *
+     * @return 异步级联重算模式下登记的任务ID，同步模式下为 null
      */
     @Transactional
-    public void delete(Long id) {
+    public Long delete(Long id) {
         SymbolChangeEvent existing = symbolChangeEventRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("代码变更事件不存在, ID: " + id));
         existing.setIsDeleted(true);
@@ -157,14 +159,14 @@ public class SymbolChangeEventService {
         symbolChangeEventRepository.save(existing);
 
         // 先清理被删除事件自身关联的系统交易记录
-        tradeRecordRepository.deleteByTriggerRefTypeAndTriggerRefIdIn(
+        marketEventProcessingService.deleteSystemTradeRecords(
                 TriggerRefType.SYMBOL_CHANGE, List.of(existing.getId()));
 
         // 删除后级联重算
         Set<String> affectedSymbols = new HashSet<>();
         affectedSymbols.add(existing.getOldSymbol());
         affectedSymbols.add(existing.getNewSymbol());
-        marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
+        return marketEventProcessingService.processEventDeletion(affectedSymbols, existing.getEventDate());
     }
 
     /**
@@ -0,0 +1,327 @@
+package com.localledger.service;
+
+import com.localledger.dto.TradeImportResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TradeType;
+import com.localledger.entity.enums.TriggerRefType;
+import com.localledger.repository.TradeRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 交易记录批量导入服务
+ * 用于一次性导入券商对账单中的大量交易记录（CSV 或 JSON 数组）。
+ *
+ * 导入流程：
+ * 1. 逐条执行与单条新增完全相同的校验（TradeRecordService.validateForCreate），券商 / 策略存在性取自维度缓存，
+ *    收集全部错误；只要有一条校验失败，整批不写入
+ * 2. 按 IMPORT_CHUNK_SIZE 分段 saveAll，交易记录主键由序列预分配，INSERT 按 hibernate.jdbc.batch_size 批量执行，
+ *    每段写入后 flush + clear，持久化上下文不随导入条数增长
+ * 3. 每个 (symbol, brokerId) 只重算一次持仓台账
+ * 4. 对导入涉及的 symbols 从最早导入日期起统一执行一次市场事件级联重算（异步模式下登记为级联重算任务）
+ *
+ * CSV 格式与 /api/trade-records/export?format=csv 导出的列一致（可直接回导），按表头列名取值：
+ * 必填列 tradeDate、brokerId、assetType、symbol、underlyingSymbol、tradeType、quantity、price，
+ * 可选列 name、fee、currency、strategyId、tradeTrigger、triggerRefType、triggerRefId；
+ * id、amount、brokerName、strategyName 等其他列忽略（金额按数量和价格重新计算）。
+ */
+@Service
+@Transactional(readOnly = true)
+public class TradeImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeImportService.class);
+
+    /**
+     * 单次导入的最大条数
+     */
+    static final int MAX_IMPORT_ROWS = 20000;
+
+    /**
+     * 每段写入的条数（写入后 flush + clear）
+     */
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    /**
+     * 校验失败时最多返回的错误条数
+     */
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private static final List<String> REQUIRED_CSV_COLUMNS = Arrays.asList(
+            "tradeDate", "brokerId", "assetType", "symbol", "underlyingSymbol", "tradeType", "quantity", "price");
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private TradeRecordService tradeRecordService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private MarketEventProcessingService marketEventProcessingService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 导入 CSV 格式的交易记录
+     *
+     * @param content CSV 文本（首行为表头，可带 UTF-8 BOM）
+     * @throws IllegalArgumentException 格式错误或校验不通过，整批不写入
+     */
+    @Transactional
+    public TradeImportResult importCsv(String content) {
+        List<String[]> rows = parseCsv(content);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("导入内容为空");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] header = rows.get(0);
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim(), i);
+        }
+        for (String column : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV 缺少必填列: " + column);
+            }
+        }
+
+        List<TradeRecord> records = new ArrayList<>(rows.size() - 1);
+        List<String> errors = new ArrayList<>();
+        for (int i = 1; i < rows.size(); i++) {
+            try {
+                records.add(toRecord(rows.get(i), columns));
+            } catch (IllegalArgumentException e) {
+                errors.add("第 " + (i + 1) + " 行: " + e.getMessage());
+            }
+        }
+        throwIfErrors(errors);
+        return importRecords(records, "行", 2);
+    }
+
+    /**
+     * 导入 JSON 数组格式的交易记录（字段与单条新增接口一致，id 忽略）
+     *
+     * @throws IllegalArgumentException 校验不通过，整批不写入
+     */
+    @Transactional
+    public TradeImportResult importJson(List<TradeRecord> records) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("导入内容为空");
+        }
+        return importRecords(records, "条", 1);
+    }
+
+    /**
+     * 校验并写入一批交易记录
+     *
+     * @param unit        错误信息中的序号单位（行 / 条）
+     * @param firstNumber 第一条记录对应的序号
+     */
+    private TradeImportResult importRecords(List<TradeRecord> records, String unit, int firstNumber) {
+        if (records.size() > MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException("单次最多导入 " + MAX_IMPORT_ROWS + " 条交易记录，本次 " + records.size() + " 条");
+        }
+
+        // 1. 全部校验通过后才写入
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            TradeRecord record = records.get(i);
+            // 导入只新增，忽略传入的ID，避免 saveAll 按已有ID合并为更新
+            record.setId(null);
+            record.setIsDeleted(false);
+            try {
+                requireFields(record);
+                tradeRecordService.validateForCreate(record);
+            } catch (IllegalArgumentException e) {
+                errors.add("第 " + (i + firstNumber) + " " + unit + ": " + e.getMessage());
+            }
+        }
+        throwIfErrors(errors);
+
+        // 2. 分段批量写入
+        Set<String> symbols = new TreeSet<>();
+        LocalDate earliest = null;
+        for (int from = 0; from < records.size(); from += IMPORT_CHUNK_SIZE) {
+            List<TradeRecord> chunk = records.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, records.size()));
+            tradeRecordRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        for (TradeRecord record : records) {
+            symbols.add(record.getSymbol());
+            if (earliest == null || record.getTradeDate().isBefore(earliest)) {
+                earliest = record.getTradeDate();
+            }
+        }
+
+        // 3. 每个 (symbol, brokerId) 发布一次交易记录变动事件（持仓台账等派生数据各重算一次）
+        TradeRecordsChangedEvent.forRecords(records).forEach(applicationEventPublisher::publishEvent);
+
+        // 4. 统一执行一次市场事件级联重算
+        Long cascadeJobId = marketEventProcessingService.processTradeImport(symbols, earliest);
+
+        log.info("Trade records imported: rows={}, symbols={}, earliestTradeDate={}", records.size(), symbols.size(), earliest);
+        TradeImportResult result = new TradeImportResult(records.size(), new ArrayList<>(symbols), earliest);
+        result.setCascadeJobId(cascadeJobId);
+        return result;
+    }
+
+    /**
+     * 校验数据库非空字段（单条新增时由接口调用方保证，批量导入时逐条检查以给出明确的错误行号）
+     */
+    private static void requireFields(TradeRecord record) {
+        if (record.getTradeDate() == null) {
+            throw new IllegalArgumentException("交易日期不能为空");
+        }
+        if (record.getSymbol() == null || record.getSymbol().trim().isEmpty()) {
+            throw new IllegalArgumentException("证券代码不能为空");
+        }
+        if (record.getAssetType() == null) {
+            throw new IllegalArgumentException("证券类型不能为空");
+        }
+        if (record.getTradeType() == null) {
+            throw new IllegalArgumentException("交易类型不能为空");
+        }
+        if (record.getBrokerId() == null) {
+            throw new IllegalArgumentException("券商ID不能为空");
+        }
+    }
+
+    private static void throwIfErrors(List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("导入校验失败，共 ").append(errors.size()).append(" 处错误，未写入任何记录: ");
+        message.append(String.join("; ", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS))));
+        if (errors.size() > MAX_REPORTED_ERRORS) {
+            message.append("; ...");
+        }
+        throw new IllegalArgumentException(message.toString());
+    }
+
+    // ============================================================
+    // CSV 解析
+    // ============================================================
+
+    /**
+     * 按表头列名把一行 CSV 转换为交易记录
+     */
+    private static TradeRecord toRecord(String[] row, Map<String, Integer> columns) {
+        TradeRecord record = new TradeRecord();
+        record.setTradeDate(parse(row, columns, "tradeDate", LocalDate::parse));
+        record.setBrokerId(parse(row, columns, "brokerId", Long::valueOf));
+        record.setAssetType(parse(row, columns, "assetType", AssetType::valueOf));
+        record.setSymbol(text(row, columns, "symbol"));
+        record.setName(text(row, columns, "name"));
+        record.setUnderlyingSymbol(text(row, columns, "underlyingSymbol"));
+        record.setTradeType(parse(row, columns, "tradeType", TradeType::valueOf));
+        record.setQuantity(parse(row, columns, "quantity", Integer::valueOf));
+        record.setPrice(parse(row, columns, "price", BigDecimal::new));
+        BigDecimal fee = parse(row, columns, "fee", BigDecimal::new);
+        record.setFee(fee != null ? fee : BigDecimal.ZERO);
+        Currency currency = parse(row, columns, "currency", Currency::valueOf);
+        if (currency != null) {
+            record.setCurrency(currency);
+        }
+        record.setStrategyId(parse(row, columns, "strategyId", Long::valueOf));
+        record.setTradeTrigger(parse(row, columns, "tradeTrigger", TradeTrigger::valueOf));
+        record.setTriggerRefType(parse(row, columns, "triggerRefType", TriggerRefType::valueOf));
+        record.setTriggerRefId(parse(row, columns, "triggerRefId", Long::valueOf));
+        return record;
+    }
+
+    /**
+     * 读取某列的文本值，列不存在或值为空时返回 null
+     */
+    private static String text(String[] row, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.length) {
+            return null;
+        }
+        String value = row[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parse(String[] row, Map<String, Integer> columns, String column,
+                               Function<String, T> parser) {
+        String value = text(row, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(column + " 格式错误: " + value);
+        }
+    }
+
+    /**
+     * 解析 CSV 文本（RFC 4180）：逗号分隔，双引号包裹的字段可包含逗号、换行，字段内的双引号写作两个双引号。
+     * 忽略开头的 UTF-8 BOM 和空行。
+     */
+    static List<String[]> parseCsv(String content) {
+        List<String[]> rows = new ArrayList<>();
+        if (content == null) {
+            return rows;
+        }
+        int start = !content.isEmpty() && content.charAt(0) == '\uFEFF' ? 1 : 0;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = start; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                addRow(rows, fields, field);
+            } else {
+                field.append(c);
+            }
+        }
+        addRow(rows, fields, field);
+        return rows;
+    }
+
+    private static void addRow(List<String[]> rows, List<String> fields, StringBuilder field) {
+        fields.add(field.toString());
+        field.setLength(0);
+        boolean blank = fields.size() == 1 && fields.get(0).trim().isEmpty();
+        if (!blank) {
+            rows.add(fields.toArray(new String[0]));
+        }
+        fields.clear();
+    }
+}
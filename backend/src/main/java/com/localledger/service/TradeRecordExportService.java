@@ -0,0 +1,176 @@
+package com.localledger.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localledger.entity.TradeRecord;
+import com.localledger.repository.TradeRecordRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * 交易记录导出服务
+ * 按交易日期、ID 顺序流式读取全部未删除交易记录，逐行写入输出流，不在内存中构建完整列表。
+ * 内存占用只与数据库游标的 fetch size（500）有关，与导出的记录数量无关。
+ *
+ * 支持两种格式：
+ * - JSONL：每行一个交易记录 JSON 对象，字段与 /api/trade-records 返回的一致
+ * - CSV：带表头，附加券商名称、策略名称两列，文件以 UTF-8 BOM 开头，方便直接用 Excel 打开
+ */
+@Service
+@Transactional(readOnly = true)
+public class TradeRecordExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeRecordExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "id", "tradeDate", "brokerId", "brokerName", "assetType", "symbol", "name", "underlyingSymbol",
+            "tradeType", "quantity", "price", "amount", "fee", "currency", "strategyId", "strategyName",
+            "tradeTrigger", "triggerRefType", "triggerRefId"
+    };
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        JSONL("application/x-ndjson", "jsonl"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析导出格式（不区分大小写），为空时默认 JSONL
+         */
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return JSONL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的导出格式: " + value + "，可选值: jsonl, csv");
+            }
+        }
+    }
+
+    /**
+     * 将全部未删除交易记录写入输出流
+     *
+     * @param format 导出格式
+     * @param output 输出流（由调用方负责关闭）
+     * @return 导出的记录数
+     */
+    public long export(Format format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long count = 0;
+        if (format == Format.CSV) {
+            writer.write('\uFEFF');
+            writeCsvRow(writer, CSV_HEADER);
+        }
+
+        try (Stream<TradeRecord> stream = tradeRecordRepository.streamByIsDeletedFalseOrderByTradeDateAscIdAsc()) {
+            Iterator<TradeRecord> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                TradeRecord record = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, toCsvRow(record));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(record));
+                    writer.write('\n');
+                }
+                // 已写出的记录不再需要，避免持久化上下文随导出数量增长
+                entityManager.detach(record);
+                count++;
+            }
+        }
+        writer.flush();
+        log.info("Trade records exported: format={}, rows={}", format, count);
+        return count;
+    }
+
+    private String[] toCsvRow(TradeRecord record) {
+        return new String[]{
+                toText(record.getId()),
+                toText(record.getTradeDate()),
+                toText(record.getBrokerId()),
+                dimensionCache.brokerName(record.getBrokerId()),
+                toText(record.getAssetType()),
+                record.getSymbol(),
+                record.getName(),
+                record.getUnderlyingSymbol(),
+                toText(record.getTradeType()),
+                toText(record.getQuantity()),
+                record.getPrice() != null ? record.getPrice().toPlainString() : null,
+                record.getAmount() != null ? record.getAmount().toPlainString() : null,
+                record.getFee() != null ? record.getFee().toPlainString() : null,
+                toText(record.getCurrency()),
+                toText(record.getStrategyId()),
+                dimensionCache.strategyName(record.getStrategyId()),
+                toText(record.getTradeTrigger()),
+                toText(record.getTriggerRefType()),
+                toText(record.getTriggerRefId())
+        };
+    }
+
+    private static String toText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 写入一行 CSV，含逗号、引号或换行的字段用双引号包裹，字段内的双引号转义为两个双引号
+     */
+    static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -1,15 +1,20 @@
 package com.localledger.service;
 
+import com.localledger.dto.TradeRecordPage;
+import com.localledger.dto.TradeRecordQuery;
 import com.localledger.dto.TradeStatistics;
 import com.localledger.entity.TradeRecord;
 import com.localledger.entity.enums.AssetType;
 import com.localledger.entity.enums.Currency;
 import com.localledger.entity.enums.TradeTrigger;
 import com.localledger.entity.enums.TriggerRefType;
-import com.localledger.repository.BrokerRepository;
-import com.localledger.repository.StrategyRepository;
 import com.localledger.repository.TradeRecordRepository;
+import com.localledger.repository.TradeRecordSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,45 +30,122 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class TradeRecordService {
 
+    /**
+     * 统计数据中 Top 最常交易证券的数量
+     */
+    private static final int TOP_SYMBOL_LIMIT = 10;
+
+    /**
+     * 分页查询默认每页条数 / 最大每页条数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private TradeRecordRepository tradeRecordRepository;
 
     @Autowired
-    private BrokerRepository brokerRepository;
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
 
     @Autowired
-    private StrategyRepository strategyRepository;
+    private DataVersionTracker dataVersionTracker;
+
+    @Autowired
+    private CurrencyConversionService currencyConversionService;
+
+    /**
+     * 最近一次的统计结果（与交易记录数据版本绑定）
+     */
+    private volatile CachedStatistics cachedStatistics;
 
     /**
      * 获取交易记录统计数据
-     * 包括：总交易次数、各类型交易次数、各币种交易费用总和
+     * 包括：总交易次数、各类型交易次数、各币种交易费用总和、涉及证券数量、Top 10 最常交易的证券
+     * 统计结果按交易记录数据版本缓存，交易记录变动后下次查询时重新统计
      */
     public TradeStatistics getStatistics() {
+        return loadStatistics().statistics;
+    }
+
+    /**
+     * 获取交易记录统计数据，并把各币种交易费用按交易日期的汇率折算为指定本位币后汇总（totalFee）
+     * 手续费先在数据库中按 (币种, 交易日期) 汇总并随统计结果缓存，折算只在内存中查汇率表，不逐条查询数据库
+     *
+     * @param baseCurrency 本位币（null 时与 getStatistics() 相同）
+     * @throws IllegalArgumentException 缺少某个交易日期及之前的汇率
+     */
+    public TradeStatistics getStatistics(Currency baseCurrency) {
+        CachedStatistics cached = loadStatistics();
+        if (baseCurrency == null) {
+            return cached.statistics;
+        }
+        List<CurrencyConversionService.DatedAmount> dailyFees = cached.dailyFees;
+        if (dailyFees == null) {
+            dailyFees = tradeRecordRepository.sumFeesByCurrencyAndTradeDate().stream()
+                    .map(row -> new CurrencyConversionService.DatedAmount(
+                            (Currency) row[0], (LocalDate) row[1], (BigDecimal) row[2]))
+                    .toList();
+            cached.dailyFees = dailyFees;
+        }
+        TradeStatistics stats = copyOf(cached.statistics);
+        stats.setBaseCurrency(baseCurrency);
+        stats.setTotalFee(currencyConversionService.sum(dailyFees, baseCurrency));
+        return stats;
+    }
+
+    private CachedStatistics loadStatistics() {
+        long version = dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS);
+        CachedStatistics cached = cachedStatistics;
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+
+        TradeRecordRepository.StatisticsRow row = tradeRecordRepository.aggregateStatistics();
         TradeStatistics stats = new TradeStatistics();
-        stats.setTotalCount(tradeRecordRepository.countByIsDeletedFalse());
-        stats.setStockCount(tradeRecordRepository.countByAssetTypeAndIsDeletedFalse(AssetType.STOCK));
-        stats.setOptionCallCount(tradeRecordRepository.countByAssetTypeAndIsDeletedFalse(AssetType.OPTION_CALL));
-        stats.setOptionPutCount(tradeRecordRepository.countByAssetTypeAndIsDeletedFalse(AssetType.OPTION_PUT));
-        stats.setEtfCount(tradeRecordRepository.countByAssetTypeAndIsDeletedFalse(AssetType.ETF));
-        stats.setTotalFeeUSD(tradeRecordRepository.sumFeeByIsDeletedFalseAndCurrency(Currency.USD));
-        stats.setTotalFeeCNY(tradeRecordRepository.sumFeeByIsDeletedFalseAndCurrency(Currency.CNY));
-        stats.setTotalFeeHKD(tradeRecordRepository.sumFeeByIsDeletedFalseAndCurrency(Currency.HKD));
+        stats.setTotalCount(row.getTotalCount());
+        stats.setStockCount(row.getStockCount());
+        stats.setOptionCallCount(row.getOptionCallCount());
+        stats.setOptionPutCount(row.getOptionPutCount());
+        stats.setEtfCount(row.getEtfCount());
+        stats.setTotalFeeUSD(row.getTotalFeeUSD());
+        stats.setTotalFeeCNY(row.getTotalFeeCNY());
+        stats.setTotalFeeHKD(row.getTotalFeeHKD());
 
         // 涉及证券数量（underlyingSymbol 去重计数）
-        stats.setDistinctSymbolCount(tradeRecordRepository.countDistinctUnderlyingSymbol());
+        stats.setDistinctSymbolCount(row.getDistinctSymbolCount());
 
-        // Top 10 最常交易的证券
-        List<Object[]> topList = tradeRecordRepository.findTopTradedSymbols();
+        // Top 10 最常交易的证券（数据库端 LIMIT）
+        List<Object[]> topList = tradeRecordRepository.findTopTradedSymbols(PageRequest.of(0, TOP_SYMBOL_LIMIT));
         List<Map<String, Object>> topSymbols = topList.stream()
-                .limit(10)
-                .map(row -> {
-                    Map<String, Object> item = new LinkedHashMap<>();
-                    item.put("symbol", row[0]);
-                    item.put("count", row[1]);
-                    return item;
+                .map(item -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("symbol", item[0]);
+                    entry.put("count", item[1]);
+                    return entry;
                 })
                 .collect(Collectors.toList());
         stats.setTopSymbols(topSymbols);
+
+        cached = new CachedStatistics(version, stats);
+        cachedStatistics = cached;
+        return cached;
+    }
+
+    private static TradeStatistics copyOf(TradeStatistics source) {
+        TradeStatistics stats = new TradeStatistics();
+        stats.setTotalCount(source.getTotalCount());
+        stats.setStockCount(source.getStockCount());
+        stats.setOptionCallCount(source.getOptionCallCount());
+        stats.setOptionPutCount(source.getOptionPutCount());
+        stats.setEtfCount(source.getEtfCount());
+        stats.setTotalFeeUSD(source.getTotalFeeUSD());
+        stats.setTotalFeeCNY(source.getTotalFeeCNY());
+        stats.setTotalFeeHKD(source.getTotalFeeHKD());
+        stats.setDistinctSymbolCount(source.getDistinctSymbolCount());
+        stats.setTopSymbols(source.getTopSymbols());
         return stats;
     }
 
@@ -74,6 +156,44 @@ public class TradeRecordService {
         return tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc();
     }
 
+    /**
+     * 按组合筛选条件分页查询交易记录（游标分页，按交易日期、ID 倒序）
+     * 每次只读取一页 + 1 条记录用于判断是否还有下一页；总条数仅在 includeTotal=true 时额外统计
+     */
+    public TradeRecordPage query(TradeRecordQuery query) {
+        int size = query.getSize() != null ? query.getSize() : DEFAULT_PAGE_SIZE;
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("每页条数必须在 1 到 " + MAX_PAGE_SIZE + " 之间");
+        }
+        if ((query.getCursorDate() == null) != (query.getCursorId() == null)) {
+            throw new IllegalArgumentException("游标 cursorDate 和 cursorId 必须同时传入");
+        }
+
+        Specification<TradeRecord> filter = TradeRecordSpecifications.matching(query);
+        Specification<TradeRecord> pageSpec = query.getCursorDate() != null
+                ? filter.and(TradeRecordSpecifications.after(query.getCursorDate(), query.getCursorId()))
+                : filter;
+        List<TradeRecord> rows = tradeRecordRepository.findBy(pageSpec, q -> q
+                .sortBy(Sort.by(Sort.Direction.DESC, "tradeDate").and(Sort.by(Sort.Direction.DESC, "id")))
+                .limit(size + 1)
+                .all());
+
+        TradeRecordPage page = new TradeRecordPage();
+        boolean hasMore = rows.size() > size;
+        List<TradeRecord> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            TradeRecord last = items.get(items.size() - 1);
+            page.setNextCursorDate(last.getTradeDate());
+            page.setNextCursorId(last.getId());
+        }
+        if (query.isIncludeTotal()) {
+            page.setTotalCount(tradeRecordRepository.count(filter));
+        }
+        return page;
+    }
+
     /**
      * 根据ID查询交易记录
      */
@@ -129,8 +249,22 @@ public class TradeRecordService {
      */
     @Transactional
     public TradeRecord create(TradeRecord record) {
+        validateForCreate(record);
+        TradeRecord saved = tradeRecordRepository.save(record);
+        // 通知派生数据（持仓台账等）增量维护
+        publishChanged(saved.getSymbol(), saved.getBrokerId(), saved.getTradeDate());
+        return saved;
+    }
+
+    /**
+     * 新增交易记录前的校验与默认值填充（单条新增与批量导入共用）
+     * 校验券商、策略、底层证券代码、数量、价格和触发来源一致性，填充触发来源默认值并自动计算成交金额
+     *
+     * @throws IllegalArgumentException 校验不通过
+     */
+    void validateForCreate(TradeRecord record) {
         // 校验券商是否存在
-        if (!brokerRepository.existsById(record.getBrokerId())) {
+        if (!dimensionCache.brokerExists(record.getBrokerId())) {
             throw new IllegalArgumentException("券商不存在, ID: " + record.getBrokerId());
         }
         // 校验底层证券代码不能为空
@@ -139,7 +273,7 @@ public class TradeRecordService {
         }
         // 校验策略是否存在（如果指定了策略）
         if (record.getStrategyId() != null) {
-            if (!strategyRepository.existsById(record.getStrategyId())) {
+            if (!dimensionCache.strategyExists(record.getStrategyId())) {
                 throw new IllegalArgumentException("策略不存在, ID: " + record.getStrategyId());
             }
         }
@@ -167,7 +301,6 @@ public class TradeRecordService {
         validateTriggerConsistency(record);
         // 自动计算金额：期权（OPTION_CALL / OPTION_PUT）一个合约对应100股正股，金额需要乘以100
         recalculateAmount(record);
-        return tradeRecordRepository.save(record);
     }
 
     /**
@@ -179,13 +312,18 @@ public class TradeRecordService {
                 .filter(r -> !r.getIsDeleted())
                 .orElseThrow(() -> new IllegalArgumentException("交易记录不存在, ID: " + id));
 
+        // 记录旧值，用于确定需要重算的持仓台账范围
+        String oldSymbol = existing.getSymbol();
+        Long oldBrokerId = existing.getBrokerId();
+        LocalDate oldTradeDate = existing.getTradeDate();
+
         // 校验券商是否存在
-        if (!brokerRepository.existsById(recordData.getBrokerId())) {
+        if (!dimensionCache.brokerExists(recordData.getBrokerId())) {
             throw new IllegalArgumentException("券商不存在, ID: " + recordData.getBrokerId());
         }
         // 校验策略是否存在（如果指定了策略）
         if (recordData.getStrategyId() != null) {
-            if (!strategyRepository.existsById(recordData.getStrategyId())) {
+            if (!dimensionCache.strategyExists(recordData.getStrategyId())) {
                 throw new IllegalArgumentException("策略不存在, ID: " + recordData.getStrategyId());
             }
         }
@@ -217,7 +355,17 @@ public class TradeRecordService {
         validateTriggerConsistency(existing);
         // 自动计算金额：期权（OPTION_CALL / OPTION_PUT）一个合约对应100股正股，金额需要乘以100
         recalculateAmount(existing);
-        return tradeRecordRepository.save(existing);
+        TradeRecord saved = tradeRecordRepository.save(existing);
+
+        // 通知派生数据增量维护：symbol/券商未变时从新旧日期中较早的一天起变动，否则新旧两边分别变动
+        if (oldSymbol.equals(saved.getSymbol()) && oldBrokerId.equals(saved.getBrokerId())) {
+            LocalDate fromDate = oldTradeDate.isBefore(saved.getTradeDate()) ? oldTradeDate : saved.getTradeDate();
+            publishChanged(saved.getSymbol(), saved.getBrokerId(), fromDate);
+        } else {
+            publishChanged(oldSymbol, oldBrokerId, oldTradeDate);
+            publishChanged(saved.getSymbol(), saved.getBrokerId(), saved.getTradeDate());
+        }
+        return saved;
     }
 
     /**
@@ -271,8 +419,9 @@ public class TradeRecordService {
      * 根据证券类型自动计算成交金额
      * 期权（OPTION_CALL / OPTION_PUT）一个合约对应100股正股，金额 = 数量 × 价格 × 100
      * 其他类型（股票、ETF等），金额 = 数量 × 价格
+     * （包级可见，供基准测试直接调用）
      */
-    private void recalculateAmount(TradeRecord record) {
+    void recalculateAmount(TradeRecord record) {
         if (record.getQuantity() != null && record.getPrice() != null) {
             BigDecimal qty = BigDecimal.valueOf(record.getQuantity());
             BigDecimal amount = qty.multiply(record.getPrice());
@@ -292,5 +441,40 @@ public class TradeRecordService {
                 .orElseThrow(() -> new IllegalArgumentException("交易记录不存在, ID: " + id));
         record.setIsDeleted(true);
         tradeRecordRepository.save(record);
+        // 通知派生数据（持仓台账等）增量维护
+        publishChanged(record.getSymbol(), record.getBrokerId(), record.getTradeDate());
+    }
+
+    /**
+     * 交易记录在应用之外被修改（直接修改数据库、COPY 批量写入）后调用，通知所有派生数据全量重建
+     */
+    @Transactional
+    public void rebuildDerivedData() {
+        applicationEventPublisher.publishEvent(TradeRecordsChangedEvent.all());
+    }
+
+    /**
+     * 发布交易记录变动事件，由各派生数据在同一事务中同步维护
+     */
+    private void publishChanged(String symbol, Long brokerId, LocalDate fromDate) {
+        applicationEventPublisher.publishEvent(new TradeRecordsChangedEvent(symbol, brokerId, fromDate));
+    }
+
+    /**
+     * 某一数据版本下的统计结果
+     */
+    private static class CachedStatistics {
+        private final long version;
+        private final TradeStatistics statistics;
+
+        /**
+         * 按 (币种, 交易日期) 汇总的手续费，首次按本位币统计时加载
+         */
+        private volatile List<CurrencyConversionService.DatedAmount> dailyFees;
+
+        CachedStatistics(long version, TradeStatistics statistics) {
+            this.version = version;
+            this.statistics = statistics;
+        }
     }
 }
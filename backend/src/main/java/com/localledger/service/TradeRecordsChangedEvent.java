@@ -0,0 +1,62 @@
+package com.localledger.service;
+
+import com.localledger.entity.TradeRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 交易记录变动事件
+ * 某个 (symbol, brokerId) 从 fromDate（含）起的交易记录发生了新增、修改或删除；三个字段均为 null 时表示全部交易记录都可能变动。
+ *
+ * 所有写交易记录的入口（TradeRecordService、TradeImportService、MarketEventProcessingService）在写入后发布，
+ * 基于交易记录的派生数据各自监听并维护（同步执行，与写入处于同一事务）：
+ * 持仓台账（PositionLedgerService）、持仓成本检查点（CostBasisService）、持仓快照缓存（PositionSnapshotCache）、
+ * 现金余额检查点（CashLedgerService）和交易记录数据版本（DataVersionTracker）。
+ *
+ * @param symbol   证券代码
+ * @param brokerId 券商ID
+ * @param fromDate 发生变动的最早交易日期
+ */
+public record TradeRecordsChangedEvent(String symbol, Long brokerId, LocalDate fromDate) {
+
+    private static final TradeRecordsChangedEvent ALL = new TradeRecordsChangedEvent(null, null, null);
+
+    /**
+     * 全部交易记录都可能变动（如在应用之外直接写入数据库后），派生数据全量重建
+     */
+    public static TradeRecordsChangedEvent all() {
+        return ALL;
+    }
+
+    /**
+     * 按一批变动的交易记录生成事件：同一 (symbol, brokerId) 只生成一个，起始日期取该批记录中最早的交易日期
+     * 事件按 (symbol, brokerId) 排序，并发的批量写入以相同顺序获取各键的台账锁，不会相互死锁
+     */
+    public static List<TradeRecordsChangedEvent> forRecords(Collection<TradeRecord> changedRecords) {
+        Map<String, TradeRecord> earliestByKey = new TreeMap<>();
+        for (TradeRecord record : changedRecords) {
+            String key = record.getSymbol() + "|" + record.getBrokerId();
+            TradeRecord earliest = earliestByKey.get(key);
+            if (earliest == null || record.getTradeDate().isBefore(earliest.getTradeDate())) {
+                earliestByKey.put(key, record);
+            }
+        }
+        List<TradeRecordsChangedEvent> events = new ArrayList<>(earliestByKey.size());
+        for (TradeRecord record : earliestByKey.values()) {
+            events.add(new TradeRecordsChangedEvent(record.getSymbol(), record.getBrokerId(), record.getTradeDate()));
+        }
+        return events;
+    }
+
+    /**
+     * 是否表示全部交易记录都可能变动
+     */
+    public boolean isAll() {
+        return symbol == null;
+    }
+}
@@ -1,65 +1,108 @@
 package com.localledger.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.localledger.dto.TradeVerificationResult;
 import com.localledger.entity.TradeRecord;
-import com.localledger.entity.enums.AssetType;
-import com.localledger.entity.enums.Currency;
-import com.localledger.entity.enums.TradeTrigger;
-import com.localledger.entity.enums.TriggerRefType;
+import com.localledger.entity.TradeVerificationCheck;
 import com.localledger.repository.TradeRecordRepository;
+import com.localledger.repository.TradeVerificationCheckRepository;
+import com.localledger.service.verification.AggregateVerificationRule;
+import com.localledger.service.verification.RecordVerificationRule;
+import com.localledger.service.verification.SqlPushdownRule;
+import com.localledger.service.verification.VerificationRule;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 /**
  * 交易数据核对验证服务
  * 负责对交易记录进行数据完整性和一致性校验
+ *
+ * 核对规则以 VerificationRule 的形式注册为 Spring Bean（见 com.localledger.service.verification），按 @Order 顺序执行。
+ * 记录按 VERIFY_CHUNK_SIZE 分段，在专用的 fork-join 线程池中并行核对，分段结果按记录顺序合并，
+ * 因此异常列表的顺序与串行执行时一致：先是各条记录的逐条规则异常，再是跨记录规则异常。
+ *
+ * 每条记录的核对结果保存在 trade_verification_checks 表中，并记录核对时的规则版本和交易记录更新时间。
+ * 再次核对时只重新核对发生变动的记录所在的证券代码组，其余记录直接使用已保存的结果。
+ *
+ * 另提供下推核对（verifyPushdown）：由数据库按各规则的 SQL 条件筛选可疑记录ID，只加载可疑记录，不依赖已保存的结果。
+ *
+ * 每次核对的耗时记录在计时器 ledger.verification 中，实际核对的记录数累计在计数器 ledger.verification.rechecked 中，
+ * 标签 mode 区分 incremental（verifyAll）、full（reverifyAll）和 pushdown（verifyPushdown）。
  */
 @Service
 @Transactional(readOnly = true)
 public class TradeVerificationService {
 
-    @Autowired
-    private TradeRecordRepository tradeRecordRepository;
+    private static final Logger log = LoggerFactory.getLogger(TradeVerificationService.class);
 
     /**
-     * 期权 symbol 格式的正则表达式
-     * 格式：底层证券代码-YYYYMMDD-C价格 或 底层证券代码-YYYYMMDD-P价格
-     * 价格部分支持整数或小数（如 210、17.5）
+     * 每个分段的最大记录数，不超过该数量的分段在当前线程内串行核对
      */
-    private static final Pattern OPTION_SYMBOL_PATTERN =
-            Pattern.compile("^(.+)-(\\d{8})-([CP])(.+)$");
+    static final int VERIFY_CHUNK_SIZE = 1000;
 
     /**
-     * 港股证券代码的正则表达式
-     * 港股代码为纯数字（如 00700、09988、03690），不包含字母
+     * IN 查询每批的参数个数
      */
-    private static final Pattern HK_STOCK_SYMBOL_PATTERN =
-            Pattern.compile("^\\d+$");
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
 
     /**
-     * 美股证券代码的正则表达式
-     * 美股代码为纯字母（如 AAPL、TSLA、MSFT），不包含数字
+     * 保存核对结果时每段写入的条数（写入后 flush + clear）
      */
-    private static final Pattern US_STOCK_SYMBOL_PATTERN =
-            Pattern.compile("^[A-Za-z]+$");
+    private static final int SAVE_CHUNK_SIZE = 500;
+
+    static final String METRIC_VERIFICATION = "ledger.verification";
+
+    static final String METRIC_RECHECKED = "ledger.verification.rechecked";
+
+    private static final TypeReference<List<TradeVerificationResult.ErrorDetail>> ERROR_LIST_TYPE =
+            new TypeReference<>() {
+            };
+
+    @Autowired
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Autowired
+    private TradeVerificationCheckRepository tradeVerificationCheckRepository;
+
+    @Autowired
+    private List<VerificationRule> rules;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ForkJoinPool verifyPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @PreDestroy
+    public void shutdown() {
+        verifyPool.shutdown();
+    }
 
     /**
-     * 核对所有未删除的交易记录
+     * 核对所有未删除的交易记录（增量核对）
      * 当前核对规则：
      * 1. 期权证券代码格式核对（OPTION_CALL / OPTION_PUT）
      * 2. 港股证券代码格式核对（HKD 结算的交易）
@@ -67,394 +110,368 @@ public class TradeVerificationService {
      * 4. 美股证券代码格式核对（USD 结算的股票交易）
      * 5. 证券代码类别一致性核对（同一 symbol 不应分属不同 assetType）
      * 6. 触发类型与关联类型一致性核对（OPTION 只能搭配期权类关联类型，MARKET_EVENT 只能搭配市场事件类关联类型）
+     *
+     * 只重新核对以下记录，其余记录直接使用已保存的核对结果：
+     * - 尚无核对结果、核对时的规则版本与当前不一致，或核对之后被修改过的记录
+     * - 与上述记录（修改前或修改后）同一证券代码的其他记录，以及被删除记录原证券代码的其他记录（规则5需要整组核对）
+     * 没有任何当前规则版本的核对结果时（首次核对或规则集变化），等同于 reverifyAll。
      */
+    @Transactional
     public TradeVerificationResult verifyAll() {
-        List<TradeRecord> records = tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc();
-        return doVerify(records);
+        return timed("incremental", this::doVerifyAll);
     }
 
-    /**
-     * 对指定的交易记录列表执行所有核对规则
-     */
-    private TradeVerificationResult doVerify(List<TradeRecord> records) {
-        TradeVerificationResult result = new TradeVerificationResult();
-        result.setTotalChecked(records.size());
-        result.setPassed(true);
-
-        for (TradeRecord record : records) {
-            // 规则1：期权证券代码格式核对
-            verifyOptionSymbolFormat(record, result);
-            // 规则2：港股证券代码格式核对
-            verifyHkStockSymbolFormat(record, result);
-            // 规则3：期权被动操作交易的费用和价格核对（通过 trigger 机制识别）
-            verifyOptionTriggerFeeAndPrice(record, result);
-            // 规则4：美股证券代码格式核对
-            verifyUsStockSymbolFormat(record, result);
-            // 规则6：触发类型与关联类型一致性核对
-            verifyTriggerRefTypeConsistency(record, result);
+    private TradeVerificationResult doVerifyAll() {
+        String ruleVersion = ruleVersion();
+        if (tradeVerificationCheckRepository.countByRuleVersion(ruleVersion) == 0) {
+            return doReverifyAll();
         }
 
-        // 规则5：证券代码类别一致性核对（全局规则，需在循环外执行）
-        verifySymbolAssetTypeConsistency(records, result);
+        Set<String> symbols = new TreeSet<>(tradeVerificationCheckRepository.findStaleRecordSymbols(ruleVersion));
+        symbols.addAll(tradeVerificationCheckRepository.findStaleCheckSymbols(ruleVersion));
+        int rechecked = 0;
+        if (!symbols.isEmpty()) {
+            tradeVerificationCheckRepository.deleteOrphans();
+            List<TradeRecord> records = findBySymbols(symbols);
+            VerificationOutcome outcome = doVerify(records);
+            List<Long> recordIds = records.stream().map(TradeRecord::getId).toList();
+            for (int from = 0; from < recordIds.size(); from += IN_CLAUSE_BATCH_SIZE) {
+                tradeVerificationCheckRepository.deleteByRecordIdIn(
+                        recordIds.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, recordIds.size())));
+            }
+            saveChecks(records, outcome, ruleVersion);
+            rechecked = records.size();
+        }
 
-        result.setErrorCount(result.getErrors().size());
+        TradeVerificationResult result = loadStoredResult();
+        result.setRecheckedCount(rechecked);
+        log.info("Trade verification finished: total={}, rechecked={}, symbols={}, errors={}",
+                result.getTotalChecked(), rechecked, symbols.size(), result.getErrorCount());
         return result;
     }
 
     /**
-     * 规则1：核对期权证券代码格式
-     *
-     * 当 assetType 为 OPTION_CALL 时，symbol 应匹配格式：底层证券代码-YYYYMMDD-C价格
-     *   - 底层证券代码部分应与 underlyingSymbol 字段一致
-     *   - YYYYMMDD 应为合法日期
-     *   - C 代表 CALL 类型
-     *
-     * 当 assetType 为 OPTION_PUT 时，symbol 应匹配格式：底层证券代码-YYYYMMDD-P价格
-     *   - 底层证券代码部分应与 underlyingSymbol 字段一致
-     *   - YYYYMMDD 应为合法日期
-     *   - P 代表 PUT 类型
-     *
-     * 非期权类型的记录跳过此规则。
+     * 重新核对所有未删除的交易记录，并用本次结果替换全部已保存的核对结果
+     */
+    @Transactional
+    public TradeVerificationResult reverifyAll() {
+        return timed("full", this::doReverifyAll);
+    }
+
+    private TradeVerificationResult doReverifyAll() {
+        List<TradeRecord> records = tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc();
+        VerificationOutcome outcome = doVerify(records);
+        tradeVerificationCheckRepository.deleteAllInBatch();
+        saveChecks(records, outcome, ruleVersion());
+
+        TradeVerificationResult result = buildResult(records.size(), outcome.allErrors());
+        result.setRecheckedCount(records.size());
+        log.info("Trade verification finished: total={}, rechecked={}, errors={}",
+                records.size(), records.size(), result.getErrorCount());
+        return result;
+    }
+
+    /**
+     * 下推核对：各规则的 SqlPushdownRule.suspectRecordSql 合并为一条 UNION 查询，由数据库返回可疑记录ID，
+     * 只加载这些记录执行规则核对，不满足任何可疑条件的记录不会被加载到内存。
+     * 不读取也不更新已保存的核对结果；有规则不支持下推时，退化为加载全部记录核对。
      */
-    private void verifyOptionSymbolFormat(TradeRecord record, TradeVerificationResult result) {
-        AssetType assetType = record.getAssetType();
-        if (assetType != AssetType.OPTION_CALL && assetType != AssetType.OPTION_PUT) {
-            return; // 非期权类型，跳过
+    public TradeVerificationResult verifyPushdown() {
+        return timed("pushdown", this::doVerifyPushdown);
+    }
+
+    private TradeVerificationResult doVerifyPushdown() {
+        List<String> queries = new ArrayList<>();
+        for (VerificationRule rule : rules) {
+            if (!(rule instanceof SqlPushdownRule)) {
+                log.warn("Verification rule does not support SQL pushdown, verifying all records: rule={}",
+                        rule.getClass().getName());
+                List<TradeRecord> records = tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc();
+                TradeVerificationResult result = buildResult(records.size(), doVerify(records).allErrors());
+                result.setRecheckedCount(records.size());
+                return result;
+            }
+            queries.add("(" + ((SqlPushdownRule) rule).suspectRecordSql() + ")");
         }
 
-        String symbol = record.getSymbol();
-        String underlyingSymbol = record.getUnderlyingSymbol();
-        String expectedTypeChar = (assetType == AssetType.OPTION_CALL) ? "C" : "P";
-        String expectedFormat = underlyingSymbol + "-YYYYMMDD-" + expectedTypeChar + "价格";
-
-        // 1. 检查 symbol 是否匹配整体格式
-        Matcher matcher = OPTION_SYMBOL_PATTERN.matcher(symbol);
-        if (!matcher.matches()) {
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("期权证券代码格式");
-            error.setAssetType(assetType.name());
-            error.setActualSymbol(symbol);
-            error.setExpectedFormat(expectedFormat);
-            error.setUnderlyingSymbol(underlyingSymbol);
-            error.setMessage("期权证券代码格式不正确，应为：" + expectedFormat);
-            result.addError(error);
-            return;
+        List<?> rows = entityManager.createNativeQuery(String.join(" UNION ", queries)).getResultList();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
         }
+        List<TradeRecord> records = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            records.addAll(tradeRecordRepository.findAllById(
+                    ids.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, ids.size()))));
+        }
+        records.sort(Comparator.comparing(TradeRecord::getId).reversed());
 
-        String symbolUnderlying = matcher.group(1);  // 底层证券代码部分
-        String dateStr = matcher.group(2);            // 日期部分 YYYYMMDD
-        String typeChar = matcher.group(3);           // C 或 P
-        String priceStr = matcher.group(4);           // 价格部分
+        TradeVerificationResult result = buildResult((int) tradeRecordRepository.countByIsDeletedFalse(),
+                doVerify(records).allErrors());
+        result.setRecheckedCount(records.size());
+        log.info("Trade verification (pushdown) finished: total={}, suspects={}, errors={}",
+                result.getTotalChecked(), records.size(), result.getErrorCount());
+        return result;
+    }
 
-        List<String> issues = new ArrayList<>();
+    /**
+     * 执行一次核对并记录耗时和实际核对的记录数
+     */
+    private TradeVerificationResult timed(String mode, Supplier<TradeVerificationResult> verification) {
+        TradeVerificationResult result = meterRegistry.timer(METRIC_VERIFICATION, "mode", mode).record(verification);
+        meterRegistry.counter(METRIC_RECHECKED, "mode", mode).increment(result.getRecheckedCount());
+        return result;
+    }
 
-        // 2. 核对底层证券代码是否一致
-        if (!symbolUnderlying.equalsIgnoreCase(underlyingSymbol)) {
-            issues.add("底层证券代码不匹配：symbol 中为 '" + symbolUnderlying +
-                    "'，underlyingSymbol 为 '" + underlyingSymbol + "'");
+    /**
+     * 当前规则集的版本：按执行顺序拼接各规则的类名和版本号后取 SHA-256 摘要
+     */
+    String ruleVersion() {
+        StringBuilder descriptor = new StringBuilder();
+        for (VerificationRule rule : rules) {
+            descriptor.append(rule.getClass().getName()).append(':').append(rule.getVersion()).append(';');
         }
-
-        // 3. 核对日期部分是否为合法日期
         try {
-            LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("yyyyMMdd"));
-        } catch (DateTimeParseException e) {
-            issues.add("日期部分 '" + dateStr + "' 不是合法的日期格式（应为YYYYMMDD）");
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(descriptor.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
         }
+    }
 
-        // 4. 核对期权类型标识是否与 assetType 匹配
-        if (!typeChar.equals(expectedTypeChar)) {
-            issues.add("期权类型标识不匹配：symbol 中为 '" + typeChar +
-                    "'（" + (typeChar.equals("C") ? "CALL" : "PUT") + "），" +
-                    "但 assetType 为 " + assetType.name() + "（应为 '" + expectedTypeChar + "'）");
+    /**
+     * 按证券代码（大写）分批查询未删除交易记录，结果按ID倒序
+     */
+    private List<TradeRecord> findBySymbols(Set<String> symbols) {
+        List<String> symbolList = new ArrayList<>(symbols);
+        List<TradeRecord> records = new ArrayList<>();
+        for (int from = 0; from < symbolList.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            records.addAll(tradeRecordRepository.findByUpperSymbolInOrderByIdDesc(
+                    symbolList.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, symbolList.size()))));
         }
-
-        // 5. 核对价格部分是否为合法数字
-        try {
-            BigDecimal price = new BigDecimal(priceStr);
-            if (price.signum() <= 0) {
-                issues.add("价格部分 '" + priceStr + "' 应为正数");
-            }
-        } catch (NumberFormatException e) {
-            issues.add("价格部分 '" + priceStr + "' 不是合法的数字");
+        if (symbolList.size() > IN_CLAUSE_BATCH_SIZE) {
+            records.sort(Comparator.comparing(TradeRecord::getId).reversed());
         }
+        return records;
+    }
 
-        // 汇总异常
-        if (!issues.isEmpty()) {
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("期权证券代码格式");
-            error.setAssetType(assetType.name());
-            error.setActualSymbol(symbol);
-            error.setExpectedFormat(expectedFormat);
-            error.setUnderlyingSymbol(underlyingSymbol);
-            error.setMessage(String.join("；", issues));
-            result.addError(error);
+    /**
+     * 保存一批记录的核对结果（调用方负责先删除这些记录的旧结果）
+     */
+    private void saveChecks(List<TradeRecord> records, VerificationOutcome outcome, String ruleVersion) {
+        Map<Long, List<TradeVerificationResult.ErrorDetail>> recordErrors = groupByRecordId(outcome.recordErrors);
+        Map<Long, List<TradeVerificationResult.ErrorDetail>> aggregateErrors = groupByRecordId(outcome.aggregateErrors);
+        for (int i = 0; i < records.size(); i++) {
+            TradeRecord record = records.get(i);
+            TradeVerificationCheck check = new TradeVerificationCheck();
+            check.setRecordId(record.getId());
+            check.setSymbol(record.getSymbol());
+            check.setRuleVersion(ruleVersion);
+            check.setRecordUpdatedAt(record.getUpdatedAt());
+            check.setRecordErrors(toJson(recordErrors.get(record.getId())));
+            check.setAggregateErrors(toJson(aggregateErrors.get(record.getId())));
+            entityManager.persist(check);
+            if ((i + 1) % SAVE_CHUNK_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
         }
+        entityManager.flush();
     }
 
     /**
-     * 规则2：核对港股证券代码格式
-     *
-     * 当结算币种为 HKD（港币）时，说明交易的是港股，
-     * 港股的证券代码（symbol）应为纯数字，不包含字母。
-     * 同时底层证券代码（underlyingSymbol）也应为纯数字。
-     *
-     * 非 HKD 结算的记录跳过此规则。
+     * 由已保存的核对结果组装核对结果：先是各条记录的逐条规则异常，再是跨记录规则异常（均按记录ID倒序）
      */
-    private void verifyHkStockSymbolFormat(TradeRecord record, TradeVerificationResult result) {
-        if (record.getCurrency() != Currency.HKD) {
-            return; // 非港币结算，跳过
+    private TradeVerificationResult loadStoredResult() {
+        List<TradeVerificationCheck> failed = tradeVerificationCheckRepository.findFailedOrderByRecordIdDesc();
+        List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>();
+        for (TradeVerificationCheck check : failed) {
+            errors.addAll(fromJson(check.getRecordErrors()));
         }
-
-        // 期权类型的港股暂不做此规则校验（期权代码有自己的格式规则）
-        AssetType assetType = record.getAssetType();
-        if (assetType == AssetType.OPTION_CALL || assetType == AssetType.OPTION_PUT) {
-            return;
+        for (TradeVerificationCheck check : failed) {
+            errors.addAll(fromJson(check.getAggregateErrors()));
         }
+        return buildResult((int) tradeRecordRepository.countByIsDeletedFalse(), errors);
+    }
 
-        String symbol = record.getSymbol();
-        String underlyingSymbol = record.getUnderlyingSymbol();
-        List<String> issues = new ArrayList<>();
+    private static TradeVerificationResult buildResult(int totalChecked, List<TradeVerificationResult.ErrorDetail> errors) {
+        TradeVerificationResult result = new TradeVerificationResult();
+        result.setTotalChecked(totalChecked);
+        result.setErrors(errors);
+        result.setErrorCount(errors.size());
+        result.setPassed(errors.isEmpty());
+        return result;
+    }
 
-        // 核对 symbol 是否为纯数字
-        if (!HK_STOCK_SYMBOL_PATTERN.matcher(symbol).matches()) {
-            issues.add("港股证券代码应为纯数字，但实际为 '" + symbol + "'");
+    private static Map<Long, List<TradeVerificationResult.ErrorDetail>> groupByRecordId(
+            List<TradeVerificationResult.ErrorDetail> errors) {
+        Map<Long, List<TradeVerificationResult.ErrorDetail>> grouped = new HashMap<>();
+        for (TradeVerificationResult.ErrorDetail error : errors) {
+            grouped.computeIfAbsent(error.getRecordId(), k -> new ArrayList<>()).add(error);
         }
+        return grouped;
+    }
 
-        // 核对 underlyingSymbol 是否为纯数字
-        if (underlyingSymbol != null && !underlyingSymbol.trim().isEmpty()
-                && !HK_STOCK_SYMBOL_PATTERN.matcher(underlyingSymbol).matches()) {
-            issues.add("港股底层证券代码应为纯数字，但实际为 '" + underlyingSymbol + "'");
+    private String toJson(List<TradeVerificationResult.ErrorDetail> errors) {
+        if (errors == null || errors.isEmpty()) {
+            return null;
         }
-
-        if (!issues.isEmpty()) {
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("港股证券代码格式");
-            error.setAssetType(assetType.name());
-            error.setActualSymbol(symbol);
-            error.setExpectedFormat("纯数字（如 00700、09988）");
-            error.setUnderlyingSymbol(underlyingSymbol);
-            error.setMessage(String.join("；", issues));
-            result.addError(error);
+        try {
+            return objectMapper.writeValueAsString(errors);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("核对结果序列化失败", e);
         }
     }
 
-    /**
-     * 规则3：核对期权被动操作交易的费用和价格
-     *
-     * 通过 trade_trigger = OPTION + trigger_ref_type 识别期权被动操作场景：
-     *
-     * (a) 期权到期（OPTION_EXPIRE）：
-     *     期权侧记录的 fee 和 price 都应为 0（到期失效，无成交）
-     *
-     * (b) 行权/被指派 — 期权侧（OPTION_EXERCISE / OPTION_ASSIGNED，trigger_ref_id = 0）：
-     *     期权侧记录的 fee 应为 0（期权合约被消耗，不产生费用）
-     *
-     * 非期权被动操作的记录跳过此规则。
-     */
-    private void verifyOptionTriggerFeeAndPrice(TradeRecord record, TradeVerificationResult result) {
-        if (record.getTradeTrigger() == TradeTrigger.OPTION) {
-            verifyOptionTriggerRecord(record, result);
+    private List<TradeVerificationResult.ErrorDetail> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(json, ERROR_LIST_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("核对结果解析失败", e);
         }
     }
 
     /**
-     * 新体系：校验 trade_trigger = OPTION 的记录
+     * 对指定的交易记录列表执行所有核对规则（包级可见，供基准测试直接调用）
      */
-    private void verifyOptionTriggerRecord(TradeRecord record, TradeVerificationResult result) {
-        TriggerRefType refType = record.getTriggerRefType();
-        BigDecimal fee = record.getFee();
-        BigDecimal price = record.getPrice();
-        List<String> issues = new ArrayList<>();
-
-        if (refType == TriggerRefType.OPTION_EXPIRE) {
-            // 到期作废：fee 和 price 都应为 0
-            if (fee != null && fee.compareTo(BigDecimal.ZERO) != 0) {
-                issues.add("期权到期的交易费用应为 0，但实际为 " + fee);
+    @SuppressWarnings("unchecked")
+    VerificationOutcome doVerify(List<TradeRecord> records) {
+        List<RecordVerificationRule> recordRules = new ArrayList<>();
+        List<AggregateVerificationRule<Object>> aggregateRules = new ArrayList<>();
+        for (VerificationRule rule : rules) {
+            if (rule instanceof RecordVerificationRule) {
+                recordRules.add((RecordVerificationRule) rule);
             }
-            if (price != null && price.compareTo(BigDecimal.ZERO) != 0) {
-                issues.add("期权到期的成交价格应为 0，但实际为 " + price);
-            }
-        } else if (refType == TriggerRefType.OPTION_EXERCISE || refType == TriggerRefType.OPTION_ASSIGNED) {
-            // 行权/被指派 — 期权侧（trigger_ref_id = 0）：fee 应为 0
-            if (record.getTriggerRefId() == 0L) {
-                if (fee != null && fee.compareTo(BigDecimal.ZERO) != 0) {
-                    issues.add("期权侧记录的交易费用应为 0，但实际为 " + fee);
-                }
+            if (rule instanceof AggregateVerificationRule) {
+                aggregateRules.add((AggregateVerificationRule<Object>) rule);
             }
         }
 
-        if (!issues.isEmpty()) {
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("期权被动操作费用价格");
-            error.setAssetType(record.getAssetType().name());
-            error.setActualSymbol(record.getSymbol());
-            error.setExpectedFormat("费用=0, 价格=0（到期作废）/ 费用=0（期权侧行权/被指派）");
-            error.setUnderlyingSymbol(record.getUnderlyingSymbol());
-            error.setMessage("触发类型 OPTION/" + refType.name() + "，" + String.join("；", issues));
-            result.addError(error);
-        }
+        // 逐条规则按数组遍历，每条记录不再创建迭代器
+        RecordVerificationRule[] recordRuleArray = recordRules.toArray(new RecordVerificationRule[0]);
+
+        // 第一趟：逐条规则核对，同时汇总跨记录规则所需的数据
+        FirstPass firstPass = verifyPool.invoke(new ChunkTask<>(0, records.size(),
+                (from, to) -> {
+                    FirstPass pass = new FirstPass(aggregateRules);
+                    for (TradeRecord record : records.subList(from, to)) {
+                        for (RecordVerificationRule rule : recordRuleArray) {
+                            rule.verify(record, pass.errors);
+                        }
+                        for (int i = 0; i < aggregateRules.size(); i++) {
+                            aggregateRules.get(i).accumulate(pass.accumulators.get(i), record);
+                        }
+                    }
+                    return pass;
+                },
+                (left, right) -> {
+                    left.errors.addAll(right.errors);
+                    for (int i = 0; i < aggregateRules.size(); i++) {
+                        left.accumulators.set(i, aggregateRules.get(i)
+                                .combine(left.accumulators.get(i), right.accumulators.get(i)));
+                    }
+                    return left;
+                }));
+
+        // 第二趟：用全局汇总结果执行跨记录规则核对
+        List<TradeVerificationResult.ErrorDetail> aggregateErrors = aggregateRules.isEmpty() ? new ArrayList<>()
+                : verifyPool.invoke(new ChunkTask<>(0, records.size(),
+                (from, to) -> {
+                    List<TradeVerificationResult.ErrorDetail> chunkErrors = new ArrayList<>();
+                    for (int i = 0; i < aggregateRules.size(); i++) {
+                        AggregateVerificationRule<Object> rule = aggregateRules.get(i);
+                        Object accumulator = firstPass.accumulators.get(i);
+                        for (TradeRecord record : records.subList(from, to)) {
+                            rule.verify(record, accumulator, chunkErrors);
+                        }
+                    }
+                    return chunkErrors;
+                },
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                }));
+
+        return new VerificationOutcome(firstPass.errors, aggregateErrors);
     }
 
     /**
-     * 规则4：核对美股证券代码格式
-     *
-     * 当资产类型为 STOCK（股票）且结算币种为 USD（美元）时，说明交易的是美股，
-     * 美股的证券代码（symbol）应为纯字母，不包含数字。
-     * 同时底层证券代码（underlyingSymbol）也应为纯字母。
-     *
-     * 非 USD 结算或非 STOCK 类型的记录跳过此规则。
+     * 一批记录的核对结果：逐条规则异常与跨记录规则异常分开保存，均按记录顺序排列
      */
-    private void verifyUsStockSymbolFormat(TradeRecord record, TradeVerificationResult result) {
-        if (record.getCurrency() != Currency.USD) {
-            return; // 非美元结算，跳过
-        }
-
-        AssetType assetType = record.getAssetType();
-        if (assetType != AssetType.STOCK) {
-            return; // 非股票类型，跳过（期权、ETF 有自己的代码格式规则）
-        }
+    static class VerificationOutcome {
 
-        String symbol = record.getSymbol();
-        String underlyingSymbol = record.getUnderlyingSymbol();
-        List<String> issues = new ArrayList<>();
+        private final List<TradeVerificationResult.ErrorDetail> recordErrors;
 
-        // 核对 symbol 是否为纯字母
-        if (!US_STOCK_SYMBOL_PATTERN.matcher(symbol).matches()) {
-            issues.add("美股证券代码应为纯字母，但实际为 '" + symbol + "'");
-        }
+        private final List<TradeVerificationResult.ErrorDetail> aggregateErrors;
 
-        // 核对 underlyingSymbol 是否为纯字母
-        if (underlyingSymbol != null && !underlyingSymbol.trim().isEmpty()
-                && !US_STOCK_SYMBOL_PATTERN.matcher(underlyingSymbol).matches()) {
-            issues.add("美股底层证券代码应为纯字母，但实际为 '" + underlyingSymbol + "'");
+        VerificationOutcome(List<TradeVerificationResult.ErrorDetail> recordErrors,
+                            List<TradeVerificationResult.ErrorDetail> aggregateErrors) {
+            this.recordErrors = recordErrors;
+            this.aggregateErrors = aggregateErrors;
         }
 
-        if (!issues.isEmpty()) {
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("美股证券代码格式");
-            error.setAssetType(assetType.name());
-            error.setActualSymbol(symbol);
-            error.setExpectedFormat("纯字母（如 AAPL、TSLA、MSFT）");
-            error.setUnderlyingSymbol(underlyingSymbol);
-            error.setMessage(String.join("；", issues));
-            result.addError(error);
+        /**
+         * 全部异常：逐条规则异常在前，跨记录规则异常在后
+         */
+        List<TradeVerificationResult.ErrorDetail> allErrors() {
+            List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>(recordErrors);
+            errors.addAll(aggregateErrors);
+            return errors;
         }
     }
 
     /**
-     * 规则6：核对触发类型与关联类型的一致性
-     *
-     * 防止触发类型（trade_trigger）与关联类型（trigger_ref_type）出现交叉错配：
-     *   - 当 trade_trigger = OPTION 时，trigger_ref_type 只能是
-     *     OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED 三者之一
-     *   - 当 trade_trigger = MARKET_EVENT 时，trigger_ref_type 只能是
-     *     STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND 三者之一
-     *
-     * 其他 trade_trigger 值（如 MANUAL）不在此规则校验范围内。
+     * 第一趟分段结果：逐条规则的异常 + 各跨记录规则的汇总结果
      */
-    private void verifyTriggerRefTypeConsistency(TradeRecord record, TradeVerificationResult result) {
-        TradeTrigger trigger = record.getTradeTrigger();
-        TriggerRefType refType = record.getTriggerRefType();
+    private static class FirstPass {
 
-        if (trigger == null || refType == null) {
-            return;
-        }
+        private final List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>();
 
-        // 期权触发：trigger_ref_type 只能是三种期权子类型
-        if (trigger == TradeTrigger.OPTION) {
-            if (refType != TriggerRefType.OPTION_EXPIRE
-                    && refType != TriggerRefType.OPTION_EXERCISE
-                    && refType != TriggerRefType.OPTION_ASSIGNED) {
-                TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-                error.setRecordId(record.getId());
-                error.setRuleName("触发类型关联类型一致性");
-                error.setAssetType(record.getAssetType().name());
-                error.setActualSymbol(record.getSymbol());
-                error.setExpectedFormat("OPTION → OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED");
-                error.setUnderlyingSymbol(record.getUnderlyingSymbol());
-                error.setMessage("触发类型为 OPTION，但关联类型为 " + refType.name()
-                        + "，应为 OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED 之一");
-                result.addError(error);
-            }
-        }
+        private final List<Object> accumulators = new ArrayList<>();
 
-        // 市场事件触发：trigger_ref_type 只能是三种市场事件子类型
-        if (trigger == TradeTrigger.MARKET_EVENT) {
-            if (refType != TriggerRefType.STOCK_SPLIT
-                    && refType != TriggerRefType.SYMBOL_CHANGE
-                    && refType != TriggerRefType.DIVIDEND_IN_KIND) {
-                TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-                error.setRecordId(record.getId());
-                error.setRuleName("触发类型关联类型一致性");
-                error.setAssetType(record.getAssetType().name());
-                error.setActualSymbol(record.getSymbol());
-                error.setExpectedFormat("MARKET_EVENT → STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND");
-                error.setUnderlyingSymbol(record.getUnderlyingSymbol());
-                error.setMessage("触发类型为 MARKET_EVENT，但关联类型为 " + refType.name()
-                        + "，应为 STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND 之一");
-                result.addError(error);
+        FirstPass(List<AggregateVerificationRule<Object>> aggregateRules) {
+            for (AggregateVerificationRule<Object> rule : aggregateRules) {
+                accumulators.add(rule.newAccumulator());
             }
         }
     }
 
     /**
-     * 规则5：核对证券代码类别一致性
-     *
-     * 同一个证券代码（symbol）在所有记录中只应对应唯一的一种资产类别（assetType）。
-     * 例如：
-     *   - 'QQQ' 不可能既是 STOCK 又是 ETF
-     *   - 某个期权代码不可能既是 OPTION_CALL 又是 OPTION_PUT
-     *
-     * 此规则为全局性规则，需要对所有记录进行交叉比较，
-     * 先按 symbol（忽略大小写）分组统计 assetType，再对存在冲突的记录逐条报出异常。
+     * 分段核对任务：区间超过 VERIFY_CHUNK_SIZE 时对半拆分，左右两段结果按顺序合并
      */
-    private void verifySymbolAssetTypeConsistency(List<TradeRecord> records, TradeVerificationResult result) {
-        // 按 symbol（忽略大小写）分组，收集每个 symbol 对应的所有 assetType
-        Map<String, Set<AssetType>> symbolAssetTypeMap = new HashMap<>();
-        for (TradeRecord record : records) {
-            String symbolKey = record.getSymbol().toUpperCase();
-            symbolAssetTypeMap.computeIfAbsent(symbolKey, k -> new HashSet<>())
-                    .add(record.getAssetType());
+    private static class ChunkTask<T> extends RecursiveTask<T> {
+
+        private final int from;
+        private final int to;
+        private final ChunkVerifier<T> verifier;
+        private final BinaryOperator<T> merger;
+
+        ChunkTask(int from, int to, ChunkVerifier<T> verifier, BinaryOperator<T> merger) {
+            this.from = from;
+            this.to = to;
+            this.verifier = verifier;
+            this.merger = merger;
         }
 
-        // 筛选出存在多种 assetType 的 symbol（即存在冲突的代码）
-        Set<String> conflictSymbols = symbolAssetTypeMap.entrySet().stream()
-                .filter(entry -> entry.getValue().size() > 1)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-
-        if (conflictSymbols.isEmpty()) {
-            return; // 无冲突，跳过
-        }
-
-        // 对涉及冲突 symbol 的所有记录报出异常
-        for (TradeRecord record : records) {
-            String symbolKey = record.getSymbol().toUpperCase();
-            if (!conflictSymbols.contains(symbolKey)) {
-                continue;
+        @Override
+        protected T compute() {
+            if (to - from <= VERIFY_CHUNK_SIZE) {
+                return verifier.verify(from, to);
             }
-
-            Set<AssetType> conflictTypes = symbolAssetTypeMap.get(symbolKey);
-            String typesStr = conflictTypes.stream()
-                    .map(AssetType::name)
-                    .sorted()
-                    .collect(Collectors.joining("、"));
-
-            TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
-            error.setRecordId(record.getId());
-            error.setRuleName("证券代码类别一致性");
-            error.setAssetType(record.getAssetType().name());
-            error.setActualSymbol(record.getSymbol());
-            error.setExpectedFormat("同一证券代码应对应唯一的资产类别");
-            error.setUnderlyingSymbol(record.getUnderlyingSymbol());
-            error.setMessage("证券代码 '" + record.getSymbol() + "' 在不同记录中被归为多种资产类别：" +
-                    typesStr + "，当前记录类别为 " + record.getAssetType().name());
-            result.addError(error);
+            int mid = (from + to) >>> 1;
+            ChunkTask<T> right = new ChunkTask<>(mid, to, verifier, merger);
+            right.fork();
+            T left = new ChunkTask<>(from, mid, verifier, merger).compute();
+            return merger.apply(left, right.join());
         }
     }
+
+    @FunctionalInterface
+    private interface ChunkVerifier<T> {
+        T verify(int from, int to);
+    }
 }
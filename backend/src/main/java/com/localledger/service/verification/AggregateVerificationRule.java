@@ -0,0 +1,31 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+
+import java.util.List;
+
+/**
+ * 跨记录核对规则
+ *
+ * 分两趟执行，两趟都按记录分段并行：
+ * 1. 汇总：每个分段用 newAccumulator / accumulate 汇总本段记录，分段结果用 combine 两两合并
+ * 2. 核对：用合并后的全局汇总结果逐条核对记录
+ *
+ * combine 可以直接修改并返回 left；合并后的汇总结果在第二趟中只读，会被多个线程同时访问。
+ *
+ * @param <A> 汇总结果类型
+ */
+public interface AggregateVerificationRule<A> extends VerificationRule {
+
+    A newAccumulator();
+
+    void accumulate(A accumulator, TradeRecord record);
+
+    A combine(A left, A right);
+
+    /**
+     * 用全局汇总结果核对一条交易记录，发现异常时追加到 errors
+     */
+    void verify(TradeRecord record, A accumulator, List<TradeVerificationResult.ErrorDetail> errors);
+}
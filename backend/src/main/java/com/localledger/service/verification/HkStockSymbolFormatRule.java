@@ -0,0 +1,88 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则2：核对港股证券代码格式
+ *
+ * 当结算币种为 HKD（港币）时，说明交易的是港股，
+ * 港股的证券代码（symbol）应为纯数字，不包含字母。
+ * 同时底层证券代码（underlyingSymbol）也应为纯数字。
+ *
+ * 非 HKD 结算的记录跳过此规则。
+ */
+@Component
+@Order(2)
+public class HkStockSymbolFormatRule implements RecordVerificationRule, SqlPushdownRule {
+
+    @Override
+    public String getRuleName() {
+        return "港股证券代码格式";
+    }
+
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false " +
+                "AND currency = 'HKD' AND asset_type NOT IN ('OPTION_CALL', 'OPTION_PUT') " +
+                "AND (symbol !~ '^[0-9]+$' OR (underlying_symbol IS NOT NULL AND underlying_symbol !~ '^[0-9]*$'))";
+    }
+
+    @Override
+    public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+        if (record.getCurrency() != Currency.HKD) {
+            return; // 非港币结算，跳过
+        }
+
+        // 期权类型的港股暂不做此规则校验（期权代码有自己的格式规则）
+        AssetType assetType = record.getAssetType();
+        if (assetType == AssetType.OPTION_CALL || assetType == AssetType.OPTION_PUT) {
+            return;
+        }
+
+        String symbol = record.getSymbol();
+        String underlyingSymbol = record.getUnderlyingSymbol();
+        if (isHkStockSymbol(symbol) && (VerificationStrings.isBlank(underlyingSymbol) || isHkStockSymbol(underlyingSymbol))) {
+            return; // 合法代码在此返回，不分配任何对象
+        }
+
+        List<String> issues = new ArrayList<>();
+
+        // 核对 symbol 是否为纯数字
+        if (!isHkStockSymbol(symbol)) {
+            issues.add("港股证券代码应为纯数字，但实际为 '" + symbol + "'");
+        }
+
+        // 核对 underlyingSymbol 是否为纯数字
+        if (!VerificationStrings.isBlank(underlyingSymbol) && !isHkStockSymbol(underlyingSymbol)) {
+            issues.add("港股底层证券代码应为纯数字，但实际为 '" + underlyingSymbol + "'");
+        }
+
+        if (!issues.isEmpty()) {
+            errors.add(newError(record, "纯数字（如 00700、09988）", String.join("；", issues)));
+        }
+    }
+
+    /**
+     * 港股证券代码为纯数字（如 00700、09988、03690），不包含字母
+     */
+    private static boolean isHkStockSymbol(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
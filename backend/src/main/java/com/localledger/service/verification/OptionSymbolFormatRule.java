@@ -0,0 +1,240 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 规则1：核对期权证券代码格式
+ *
+ * 当 assetType 为 OPTION_CALL 时，symbol 应匹配格式：底层证券代码-YYYYMMDD-C价格
+ *   - 底层证券代码部分应与 underlyingSymbol 字段一致
+ *   - YYYYMMDD 应为合法日期
+ *   - C 代表 CALL 类型
+ *
+ * 当 assetType 为 OPTION_PUT 时，symbol 应匹配格式：底层证券代码-YYYYMMDD-P价格
+ *   - 底层证券代码部分应与 underlyingSymbol 字段一致
+ *   - YYYYMMDD 应为合法日期
+ *   - P 代表 PUT 类型
+ *
+ * 非期权类型的记录跳过此规则。
+ */
+@Component
+@Order(1)
+public class OptionSymbolFormatRule implements RecordVerificationRule, SqlPushdownRule {
+
+    /**
+     * 期权 symbol 格式的正则表达式
+     * 格式：底层证券代码-YYYYMMDD-C价格 或 底层证券代码-YYYYMMDD-P价格
+     * 价格部分支持整数或小数（如 210、17.5）
+     */
+    private static final Pattern OPTION_SYMBOL_PATTERN =
+            Pattern.compile("^(.+)-(\\d{8})-([CP])(.+)$");
+
+    private static final DateTimeFormatter EXPIRY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Override
+    public String getRuleName() {
+        return "期权证券代码格式";
+    }
+
+    /**
+     * 可疑记录：不满足「底层证券代码（忽略大小写）-合法月日的8位日期-对应类型标识+含非零数字的价格」的期权记录。
+     * 满足该条件的代码一定能通过本规则（2 月 30 日等少见写法在 SQL 中判为可疑，交给 verify 精确判断）。
+     */
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false " +
+                "AND asset_type IN ('OPTION_CALL', 'OPTION_PUT') " +
+                "AND NOT COALESCE(length(underlying_symbol) > 0 " +
+                "AND symbol !~ '[\\r\\n\\u0085\\u2028\\u2029]' " +
+                "AND upper(left(symbol, length(underlying_symbol))) = upper(underlying_symbol) " +
+                "AND substr(symbol, length(underlying_symbol) + 1) ~ ('^-[0-9]{4}(0[1-9]|1[0-2])(0[1-9]|[12][0-9]|3[01])-' " +
+                "|| CASE WHEN asset_type = 'OPTION_CALL' THEN 'C' ELSE 'P' END || '[0-9]*\\.?[0-9]*$') " +
+                "AND substr(symbol, length(underlying_symbol) + 2, 4) <> '0000' " +
+                "AND substr(symbol, length(underlying_symbol) + 12) ~ '[1-9]', false)";
+    }
+
+    @Override
+    public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+        AssetType assetType = record.getAssetType();
+        if (assetType != AssetType.OPTION_CALL && assetType != AssetType.OPTION_PUT) {
+            return; // 非期权类型，跳过
+        }
+        char expectedType = (assetType == AssetType.OPTION_CALL) ? 'C' : 'P';
+        if (isWellFormed(record.getSymbol(), record.getUnderlyingSymbol(), expectedType)) {
+            return; // 合法代码在此返回，不分配任何对象
+        }
+        verifyDetailed(record, assetType, errors);
+    }
+
+    /**
+     * 不分配对象地判定期权代码完全合法
+     *
+     * 与 OPTION_SYMBOL_PATTERN 的贪婪匹配一致：取最后一个满足「-8位数字-C/P价格」结构的 '-' 作为底层证券代码的结尾。
+     * 只对常规写法（日期合法、价格为不带符号和指数的正数）返回 true；返回 false 不代表一定有异常，
+     * 由 verifyDetailed 按正则和 BigDecimal 精确判断并生成异常描述。
+     */
+    static boolean isWellFormed(String symbol, String underlyingSymbol, char expectedType) {
+        int split = findUnderlyingEnd(symbol);
+        if (split < 0) {
+            return false;
+        }
+        if (underlyingSymbol == null || underlyingSymbol.length() != split
+                || !symbol.regionMatches(true, 0, underlyingSymbol, 0, split)) {
+            return false;
+        }
+        return isValidDate(symbol, split + 1)
+                && symbol.charAt(split + 10) == expectedType
+                && isPlainPositiveNumber(symbol, split + 11, symbol.length());
+    }
+
+    /**
+     * 返回底层证券代码结尾处 '-' 的位置，不符合整体格式时返回 -1
+     */
+    private static int findUnderlyingEnd(String symbol) {
+        int length = symbol.length();
+        for (int i = 0; i < length; i++) {
+            char c = symbol.charAt(i);
+            // 正则中的 '.' 不匹配行结束符
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return -1;
+            }
+        }
+        // 结构：[底层证券代码(>=1)] '-' [8位数字] '-' [C/P] [价格(>=1)]
+        for (int i = length - 12; i >= 1; i--) {
+            if (symbol.charAt(i) == '-' && symbol.charAt(i + 9) == '-'
+                    && (symbol.charAt(i + 10) == 'C' || symbol.charAt(i + 10) == 'P')
+                    && isDigits(symbol, i + 1, i + 9)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toInt(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 判定从 offset 开始的 8 位数字为合法的 yyyyMMdd 日期（调用方已保证均为数字）
+     */
+    private static boolean isValidDate(String s, int offset) {
+        int year = toInt(s, offset, offset + 4);
+        int month = toInt(s, offset + 4, offset + 6);
+        int day = toInt(s, offset + 6, offset + 8);
+        return year >= 1 && month >= 1 && month <= 12
+                && day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * 判定为不带符号和指数的正数（如 210、17.5、.5），至少一位非零数字
+     */
+    private static boolean isPlainPositiveNumber(String s, int from, int to) {
+        boolean dot = false;
+        boolean nonZero = false;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (dot) {
+                    return false;
+                }
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                nonZero |= c != '0';
+            } else {
+                return false;
+            }
+        }
+        return digits > 0 && nonZero;
+    }
+
+    /**
+     * 按正则逐项核对并生成异常描述（仅在快速判定未通过时执行）
+     */
+    private void verifyDetailed(TradeRecord record, AssetType assetType,
+                                List<TradeVerificationResult.ErrorDetail> errors) {
+        String symbol = record.getSymbol();
+        String underlyingSymbol = record.getUnderlyingSymbol();
+        String expectedTypeChar = (assetType == AssetType.OPTION_CALL) ? "C" : "P";
+        String expectedFormat = underlyingSymbol + "-YYYYMMDD-" + expectedTypeChar + "价格";
+
+        // 1. 检查 symbol 是否匹配整体格式
+        Matcher matcher = OPTION_SYMBOL_PATTERN.matcher(symbol);
+        if (!matcher.matches()) {
+            errors.add(newError(record, expectedFormat, "期权证券代码格式不正确，应为：" + expectedFormat));
+            return;
+        }
+
+        String symbolUnderlying = matcher.group(1);  // 底层证券代码部分
+        String dateStr = matcher.group(2);            // 日期部分 YYYYMMDD
+        String typeChar = matcher.group(3);           // C 或 P
+        String priceStr = matcher.group(4);           // 价格部分
+
+        List<String> issues = new ArrayList<>();
+
+        // 2. 核对底层证券代码是否一致
+        if (!symbolUnderlying.equalsIgnoreCase(underlyingSymbol)) {
+            issues.add("底层证券代码不匹配：symbol 中为 '" + symbolUnderlying +
+                    "'，underlyingSymbol 为 '" + underlyingSymbol + "'");
+        }
+
+        // 3. 核对日期部分是否为合法日期
+        try {
+            LocalDate.parse(dateStr, EXPIRY_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            issues.add("日期部分 '" + dateStr + "' 不是合法的日期格式（应为YYYYMMDD）");
+        }
+
+        // 4. 核对期权类型标识是否与 assetType 匹配
+        if (!typeChar.equals(expectedTypeChar)) {
+            issues.add("期权类型标识不匹配：symbol 中为 '" + typeChar +
+                    "'（" + (typeChar.equals("C") ? "CALL" : "PUT") + "），" +
+                    "但 assetType 为 " + assetType.name() + "（应为 '" + expectedTypeChar + "'）");
+        }
+
+        // 5. 核对价格部分是否为合法数字
+        try {
+            BigDecimal price = new BigDecimal(priceStr);
+            if (price.signum() <= 0) {
+                issues.add("价格部分 '" + priceStr + "' 应为正数");
+            }
+        } catch (NumberFormatException e) {
+            issues.add("价格部分 '" + priceStr + "' 不是合法的数字");
+        }
+
+        // 汇总异常
+        if (!issues.isEmpty()) {
+            errors.add(newError(record, expectedFormat, String.join("；", issues)));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TriggerRefType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则3：核对期权被动操作交易的费用和价格
+ *
+ * 通过 trade_trigger = OPTION + trigger_ref_type 识别期权被动操作场景：
+ *
+ * (a) 期权到期（OPTION_EXPIRE）：
+ *     期权侧记录的 fee 和 price 都应为 0（到期失效，无成交）
+ *
+ * (b) 行权/被指派 — 期权侧（OPTION_EXERCISE / OPTION_ASSIGNED，trigger_ref_id = 0）：
+ *     期权侧记录的 fee 应为 0（期权合约被消耗，不产生费用）
+ *
+ * 非期权被动操作的记录跳过此规则。
+ */
+@Component
+@Order(3)
+public class OptionTriggerFeePriceRule implements RecordVerificationRule, SqlPushdownRule {
+
+    @Override
+    public String getRuleName() {
+        return "期权被动操作费用价格";
+    }
+
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false AND trade_trigger = 'OPTION' " +
+                "AND ((trigger_ref_type = 'OPTION_EXPIRE' AND (fee <> 0 OR price <> 0)) " +
+                "OR (trigger_ref_type IN ('OPTION_EXERCISE', 'OPTION_ASSIGNED') AND trigger_ref_id = 0 AND fee <> 0))";
+    }
+
+    @Override
+    public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+        if (record.getTradeTrigger() != TradeTrigger.OPTION) {
+            return;
+        }
+
+        TriggerRefType refType = record.getTriggerRefType();
+        BigDecimal fee = record.getFee();
+        BigDecimal price = record.getPrice();
+        boolean feeNotZero = fee != null && fee.compareTo(BigDecimal.ZERO) != 0;
+        boolean priceNotZero = price != null && price.compareTo(BigDecimal.ZERO) != 0;
+
+        // 到期作废：fee 和 price 都应为 0
+        boolean expireInvalid = refType == TriggerRefType.OPTION_EXPIRE && (feeNotZero || priceNotZero);
+        // 行权/被指派 — 期权侧（trigger_ref_id = 0）：fee 应为 0
+        boolean exerciseInvalid = (refType == TriggerRefType.OPTION_EXERCISE || refType == TriggerRefType.OPTION_ASSIGNED)
+                && record.getTriggerRefId() == 0L && feeNotZero;
+        if (!expireInvalid && !exerciseInvalid) {
+            return; // 无异常时不分配任何对象
+        }
+
+        List<String> issues = new ArrayList<>();
+        if (expireInvalid) {
+            if (feeNotZero) {
+                issues.add("期权到期的交易费用应为 0，但实际为 " + fee);
+            }
+            if (priceNotZero) {
+                issues.add("期权到期的成交价格应为 0，但实际为 " + price);
+            }
+        } else {
+            issues.add("期权侧记录的交易费用应为 0，但实际为 " + fee);
+        }
+
+        errors.add(newError(record, "费用=0, 价格=0（到期作废）/ 费用=0（期权侧行权/被指派）",
+                "触发类型 OPTION/" + refType.name() + "，" + String.join("；", issues)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+
+import java.util.List;
+
+/**
+ * 逐条记录核对规则：只依赖当前记录自身的字段
+ */
+public interface RecordVerificationRule extends VerificationRule {
+
+    /**
+     * 核对一条交易记录，发现异常时追加到 errors
+     */
+    void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors);
+}
@@ -0,0 +1,13 @@
+package com.localledger.service.verification;
+
+/**
+ * 可下推到数据库执行的核对规则
+ *
+ * suspectRecordSql 返回一条只查询 trade_records.id 的原生 SQL（PostgreSQL），
+ * 结果必须覆盖该规则可能报出异常的全部未删除交易记录：允许多查（查出的记录由规则本身的 verify 再次精确核对），不允许漏查。
+ * 跨记录规则的 SQL 须返回冲突分组内的全部记录，使加载到内存的子集仍包含完整的冲突分组。
+ */
+public interface SqlPushdownRule {
+
+    String suspectRecordSql();
+}
@@ -0,0 +1,83 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 规则5：核对证券代码类别一致性
+ *
+ * 同一个证券代码（symbol）在所有记录中只应对应唯一的一种资产类别（assetType）。
+ * 例如：
+ *   - 'QQQ' 不可能既是 STOCK 又是 ETF
+ *   - 某个期权代码不可能既是 OPTION_CALL 又是 OPTION_PUT
+ *
+ * 此规则为全局性规则：先按 symbol（忽略大小写）汇总 assetType，再对存在冲突的记录逐条报出异常。
+ * 汇总键使用 String.toUpperCase()：证券代码本身已是大写时返回原字符串，不创建新对象。
+ */
+@Component
+@Order(5)
+public class SymbolAssetTypeConsistencyRule
+        implements AggregateVerificationRule<Map<String, Set<AssetType>>>, SqlPushdownRule {
+
+    @Override
+    public String getRuleName() {
+        return "证券代码类别一致性";
+    }
+
+    /**
+     * 可疑记录：证券代码（忽略大小写）对应多种资产类别的分组内的全部记录
+     */
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false AND upper(symbol) IN (" +
+                "SELECT upper(symbol) FROM trade_records WHERE is_deleted = false " +
+                "GROUP BY upper(symbol) HAVING COUNT(DISTINCT asset_type) > 1)";
+    }
+
+    @Override
+    public Map<String, Set<AssetType>> newAccumulator() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public void accumulate(Map<String, Set<AssetType>> symbolAssetTypes, TradeRecord record) {
+        symbolAssetTypes.computeIfAbsent(record.getSymbol().toUpperCase(), k -> EnumSet.noneOf(AssetType.class))
+                .add(record.getAssetType());
+    }
+
+    @Override
+    public Map<String, Set<AssetType>> combine(Map<String, Set<AssetType>> left, Map<String, Set<AssetType>> right) {
+        right.forEach((symbol, types) -> left.merge(symbol, types, (a, b) -> {
+            a.addAll(b);
+            return a;
+        }));
+        return left;
+    }
+
+    @Override
+    public void verify(TradeRecord record, Map<String, Set<AssetType>> symbolAssetTypes,
+                       List<TradeVerificationResult.ErrorDetail> errors) {
+        Set<AssetType> types = symbolAssetTypes.get(record.getSymbol().toUpperCase());
+        if (types == null || types.size() <= 1) {
+            return; // 无冲突，跳过
+        }
+
+        String typesStr = types.stream()
+                .map(AssetType::name)
+                .sorted()
+                .collect(Collectors.joining("、"));
+        errors.add(newError(record, "同一证券代码应对应唯一的资产类别",
+                "证券代码 '" + record.getSymbol() + "' 在不同记录中被归为多种资产类别：" +
+                        typesStr + "，当前记录类别为 " + record.getAssetType().name()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TriggerRefType;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 规则6：核对触发类型与关联类型的一致性
+ *
+ * 防止触发类型（trade_trigger）与关联类型（trigger_ref_type）出现交叉错配：
+ *   - 当 trade_trigger = OPTION 时，trigger_ref_type 只能是
+ *     OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED 三者之一
+ *   - 当 trade_trigger = MARKET_EVENT 时，trigger_ref_type 只能是
+ *     STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND 三者之一
+ *
+ * 其他 trade_trigger 值（如 MANUAL）不在此规则校验范围内。
+ */
+@Component
+@Order(6)
+public class TriggerRefTypeConsistencyRule implements RecordVerificationRule, SqlPushdownRule {
+
+    @Override
+    public String getRuleName() {
+        return "触发类型关联类型一致性";
+    }
+
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false " +
+                "AND ((trade_trigger = 'OPTION' " +
+                "AND trigger_ref_type NOT IN ('OPTION_EXPIRE', 'OPTION_EXERCISE', 'OPTION_ASSIGNED')) " +
+                "OR (trade_trigger = 'MARKET_EVENT' " +
+                "AND trigger_ref_type NOT IN ('STOCK_SPLIT', 'SYMBOL_CHANGE', 'DIVIDEND_IN_KIND')))";
+    }
+
+    @Override
+    public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+        TradeTrigger trigger = record.getTradeTrigger();
+        TriggerRefType refType = record.getTriggerRefType();
+
+        if (trigger == null || refType == null) {
+            return;
+        }
+
+        // 期权触发：trigger_ref_type 只能是三种期权子类型
+        if (trigger == TradeTrigger.OPTION) {
+            if (refType != TriggerRefType.OPTION_EXPIRE
+                    && refType != TriggerRefType.OPTION_EXERCISE
+                    && refType != TriggerRefType.OPTION_ASSIGNED) {
+                errors.add(newError(record, "OPTION → OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED",
+                        "触发类型为 OPTION，但关联类型为 " + refType.name()
+                                + "，应为 OPTION_EXPIRE / OPTION_EXERCISE / OPTION_ASSIGNED 之一"));
+            }
+        }
+
+        // 市场事件触发：trigger_ref_type 只能是三种市场事件子类型
+        if (trigger == TradeTrigger.MARKET_EVENT) {
+            if (refType != TriggerRefType.STOCK_SPLIT
+                    && refType != TriggerRefType.SYMBOL_CHANGE
+                    && refType != TriggerRefType.DIVIDEND_IN_KIND) {
+                errors.add(newError(record, "MARKET_EVENT → STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND",
+                        "触发类型为 MARKET_EVENT，但关联类型为 " + refType.name()
+                                + "，应为 STOCK_SPLIT / SYMBOL_CHANGE / DIVIDEND_IN_KIND 之一"));
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则4：核对美股证券代码格式
+ *
+ * 当资产类型为 STOCK（股票）且结算币种为 USD（美元）时，说明交易的是美股，
+ * 美股的证券代码（symbol）应为纯字母，不包含数字。
+ * 同时底层证券代码（underlyingSymbol）也应为纯字母。
+ *
+ * 非 USD 结算或非 STOCK 类型的记录跳过此规则。
+ */
+@Component
+@Order(4)
+public class UsStockSymbolFormatRule implements RecordVerificationRule, SqlPushdownRule {
+
+    @Override
+    public String getRuleName() {
+        return "美股证券代码格式";
+    }
+
+    @Override
+    public String suspectRecordSql() {
+        return "SELECT id FROM trade_records WHERE is_deleted = false " +
+                "AND currency = 'USD' AND asset_type = 'STOCK' " +
+                "AND (symbol !~ '^[A-Za-z]+$' OR (underlying_symbol IS NOT NULL AND underlying_symbol !~ '^[A-Za-z]*$'))";
+    }
+
+    @Override
+    public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+        if (record.getCurrency() != Currency.USD) {
+            return; // 非美元结算，跳过
+        }
+
+        AssetType assetType = record.getAssetType();
+        if (assetType != AssetType.STOCK) {
+            return; // 非股票类型，跳过（期权、ETF 有自己的代码格式规则）
+        }
+
+        String symbol = record.getSymbol();
+        String underlyingSymbol = record.getUnderlyingSymbol();
+        if (isUsStockSymbol(symbol) && (VerificationStrings.isBlank(underlyingSymbol) || isUsStockSymbol(underlyingSymbol))) {
+            return; // 合法代码在此返回，不分配任何对象
+        }
+
+        List<String> issues = new ArrayList<>();
+
+        // 核对 symbol 是否为纯字母
+        if (!isUsStockSymbol(symbol)) {
+            issues.add("美股证券代码应为纯字母，但实际为 '" + symbol + "'");
+        }
+
+        // 核对 underlyingSymbol 是否为纯字母
+        if (!VerificationStrings.isBlank(underlyingSymbol) && !isUsStockSymbol(underlyingSymbol)) {
+            issues.add("美股底层证券代码应为纯字母，但实际为 '" + underlyingSymbol + "'");
+        }
+
+        if (!issues.isEmpty()) {
+            errors.add(newError(record, "纯字母（如 AAPL、TSLA、MSFT）", String.join("；", issues)));
+        }
+    }
+
+    /**
+     * 美股证券代码为纯字母（如 AAPL、TSLA、MSFT），不包含数字
+     */
+    private static boolean isUsStockSymbol(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+
+/**
+ * 交易数据核对规则
+ *
+ * 规则分为两类：
+ * - RecordVerificationRule：逐条记录独立核对，与其他记录无关
+ * - AggregateVerificationRule：需要跨记录比较的全局规则
+ *
+ * 新增规则只需实现其中一个接口并注册为 Spring Bean，TradeVerificationService 按 @Order 顺序执行。
+ * 新增、删除规则或修改 getVersion() 都会改变规则集版本，已保存的核对结果随之失效。
+ * 规则会在 fork-join 线程池中被多个线程同时调用，实现类必须无状态（或只持有不可变状态）。
+ * 同时实现 SqlPushdownRule 的规则支持下推核对（由数据库筛选可疑记录）。
+ */
+public interface VerificationRule {
+
+    /**
+     * 规则名称，写入异常详情的 ruleName
+     */
+    String getRuleName();
+
+    /**
+     * 规则版本号，规则的核对逻辑变化时递增，使已保存的核对结果失效并重新核对全部记录
+     */
+    default int getVersion() {
+        return 1;
+    }
+
+    /**
+     * 构建一条针对指定记录的异常详情
+     */
+    default TradeVerificationResult.ErrorDetail newError(TradeRecord record, String expectedFormat, String message) {
+        TradeVerificationResult.ErrorDetail error = new TradeVerificationResult.ErrorDetail();
+        error.setRecordId(record.getId());
+        error.setRuleName(getRuleName());
+        error.setAssetType(record.getAssetType().name());
+        error.setActualSymbol(record.getSymbol());
+        error.setExpectedFormat(expectedFormat);
+        error.setUnderlyingSymbol(record.getUnderlyingSymbol());
+        error.setMessage(message);
+        return error;
+    }
+}
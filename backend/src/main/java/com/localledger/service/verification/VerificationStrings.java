@@ -0,0 +1,25 @@
+package com.localledger.service.verification;
+
+/**
+ * 核对规则共用的字符串工具（不创建新字符串，保证有效记录的核对不分配内存）
+ */
+final class VerificationStrings {
+
+    private VerificationStrings() {
+    }
+
+    /**
+     * 与 value.trim().isEmpty() 等价，但不创建新字符串
+     */
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
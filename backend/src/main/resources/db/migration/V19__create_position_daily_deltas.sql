@@ -0,0 +1,56 @@
+-- ============================================
+-- 持仓台账 - 每日持仓变动表
+-- 创建时间: 2026-10-17
+-- 说明: 按 (symbol, broker_id, trade_date) 维度记录每日持仓净变动及截止当日的累计持仓，
+--       由交易记录的新增/修改/删除以及市场事件级联重算增量维护。
+--       查询某日持仓快照时只需取每个 (symbol, broker_id) 在该日期及之前的最后一行，
+--       无需回放全部交易历史。
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+--       历史数据由后端启动时检测到台账为空后自动回填（PositionLedgerService.rebuildAll）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS position_daily_deltas (
+    id                  BIGSERIAL PRIMARY KEY,
+    symbol              VARCHAR(50) NOT NULL,
+    broker_id           BIGINT NOT NULL,
+    trade_date          DATE NOT NULL,
+    quantity_delta      INTEGER NOT NULL,
+    balance             INTEGER NOT NULL,
+    name                VARCHAR(200),
+    underlying_symbol   VARCHAR(50),
+    asset_type          asset_type_enum NOT NULL,
+    currency            currency_enum NOT NULL,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_position_daily_deltas_key UNIQUE (symbol, broker_id, trade_date)
+);
+
+-- 按日期截取持仓快照（DISTINCT ON (symbol, broker_id) ... ORDER BY trade_date DESC）
+CREATE INDEX IF NOT EXISTS idx_pdd_trade_date ON position_daily_deltas(trade_date);
+
+-- 按券商截取持仓快照
+CREATE INDEX IF NOT EXISTS idx_pdd_broker_date ON position_daily_deltas(broker_id, trade_date);
+
+COMMENT ON TABLE position_daily_deltas IS '每日持仓变动台账表';
+COMMENT ON COLUMN position_daily_deltas.id IS '主键ID';
+COMMENT ON COLUMN position_daily_deltas.symbol IS '证券代码';
+COMMENT ON COLUMN position_daily_deltas.broker_id IS '券商ID';
+COMMENT ON COLUMN position_daily_deltas.trade_date IS '交易日期';
+COMMENT ON COLUMN position_daily_deltas.quantity_delta IS '当日持仓净变动（BUY 为正，SELL 为负）';
+COMMENT ON COLUMN position_daily_deltas.balance IS '截止当日（含）的累计持仓数量';
+COMMENT ON COLUMN position_daily_deltas.name IS '截止当日最新的证券名称';
+COMMENT ON COLUMN position_daily_deltas.underlying_symbol IS '底层证券代码';
+COMMENT ON COLUMN position_daily_deltas.asset_type IS '证券类型';
+COMMENT ON COLUMN position_daily_deltas.currency IS '币种';
+COMMENT ON COLUMN position_daily_deltas.created_at IS '创建时间';
+COMMENT ON COLUMN position_daily_deltas.updated_at IS '更新时间';
+
+DROP TRIGGER IF EXISTS update_position_daily_deltas_updated_at ON position_daily_deltas;
+CREATE TRIGGER update_position_daily_deltas_updated_at
+    BEFORE UPDATE ON position_daily_deltas
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- 交易记录按 (symbol, broker_id, trade_date) 增量重算台账
+CREATE INDEX IF NOT EXISTS idx_trade_records_symbol_broker_date ON trade_records(symbol, broker_id, trade_date);
@@ -0,0 +1,43 @@
+-- ============================================
+-- 持仓成本检查点表
+-- 创建时间: 2026-10-17
+-- 说明: 保存某个日期收盘时每个 (symbol, broker_id) 的移动加权平均成本状态（持仓数量 + 持仓成本池），
+--       CostBasisService 计算任意日期的持仓成本时从不晚于该日期的最近检查点开始回放，
+--       无需每次从第一笔交易开始重建成本池。
+--       同一 checkpoint_date 下的行构成一份完整的成本快照（无持仓的键不保存行）；
+--       某个 (symbol, broker_id) 的交易记录从某日起发生变动时，只重算该键在该日及之后各检查点日期的行，
+--       其他键的行保留。
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS cost_basis_checkpoints (
+    id                  BIGSERIAL PRIMARY KEY,
+    checkpoint_date     DATE NOT NULL,
+    symbol              VARCHAR(50) NOT NULL,
+    broker_id           BIGINT NOT NULL,
+    quantity            INTEGER NOT NULL,
+    cost_pool           DECIMAL(24,6) NOT NULL,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_cost_basis_checkpoints_key UNIQUE (checkpoint_date, symbol, broker_id)
+);
+
+COMMENT ON TABLE cost_basis_checkpoints IS '持仓成本检查点表';
+COMMENT ON COLUMN cost_basis_checkpoints.id IS '主键ID';
+COMMENT ON COLUMN cost_basis_checkpoints.checkpoint_date IS '检查点日期（含当日全部交易）';
+COMMENT ON COLUMN cost_basis_checkpoints.symbol IS '证券代码';
+COMMENT ON COLUMN cost_basis_checkpoints.broker_id IS '券商ID';
+COMMENT ON COLUMN cost_basis_checkpoints.quantity IS '截止检查点日期的持仓数量';
+COMMENT ON COLUMN cost_basis_checkpoints.cost_pool IS '截止检查点日期的持仓成本池（精度6位小数）';
+COMMENT ON COLUMN cost_basis_checkpoints.created_at IS '创建时间';
+COMMENT ON COLUMN cost_basis_checkpoints.updated_at IS '更新时间';
+
+DROP TRIGGER IF EXISTS update_cost_basis_checkpoints_updated_at ON cost_basis_checkpoints;
+CREATE TRIGGER update_cost_basis_checkpoints_updated_at
+    BEFORE UPDATE ON cost_basis_checkpoints
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- 按日期回放成本时的交易记录扫描
+CREATE INDEX IF NOT EXISTS idx_trade_records_trade_date_id ON trade_records(trade_date, id);
@@ -0,0 +1,11 @@
+-- ============================================
+-- 交易记录主键序列步长调整
+-- 创建时间: 2026-10-17
+-- 说明: TradeRecord 主键由 IDENTITY 改为序列生成（allocationSize = 50），
+--       Hibernate 每次调用 nextval 预留 50 个ID，在内存中分配，使交易记录可以按 JDBC 批量插入。
+--       序列步长必须与 allocationSize 一致；数据库默认值（BIGSERIAL 的 nextval）仍可正常使用，
+--       每次 nextval 返回的值都在 Hibernate 预留区间之外，不会产生主键冲突。
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+ALTER SEQUENCE IF EXISTS trade_records_id_seq INCREMENT BY 50;
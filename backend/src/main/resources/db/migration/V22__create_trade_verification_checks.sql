@@ -0,0 +1,40 @@
+-- ============================================
+-- 交易记录核对结果表
+-- 创建时间: 2026-10-17
+-- 说明: 每条交易记录保存一行最近一次的核对结果，/api/trade-records/verify 只重新核对发生变动的记录：
+--       1. 交易记录的 updated_at 与核对时记录的 record_updated_at 不一致（核对之后被修改过）
+--       2. 尚无核对结果，或核对时的规则版本（rule_version）与当前规则集不一致
+--       3. 与上述记录同一证券代码的其他记录（跨记录的证券代码类别一致性规则需要整组重新核对）
+--       其余记录直接使用已保存的核对结果。交易记录被删除后，对应的核对结果在下次核对时一并删除。
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS trade_verification_checks (
+    record_id           BIGINT PRIMARY KEY,
+    symbol              VARCHAR(50) NOT NULL,
+    rule_version        VARCHAR(64) NOT NULL,
+    record_updated_at   TIMESTAMP,
+    record_errors       TEXT,
+    aggregate_errors    TEXT,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE trade_verification_checks IS '交易记录核对结果表';
+COMMENT ON COLUMN trade_verification_checks.record_id IS '交易记录ID';
+COMMENT ON COLUMN trade_verification_checks.symbol IS '核对时的证券代码';
+COMMENT ON COLUMN trade_verification_checks.rule_version IS '核对时的规则版本（规则类名与版本号的摘要）';
+COMMENT ON COLUMN trade_verification_checks.record_updated_at IS '核对时交易记录的更新时间';
+COMMENT ON COLUMN trade_verification_checks.record_errors IS '逐条规则的异常详情（JSON 数组），无异常为空';
+COMMENT ON COLUMN trade_verification_checks.aggregate_errors IS '跨记录规则的异常详情（JSON 数组），无异常为空';
+COMMENT ON COLUMN trade_verification_checks.created_at IS '创建时间';
+COMMENT ON COLUMN trade_verification_checks.updated_at IS '更新时间（即核对时间）';
+
+DROP TRIGGER IF EXISTS update_trade_verification_checks_updated_at ON trade_verification_checks;
+CREATE TRIGGER update_trade_verification_checks_updated_at
+    BEFORE UPDATE ON trade_verification_checks
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- 按证券代码（忽略大小写）加载需要重新核对的记录组
+CREATE INDEX IF NOT EXISTS idx_trade_records_upper_symbol ON trade_records(UPPER(symbol));
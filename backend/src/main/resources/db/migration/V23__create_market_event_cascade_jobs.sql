@@ -0,0 +1,52 @@
+-- ============================================
+-- 市场事件级联重算任务表
+-- 创建时间: 2026-10-17
+-- 说明: 开启异步级联重算（ledger.market-event.async-cascade=true）后，市场事件的新增/修改/删除只在本表登记一个任务，
+--       由后台线程按 id 顺序逐个执行级联重算，前端通过 /api/market-events/jobs/{id} 查询进度。
+--       1. 任务按受影响的证券代码集合去重：同一集合只保留一个 PENDING 任务，重复登记时起始日期取较早者
+--       2. symbols_hash 为排序后证券代码集合的 SHA-256 摘要（证券代码集合可能很长，不直接建索引）
+--       3. 应用重启时 RUNNING 状态的任务（执行被中断，事务已回滚）重置为 PENDING 重新执行
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS market_event_cascade_jobs (
+    id                  BIGSERIAL PRIMARY KEY,
+    symbols             TEXT NOT NULL,
+    symbols_hash        VARCHAR(64) NOT NULL,
+    since_date          DATE NOT NULL,
+    status              VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_events        INTEGER,
+    processed_events    INTEGER NOT NULL DEFAULT 0,
+    error_message       TEXT,
+    started_at          TIMESTAMP,
+    finished_at         TIMESTAMP,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE market_event_cascade_jobs IS '市场事件级联重算任务表';
+COMMENT ON COLUMN market_event_cascade_jobs.id IS '主键ID';
+COMMENT ON COLUMN market_event_cascade_jobs.symbols IS '受影响的证券代码（升序，逗号分隔）';
+COMMENT ON COLUMN market_event_cascade_jobs.symbols_hash IS '证券代码集合的 SHA-256 摘要（去重键）';
+COMMENT ON COLUMN market_event_cascade_jobs.since_date IS '从该日期（含）开始的事件需要重算';
+COMMENT ON COLUMN market_event_cascade_jobs.status IS '任务状态：PENDING-等待执行，RUNNING-执行中，COMPLETED-已完成，FAILED-失败';
+COMMENT ON COLUMN market_event_cascade_jobs.total_events IS '需要重算的事件数（开始执行后确定）';
+COMMENT ON COLUMN market_event_cascade_jobs.processed_events IS '已重算的事件数';
+COMMENT ON COLUMN market_event_cascade_jobs.error_message IS '失败原因';
+COMMENT ON COLUMN market_event_cascade_jobs.started_at IS '开始执行时间';
+COMMENT ON COLUMN market_event_cascade_jobs.finished_at IS '执行结束时间';
+COMMENT ON COLUMN market_event_cascade_jobs.created_at IS '创建时间';
+COMMENT ON COLUMN market_event_cascade_jobs.updated_at IS '更新时间';
+
+DROP TRIGGER IF EXISTS update_market_event_cascade_jobs_updated_at ON market_event_cascade_jobs;
+CREATE TRIGGER update_market_event_cascade_jobs_updated_at
+    BEFORE UPDATE ON market_event_cascade_jobs
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- 同一证券代码集合只允许一个等待执行的任务（登记任务时按此索引合并）
+CREATE UNIQUE INDEX IF NOT EXISTS uk_market_event_cascade_jobs_pending
+    ON market_event_cascade_jobs(symbols_hash) WHERE status = 'PENDING';
+
+-- 按状态查找下一个等待执行的任务
+CREATE INDEX IF NOT EXISTS idx_market_event_cascade_jobs_status ON market_event_cascade_jobs(status, id);
@@ -0,0 +1,44 @@
+-- ============================================
+-- 现金余额检查点表
+-- 创建时间: 2026-10-17
+-- 说明: 保存某个日期收盘时每个 (broker_id, currency) 的现金余额构成（净入金、交易净额、手续费），
+--       CashLedgerService 计算任意日期的现金余额时从不晚于该日期的最近检查点开始，
+--       按日期合并回放之后的出入金记录和交易记录，无需每次从第一条记录开始累加。
+--       同一 checkpoint_date 下的行构成一份完整的现金余额快照；
+--       任何日期 <= checkpoint_date 的交易记录或出入金记录发生变动时，该检查点整体失效并被删除。
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS cash_balance_checkpoints (
+    id                  BIGSERIAL PRIMARY KEY,
+    checkpoint_date     DATE NOT NULL,
+    broker_id           BIGINT NOT NULL,
+    currency            currency_enum NOT NULL,
+    net_deposit         DECIMAL(20,2) NOT NULL,
+    trade_net           DECIMAL(20,2) NOT NULL,
+    fees                DECIMAL(20,2) NOT NULL,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_cash_balance_checkpoints_key UNIQUE (checkpoint_date, broker_id, currency)
+);
+
+COMMENT ON TABLE cash_balance_checkpoints IS '现金余额检查点表';
+COMMENT ON COLUMN cash_balance_checkpoints.id IS '主键ID';
+COMMENT ON COLUMN cash_balance_checkpoints.checkpoint_date IS '检查点日期（含当日全部交易和出入金）';
+COMMENT ON COLUMN cash_balance_checkpoints.broker_id IS '券商ID';
+COMMENT ON COLUMN cash_balance_checkpoints.currency IS '币种';
+COMMENT ON COLUMN cash_balance_checkpoints.net_deposit IS '截止检查点日期的净入金（入金 - 出金）';
+COMMENT ON COLUMN cash_balance_checkpoints.trade_net IS '截止检查点日期的交易净额（卖出金额 - 买入金额）';
+COMMENT ON COLUMN cash_balance_checkpoints.fees IS '截止检查点日期的手续费合计';
+COMMENT ON COLUMN cash_balance_checkpoints.created_at IS '创建时间';
+COMMENT ON COLUMN cash_balance_checkpoints.updated_at IS '更新时间';
+
+DROP TRIGGER IF EXISTS update_cash_balance_checkpoints_updated_at ON cash_balance_checkpoints;
+CREATE TRIGGER update_cash_balance_checkpoints_updated_at
+    BEFORE UPDATE ON cash_balance_checkpoints
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- 按日期回放现金余额时的出入金记录扫描
+CREATE INDEX IF NOT EXISTS idx_cash_flow_records_record_date_id ON cash_flow_records(record_date, id);
@@ -0,0 +1,36 @@
+-- ============================================
+-- 汇率表
+-- 创建时间: 2026-10-17
+-- 说明: 保存各币种每日对人民币的汇率（1 单位外币折合多少人民币），由本地 CSV 导入
+--       （POST /api/fx-rates/import 或启动时导入 ledger.fx.import-file 指定的文件）。
+--       1. 人民币为记账本位币，汇率固定为 1，不在本表保存
+--       2. 某日没有汇率时（周末、节假日）取该日之前最近一个日期的汇率
+--       3. 同一 (rate_date, currency) 只有一行，重复导入时更新汇率
+-- 注意: 本脚本支持幂等执行（可重复执行N次）
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS fx_rates (
+    id                  BIGSERIAL PRIMARY KEY,
+    rate_date           DATE NOT NULL,
+    currency            currency_enum NOT NULL,
+    rate                DECIMAL(20,8) NOT NULL,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_fx_rates_date_currency UNIQUE (rate_date, currency),
+    CONSTRAINT chk_fx_rates_rate_positive CHECK (rate > 0)
+);
+
+COMMENT ON TABLE fx_rates IS '汇率表';
+COMMENT ON COLUMN fx_rates.id IS '主键ID';
+COMMENT ON COLUMN fx_rates.rate_date IS '汇率日期';
+COMMENT ON COLUMN fx_rates.currency IS '币种（不含人民币）';
+COMMENT ON COLUMN fx_rates.rate IS '1 单位该币种折合人民币金额';
+COMMENT ON COLUMN fx_rates.created_at IS '创建时间';
+COMMENT ON COLUMN fx_rates.updated_at IS '更新时间';
+
+DROP TRIGGER IF EXISTS update_fx_rates_updated_at ON fx_rates;
+CREATE TRIGGER update_fx_rates_updated_at
+    BEFORE UPDATE ON fx_rates
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,155 @@
+package com.localledger.controller;
+
+import com.localledger.service.DataVersionTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * ConditionalReadInterceptor 单元测试
+ * 覆盖 ETag / Last-Modified 的生成、数据未变动时返回 304、相关表变动后重新查询，
+ * 以及 If-Modified-Since 只精确到秒时同一秒内的写入不被误判为未变动
+ */
+@ExtendWith(MockitoExtension.class)
+class ConditionalReadInterceptorTest {
+
+    @Spy
+    private DataVersionTracker dataVersionTracker = new DataVersionTracker();
+
+    @InjectMocks
+    private ConditionalReadInterceptor conditionalReadInterceptor;
+
+    /**
+     * 被拦截的示例接口
+     */
+    static class SampleController {
+
+        @ConditionalRead({DataVersionTracker.TRADE_RECORDS, DataVersionTracker.BROKERS})
+        public String positions() {
+            return "positions";
+        }
+
+        public String export() {
+            return "export";
+        }
+    }
+
+    // ============ 辅助方法 ============
+
+    private HandlerMethod handler(String methodName) throws NoSuchMethodException {
+        return new HandlerMethod(new SampleController(), methodName);
+    }
+
+    /**
+     * 执行一次 GET 请求，返回响应（状态为 304 时表示未进入控制器）
+     */
+    private MockHttpServletResponse get(String methodName, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/positions");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = conditionalReadInterceptor.preHandle(request, response, handler(methodName));
+        assertEquals(proceed, response.getStatus() == 200);
+        return response;
+    }
+
+    /**
+     * 执行一次只带 If-Modified-Since 的 GET 请求
+     */
+    private MockHttpServletResponse getIfModifiedSince(long ifModifiedSince) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/positions");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = conditionalReadInterceptor.preHandle(request, response, handler("positions"));
+        assertEquals(proceed, response.getStatus() == 200);
+        return response;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("首次请求 - 进入控制器，响应带 ETag、Last-Modified 和 Cache-Control: no-cache")
+    void firstRequest_shouldProceedWithValidators() throws Exception {
+        MockHttpServletResponse response = get("positions", null);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    @DisplayName("数据未变动 - 带上次的 ETag 请求返回 304，不进入控制器")
+    void unchangedData_shouldReturnNotModified() throws Exception {
+        String etag = get("positions", null).getHeader(HttpHeaders.ETAG);
+
+        dataVersionTracker.markChanged(DataVersionTracker.CASH_FLOW_RECORDS);
+
+        assertEquals(304, get("positions", etag).getStatus());
+    }
+
+    @Test
+    @DisplayName("依赖的任一张表变动 - ETag 变化，重新进入控制器")
+    void changedTable_shouldProceedWithNewEtag() throws Exception {
+        String etag = get("positions", null).getHeader(HttpHeaders.ETAG);
+
+        dataVersionTracker.markChanged(DataVersionTracker.BROKERS);
+        MockHttpServletResponse response = get("positions", etag);
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("启动后未变动 - 带上次的 Last-Modified 请求返回 304")
+    void unchangedSinceStart_ifModifiedSince_shouldReturnNotModified() throws Exception {
+        long lastModified = get("positions", null).getDateHeader(HttpHeaders.LAST_MODIFIED);
+
+        assertEquals(304, getIfModifiedSince(lastModified).getStatus());
+    }
+
+    @Test
+    @DisplayName("If-Modified-Since 所指的那一秒内有写入 - 不返回 304，照常进入控制器")
+    void writeWithinIfModifiedSinceSecond_shouldProceed() throws Exception {
+        long second = 1_760_000_000_000L;
+        // 客户端在 .300 读取时拿到的 Last-Modified 为该整秒，之后同一秒的 .700 又提交了一次写入
+        doReturn(second + 700).when(dataVersionTracker)
+                .lastModified(DataVersionTracker.TRADE_RECORDS, DataVersionTracker.BROKERS);
+
+        MockHttpServletResponse response = getIfModifiedSince(second);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals(second, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @DisplayName("最近一次写入不晚于 If-Modified-Since - 返回 304")
+    void writeBeforeIfModifiedSince_shouldReturnNotModified() throws Exception {
+        long second = 1_760_000_000_000L;
+        doReturn(second - 300).when(dataVersionTracker)
+                .lastModified(DataVersionTracker.TRADE_RECORDS, DataVersionTracker.BROKERS);
+
+        assertEquals(304, getIfModifiedSince(second).getStatus());
+    }
+
+    @Test
+    @DisplayName("未标注 @ConditionalRead 的接口 - 不处理条件请求")
+    void unannotatedHandler_shouldBeIgnored() throws Exception {
+        MockHttpServletResponse response = get("export", "*");
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+}
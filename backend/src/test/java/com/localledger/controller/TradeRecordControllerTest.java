@@ -0,0 +1,116 @@
+package com.localledger.controller;
+
+import com.localledger.service.TradeImportService;
+import com.localledger.service.TradeRecordExportService;
+import com.localledger.service.TradeRecordService;
+import com.localledger.service.TradeVerificationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * TradeRecordController 导出接口测试
+ * 经过完整的 Spring MVC 处理链（MockMvc），读取流式写出的 JSONL / CSV 响应内容
+ */
+@ExtendWith(MockitoExtension.class)
+class TradeRecordControllerTest {
+
+    @Mock
+    private TradeRecordService tradeRecordService;
+
+    @Mock
+    private TradeVerificationService tradeVerificationService;
+
+    @Mock
+    private TradeRecordExportService tradeRecordExportService;
+
+    @Mock
+    private TradeImportService tradeImportService;
+
+    @InjectMocks
+    private TradeRecordController tradeRecordController;
+
+    // ============ 辅助方法 ============
+
+    /**
+     * 让导出服务按指定格式写出固定内容
+     */
+    private void stubExport(TradeRecordExportService.Format format, String content) throws Exception {
+        when(tradeRecordExportService.export(eq(format), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+    }
+
+    /**
+     * 请求导出接口，等待流式写出完成后返回最终响应
+     */
+    private MockHttpServletResponse export(String format) throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(tradeRecordController).build();
+        MvcResult result = mockMvc.perform(get("/api/trade-records/export").param("format", format)).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted(), "StreamingResponseBody 应以异步方式写出");
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("CSV 导出 - 流式写出响应体，Content-Type 为 text/csv 并带下载文件名")
+    void exportCsv_shouldStreamBody() throws Exception {
+        String csv = "\uFEFFid,tradeDate,symbol\r\n1,2025-01-10,AAPL\r\n";
+        stubExport(TradeRecordExportService.Format.CSV, csv);
+
+        MockHttpServletResponse response = export("csv");
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentType().startsWith("text/csv"));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).endsWith(".csv\""));
+        assertEquals(csv, new String(response.getContentAsByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("JSONL 导出 - 流式写出响应体，Content-Type 为 application/x-ndjson")
+    void exportJsonLines_shouldStreamBody() throws Exception {
+        String jsonl = "{\"id\":1,\"symbol\":\"AAPL\"}\n{\"id\":2,\"symbol\":\"TSLA\"}\n";
+        stubExport(TradeRecordExportService.Format.JSONL, jsonl);
+
+        MockHttpServletResponse response = export("jsonl");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).endsWith(".jsonl\""));
+        assertEquals(jsonl, new String(response.getContentAsByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("不支持的导出格式 - 返回 400 和错误信息，不调用导出服务")
+    void exportUnknownFormat_shouldReturnBadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(tradeRecordController).build();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/trade-records/export").param("format", "xml"))
+                .andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString(StandardCharsets.UTF_8).contains("不支持的导出格式"));
+        verifyNoInteractions(tradeRecordExportService);
+    }
+}
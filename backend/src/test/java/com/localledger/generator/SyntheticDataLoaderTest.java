@@ -0,0 +1,90 @@
+package com.localledger.generator;
+
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SyntheticDataLoader 单元测试
+ * 覆盖 COPY 文本格式的行拼接与特殊字符转义（不连接数据库）
+ */
+class SyntheticDataLoaderTest {
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildExpireRecord(long id, long openId) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setTradeDate(LocalDate.of(2025, 1, 15));
+        record.setAssetType(AssetType.OPTION_CALL);
+        record.setSymbol("AAPL-20250117-C150");
+        record.setName(null);
+        record.setUnderlyingSymbol("AAPL");
+        record.setTradeType(TradeType.SELL);
+        record.setQuantity(2);
+        record.setPrice(BigDecimal.ZERO);
+        record.setAmount(new BigDecimal("0E+2"));
+        record.setFee(new BigDecimal("0.00"));
+        record.setCurrency(Currency.USD);
+        record.setTradeTrigger(TradeTrigger.OPTION);
+        record.setTriggerRefId(openId);
+        record.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("COPY 行格式 - 字段按制表符分隔，金额不用科学计数法，null 写作 \\N")
+    void writeTrade_shouldFormatCopyTextRow() {
+        SyntheticDataLoader.TradeIds tradeIds = new SyntheticDataLoader.TradeIds(new long[]{1050});
+
+        SyntheticDataLoader.CopyWriter writer = new SyntheticDataLoader.CopyWriter(null);
+        SyntheticDataLoader.writeTrade(writer, buildExpireRecord(9L, 7L), tradeIds, 12L);
+
+        assertEquals("1009\t2025-01-15\t12\tOPTION_CALL\tAAPL-20250117-C150\t\\N\tAAPL\tSELL\t2\t0\t0\t0.00\tUSD\t"
+                + "OPTION\t1007\tOPTION_EXPIRE\tfalse\n", writer.buffered());
+        assertEquals(1, writer.rows);
+    }
+
+    @Test
+    @DisplayName("主键映射 - 生成器ID按顺序落入各段预留区间，段之间不连续时跳过其他写入方的ID")
+    void tradeIds_shouldMapGeneratorIdsIntoReservedBlocks() {
+        SyntheticDataLoader.TradeIds tradeIds = new SyntheticDataLoader.TradeIds(new long[]{1050, 1150});
+
+        assertEquals(1001, tradeIds.of(1));
+        assertEquals(1050, tradeIds.of(50));
+        assertEquals(1101, tradeIds.of(51));
+        assertEquals(1150, tradeIds.of(100));
+        assertThrows(IllegalStateException.class, () -> tradeIds.of(101));
+    }
+
+    @Test
+    @DisplayName("关联ID映射 - 只映射期权到期记录的开仓记录ID，其他关联类型原样写入")
+    void writeTrade_shouldMapOnlyOptionExpireReferences() {
+        SyntheticDataLoader.TradeIds tradeIds = new SyntheticDataLoader.TradeIds(new long[]{1050});
+        TradeRecord record = buildExpireRecord(9L, 1L);
+        record.setTriggerRefType(TriggerRefType.STOCK_SPLIT);
+
+        SyntheticDataLoader.CopyWriter writer = new SyntheticDataLoader.CopyWriter(null);
+        SyntheticDataLoader.writeTrade(writer, record, tradeIds, 12L);
+
+        assertTrue(writer.buffered().endsWith("\tOPTION\t1\tSTOCK_SPLIT\tfalse\n"));
+    }
+
+    @Test
+    @DisplayName("COPY 转义 - 反斜杠、制表符、换行、回车应转义")
+    void appendEscaped_shouldEscapeSpecialCharacters() {
+        StringBuilder target = new StringBuilder();
+        SyntheticDataLoader.CopyWriter.appendEscaped(target, "a\\b\tc\nd\re");
+
+        assertEquals("a\\\\b\\tc\\nd\\re", target.toString());
+    }
+}
@@ -0,0 +1,148 @@
+package com.localledger.generator;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.TradeTrigger;
+import com.localledger.entity.enums.TradeType;
+import com.localledger.entity.enums.TriggerRefType;
+import com.localledger.service.verification.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SyntheticLedgerGenerator 单元测试
+ * 覆盖生成结果的可复现性、持仓不为负、证券代码满足核对规则以及市场事件的日期范围
+ */
+class SyntheticLedgerGeneratorTest {
+
+    private final List<RecordVerificationRule> recordRules = Arrays.asList(
+            new OptionSymbolFormatRule(),
+            new HkStockSymbolFormatRule(),
+            new OptionTriggerFeePriceRule(),
+            new UsStockSymbolFormatRule(),
+            new TriggerRefTypeConsistencyRule());
+
+    // ============ 辅助方法 ============
+
+    private List<TradeVerificationResult.ErrorDetail> verify(List<TradeRecord> records) {
+        List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>();
+        SymbolAssetTypeConsistencyRule aggregateRule = new SymbolAssetTypeConsistencyRule();
+        Map<String, Set<AssetType>> assetTypes = aggregateRule.newAccumulator();
+        for (TradeRecord record : records) {
+            for (RecordVerificationRule rule : recordRules) {
+                rule.verify(record, errors);
+            }
+            aggregateRule.accumulate(assetTypes, record);
+        }
+        for (TradeRecord record : records) {
+            aggregateRule.verify(record, assetTypes, errors);
+        }
+        return errors;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("相同种子 - 生成完全相同的交易记录")
+    void sameSeed_shouldGenerateSameTrades() {
+        List<TradeRecord> first = new SyntheticLedgerGenerator(42L, 50, 3).generateTrades(500);
+        List<TradeRecord> second = new SyntheticLedgerGenerator(42L, 50, 3).generateTrades(500);
+
+        assertEquals(500, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getSymbol(), second.get(i).getSymbol());
+            assertEquals(first.get(i).getBrokerId(), second.get(i).getBrokerId());
+            assertEquals(first.get(i).getQuantity(), second.get(i).getQuantity());
+            assertEquals(first.get(i).getPrice(), second.get(i).getPrice());
+        }
+    }
+
+    @Test
+    @DisplayName("交易记录 - ID 连续、日期非递减、每个 (symbol, brokerId) 持仓不为负")
+    void trades_shouldBeOrderedAndNeverShort() {
+        List<TradeRecord> records = new SyntheticLedgerGenerator(7L, 30, 2).generateTrades(5000);
+
+        Map<String, Integer> holdings = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            TradeRecord record = records.get(i);
+            assertEquals(i + 1L, record.getId());
+            if (i > 0) {
+                assertFalse(record.getTradeDate().isBefore(records.get(i - 1).getTradeDate()));
+            }
+            int delta = record.getTradeType() == TradeType.BUY ? record.getQuantity() : -record.getQuantity();
+            int balance = holdings.merge(record.getSymbol() + "|" + record.getBrokerId(), delta, Integer::sum);
+            assertTrue(balance >= 0, "持仓为负: " + record);
+        }
+    }
+
+    @Test
+    @DisplayName("期权到期 - 过了到期日的持仓全部按到期卖出，价格和费用为 0，关联最后一笔开仓记录")
+    void expiredOptions_shouldBeClosedByExpireRecords() {
+        List<TradeRecord> records = new SyntheticLedgerGenerator(5L, 20, 2).generateTrades(5000);
+
+        Map<Long, TradeRecord> byId = new HashMap<>();
+        Map<String, Integer> holdings = new HashMap<>();
+        int expired = 0;
+        for (TradeRecord record : records) {
+            byId.put(record.getId(), record);
+            String key = record.getSymbol() + "|" + record.getBrokerId();
+            if (record.getTradeTrigger() == TradeTrigger.OPTION) {
+                expired++;
+                assertEquals(TriggerRefType.OPTION_EXPIRE, record.getTriggerRefType());
+                assertEquals(TradeType.SELL, record.getTradeType());
+                assertEquals(holdings.get(key), record.getQuantity());
+                assertEquals(0, record.getPrice().signum());
+                assertEquals(0, record.getFee().signum());
+                TradeRecord opening = byId.get(record.getTriggerRefId());
+                assertEquals(record.getSymbol(), opening.getSymbol());
+                assertEquals(TradeType.BUY, opening.getTradeType());
+            }
+            int delta = record.getTradeType() == TradeType.BUY ? record.getQuantity() : -record.getQuantity();
+            holdings.merge(key, delta, Integer::sum);
+        }
+        assertTrue(expired > 0);
+    }
+
+    @Test
+    @DisplayName("核对规则 - 默认全部通过，按比例混入的错误记录能被核对出来")
+    void trades_shouldPassVerificationUnlessCorrupted() {
+        assertTrue(verify(new SyntheticLedgerGenerator(1L, 40, 2).generateTrades(2000)).isEmpty());
+
+        List<TradeVerificationResult.ErrorDetail> errors =
+                verify(new SyntheticLedgerGenerator(1L, 40, 2).generateTrades(200, 1.0));
+        Set<Long> failedIds = new HashSet<>();
+        for (TradeVerificationResult.ErrorDetail error : errors) {
+            failedIds.add(error.getRecordId());
+        }
+        assertEquals(200, failedIds.size());
+    }
+
+    @Test
+    @DisplayName("市场事件 - 作用于美股，日期升序且落在交易日期范围内")
+    void events_shouldTargetStocksWithinRange() {
+        SyntheticLedgerGenerator generator = new SyntheticLedgerGenerator(3L, 20, 2);
+        List<String> stocks = generator.stockSymbols();
+
+        List<StockSplitEvent> splits = generator.generateStockSplits(100);
+        for (int i = 0; i < splits.size(); i++) {
+            StockSplitEvent split = splits.get(i);
+            assertTrue(stocks.contains(split.getSymbol()));
+            assertTrue(split.getEventDate().isAfter(generator.getStartDate()));
+            assertFalse(split.getEventDate().isAfter(generator.getEndDate()));
+            if (i > 0) {
+                assertFalse(split.getEventDate().isBefore(splits.get(i - 1).getEventDate()));
+            }
+        }
+
+        SymbolChangeEvent change = generator.generateSymbolChanges(1).get(0);
+        assertEquals(change.getOldSymbol() + "Z", change.getNewSymbol());
+        assertFalse(generator.allSymbols().contains(change.getNewSymbol()));
+    }
+}
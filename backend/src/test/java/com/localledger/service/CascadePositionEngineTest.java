@@ -0,0 +1,140 @@
+package com.localledger.service;
+
+import com.localledger.dto.PositionSnapshot;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CascadePositionEngine 单元测试
+ * 覆盖级联重算中按事件日期逐步推进的持仓回放逻辑
+ */
+class CascadePositionEngineTest {
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(Long id, String symbol, TradeType tradeType,
+                                    int quantity, LocalDate tradeDate) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setSymbol(symbol);
+        record.setName("测试证券");
+        record.setUnderlyingSymbol(symbol);
+        record.setAssetType(AssetType.STOCK);
+        record.setCurrency(Currency.USD);
+        record.setTradeType(tradeType);
+        record.setQuantity(quantity);
+        record.setPrice(new BigDecimal("100.00"));
+        record.setAmount(new BigDecimal("10000.00"));
+        record.setFee(BigDecimal.ZERO);
+        record.setBrokerId(1L);
+        record.setTradeDate(tradeDate);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    private static List<TradeLine> lines(TradeRecord... records) {
+        return Arrays.stream(records).map(TradeLine::of).collect(Collectors.toList());
+    }
+
+    private int quantityOf(List<PositionSnapshot> positions, String symbol) {
+        return positions.stream()
+                .filter(p -> symbol.equals(p.getSymbol()))
+                .mapToInt(PositionSnapshot::getQuantity)
+                .sum();
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("事件当天的交易 - 不应计入事件前的持仓")
+    void tradeOnEventDate_shouldBeExcluded() {
+        LocalDate eventDate = LocalDate.of(2025, 3, 10);
+        TradeRecord before = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 3, 9));
+        TradeRecord sameDay = buildRecord(2L, "AAPL", TradeType.BUY, 50, eventDate);
+
+        CascadePositionEngine engine = new CascadePositionEngine(lines(before, sameDay));
+        List<PositionSnapshot> positions = engine.snapshotBefore(eventDate);
+
+        assertEquals(100, quantityOf(positions, "AAPL"));
+    }
+
+    @Test
+    @DisplayName("多个事件依次推进 - 每个事件只看到其之前的交易")
+    void sequentialEvents_shouldAdvanceIncrementally() {
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 40, LocalDate.of(2025, 2, 10));
+
+        CascadePositionEngine engine = new CascadePositionEngine(lines(buy, sell));
+
+        assertEquals(100, quantityOf(engine.snapshotBefore(LocalDate.of(2025, 2, 1)), "AAPL"));
+        assertEquals(60, quantityOf(engine.snapshotBefore(LocalDate.of(2025, 3, 1)), "AAPL"));
+    }
+
+    @Test
+    @DisplayName("前序事件生成的记录 - 应计入后续事件的持仓")
+    void generatedRecords_shouldAffectLaterEvents() {
+        TradeRecord buy = buildRecord(1L, "FB", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        CascadePositionEngine engine = new CascadePositionEngine(lines(buy));
+
+        // 代码变更事件 FB -> META（2025-02-01）
+        LocalDate changeDate = LocalDate.of(2025, 2, 1);
+        assertEquals(100, quantityOf(engine.snapshotBefore(changeDate), "FB"));
+        TradeRecord sellOld = buildRecord(10L, "FB", TradeType.SELL, 100, changeDate);
+        TradeRecord buyNew = buildRecord(11L, "META", TradeType.BUY, 100, changeDate);
+        engine.addGenerated(Arrays.asList(sellOld, buyNew));
+
+        // 同一天的后续事件看不到当天生成的记录
+        assertEquals(0, quantityOf(engine.snapshotBefore(changeDate), "META"));
+
+        // 之后的拆股事件（2025-03-01）应看到 META 持仓
+        List<PositionSnapshot> positions = engine.snapshotBefore(LocalDate.of(2025, 3, 1));
+        assertEquals(100, quantityOf(positions, "META"));
+        assertEquals(0, quantityOf(positions, "FB"));
+    }
+
+    @Test
+    @DisplayName("返回的快照 - 应为副本，不受后续推进影响")
+    void snapshot_shouldBeDetachedCopy() {
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord buyMore = buildRecord(2L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 2, 10));
+        CascadePositionEngine engine = new CascadePositionEngine(lines(buy, buyMore));
+
+        List<PositionSnapshot> first = engine.snapshotBefore(LocalDate.of(2025, 2, 1));
+        engine.snapshotBefore(LocalDate.of(2025, 3, 1));
+
+        assertEquals(100, quantityOf(first, "AAPL"));
+    }
+
+    @Test
+    @DisplayName("平均持仓成本 - 应与持仓快照同步推进，不含事件当天的交易")
+    void averageCost_shouldFollowSnapshotPoint() {
+        TradeRecord buy = buildRecord(1L, "FB", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        buy.setAmount(new BigDecimal("10000.00"));
+        TradeRecord buyMore = buildRecord(2L, "FB", TradeType.BUY, 100, LocalDate.of(2025, 1, 20));
+        buyMore.setAmount(new BigDecimal("12000.00"));
+        TradeRecord sameDay = buildRecord(3L, "FB", TradeType.BUY, 100, LocalDate.of(2025, 2, 1));
+        sameDay.setAmount(new BigDecimal("50000.00"));
+        CascadePositionEngine engine = new CascadePositionEngine(lines(buy, buyMore, sameDay));
+
+        engine.snapshotBefore(LocalDate.of(2025, 1, 15));
+        assertEquals(new BigDecimal("100.0000"), engine.averageCost("FB", 1L));
+
+        engine.snapshotBefore(LocalDate.of(2025, 2, 1));
+        assertEquals(new BigDecimal("110.0000"), engine.averageCost("FB", 1L));
+        assertEquals(BigDecimal.ZERO, engine.averageCost("META", 1L));
+    }
+}
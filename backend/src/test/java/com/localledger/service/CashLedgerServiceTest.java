@@ -0,0 +1,277 @@
+package com.localledger.service;
+
+import com.localledger.dto.CashBalance;
+import com.localledger.dto.CashFlowLine;
+import com.localledger.dto.CashTimeline;
+import com.localledger.dto.PositionHistory;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.CashBalanceCheckpoint;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.CashBalanceCheckpointRepository;
+import com.localledger.repository.CashFlowRecordRepository;
+import com.localledger.repository.TradeRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * CashLedgerService 单元测试
+ * 覆盖出入金记录与交易记录的按日期归并回放、检查点保存与恢复、现金余额时间线采样
+ */
+@ExtendWith(MockitoExtension.class)
+class CashLedgerServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private CashFlowRecordRepository cashFlowRecordRepository;
+
+    @Mock
+    private CashBalanceCheckpointRepository cashBalanceCheckpointRepository;
+
+    @Mock
+    private DimensionCache dimensionCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private CashLedgerService cashLedgerService;
+
+    // ============ 辅助方法 ============
+
+    private static TradeLine trade(Long id, Long brokerId, Currency currency, TradeType tradeType,
+                                   String amount, String fee, LocalDate tradeDate) {
+        return new TradeLine(id, tradeDate, "AAPL", "测试证券", "AAPL", AssetType.STOCK, currency, tradeType,
+                100, new BigDecimal(amount), new BigDecimal(fee), brokerId, null);
+    }
+
+    private static CashFlowLine flow(Long id, Long brokerId, Currency currency, RecordType recordType,
+                                     String amount, LocalDate recordDate) {
+        return new CashFlowLine(id, recordDate, brokerId, recordType, new BigDecimal(amount), currency);
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("无检查点 - 归并出入金和交易记录并保存上一个月末的检查点")
+    void noCheckpoint_shouldMergeRecordsAndSaveCheckpoint() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        CashFlowLine deposit = flow(1L, 1L, Currency.USD, RecordType.DEPOSIT, "10000.00", LocalDate.of(2025, 1, 5));
+        CashFlowLine withdrawal = flow(2L, 1L, Currency.USD, RecordType.WITHDRAWAL, "500.00", LocalDate.of(2025, 3, 1));
+        TradeLine buy = trade(1L, 1L, Currency.USD, TradeType.BUY, "6000.00", "5.00", LocalDate.of(2025, 1, 10));
+        TradeLine sell = trade(2L, 1L, Currency.USD, TradeType.SELL, "3500.00", "3.00", LocalDate.of(2025, 3, 10));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(cashBalanceCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(cashFlowRecordRepository.streamLinesUntil(asOfDate)).thenReturn(Stream.of(deposit, withdrawal));
+        when(tradeRecordRepository.streamCashLinesUntil(asOfDate)).thenReturn(Stream.of(buy, sell));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        List<CashBalance> result = cashLedgerService.calculateBalances(asOfDate, null);
+
+        // 余额 = (10000 - 500) + (-6000 + 3500) - 8 = 6992
+        assertEquals(1, result.size());
+        CashBalance balance = result.get(0);
+        assertEquals("富途", balance.getBrokerName());
+        assertEquals(Currency.USD, balance.getCurrency());
+        assertEquals(0, new BigDecimal("9500").compareTo(balance.getNetDeposit()));
+        assertEquals(0, new BigDecimal("-2500").compareTo(balance.getTradeNet()));
+        assertEquals(0, new BigDecimal("8").compareTo(balance.getFees()));
+        assertEquals(0, new BigDecimal("6992").compareTo(balance.getBalance()));
+
+        // 检查点只包含 2 月末之前的记录：10000 - 6000 - 5
+        ArgumentCaptor<BigDecimal[]> netDeposits = ArgumentCaptor.forClass(BigDecimal[].class);
+        ArgumentCaptor<BigDecimal[]> tradeNets = ArgumentCaptor.forClass(BigDecimal[].class);
+        ArgumentCaptor<BigDecimal[]> fees = ArgumentCaptor.forClass(BigDecimal[].class);
+        verify(cashBalanceCheckpointRepository).insertIgnoringExisting(eq(LocalDate.of(2025, 2, 28)),
+                eq(new Long[]{1L}), eq(new String[]{"USD"}), netDeposits.capture(), tradeNets.capture(), fees.capture());
+        assertEquals(0, new BigDecimal("10000").compareTo(netDeposits.getValue()[0]));
+        assertEquals(0, new BigDecimal("-6000").compareTo(tradeNets.getValue()[0]));
+        assertEquals(0, new BigDecimal("5").compareTo(fees.getValue()[0]));
+    }
+
+    @Test
+    @DisplayName("获取不到检查点锁 - 有写入事务正在失效检查点，照常计算但不保存检查点")
+    void checkpointLockBusy_shouldSkipSave() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        CashFlowLine deposit = flow(1L, 1L, Currency.USD, RecordType.DEPOSIT, "10000.00", LocalDate.of(2025, 1, 5));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(cashBalanceCheckpointRepository.tryLockForSave()).thenReturn(false);
+        when(cashFlowRecordRepository.streamLinesUntil(asOfDate)).thenReturn(Stream.of(deposit));
+        when(tradeRecordRepository.streamCashLinesUntil(asOfDate)).thenReturn(Stream.empty());
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        List<CashBalance> result = cashLedgerService.calculateBalances(asOfDate, null);
+
+        assertEquals(0, new BigDecimal("10000").compareTo(result.get(0).getBalance()));
+        verify(cashBalanceCheckpointRepository, times(1)).findLatestCheckpointDateOnOrBefore(asOfDate);
+        verify(cashBalanceCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("获取检查点锁后 - 重新查找检查点，从锁定前其他事务刚保存的检查点恢复且不再重复保存")
+    void checkpointLockAcquired_shouldLookUpCheckpointAgain() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        LocalDate savedMeanwhile = LocalDate.of(2025, 2, 28);
+        CashBalanceCheckpoint checkpoint = new CashBalanceCheckpoint();
+        checkpoint.setCheckpointDate(savedMeanwhile);
+        checkpoint.setBrokerId(1L);
+        checkpoint.setCurrency(Currency.USD);
+        checkpoint.setNetDeposit(new BigDecimal("10000.00"));
+        checkpoint.setTradeNet(BigDecimal.ZERO);
+        checkpoint.setFees(BigDecimal.ZERO);
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate))
+                .thenReturn(null)
+                .thenReturn(savedMeanwhile);
+        when(cashBalanceCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(cashBalanceCheckpointRepository.findByCheckpointDate(savedMeanwhile))
+                .thenReturn(Collections.singletonList(checkpoint));
+        when(cashFlowRecordRepository.streamLinesBetween(savedMeanwhile, asOfDate)).thenReturn(Stream.empty());
+        when(tradeRecordRepository.streamCashLinesBetween(savedMeanwhile, asOfDate)).thenReturn(Stream.empty());
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        List<CashBalance> result = cashLedgerService.calculateBalances(asOfDate, null);
+
+        assertEquals(0, new BigDecimal("10000").compareTo(result.get(0).getBalance()));
+        verify(cashBalanceCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("失效检查点 - 先获取共享锁再删除，等待正在保存检查点的读事务结束")
+    void invalidate_shouldLockBeforeDelete() {
+        LocalDate date = LocalDate.of(2025, 3, 10);
+
+        cashLedgerService.onTradeRecordsChanged(new TradeRecordsChangedEvent("AAPL", 1L, date));
+        cashLedgerService.onTradeRecordsChanged(TradeRecordsChangedEvent.all());
+
+        InOrder inOrder = inOrder(cashBalanceCheckpointRepository);
+        inOrder.verify(cashBalanceCheckpointRepository).lockForInvalidate();
+        inOrder.verify(cashBalanceCheckpointRepository).deleteFromDate(date);
+        inOrder.verify(cashBalanceCheckpointRepository).lockForInvalidate();
+        inOrder.verify(cashBalanceCheckpointRepository).deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("已有检查点 - 应从检查点恢复后只回放之后的记录")
+    void existingCheckpoint_shouldRestoreAndReplayIncrement() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        LocalDate checkpointDate = LocalDate.of(2025, 2, 28);
+        CashBalanceCheckpoint checkpoint = new CashBalanceCheckpoint();
+        checkpoint.setCheckpointDate(checkpointDate);
+        checkpoint.setBrokerId(1L);
+        checkpoint.setCurrency(Currency.USD);
+        checkpoint.setNetDeposit(new BigDecimal("10000.00"));
+        checkpoint.setTradeNet(new BigDecimal("-6000.00"));
+        checkpoint.setFees(new BigDecimal("5.00"));
+        TradeLine sell = trade(2L, 1L, Currency.USD, TradeType.SELL, "3500.00", "3.00", LocalDate.of(2025, 3, 10));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(checkpointDate);
+        when(cashBalanceCheckpointRepository.findByCheckpointDate(checkpointDate))
+                .thenReturn(Collections.singletonList(checkpoint));
+        when(cashFlowRecordRepository.streamLinesBetween(checkpointDate, asOfDate)).thenReturn(Stream.empty());
+        when(tradeRecordRepository.streamCashLinesBetween(checkpointDate, asOfDate)).thenReturn(Stream.of(sell));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        List<CashBalance> result = cashLedgerService.calculateBalances(asOfDate, null);
+
+        assertEquals(1, result.size());
+        assertEquals(0, new BigDecimal("7492").compareTo(result.get(0).getBalance()));
+        verify(cashFlowRecordRepository, never()).streamLinesUntil(any());
+        verify(tradeRecordRepository, never()).streamCashLinesUntil(any());
+        verify(cashBalanceCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("按券商查询 - 各币种分开计算，只返回该券商的余额")
+    void calculateBalances_shouldSplitCurrenciesAndFilterBroker() {
+        LocalDate asOfDate = LocalDate.of(2025, 1, 31);
+        CashFlowLine usd = flow(1L, 1L, Currency.USD, RecordType.DEPOSIT, "1000.00", LocalDate.of(2025, 1, 5));
+        CashFlowLine hkd = flow(2L, 1L, Currency.HKD, RecordType.DEPOSIT, "8000.00", LocalDate.of(2025, 1, 6));
+        CashFlowLine other = flow(3L, 2L, Currency.USD, RecordType.DEPOSIT, "500.00", LocalDate.of(2025, 1, 7));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(cashBalanceCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(cashFlowRecordRepository.streamLinesUntil(asOfDate)).thenReturn(Stream.of(usd, hkd, other));
+        when(tradeRecordRepository.streamCashLinesUntil(asOfDate)).thenReturn(Stream.empty());
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        List<CashBalance> result = cashLedgerService.calculateBalances(asOfDate, 1L);
+
+        assertEquals(2, result.size());
+        assertEquals(Currency.HKD, result.get(0).getCurrency());
+        assertEquals(0, new BigDecimal("8000").compareTo(result.get(0).getBalance()));
+        assertEquals(Currency.USD, result.get(1).getCurrency());
+        assertEquals(0, new BigDecimal("1000").compareTo(result.get(1).getBalance()));
+    }
+
+    @Test
+    @DisplayName("时间线 - 一次回放在各采样点记录余额，账户出现前为 0")
+    void calculateTimeline_shouldSampleBalancesInOnePass() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 3, 15);
+        CashFlowLine deposit = flow(1L, 1L, Currency.USD, RecordType.DEPOSIT, "10000.00", LocalDate.of(2025, 2, 3));
+        TradeLine buy = trade(1L, 1L, Currency.USD, TradeType.BUY, "6000.00", "5.00", LocalDate.of(2025, 3, 3));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(LocalDate.of(2025, 1, 31)))
+                .thenReturn(null);
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(to)).thenReturn(null);
+        when(cashBalanceCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(cashFlowRecordRepository.streamLinesUntil(to)).thenReturn(Stream.of(deposit));
+        when(tradeRecordRepository.streamCashLinesUntil(to)).thenReturn(Stream.of(buy));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        CashTimeline timeline = cashLedgerService.calculateTimeline(from, to, PositionHistory.Granularity.MONTH, null);
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28), to), timeline.getDates());
+        assertEquals(1, timeline.getSeries().size());
+        BigDecimal[] balances = timeline.getSeries().get(0).getBalances();
+        assertEquals(0, BigDecimal.ZERO.compareTo(balances[0]));
+        assertEquals(0, new BigDecimal("10000").compareTo(balances[1]));
+        assertEquals(0, new BigDecimal("3995").compareTo(balances[2]));
+        assertEquals(1L, meterRegistry.get(CashLedgerService.METRIC_CASH).tag("query", "timeline").timer().count());
+    }
+
+    @Test
+    @DisplayName("时间线 - 区间内已有更晚的检查点时不重复保存")
+    void calculateTimeline_shouldNotSaveExistingCheckpoint() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 3, 15);
+        LocalDate existingCheckpoint = LocalDate.of(2025, 2, 28);
+        CashFlowLine deposit = flow(1L, 1L, Currency.USD, RecordType.DEPOSIT, "10000.00", LocalDate.of(2025, 2, 3));
+
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(LocalDate.of(2025, 1, 31)))
+                .thenReturn(null);
+        when(cashBalanceCheckpointRepository.findLatestCheckpointDateOnOrBefore(to)).thenReturn(existingCheckpoint);
+        when(cashFlowRecordRepository.streamLinesUntil(to)).thenReturn(Stream.of(deposit));
+        when(tradeRecordRepository.streamCashLinesUntil(to)).thenReturn(Stream.empty());
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "富途"));
+
+        CashTimeline timeline = cashLedgerService.calculateTimeline(from, to, PositionHistory.Granularity.MONTH, null);
+
+        assertEquals(1, timeline.getSeries().size());
+        verify(cashBalanceCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any(), any());
+    }
+}
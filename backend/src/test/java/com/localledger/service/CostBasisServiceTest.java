@@ -0,0 +1,244 @@
+package com.localledger.service;
+
+import com.localledger.dto.CostBasisSnapshot;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.CostBasisCheckpoint;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.CostBasisCheckpointRepository;
+import com.localledger.repository.TradeRecordRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * CostBasisService 单元测试
+ * 覆盖移动加权平均成本的回放、检查点保存与恢复、按 (symbol, brokerId) 重算检查点
+ */
+@ExtendWith(MockitoExtension.class)
+class CostBasisServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private CostBasisCheckpointRepository costBasisCheckpointRepository;
+
+    @InjectMocks
+    private CostBasisService costBasisService;
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(Long id, String symbol, Long brokerId, TradeType tradeType,
+                                    int quantity, String amount, LocalDate tradeDate) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setSymbol(symbol);
+        record.setName("测试证券");
+        record.setUnderlyingSymbol(symbol);
+        record.setAssetType(AssetType.STOCK);
+        record.setCurrency(Currency.USD);
+        record.setTradeType(tradeType);
+        record.setQuantity(quantity);
+        record.setPrice(BigDecimal.ZERO);
+        record.setAmount(new BigDecimal(amount));
+        record.setFee(BigDecimal.ZERO);
+        record.setBrokerId(brokerId);
+        record.setTradeDate(tradeDate);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    private static Stream<TradeLine> lines(TradeRecord... records) {
+        return Stream.of(records).map(TradeLine::of);
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("无检查点 - 从头回放并保存上一个月末的检查点")
+    void noCheckpoint_shouldReplayFromStartAndSaveCheckpoint() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        TradeRecord buy = buildRecord(1L, "AAPL", 1L, TradeType.BUY, 100, "10000.00", LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "AAPL", 1L, TradeType.SELL, 50, "6000.00", LocalDate.of(2025, 2, 10));
+        TradeRecord buyMore = buildRecord(3L, "AAPL", 1L, TradeType.BUY, 100, "15000.00", LocalDate.of(2025, 3, 10));
+
+        when(costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(costBasisCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(tradeRecordRepository.streamLinesUntil(asOfDate))
+                .thenReturn(lines(buy, sell, buyMore));
+
+        BigDecimal avgCost = costBasisService.getAverageCost("AAPL", 1L, asOfDate);
+
+        // 成本池 = 10000 - 50 × 100 + 15000 = 20000，持仓 150
+        assertEquals(new BigDecimal("133.3333"), avgCost);
+
+        ArgumentCaptor<BigDecimal[]> costPools = ArgumentCaptor.forClass(BigDecimal[].class);
+        verify(costBasisCheckpointRepository).insertIgnoringExisting(eq(new LocalDate[]{LocalDate.of(2025, 2, 28)}),
+                eq(new String[]{"AAPL"}), eq(new Long[]{1L}), eq(new Integer[]{50}), costPools.capture());
+        assertEquals(0, new BigDecimal("5000").compareTo(costPools.getValue()[0]));
+    }
+
+    @Test
+    @DisplayName("获取不到检查点锁 - 有写入事务正在失效检查点，照常计算但不保存检查点")
+    void checkpointLockBusy_shouldSkipSave() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        TradeRecord buy = buildRecord(1L, "AAPL", 1L, TradeType.BUY, 100, "10000.00", LocalDate.of(2025, 1, 10));
+
+        when(costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(costBasisCheckpointRepository.tryLockForSave()).thenReturn(false);
+        when(tradeRecordRepository.streamLinesUntil(asOfDate)).thenReturn(lines(buy));
+
+        BigDecimal avgCost = costBasisService.getAverageCost("AAPL", 1L, asOfDate);
+
+        assertEquals(new BigDecimal("100.0000"), avgCost);
+        verify(costBasisCheckpointRepository, times(1)).findLatestCheckpointDateOnOrBefore(asOfDate);
+        verify(costBasisCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("已有检查点 - 应从检查点恢复后只回放之后的交易")
+    void existingCheckpoint_shouldRestoreAndReplayIncrement() {
+        LocalDate asOfDate = LocalDate.of(2025, 3, 15);
+        LocalDate checkpointDate = LocalDate.of(2025, 2, 28);
+        CostBasisCheckpoint checkpoint = new CostBasisCheckpoint();
+        checkpoint.setCheckpointDate(checkpointDate);
+        checkpoint.setSymbol("AAPL");
+        checkpoint.setBrokerId(1L);
+        checkpoint.setQuantity(50);
+        checkpoint.setCostPool(new BigDecimal("5000.000000"));
+        TradeRecord buyMore = buildRecord(3L, "AAPL", 1L, TradeType.BUY, 100, "15000.00", LocalDate.of(2025, 3, 10));
+
+        when(costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(checkpointDate);
+        when(costBasisCheckpointRepository.findByCheckpointDate(checkpointDate))
+                .thenReturn(Collections.singletonList(checkpoint));
+        when(tradeRecordRepository.streamLinesBetween(checkpointDate, asOfDate)).thenReturn(lines(buyMore));
+
+        BigDecimal avgCost = costBasisService.getAverageCost("AAPL", 1L, asOfDate);
+
+        assertEquals(new BigDecimal("133.3333"), avgCost);
+        verify(tradeRecordRepository, never()).streamLinesUntil(any());
+        verify(costBasisCheckpointRepository, never()).insertIgnoringExisting(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("按券商查询 - 只返回该券商下持仓大于0的成本")
+    void calculateCostBasis_shouldFilterBrokerAndClosedPositions() {
+        LocalDate asOfDate = LocalDate.of(2025, 1, 31);
+        TradeRecord buyA = buildRecord(1L, "AAPL", 1L, TradeType.BUY, 100, "10000.00", LocalDate.of(2025, 1, 10));
+        TradeRecord buyB = buildRecord(2L, "AAPL", 2L, TradeType.BUY, 10, "1200.00", LocalDate.of(2025, 1, 10));
+        TradeRecord buyT = buildRecord(3L, "TSLA", 1L, TradeType.BUY, 10, "2000.00", LocalDate.of(2025, 1, 11));
+        TradeRecord sellT = buildRecord(4L, "TSLA", 1L, TradeType.SELL, 10, "2500.00", LocalDate.of(2025, 1, 12));
+
+        when(costBasisCheckpointRepository.findLatestCheckpointDateOnOrBefore(asOfDate)).thenReturn(null);
+        when(costBasisCheckpointRepository.tryLockForSave()).thenReturn(true);
+        when(tradeRecordRepository.streamLinesUntil(asOfDate))
+                .thenReturn(lines(buyA, buyB, buyT, sellT));
+
+        List<CostBasisSnapshot> result = costBasisService.calculateCostBasis(asOfDate, 1L);
+
+        assertEquals(1, result.size());
+        assertEquals("AAPL", result.get(0).getSymbol());
+        assertEquals(1L, result.get(0).getBrokerId());
+        assertEquals(100, result.get(0).getQuantity());
+        assertEquals(new BigDecimal("100.0000"), result.get(0).getAverageCost());
+    }
+
+    @Test
+    @DisplayName("单个键变动 - 从变动日期前的检查点行起只重算该键之后各检查点日期的行，清仓的日期不保存行")
+    void keyChanged_shouldRecalculateOnlyThatKey() {
+        LocalDate fromDate = LocalDate.of(2025, 1, 10);
+        LocalDate baseDate = LocalDate.of(2024, 12, 31);
+        LocalDate january = LocalDate.of(2025, 1, 31);
+        LocalDate february = LocalDate.of(2025, 2, 28);
+        CostBasisCheckpoint base = new CostBasisCheckpoint();
+        base.setCheckpointDate(baseDate);
+        base.setSymbol("AAPL");
+        base.setBrokerId(1L);
+        base.setQuantity(10);
+        base.setCostPool(new BigDecimal("1000.000000"));
+        TradeRecord buy = buildRecord(1L, "AAPL", 1L, TradeType.BUY, 10, "1200.00", fromDate);
+        TradeRecord sell = buildRecord(2L, "AAPL", 1L, TradeType.SELL, 20, "2500.00", LocalDate.of(2025, 2, 5));
+
+        when(costBasisCheckpointRepository.findCheckpointDatesFrom(fromDate)).thenReturn(List.of(january, february));
+        when(costBasisCheckpointRepository.findLatestCheckpointDateBefore(fromDate)).thenReturn(baseDate);
+        when(costBasisCheckpointRepository.findByCheckpointDateAndSymbolAndBrokerId(baseDate, "AAPL", 1L))
+                .thenReturn(Optional.of(base));
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdBetween("AAPL", 1L, baseDate, february))
+                .thenReturn(lines(buy, sell).toList());
+
+        costBasisService.onTradeRecordsChanged(new TradeRecordsChangedEvent("AAPL", 1L, fromDate));
+
+        // 1 月末：10 + 10 股，成本池 1000 + 1200；2 月末已清仓，不保存行
+        InOrder inOrder = inOrder(costBasisCheckpointRepository);
+        inOrder.verify(costBasisCheckpointRepository).lockForInvalidate();
+        inOrder.verify(costBasisCheckpointRepository).lockKeyForInvalidate("AAPL", 1L);
+        inOrder.verify(costBasisCheckpointRepository).deleteBySymbolAndBrokerIdFromDate("AAPL", 1L, fromDate);
+        ArgumentCaptor<BigDecimal[]> costPools = ArgumentCaptor.forClass(BigDecimal[].class);
+        inOrder.verify(costBasisCheckpointRepository).insertIgnoringExisting(eq(new LocalDate[]{january}),
+                eq(new String[]{"AAPL"}), eq(new Long[]{1L}), eq(new Integer[]{20}), costPools.capture());
+        assertEquals(0, new BigDecimal("2200").compareTo(costPools.getValue()[0]));
+        verify(costBasisCheckpointRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("单个键变动 - 变动日期之前没有检查点时从该键的第一笔交易开始重算")
+    void keyChangedWithoutEarlierCheckpoint_shouldReplayKeyFromStart() {
+        LocalDate fromDate = LocalDate.of(2025, 1, 10);
+        LocalDate january = LocalDate.of(2025, 1, 31);
+        TradeRecord buy = buildRecord(1L, "TSLA", 2L, TradeType.BUY, 10, "2000.00", LocalDate.of(2024, 11, 5));
+
+        when(costBasisCheckpointRepository.findCheckpointDatesFrom(fromDate)).thenReturn(List.of(january));
+        when(costBasisCheckpointRepository.findLatestCheckpointDateBefore(fromDate)).thenReturn(null);
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdUntil("TSLA", 2L, january))
+                .thenReturn(lines(buy).toList());
+
+        costBasisService.onTradeRecordsChanged(new TradeRecordsChangedEvent("TSLA", 2L, fromDate));
+
+        verify(costBasisCheckpointRepository).insertIgnoringExisting(eq(new LocalDate[]{january}),
+                eq(new String[]{"TSLA"}), eq(new Long[]{2L}), eq(new Integer[]{10}), any());
+        verify(costBasisCheckpointRepository, never()).findByCheckpointDateAndSymbolAndBrokerId(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("单个键变动 - 变动日期及之后没有检查点时不读取交易记录")
+    void keyChangedAfterLastCheckpoint_shouldDoNothing() {
+        LocalDate fromDate = LocalDate.of(2025, 3, 10);
+        when(costBasisCheckpointRepository.findCheckpointDatesFrom(fromDate)).thenReturn(List.of());
+
+        costBasisService.onTradeRecordsChanged(new TradeRecordsChangedEvent("AAPL", 1L, fromDate));
+
+        verify(costBasisCheckpointRepository).lockForInvalidate();
+        verifyNoInteractions(tradeRecordRepository);
+        verify(costBasisCheckpointRepository, never()).deleteBySymbolAndBrokerIdFromDate(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("全部交易记录变动 - 获取共享锁后删除全部检查点")
+    void allChanged_shouldDeleteAllCheckpoints() {
+        costBasisService.onTradeRecordsChanged(TradeRecordsChangedEvent.all());
+
+        InOrder inOrder = inOrder(costBasisCheckpointRepository);
+        inOrder.verify(costBasisCheckpointRepository).lockForInvalidate();
+        inOrder.verify(costBasisCheckpointRepository).deleteAllInBatch();
+    }
+}
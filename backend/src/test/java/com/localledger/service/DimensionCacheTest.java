@@ -0,0 +1,84 @@
+package com.localledger.service;
+
+import com.localledger.entity.Broker;
+import com.localledger.entity.Strategy;
+import com.localledger.repository.BrokerRepository;
+import com.localledger.repository.StrategyRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DimensionCache 单元测试
+ * 覆盖券商 / 策略的缓存读取与写入后的失效重载
+ */
+@ExtendWith(MockitoExtension.class)
+class DimensionCacheTest {
+
+    @Mock
+    private BrokerRepository brokerRepository;
+
+    @Mock
+    private StrategyRepository strategyRepository;
+
+    @InjectMocks
+    private DimensionCache dimensionCache;
+
+    // ============ 辅助方法 ============
+
+    private Broker buildBroker(Long id, String name) {
+        Broker broker = new Broker(name, "US");
+        broker.setId(id);
+        return broker;
+    }
+
+    private Strategy buildStrategy(Long id, String name, boolean deleted) {
+        Strategy strategy = new Strategy();
+        strategy.setId(id);
+        strategy.setStrategyName(name);
+        strategy.setIsDeleted(deleted);
+        return strategy;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("多次读取 - 只加载一次，已软删除的策略仍视为存在")
+    void repeatedReads_shouldLoadOnce() {
+        when(brokerRepository.findAll()).thenReturn(Collections.singletonList(buildBroker(1L, "盈透证券")));
+        when(strategyRepository.findAll()).thenReturn(Collections.singletonList(buildStrategy(7L, "波段", true)));
+
+        assertTrue(dimensionCache.brokerExists(1L));
+        assertFalse(dimensionCache.brokerExists(2L));
+        assertFalse(dimensionCache.brokerExists(null));
+        assertEquals("盈透证券", dimensionCache.brokerName(1L));
+        assertTrue(dimensionCache.strategyExists(7L));
+        assertEquals("波段", dimensionCache.strategyName(7L));
+
+        verify(brokerRepository, times(1)).findAll();
+        verify(strategyRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("失效后读取 - 应重新加载最新数据")
+    void invalidate_shouldReloadOnNextRead() {
+        when(brokerRepository.findAll())
+                .thenReturn(Collections.singletonList(buildBroker(1L, "盈透证券")))
+                .thenReturn(Collections.singletonList(buildBroker(1L, "盈透证券（美国）")));
+        when(strategyRepository.findAll()).thenReturn(Collections.emptyList());
+
+        assertEquals("盈透证券", dimensionCache.brokerName(1L));
+        dimensionCache.invalidate();
+        assertEquals("盈透证券（美国）", dimensionCache.brokerName(1L));
+
+        verify(brokerRepository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,121 @@
+package com.localledger.service;
+
+import com.localledger.dto.FxRateImportResult;
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+import com.localledger.repository.FxRateRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * FxRateService 单元测试
+ * 覆盖汇率 CSV 导入的校验、新增与更新
+ */
+@ExtendWith(MockitoExtension.class)
+class FxRateServiceTest {
+
+    @Mock
+    private FxRateRepository fxRateRepository;
+
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @InjectMocks
+    private FxRateService fxRateService;
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("导入 - 新增不存在的汇率，更新汇率有变化的已有记录，并标记汇率数据变动")
+    void importCsv_shouldInsertAndUpdate() {
+        FxRate existingUsd = new FxRate();
+        existingUsd.setRateDate(LocalDate.of(2025, 3, 7));
+        existingUsd.setCurrency(Currency.USD);
+        existingUsd.setRate(new BigDecimal("7.00000000"));
+        FxRate existingHkd = new FxRate();
+        existingHkd.setRateDate(LocalDate.of(2025, 3, 7));
+        existingHkd.setCurrency(Currency.HKD);
+        existingHkd.setRate(new BigDecimal("0.92000000"));
+        when(fxRateRepository.findByRateDateBetweenOrderByCurrencyAscRateDateAsc(
+                LocalDate.of(2025, 3, 7), LocalDate.of(2025, 3, 10)))
+                .thenReturn(List.of(existingUsd, existingHkd));
+
+        String csv = "\uFEFFrateDate,currency,rate\n" +
+                "2025-03-07,USD,7.1\n" +
+                "2025-03-07,hkd,0.92\n" +
+                "2025-03-10,USD,7.2\n";
+        FxRateImportResult result = fxRateService.importCsv(csv);
+
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(LocalDate.of(2025, 3, 7), result.getStartDate());
+        assertEquals(LocalDate.of(2025, 3, 10), result.getEndDate());
+        assertEquals(new BigDecimal("7.1"), existingUsd.getRate());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FxRate>> captor = ArgumentCaptor.forClass(List.class);
+        verify(fxRateRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        verify(dataVersionTracker).markChanged(DataVersionTracker.FX_RATES);
+    }
+
+    @Test
+    @DisplayName("导入 - 汇率均未变化时不写入、不标记变动")
+    void importCsv_unchanged_shouldNotWrite() {
+        FxRate existing = new FxRate();
+        existing.setRateDate(LocalDate.of(2025, 3, 7));
+        existing.setCurrency(Currency.USD);
+        existing.setRate(new BigDecimal("7.10000000"));
+        when(fxRateRepository.findByRateDateBetweenOrderByCurrencyAscRateDateAsc(
+                LocalDate.of(2025, 3, 7), LocalDate.of(2025, 3, 7)))
+                .thenReturn(Collections.singletonList(existing));
+
+        FxRateImportResult result = fxRateService.importCsv("rateDate,currency,rate\n2025-03-07,USD,7.1\n");
+
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(0, result.getUpdatedCount());
+        verify(fxRateRepository, never()).saveAll(any());
+        verify(dataVersionTracker, never()).markChanged(any());
+    }
+
+    @Test
+    @DisplayName("导入校验 - 收集全部错误，整批不写入")
+    void importCsv_invalidRows_shouldRejectBatch() {
+        String csv = "rateDate,currency,rate\n" +
+                "2025-03-07,CNY,1\n" +
+                "2025-03-07,USD,-7.1\n" +
+                "2025/03/07,USD,7.1\n" +
+                "2025-03-07,EUR,7.8\n";
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> fxRateService.importCsv(csv));
+
+        assertTrue(ex.getMessage().contains("共 4 处错误"));
+        assertTrue(ex.getMessage().contains("第 2 行"));
+        assertTrue(ex.getMessage().contains("rateDate 格式错误"));
+        verifyNoInteractions(fxRateRepository);
+    }
+
+    @Test
+    @DisplayName("导入校验 - 缺少必填列")
+    void importCsv_missingColumn_shouldReject() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> fxRateService.importCsv("rateDate,currency\n2025-03-07,USD\n"));
+
+        assertEquals("CSV 缺少必填列: rate", ex.getMessage());
+    }
+}
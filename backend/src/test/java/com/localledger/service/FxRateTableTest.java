@@ -0,0 +1,92 @@
+package com.localledger.service;
+
+import com.localledger.entity.FxRate;
+import com.localledger.entity.enums.Currency;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FxRateTable 单元测试
+ * 覆盖最近前一日期的汇率查找、人民币固定汇率与交叉折算
+ */
+class FxRateTableTest {
+
+    // ============ 辅助方法 ============
+
+    private static FxRate rate(Currency currency, LocalDate date, String value) {
+        FxRate rate = new FxRate();
+        rate.setCurrency(currency);
+        rate.setRateDate(date);
+        rate.setRate(new BigDecimal(value));
+        return rate;
+    }
+
+    private static FxRateTable table() {
+        // 故意打乱顺序，构造时按日期排序
+        return FxRateTable.of(List.of(
+                rate(Currency.USD, LocalDate.of(2025, 3, 10), "7.2000"),
+                rate(Currency.USD, LocalDate.of(2025, 3, 7), "7.1000"),
+                rate(Currency.HKD, LocalDate.of(2025, 3, 7), "0.9200"),
+                rate(Currency.USD, LocalDate.of(2025, 3, 11), "7.2500")));
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("查找汇率 - 当日有汇率取当日，否则取之前最近一个日期")
+    void rate_shouldUseNearestPriorDate() {
+        FxRateTable table = table();
+
+        assertEquals(new BigDecimal("7.1000"), table.rate(Currency.USD, LocalDate.of(2025, 3, 7)));
+        // 周末取周五的汇率
+        assertEquals(new BigDecimal("7.1000"), table.rate(Currency.USD, LocalDate.of(2025, 3, 9)));
+        assertEquals(new BigDecimal("7.2000"), table.rate(Currency.USD, LocalDate.of(2025, 3, 10)));
+        assertEquals(new BigDecimal("7.2500"), table.rate(Currency.USD, LocalDate.of(2026, 1, 1)));
+        assertEquals(BigDecimal.ONE, table.rate(Currency.CNY, LocalDate.of(2000, 1, 1)));
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    @DisplayName("缺少汇率 - 早于第一个日期或没有该币种时抛出异常")
+    void rate_shouldRejectMissingRate() {
+        FxRateTable table = table();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> table.rate(Currency.USD, LocalDate.of(2025, 3, 6)));
+        assertTrue(ex.getMessage().contains("USD"));
+        assertThrows(IllegalArgumentException.class,
+                () -> FxRateTable.empty().rate(Currency.HKD, LocalDate.of(2025, 3, 10)));
+    }
+
+    @Test
+    @DisplayName("折算 - 经人民币交叉折算，相同币种原样返回")
+    void convert_shouldCrossViaCny() {
+        FxRateTable table = table();
+        LocalDate date = LocalDate.of(2025, 3, 8);
+
+        assertEquals(0, new BigDecimal("71.00").compareTo(
+                table.convert(new BigDecimal("10"), Currency.USD, Currency.CNY, date)));
+        // 100 HKD = 92 CNY = 92 / 7.1 USD
+        assertEquals(0, new BigDecimal("12.9577464789").compareTo(
+                table.convert(new BigDecimal("100"), Currency.HKD, Currency.USD, date)));
+        BigDecimal amount = new BigDecimal("5.00");
+        assertSame(amount, FxRateTable.empty().convert(amount, Currency.USD, Currency.USD, date));
+    }
+
+    @Test
+    @DisplayName("重复日期 - 同一币种同一日期出现多次时取最后一条")
+    void of_shouldKeepLastDuplicate() {
+        FxRateTable table = FxRateTable.of(List.of(
+                rate(Currency.USD, LocalDate.of(2025, 3, 7), "7.1000"),
+                rate(Currency.USD, LocalDate.of(2025, 3, 7), "7.1500")));
+
+        assertEquals(new BigDecimal("7.1500"), table.rate(Currency.USD, LocalDate.of(2025, 3, 7)));
+        assertEquals(1, table.size());
+    }
+}
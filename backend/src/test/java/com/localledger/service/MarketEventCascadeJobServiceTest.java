@@ -0,0 +1,155 @@
+package com.localledger.service;
+
+import com.localledger.entity.MarketEventCascadeJob;
+import com.localledger.entity.enums.CascadeJobStatus;
+import com.localledger.repository.MarketEventCascadeJobRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * MarketEventCascadeJobService 单元测试
+ * 覆盖任务登记的去重键、重叠任务的合并领取、执行中任务的内存进度、任务结束时的状态写入以及中断任务的重新登记
+ */
+@ExtendWith(MockitoExtension.class)
+class MarketEventCascadeJobServiceTest {
+
+    @Mock
+    private MarketEventCascadeJobRepository marketEventCascadeJobRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @InjectMocks
+    private MarketEventCascadeJobService marketEventCascadeJobService;
+
+    // ============ 辅助方法 ============
+
+    private MarketEventCascadeJob buildJob(Long id, String symbols, CascadeJobStatus status) {
+        MarketEventCascadeJob job = new MarketEventCascadeJob();
+        job.setId(id);
+        job.setSymbols(symbols);
+        job.setSinceDate(LocalDate.of(2025, 1, 10));
+        job.setStatus(status);
+        return job;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("登记任务 - 证券代码排序后作为去重键，登记后发布事件")
+    void enqueue_shouldUseSortedSymbolsAsKey() {
+        LocalDate sinceDate = LocalDate.of(2025, 3, 1);
+        when(marketEventCascadeJobRepository.upsertPending(anyString(), anyString(), eq(sinceDate))).thenReturn(5L);
+
+        Long jobId = marketEventCascadeJobService.enqueue(Set.of("TSLA", "AAPL", "NVDA"), sinceDate);
+
+        assertEquals(5L, jobId);
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(marketEventCascadeJobRepository).upsertPending(eq("AAPL,NVDA,TSLA"), hash.capture(), eq(sinceDate));
+        assertEquals(64, hash.getValue().length());
+        verify(applicationEventPublisher).publishEvent(new MarketEventCascadeJobService.JobEnqueued(5L));
+
+        // 相同的证券代码集合（不同顺序）得到相同的去重键
+        marketEventCascadeJobService.enqueue(Set.of("NVDA", "TSLA", "AAPL"), sinceDate);
+        verify(marketEventCascadeJobRepository, times(2)).upsertPending("AAPL,NVDA,TSLA", hash.getValue(), sinceDate);
+    }
+
+    @Test
+    @DisplayName("执行中任务 - 查询时返回内存中的最新进度，结束时写入数据库")
+    void runningJob_shouldReportProgressAndPersistOnComplete() {
+        MarketEventCascadeJob job = buildJob(3L, "AAPL", CascadeJobStatus.PENDING);
+        when(marketEventCascadeJobRepository.lockPending()).thenReturn(List.of(job));
+        when(marketEventCascadeJobRepository.findById(3L)).thenReturn(Optional.of(job));
+
+        assertEquals(List.of(job), marketEventCascadeJobService.claimNextBatch());
+        assertEquals(CascadeJobStatus.RUNNING, job.getStatus());
+        assertNotNull(job.getStartedAt());
+        marketEventCascadeJobService.reportProgress(List.of(3L), 4, 10);
+
+        MarketEventCascadeJob running = marketEventCascadeJobService.findById(3L).orElseThrow();
+        assertEquals(4, running.getProcessedEvents());
+        assertEquals(10, running.getTotalEvents());
+
+        marketEventCascadeJobService.reportProgress(List.of(3L), 10, 10);
+        marketEventCascadeJobService.complete(List.of(3L));
+
+        assertEquals(CascadeJobStatus.COMPLETED, job.getStatus());
+        assertEquals(10, job.getProcessedEvents());
+        assertNotNull(job.getFinishedAt());
+        verify(marketEventCascadeJobRepository).save(job);
+    }
+
+    @Test
+    @DisplayName("没有等待中的任务 - 领取结果为空")
+    void noPendingJob_shouldClaimNothing() {
+        when(marketEventCascadeJobRepository.lockPending()).thenReturn(List.of());
+
+        assertTrue(marketEventCascadeJobService.claimNextBatch().isEmpty());
+        verify(marketEventCascadeJobRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("合并领取 - 与最早任务的证券代码直接或间接有交集的任务一并领取，无交集的任务留待下一批")
+    void claimNextBatch_shouldMergeOverlappingJobs() {
+        MarketEventCascadeJob first = buildJob(1L, "AAPL", CascadeJobStatus.PENDING);
+        MarketEventCascadeJob disjoint = buildJob(2L, "MSFT", CascadeJobStatus.PENDING);
+        MarketEventCascadeJob indirect = buildJob(3L, "NVDA,TSLA", CascadeJobStatus.PENDING);
+        MarketEventCascadeJob direct = buildJob(4L, "AAPL,TSLA", CascadeJobStatus.PENDING);
+        when(marketEventCascadeJobRepository.lockPending()).thenReturn(List.of(first, disjoint, indirect, direct));
+
+        List<MarketEventCascadeJob> batch = marketEventCascadeJobService.claimNextBatch();
+
+        assertEquals(Set.of(first, indirect, direct), Set.copyOf(batch));
+        assertEquals(CascadeJobStatus.PENDING, disjoint.getStatus());
+        batch.forEach(job -> assertEquals(CascadeJobStatus.RUNNING, job.getStatus()));
+        verify(marketEventCascadeJobRepository).saveAll(batch);
+    }
+
+    @Test
+    @DisplayName("任务失败 - 记录失败原因和失败时的进度")
+    void failedJob_shouldKeepErrorAndProgress() {
+        MarketEventCascadeJob job = buildJob(4L, "AAPL", CascadeJobStatus.RUNNING);
+        when(marketEventCascadeJobRepository.findById(4L)).thenReturn(Optional.of(job));
+        marketEventCascadeJobService.reportProgress(List.of(4L), 2, 5);
+
+        marketEventCascadeJobService.fail(List.of(4L), "拆股比例无效");
+
+        assertEquals(CascadeJobStatus.FAILED, job.getStatus());
+        assertEquals("拆股比例无效", job.getErrorMessage());
+        assertEquals(2, job.getProcessedEvents());
+        assertEquals(5, job.getTotalEvents());
+    }
+
+    @Test
+    @DisplayName("中断的任务 - 标记为失败并按原证券代码和起始日期重新登记")
+    void interruptedJob_shouldBeRequeued() {
+        MarketEventCascadeJob job = buildJob(6L, "AAPL,TSLA", CascadeJobStatus.RUNNING);
+        when(marketEventCascadeJobRepository.findByStatusOrderByIdAsc(CascadeJobStatus.RUNNING)).thenReturn(List.of(job));
+        when(marketEventCascadeJobRepository.upsertPending(eq("AAPL,TSLA"), anyString(), eq(job.getSinceDate())))
+                .thenReturn(7L);
+
+        assertEquals(1, marketEventCascadeJobService.requeueInterrupted());
+
+        assertEquals(CascadeJobStatus.FAILED, job.getStatus());
+        assertTrue(job.getErrorMessage().contains("7"));
+        verify(marketEventCascadeJobRepository).save(job);
+        verify(applicationEventPublisher).publishEvent(new MarketEventCascadeJobService.JobEnqueued(7L));
+    }
+}
@@ -0,0 +1,122 @@
+package com.localledger.service;
+
+import com.localledger.entity.MarketEventCascadeJob;
+import com.localledger.entity.enums.CascadeJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * MarketEventCascadeWorker 单元测试
+ * 覆盖循环领取任务、合并执行一批任务、执行成功与失败时的任务状态，以及进度回调
+ */
+@ExtendWith(MockitoExtension.class)
+class MarketEventCascadeWorkerTest {
+
+    @Mock
+    private MarketEventCascadeJobService marketEventCascadeJobService;
+
+    @Mock
+    private MarketEventProcessingService marketEventProcessingService;
+
+    @InjectMocks
+    private MarketEventCascadeWorker marketEventCascadeWorker;
+
+    @AfterEach
+    void tearDown() {
+        marketEventCascadeWorker.shutdown();
+    }
+
+    private MarketEventCascadeJob buildJob(Long id, String symbols) {
+        return buildJob(id, symbols, LocalDate.of(2025, 1, 10));
+    }
+
+    private MarketEventCascadeJob buildJob(Long id, String symbols, LocalDate sinceDate) {
+        MarketEventCascadeJob job = new MarketEventCascadeJob();
+        job.setId(id);
+        job.setSymbols(symbols);
+        job.setSinceDate(sinceDate);
+        job.setStatus(CascadeJobStatus.RUNNING);
+        return job;
+    }
+
+    @Test
+    @DisplayName("循环领取 - 依次执行所有等待中的任务，执行成功后标记完成")
+    void drain_shouldRunAllPendingJobs() {
+        when(marketEventCascadeJobService.claimNextBatch())
+                .thenReturn(List.of(buildJob(1L, "AAPL")))
+                .thenReturn(List.of(buildJob(2L, "NVDA,TSLA")))
+                .thenReturn(List.of());
+
+        marketEventCascadeWorker.drain();
+
+        verify(marketEventProcessingService).runCascadeJob(eq(Set.of("AAPL")), eq(LocalDate.of(2025, 1, 10)), any());
+        verify(marketEventProcessingService).runCascadeJob(eq(Set.of("NVDA", "TSLA")), eq(LocalDate.of(2025, 1, 10)), any());
+        verify(marketEventCascadeJobService).complete(List.of(1L));
+        verify(marketEventCascadeJobService).complete(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("合并执行 - 一批任务只执行一次级联重算，证券代码取并集、起始日期取最早")
+    void batch_shouldRunSingleCascadeWithUnion() {
+        when(marketEventCascadeJobService.claimNextBatch())
+                .thenReturn(List.of(buildJob(1L, "AAPL", LocalDate.of(2025, 3, 1)),
+                        buildJob(2L, "AAPL,TSLA", LocalDate.of(2025, 1, 5))))
+                .thenReturn(List.of());
+
+        marketEventCascadeWorker.drain();
+
+        verify(marketEventProcessingService, times(1)).runCascadeJob(any(), any(), any());
+        verify(marketEventProcessingService).runCascadeJob(eq(Set.of("AAPL", "TSLA")), eq(LocalDate.of(2025, 1, 5)), any());
+        verify(marketEventCascadeJobService).complete(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("执行失败 - 标记失败并继续执行后续任务")
+    void failedJob_shouldNotStopDraining() {
+        when(marketEventCascadeJobService.claimNextBatch())
+                .thenReturn(List.of(buildJob(1L, "AAPL")))
+                .thenReturn(List.of(buildJob(2L, "TSLA")))
+                .thenReturn(List.of());
+        doThrow(new IllegalStateException("拆股比例无效"))
+                .when(marketEventProcessingService).runCascadeJob(eq(Set.of("AAPL")), any(), any());
+
+        marketEventCascadeWorker.drain();
+
+        verify(marketEventCascadeJobService).fail(List.of(1L), "拆股比例无效");
+        verify(marketEventCascadeJobService, never()).complete(List.of(1L));
+        verify(marketEventCascadeJobService).complete(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("进度回调 - 级联重算的进度写入任务服务")
+    void progress_shouldBeReportedToJobService() {
+        when(marketEventCascadeJobService.claimNextBatch())
+                .thenReturn(List.of(buildJob(3L, "AAPL")))
+                .thenReturn(List.of());
+        doAnswer(invocation -> {
+            MarketEventProcessingService.CascadeProgress progress = invocation.getArgument(2);
+            progress.update(0, 2);
+            progress.update(1, 2);
+            return null;
+        }).when(marketEventProcessingService).runCascadeJob(any(), any(), any());
+
+        marketEventCascadeWorker.drain();
+
+        verify(marketEventCascadeJobService).reportProgress(List.of(3L), 0, 2);
+        verify(marketEventCascadeJobService).reportProgress(List.of(3L), 1, 2);
+        verify(marketEventCascadeJobService).complete(List.of(3L));
+    }
+}
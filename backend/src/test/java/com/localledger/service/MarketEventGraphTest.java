@@ -0,0 +1,115 @@
+package com.localledger.service;
+
+import com.localledger.entity.BaseMarketEvent;
+import com.localledger.entity.DividendInKindEvent;
+import com.localledger.entity.StockSplitEvent;
+import com.localledger.entity.SymbolChangeEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MarketEventGraph 单元测试
+ * 覆盖受影响事件的传递闭包（代码变更、实物分红的传递）以及事件的处理顺序
+ */
+class MarketEventGraphTest {
+
+    // ============ 辅助方法 ============
+
+    private StockSplitEvent split(Long id, String symbol, LocalDate eventDate) {
+        StockSplitEvent event = new StockSplitEvent();
+        event.setId(id);
+        event.setSymbol(symbol);
+        event.setEventDate(eventDate);
+        return event;
+    }
+
+    private SymbolChangeEvent change(Long id, String oldSymbol, String newSymbol, LocalDate eventDate) {
+        SymbolChangeEvent event = new SymbolChangeEvent();
+        event.setId(id);
+        event.setSymbol(oldSymbol);
+        event.setOldSymbol(oldSymbol);
+        event.setNewSymbol(newSymbol);
+        event.setEventDate(eventDate);
+        return event;
+    }
+
+    private DividendInKindEvent dividend(Long id, String symbol, String dividendSymbol, LocalDate eventDate) {
+        DividendInKindEvent event = new DividendInKindEvent();
+        event.setId(id);
+        event.setSymbol(symbol);
+        event.setDividendSymbol(dividendSymbol);
+        event.setEventDate(eventDate);
+        return event;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("代码变更传递 - A→B 之后 B 的拆股需要重算，A→B 之前 B 的拆股不受影响")
+    void symbolChange_shouldPropagateToNewSymbolAfterEventDate() {
+        StockSplitEvent splitBefore = split(1L, "B", LocalDate.of(2025, 1, 1));
+        SymbolChangeEvent changeAtoB = change(2L, "A", "B", LocalDate.of(2025, 2, 1));
+        StockSplitEvent splitAfter = split(3L, "B", LocalDate.of(2025, 3, 1));
+        StockSplitEvent unrelated = split(4L, "C", LocalDate.of(2025, 3, 1));
+        MarketEventGraph graph = new MarketEventGraph(
+                List.of(splitBefore, splitAfter, unrelated), List.of(changeAtoB), List.of());
+
+        assertEquals(List.of(changeAtoB, splitAfter), graph.affectedEvents(Set.of("A")));
+    }
+
+    @Test
+    @DisplayName("多层传递 - A→B 代码变更、B 派发 C 的实物分红、C 的拆股一次全部找出")
+    void chain_shouldBeResolvedInOneTraversal() {
+        SymbolChangeEvent changeAtoB = change(1L, "A", "B", LocalDate.of(2025, 1, 1));
+        DividendInKindEvent dividendBtoC = dividend(2L, "B", "C", LocalDate.of(2025, 2, 1));
+        StockSplitEvent splitC = split(3L, "C", LocalDate.of(2025, 3, 1));
+        StockSplitEvent splitD = split(4L, "D", LocalDate.of(2025, 4, 1));
+        MarketEventGraph graph = new MarketEventGraph(
+                List.of(splitD, splitC), List.of(changeAtoB), List.of(dividendBtoC));
+
+        assertEquals(List.of(changeAtoB, dividendBtoC, splitC), graph.affectedEvents(Set.of("A")));
+    }
+
+    @Test
+    @DisplayName("实物分红 - 分红证券的持仓变化不会反向影响派发证券的后续事件")
+    void dividend_shouldNotPropagateToPayingSymbol() {
+        DividendInKindEvent dividendAtoC = dividend(1L, "A", "C", LocalDate.of(2025, 1, 1));
+        StockSplitEvent splitA = split(2L, "A", LocalDate.of(2025, 2, 1));
+        StockSplitEvent splitC = split(3L, "C", LocalDate.of(2025, 2, 1));
+        MarketEventGraph graph = new MarketEventGraph(
+                List.of(splitA, splitC), List.of(), List.of(dividendAtoC));
+
+        assertEquals(List.of(dividendAtoC, splitC), graph.affectedEvents(Set.of("C")));
+    }
+
+    @Test
+    @DisplayName("处理顺序 - 日期升序，同一天 代码变更 > 拆股 > 实物分红，同一天内的传递同样生效")
+    void events_shouldFollowProcessingOrder() {
+        LocalDate day = LocalDate.of(2025, 5, 1);
+        DividendInKindEvent dividendB = dividend(1L, "B", "E", day);
+        StockSplitEvent splitB = split(2L, "B", day);
+        SymbolChangeEvent changeAtoB = change(3L, "A", "B", day);
+        StockSplitEvent earlierSplitA = split(4L, "A", day.minusDays(1));
+        MarketEventGraph graph = new MarketEventGraph(
+                List.of(splitB, earlierSplitA), List.of(changeAtoB), List.of(dividendB));
+
+        List<BaseMarketEvent> affected = graph.affectedEvents(Set.of("A"));
+
+        assertEquals(List.of(earlierSplitA, changeAtoB, splitB, dividendB), affected);
+    }
+
+    @Test
+    @DisplayName("没有涉及的事件 - 返回空列表")
+    void noIncidentEvents_shouldReturnEmpty() {
+        MarketEventGraph graph = new MarketEventGraph(
+                List.of(split(1L, "A", LocalDate.of(2025, 1, 1))), List.of(), List.of());
+
+        assertTrue(graph.affectedEvents(Set.of("Z")).isEmpty());
+    }
+}
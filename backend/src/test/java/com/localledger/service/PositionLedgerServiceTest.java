@@ -0,0 +1,351 @@
+package com.localledger.service;
+
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.PositionDailyDelta;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.PositionDailyDeltaRepository;
+import com.localledger.repository.TradeRecordRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PositionLedgerService 单元测试
+ * 覆盖持仓台账的增量累加逻辑，以及同一 (symbol, brokerId) 上并发重算的加锁顺序
+ */
+@ExtendWith(MockitoExtension.class)
+class PositionLedgerServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private PositionDailyDeltaRepository positionDailyDeltaRepository;
+
+    @InjectMocks
+    private PositionLedgerService positionLedgerService;
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(Long id, String symbol, TradeType tradeType,
+                                    int quantity, LocalDate tradeDate) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setSymbol(symbol);
+        record.setName("测试证券");
+        record.setUnderlyingSymbol(symbol);
+        record.setAssetType(AssetType.STOCK);
+        record.setCurrency(Currency.USD);
+        record.setTradeType(tradeType);
+        record.setQuantity(quantity);
+        record.setPrice(new BigDecimal("100.00"));
+        record.setAmount(new BigDecimal("10000.00"));
+        record.setFee(BigDecimal.ZERO);
+        record.setBrokerId(1L);
+        record.setTradeDate(tradeDate);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    private static List<TradeLine> lines(TradeRecord... records) {
+        return Arrays.stream(records).map(TradeLine::of).collect(Collectors.toList());
+    }
+
+    /**
+     * 重算 AAPL / 券商 1 的台账；refresh 返回即视为事务提交，释放模拟的事务级键锁
+     */
+    private void refreshAndCommit(LocalDate fromDate, Semaphore keyLock) {
+        try {
+            positionLedgerService.refresh("AAPL", 1L, fromDate);
+        } finally {
+            keyLock.release();
+        }
+    }
+
+    // ============ buildRows 累加逻辑 ============
+
+    @Test
+    @DisplayName("单次买入 - 台账余额应为买入数量")
+    void singleBuy_shouldHaveBalance() {
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy), null);
+
+        assertEquals(1, rows.size());
+        assertEquals(100, rows.get(0).getQuantityDelta());
+        assertEquals(100, rows.get(0).getBalance());
+    }
+
+    @Test
+    @DisplayName("买入后全部卖出 - 最后一行余额应为0")
+    void buyThenSellAll_shouldEndAtZero() {
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 100, LocalDate.of(2025, 1, 20));
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy, sell), null);
+
+        assertEquals(2, rows.size());
+        assertEquals(100, rows.get(0).getBalance());
+        assertEquals(-100, rows.get(1).getQuantityDelta());
+        assertEquals(0, rows.get(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("买入后部分卖出 - 余额应为剩余数量")
+    void buyThenPartialSell_shouldHaveRemaining() {
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 30, LocalDate.of(2025, 1, 20));
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy, sell), null);
+
+        assertEquals(2, rows.size());
+        assertEquals(-30, rows.get(1).getQuantityDelta());
+        assertEquals(70, rows.get(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("多次买入同一证券 - 余额应逐日累加")
+    void multipleBuys_shouldAccumulate() {
+        TradeRecord buy1 = buildRecord(1L, "TSLA", TradeType.BUY, 50, LocalDate.of(2025, 1, 10));
+        TradeRecord buy2 = buildRecord(2L, "TSLA", TradeType.BUY, 30, LocalDate.of(2025, 1, 20));
+        TradeRecord buy3 = buildRecord(3L, "TSLA", TradeType.BUY, 20, LocalDate.of(2025, 2, 3));
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy1, buy2, buy3), null);
+
+        assertEquals(3, rows.size());
+        assertEquals(50, rows.get(0).getBalance());
+        assertEquals(80, rows.get(1).getBalance());
+        assertEquals(100, rows.get(2).getBalance());
+    }
+
+    @Test
+    @DisplayName("同一天多笔交易 - 应合并为一行台账")
+    void sameDayTrades_shouldMergeIntoOneRow() {
+        LocalDate day = LocalDate.of(2025, 1, 10);
+        TradeRecord buy1 = buildRecord(1L, "TSLA", TradeType.BUY, 50, day);
+        TradeRecord buy2 = buildRecord(2L, "TSLA", TradeType.BUY, 30, day);
+        TradeRecord sell = buildRecord(3L, "TSLA", TradeType.SELL, 20, day);
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy1, buy2, sell), null);
+
+        assertEquals(1, rows.size());
+        assertEquals(60, rows.get(0).getQuantityDelta());
+        assertEquals(60, rows.get(0).getBalance());
+    }
+
+    @Test
+    @DisplayName("名称变更 - 台账应取最新的非空名称")
+    void nameChange_shouldKeepLatestNonEmptyName() {
+        TradeRecord buy = buildRecord(1L, "META", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        buy.setName("Facebook");
+        TradeRecord buyRenamed = buildRecord(2L, "META", TradeType.BUY, 10, LocalDate.of(2025, 2, 10));
+        buyRenamed.setName("Meta Platforms");
+        TradeRecord sellNoName = buildRecord(3L, "META", TradeType.SELL, 10, LocalDate.of(2025, 3, 10));
+        sellNoName.setName(null);
+
+        List<PositionDailyDelta> rows = PositionLedgerService.buildRows(lines(buy, buyRenamed, sellNoName), null);
+
+        assertEquals("Facebook", rows.get(0).getName());
+        assertEquals("Meta Platforms", rows.get(1).getName());
+        assertEquals("Meta Platforms", rows.get(2).getName());
+        assertEquals(100, rows.get(2).getBalance());
+    }
+
+    // ============ refresh 增量重算 ============
+
+    @Test
+    @DisplayName("增量重算 - 应以起始日期之前的最后一行为基础继续累加")
+    void refresh_shouldContinueFromPreviousRow() {
+        LocalDate fromDate = LocalDate.of(2025, 3, 1);
+        PositionDailyDelta previous = new PositionDailyDelta();
+        previous.setSymbol("AAPL");
+        previous.setBrokerId(1L);
+        previous.setTradeDate(LocalDate.of(2025, 2, 1));
+        previous.setQuantityDelta(100);
+        previous.setBalance(100);
+        previous.setName("苹果公司");
+        previous.setAssetType(AssetType.STOCK);
+        previous.setCurrency(Currency.USD);
+        TradeRecord sell = buildRecord(5L, "AAPL", TradeType.SELL, 30, LocalDate.of(2025, 3, 5));
+        sell.setName(null);
+
+        when(positionDailyDeltaRepository.findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc("AAPL", 1L, fromDate))
+                .thenReturn(Optional.of(previous));
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdFromDate("AAPL", 1L, fromDate))
+                .thenReturn(lines(sell));
+
+        positionLedgerService.onTradeRecordsChanged(new TradeRecordsChangedEvent("AAPL", 1L, fromDate));
+
+        InOrder inOrder = inOrder(positionDailyDeltaRepository);
+        inOrder.verify(positionDailyDeltaRepository).lockForRefresh();
+        inOrder.verify(positionDailyDeltaRepository).lockKeyForRefresh("AAPL", 1L);
+        inOrder.verify(positionDailyDeltaRepository)
+                .findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc("AAPL", 1L, fromDate);
+        inOrder.verify(positionDailyDeltaRepository).deleteBySymbolAndBrokerIdFromDate("AAPL", 1L, fromDate);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PositionDailyDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(positionDailyDeltaRepository).saveAll(captor.capture());
+        List<PositionDailyDelta> saved = captor.getValue();
+        assertEquals(1, saved.size());
+        assertEquals(-30, saved.get(0).getQuantityDelta());
+        assertEquals(70, saved.get(0).getBalance());
+        assertEquals("苹果公司", saved.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("增量重算后无交易记录 - 只删除旧台账不写入新行")
+    void refreshWithoutRecords_shouldOnlyDelete() {
+        LocalDate fromDate = LocalDate.of(2025, 3, 1);
+        when(positionDailyDeltaRepository.findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc("AAPL", 1L, fromDate))
+                .thenReturn(Optional.empty());
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdFromDate("AAPL", 1L, fromDate))
+                .thenReturn(Collections.emptyList());
+
+        positionLedgerService.refresh("AAPL", 1L, fromDate);
+
+        verify(positionDailyDeltaRepository).deleteBySymbolAndBrokerIdFromDate("AAPL", 1L, fromDate);
+        verify(positionDailyDeltaRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("同一键并发重算 - 后一次重算等前一次提交后才读取起点行，以前一次写入的行为基础累加")
+    void concurrentRefreshOnSameKey_shouldRunOneAfterAnother() throws Exception {
+        LocalDate buyDate = LocalDate.of(2025, 3, 1);
+        LocalDate sellDate = LocalDate.of(2025, 3, 5);
+        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, buyDate);
+        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 30, sellDate);
+        List<PositionDailyDelta> table = new CopyOnWriteArrayList<>();
+        Semaphore keyLock = new Semaphore(1);
+        AtomicInteger lockCalls = new AtomicInteger();
+        CountDownLatch firstInside = new CountDownLatch(1);
+        CountDownLatch secondArrived = new CountDownLatch(1);
+
+        // 键锁：获取后持有到"提交"，第二次重算到达时记录下来
+        when(positionDailyDeltaRepository.lockKeyForRefresh("AAPL", 1L)).thenAnswer(invocation -> {
+            if (lockCalls.incrementAndGet() > 1) {
+                secondArrived.countDown();
+            }
+            keyLock.acquire();
+            return "";
+        });
+        // 内存中的台账表：起点行取指定日期之前的最后一行
+        when(positionDailyDeltaRepository.findFirstBySymbolAndBrokerIdAndTradeDateLessThanOrderByTradeDateDesc(
+                eq("AAPL"), eq(1L), any())).thenAnswer(invocation -> {
+            LocalDate date = invocation.getArgument(2);
+            if (date.equals(buyDate)) {
+                firstInside.countDown();
+            } else {
+                secondArrived.countDown();
+            }
+            return table.stream()
+                    .filter(row -> row.getTradeDate().isBefore(date))
+                    .max(Comparator.comparing(PositionDailyDelta::getTradeDate));
+        });
+        when(positionDailyDeltaRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<PositionDailyDelta> rows = invocation.getArgument(0);
+            table.addAll(rows);
+            return rows;
+        });
+        // 第一次重算读到起点行后等待第二次重算到达，使两次重算在时间上重叠；卖出尚未提交，不在第一次的读取结果中
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdFromDate("AAPL", 1L, buyDate)).thenAnswer(invocation -> {
+            assertTrue(secondArrived.await(5, TimeUnit.SECONDS));
+            return lines(buy);
+        });
+        when(tradeRecordRepository.findLinesBySymbolAndBrokerIdFromDate("AAPL", 1L, sellDate)).thenReturn(lines(sell));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> refreshAndCommit(buyDate, keyLock));
+            assertTrue(firstInside.await(5, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> refreshAndCommit(sellDate, keyLock));
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(positionDailyDeltaRepository, times(2)).lockForRefresh();
+        assertEquals(2, table.size());
+        assertEquals(buyDate, table.get(0).getTradeDate());
+        assertEquals(100, table.get(0).getBalance());
+        assertEquals(sellDate, table.get(1).getTradeDate());
+        assertEquals(70, table.get(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("同一证券不同券商 - 全量重建时各券商的余额分别累加")
+    void sameSymbolDifferentBrokers_shouldSeparateBalances() {
+        TradeRecord buyBroker1 = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord sellBroker1 = buildRecord(3L, "AAPL", TradeType.SELL, 30, LocalDate.of(2025, 1, 20));
+        TradeRecord buyBroker2 = buildRecord(2L, "AAPL", TradeType.BUY, 50, LocalDate.of(2025, 1, 15));
+        buyBroker2.setBrokerId(2L);
+        when(tradeRecordRepository.findAllLinesOrderBySymbolAndBroker())
+                .thenReturn(lines(buyBroker1, sellBroker1, buyBroker2));
+
+        positionLedgerService.rebuildAll();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PositionDailyDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(positionDailyDeltaRepository).saveAll(captor.capture());
+        List<PositionDailyDelta> saved = captor.getValue();
+        assertEquals(3, saved.size());
+        assertEquals(1L, saved.get(1).getBrokerId());
+        assertEquals(70, saved.get(1).getBalance());
+        assertEquals(2L, saved.get(2).getBrokerId());
+        assertEquals(50, saved.get(2).getBalance());
+    }
+
+    @Test
+    @DisplayName("全部交易记录变动 - 全量重建台账，按 (symbol, brokerId) 分别从 0 累加")
+    void allChanged_shouldRebuildLedger() {
+        TradeRecord aaplBroker1 = buildRecord(1L, "AAPL", TradeType.BUY, 100, LocalDate.of(2025, 1, 10));
+        TradeRecord aaplBroker2 = buildRecord(2L, "AAPL", TradeType.BUY, 50, LocalDate.of(2025, 1, 12));
+        aaplBroker2.setBrokerId(2L);
+        TradeRecord tsla = buildRecord(3L, "TSLA", TradeType.BUY, 10, LocalDate.of(2025, 1, 11));
+        when(tradeRecordRepository.findAllLinesOrderBySymbolAndBroker()).thenReturn(lines(aaplBroker1, aaplBroker2, tsla));
+
+        positionLedgerService.onTradeRecordsChanged(TradeRecordsChangedEvent.all());
+
+        InOrder inOrder = inOrder(positionDailyDeltaRepository);
+        inOrder.verify(positionDailyDeltaRepository).lockForRebuild();
+        inOrder.verify(positionDailyDeltaRepository).deleteAllInBatch();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PositionDailyDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(positionDailyDeltaRepository).saveAll(captor.capture());
+        List<PositionDailyDelta> saved = captor.getValue();
+        assertEquals(3, saved.size());
+        assertEquals(100, saved.get(0).getBalance());
+        assertEquals(50, saved.get(1).getBalance());
+        assertEquals(2L, saved.get(1).getBrokerId());
+        assertEquals(10, saved.get(2).getBalance());
+    }
+}
@@ -1,82 +1,83 @@
 package com.localledger.service;
 
+import com.localledger.dto.PositionBalanceLine;
+import com.localledger.dto.PositionHistory;
 import com.localledger.dto.PositionSnapshot;
-import com.localledger.entity.Broker;
-import com.localledger.entity.TradeRecord;
+import com.localledger.entity.PositionDailyDelta;
 import com.localledger.entity.enums.*;
-import com.localledger.repository.BrokerRepository;
-import com.localledger.repository.TradeRecordRepository;
+import com.localledger.repository.PositionDailyDeltaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * PositionService 单元测试
- * 覆盖持仓计算的核心逻辑
+ * 覆盖基于持仓台账截取持仓快照、持仓历史序列的核心逻辑（台账的累加逻辑见 PositionLedgerServiceTest）、持仓快照缓存的使用及计算耗时指标
  */
 @ExtendWith(MockitoExtension.class)
 class PositionServiceTest {
 
     @Mock
-    private TradeRecordRepository tradeRecordRepository;
+    private PositionDailyDeltaRepository positionDailyDeltaRepository;
 
     @Mock
-    private BrokerRepository brokerRepository;
+    private DimensionCache dimensionCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PositionSnapshotCache positionSnapshotCache = new PositionSnapshotCache(1000, new SimpleMeterRegistry());
 
     @InjectMocks
     private PositionService positionService;
 
     // ============ 辅助方法 ============
 
-    private TradeRecord buildRecord(Long id, String symbol, TradeType tradeType,
-                                     int quantity, Long brokerId) {
-        TradeRecord record = new TradeRecord();
-        record.setId(id);
-        record.setSymbol(symbol);
-        record.setName("测试证券");
-        record.setUnderlyingSymbol(symbol);
-        record.setAssetType(AssetType.STOCK);
-        record.setCurrency(Currency.USD);
-        record.setTradeType(tradeType);
-        record.setQuantity(quantity);
-        record.setPrice(new BigDecimal("100.00"));
-        record.setAmount(new BigDecimal("10000.00"));
-        record.setFee(BigDecimal.ZERO);
-        record.setBrokerId(brokerId);
-        record.setTradeDate(LocalDate.of(2025, 1, 10));
-        record.setTradeTrigger(TradeTrigger.MANUAL);
-        record.setTriggerRefType(TriggerRefType.NONE);
-        record.setTriggerRefId(0L);
-        record.setIsDeleted(false);
-        return record;
+    private PositionDailyDelta buildBalance(String symbol, int balance, Long brokerId) {
+        return buildRow(symbol, balance, brokerId, LocalDate.of(2025, 1, 10));
     }
 
-    private Broker buildBroker(Long id, String name) {
-        Broker broker = new Broker(name, "US");
-        broker.setId(id);
-        return broker;
+    private PositionDailyDelta buildRow(String symbol, int balance, Long brokerId, LocalDate tradeDate) {
+        PositionDailyDelta row = new PositionDailyDelta();
+        row.setSymbol(symbol);
+        row.setName("测试证券");
+        row.setUnderlyingSymbol(symbol);
+        row.setAssetType(AssetType.STOCK);
+        row.setCurrency(Currency.USD);
+        row.setBrokerId(brokerId);
+        row.setTradeDate(tradeDate);
+        row.setQuantityDelta(balance);
+        row.setBalance(balance);
+        return row;
     }
 
     // ============ 测试用例 ============
 
     @Test
-    @DisplayName("空交易记录 - 应返回空持仓列表")
-    void emptyRecords_shouldReturnEmptyList() {
+    @DisplayName("台账为空 - 应返回空持仓列表")
+    void emptyLedger_shouldReturnEmptyList() {
         LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate))
                 .thenReturn(Collections.emptyList());
 
         List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
@@ -85,62 +86,30 @@ class PositionServiceTest {
     }
 
     @Test
-    @DisplayName("单次买入 - 应有持仓")
-    void singleBuy_shouldHavePosition() {
+    @DisplayName("单条台账余额 - 应转换为持仓快照")
+    void singleBalance_shouldHavePosition() {
         LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, 1L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
-                .thenReturn(Collections.singletonList(buy));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate))
+                .thenReturn(Collections.singletonList(buildBalance("AAPL", 100, 1L)));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券"));
 
         List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
 
         assertEquals(1, result.size());
         assertEquals("AAPL", result.get(0).getSymbol());
         assertEquals(100, result.get(0).getQuantity());
+        assertEquals("测试证券", result.get(0).getName());
+        assertEquals(AssetType.STOCK, result.get(0).getAssetType());
+        assertEquals(Currency.USD, result.get(0).getCurrency());
     }
 
     @Test
-    @DisplayName("买入后全部卖出 - 持仓应为空（数量为0被过滤）")
-    void buyThenSellAll_shouldBeEmpty() {
-        LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, 1L);
-        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 100, 1L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
-                .thenReturn(Arrays.asList(buy, sell));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
-
-        List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
-
-        assertTrue(result.isEmpty());
-    }
-
-    @Test
-    @DisplayName("买入后部分卖出 - 持仓应为剩余数量")
-    void buyThenPartialSell_shouldHaveRemaining() {
-        LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, 1L);
-        TradeRecord sell = buildRecord(2L, "AAPL", TradeType.SELL, 30, 1L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
-                .thenReturn(Arrays.asList(buy, sell));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
-
-        List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
-
-        assertEquals(1, result.size());
-        assertEquals(70, result.get(0).getQuantity());
-    }
-
-    @Test
-    @DisplayName("同一证券不同券商 - 应分别计算持仓")
+    @DisplayName("同一证券不同券商 - 应分别返回持仓")
     void sameSymbolDifferentBrokers_shouldSeparatePositions() {
         LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy1 = buildRecord(1L, "AAPL", TradeType.BUY, 100, 1L);
-        TradeRecord buy2 = buildRecord(2L, "AAPL", TradeType.BUY, 50, 2L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
-                .thenReturn(Arrays.asList(buy1, buy2));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
-        when(brokerRepository.findById(2L)).thenReturn(Optional.of(buildBroker(2L, "富途证券")));
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate))
+                .thenReturn(Arrays.asList(buildBalance("AAPL", 100, 1L), buildBalance("AAPL", 50, 2L)));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券", 2L, "富途证券"));
 
         List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
 
@@ -154,10 +123,9 @@ class PositionServiceTest {
     @DisplayName("按券商筛选 - 应只返回该券商的持仓")
     void filterByBroker_shouldReturnOnlyThatBroker() {
         LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy = buildRecord(1L, "AAPL", TradeType.BUY, 100, 1L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndBrokerIdAndIsDeletedFalseOrderByTradeDateAsc(
-                targetDate, 1L)).thenReturn(Collections.singletonList(buy));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
+        when(positionDailyDeltaRepository.findOpenBalancesAsOfAndBrokerId(targetDate, 1L))
+                .thenReturn(Collections.singletonList(buildBalance("AAPL", 100, 1L)));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券"));
 
         List<PositionSnapshot> result = positionService.calculatePositions(targetDate, 1L);
 
@@ -167,19 +135,105 @@ class PositionServiceTest {
     }
 
     @Test
-    @DisplayName("多次买入同一证券 - 持仓应累加")
-    void multipleBuys_shouldAccumulate() {
+    @DisplayName("券商不存在 - 券商名称应为未知券商")
+    void unknownBroker_shouldUseFallbackName() {
         LocalDate targetDate = LocalDate.of(2025, 3, 10);
-        TradeRecord buy1 = buildRecord(1L, "TSLA", TradeType.BUY, 50, 1L);
-        TradeRecord buy2 = buildRecord(2L, "TSLA", TradeType.BUY, 30, 1L);
-        TradeRecord buy3 = buildRecord(3L, "TSLA", TradeType.BUY, 20, 1L);
-        when(tradeRecordRepository.findByTradeDateLessThanEqualAndIsDeletedFalseOrderByTradeDateAsc(targetDate))
-                .thenReturn(Arrays.asList(buy1, buy2, buy3));
-        when(brokerRepository.findById(1L)).thenReturn(Optional.of(buildBroker(1L, "盈透证券")));
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate))
+                .thenReturn(Collections.singletonList(buildBalance("TSLA", 100, 9L)));
+        when(dimensionCache.brokerNames()).thenReturn(Collections.emptyMap());
 
         List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
 
         assertEquals(1, result.size());
+        assertEquals("未知券商", result.get(0).getBrokerName());
+    }
+
+    @Test
+    @DisplayName("重复查询同一日期 - 台账余额从持仓快照缓存读取，券商名称每次重新解析")
+    void repeatedQuery_shouldServeBalancesFromCache() {
+        LocalDate targetDate = LocalDate.of(2025, 3, 10);
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate))
+                .thenReturn(Collections.singletonList(buildBalance("AAPL", 100, 1L)));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券")).thenReturn(Map.of(1L, "盈透证券（新）"));
+
+        positionService.calculatePositions(targetDate, null);
+        List<PositionSnapshot> result = positionService.calculatePositions(targetDate, null);
+
+        verify(positionDailyDeltaRepository, times(1)).findOpenBalancesAsOf(targetDate);
         assertEquals(100, result.get(0).getQuantity());
+        assertEquals("AAPL", result.get(0).getUnderlyingSymbol());
+        assertEquals("盈透证券（新）", result.get(0).getBrokerName());
+    }
+
+    @Test
+    @DisplayName("计算耗时 - 按是否筛选券商分别计入 scope 标签")
+    void calculatePositions_shouldRecordTimerByScope() {
+        LocalDate targetDate = LocalDate.of(2025, 3, 10);
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(targetDate)).thenReturn(Collections.emptyList());
+        when(positionDailyDeltaRepository.findOpenBalancesAsOfAndBrokerId(targetDate, 1L))
+                .thenReturn(Collections.emptyList());
+
+        positionService.calculatePositions(targetDate, null);
+        positionService.calculatePositions(targetDate, null);
+        positionService.calculatePositions(targetDate, 1L);
+
+        assertEquals(2, meterRegistry.get(PositionService.METRIC_CALCULATE).tag("scope", "all").timer().count());
+        assertEquals(1, meterRegistry.get(PositionService.METRIC_CALCULATE).tag("scope", "broker").timer().count());
+    }
+
+    @Test
+    @DisplayName("持仓历史 - 以开始日期前的余额为起点，按周取每周日的持仓，最后一个采样点为结束日期")
+    void history_shouldSampleBalancesPerWeek() {
+        LocalDate from = LocalDate.of(2025, 3, 5);   // 周三
+        LocalDate to = LocalDate.of(2025, 3, 19);    // 周三
+        when(positionDailyDeltaRepository.findOpenBalancesAsOf(LocalDate.of(2025, 3, 4)))
+                .thenReturn(List.of(buildRow("AAPL", 100, 1L, LocalDate.of(2025, 1, 10))));
+        when(positionDailyDeltaRepository.findBalanceLinesBetween(from, to)).thenReturn(List.of(
+                PositionBalanceLine.of(buildRow("AAPL", 150, 1L, LocalDate.of(2025, 3, 9))),
+                PositionBalanceLine.of(buildRow("TSLA", 20, 1L, LocalDate.of(2025, 3, 12))),
+                PositionBalanceLine.of(buildRow("AAPL", 0, 1L, LocalDate.of(2025, 3, 18)))));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券"));
+
+        PositionHistory history = positionService.calculateHistory(from, to, PositionHistory.Granularity.WEEK, null);
+
+        assertEquals(List.of(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 16), to), history.getDates());
+        assertEquals(2, history.getSeries().size());
+        PositionHistory.Series aapl = history.getSeries().get(0);
+        assertEquals("AAPL", aapl.getSymbol());
+        assertEquals("盈透证券", aapl.getBrokerName());
+        assertArrayEquals(new int[]{150, 150, 0}, aapl.getQuantities());
+        assertArrayEquals(new int[]{0, 20, 20}, history.getSeries().get(1).getQuantities());
+    }
+
+    @Test
+    @DisplayName("持仓历史 - 区间内持仓始终为 0 的序列不返回，按券商筛选时只查询该券商的台账")
+    void history_shouldSkipAlwaysZeroSeries() {
+        LocalDate from = LocalDate.of(2025, 3, 3);
+        LocalDate to = LocalDate.of(2025, 3, 4);
+        when(positionDailyDeltaRepository.findOpenBalancesAsOfAndBrokerId(LocalDate.of(2025, 3, 2), 1L))
+                .thenReturn(Collections.emptyList());
+        when(positionDailyDeltaRepository.findBalanceLinesBetweenAndBrokerId(from, to, 1L))
+                .thenReturn(List.of(PositionBalanceLine.of(buildRow("AAPL", 0, 1L, from))));
+        when(dimensionCache.brokerNames()).thenReturn(Map.of(1L, "盈透证券"));
+
+        PositionHistory history = positionService.calculateHistory(from, to, PositionHistory.Granularity.DAY, 1L);
+
+        assertEquals(List.of(from, to), history.getDates());
+        assertTrue(history.getSeries().isEmpty());
+        assertEquals(1, meterRegistry.get(PositionService.METRIC_HISTORY).tag("granularity", "day").timer().count());
+    }
+
+    @Test
+    @DisplayName("持仓历史 - 开始日期晚于结束日期或采样点过多时拒绝查询")
+    void history_shouldRejectInvalidRange() {
+        LocalDate from = LocalDate.of(2025, 3, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> positionService.calculateHistory(
+                from, from.minusDays(1), PositionHistory.Granularity.DAY, null));
+        assertThrows(IllegalArgumentException.class, () -> positionService.calculateHistory(
+                from.minusYears(20), from, PositionHistory.Granularity.DAY, null));
+        assertEquals(PositionHistory.Granularity.MONTH, PositionHistory.Granularity.of("Month"));
+        assertThrows(IllegalArgumentException.class, () -> PositionHistory.Granularity.of("year"));
+        verify(positionDailyDeltaRepository, never()).findOpenBalancesAsOf(any());
     }
 }
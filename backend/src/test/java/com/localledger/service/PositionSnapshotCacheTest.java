@@ -0,0 +1,136 @@
+package com.localledger.service;
+
+import com.localledger.dto.PositionBalanceLine;
+import com.localledger.entity.enums.AssetType;
+import com.localledger.entity.enums.Currency;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PositionSnapshotCache 单元测试
+ * 覆盖命中 / 未命中统计、按日期和券商精确失效、加载期间失效的结果不缓存以及关闭缓存
+ */
+class PositionSnapshotCacheTest {
+
+    private static final LocalDate MARCH_10 = LocalDate.of(2025, 3, 10);
+    private static final LocalDate MARCH_20 = LocalDate.of(2025, 3, 20);
+
+    // ============ 辅助方法 ============
+
+    private List<PositionBalanceLine> balances(Long brokerId) {
+        return List.of(new PositionBalanceLine("AAPL", brokerId, LocalDate.of(2025, 1, 10), 100,
+                "苹果", "AAPL", AssetType.STOCK, Currency.USD));
+    }
+
+    /**
+     * 统计调用次数的加载函数
+     */
+    private Supplier<List<PositionBalanceLine>> counting(AtomicInteger loads, Long brokerId) {
+        return () -> {
+            loads.incrementAndGet();
+            return balances(brokerId);
+        };
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("重复读取 - 只加载一次，命中与未命中计入 cache.gets 指标")
+    void repeatedGet_shouldLoadOnceAndRecordStats() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PositionSnapshotCache cache = new PositionSnapshotCache(1000, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+        List<PositionBalanceLine> second = cache.get(MARCH_10, 1L, counting(loads, 1L));
+
+        assertEquals(1, loads.get());
+        assertEquals(100, second.get(0).getBalance());
+        assertEquals(1, registry.get("cache.gets").tag("cache", PositionSnapshotCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", PositionSnapshotCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("按日期失效 - 只丢弃截止日期在变动日期当天及之后的缓存项")
+    void invalidateFrom_shouldOnlyDropLaterDates() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PositionSnapshotCache cache = new PositionSnapshotCache(1000, registry);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+        cache.get(MARCH_20, 1L, counting(loads, 1L));
+
+        cache.invalidateFrom(1L, LocalDate.of(2025, 3, 15));
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+        cache.get(MARCH_20, 1L, counting(loads, 1L));
+
+        assertEquals(3, loads.get());
+        assertEquals(1, registry.get(PositionSnapshotCache.METRIC_INVALIDATED).counter().count());
+    }
+
+    @Test
+    @DisplayName("按券商失效 - 其他券商的缓存项保留，不限券商的缓存项随任一券商失效")
+    void invalidateFrom_shouldOnlyDropSameBrokerAndAllBrokers() {
+        PositionSnapshotCache cache = new PositionSnapshotCache(1000, new SimpleMeterRegistry());
+        AtomicInteger broker1 = new AtomicInteger();
+        AtomicInteger broker2 = new AtomicInteger();
+        AtomicInteger allBrokers = new AtomicInteger();
+        cache.get(MARCH_10, 1L, counting(broker1, 1L));
+        cache.get(MARCH_10, 2L, counting(broker2, 2L));
+        cache.get(MARCH_10, null, counting(allBrokers, null));
+
+        cache.invalidateFrom(1L, MARCH_10);
+        cache.get(MARCH_10, 1L, counting(broker1, 1L));
+        cache.get(MARCH_10, 2L, counting(broker2, 2L));
+        cache.get(MARCH_10, null, counting(allBrokers, null));
+
+        assertEquals(2, broker1.get());
+        assertEquals(1, broker2.get());
+        assertEquals(2, allBrokers.get());
+    }
+
+    @Test
+    @DisplayName("加载期间失效 - 本次结果照常返回但不缓存")
+    void invalidatedWhileLoading_shouldNotCacheResult() {
+        PositionSnapshotCache cache = new PositionSnapshotCache(1000, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        List<PositionBalanceLine> stale = cache.get(MARCH_10, 1L, () -> {
+            loads.incrementAndGet();
+            cache.invalidateFrom(1L, LocalDate.of(2025, 1, 1));
+            return balances(1L);
+        });
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+
+        assertEquals(1, stale.size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("全量失效与关闭缓存 - 全部缓存项丢弃；容量 ≤ 0 时每次都加载")
+    void invalidateAllAndDisabled_shouldAlwaysLoad() {
+        PositionSnapshotCache cache = new PositionSnapshotCache(1000, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+        cache.invalidateAll();
+        cache.get(MARCH_10, 1L, counting(loads, 1L));
+        assertEquals(2, loads.get());
+
+        PositionSnapshotCache disabled = new PositionSnapshotCache(0, new SimpleMeterRegistry());
+        AtomicInteger disabledLoads = new AtomicInteger();
+        disabled.get(MARCH_10, 1L, counting(disabledLoads, 1L));
+        disabled.get(MARCH_10, 1L, counting(disabledLoads, 1L));
+        disabled.invalidateAll();
+        assertEquals(2, disabledLoads.get());
+    }
+}
@@ -0,0 +1,153 @@
+package com.localledger.service;
+
+import com.localledger.dto.ProfitSummary;
+import com.localledger.dto.TradeLine;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.TradeRecordRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProfitService 单元测试
+ * 覆盖已实现盈亏的计算、按维度汇总以及缓存失效
+ */
+@ExtendWith(MockitoExtension.class)
+class ProfitServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private DimensionCache dimensionCache;
+
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @InjectMocks
+    private ProfitService profitService;
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(Long id, String symbol, AssetType assetType, TradeType tradeType,
+                                    int quantity, String amount, LocalDate tradeDate) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setSymbol(symbol);
+        record.setName("特斯拉");
+        record.setUnderlyingSymbol("TSLA");
+        record.setAssetType(assetType);
+        record.setCurrency(Currency.USD);
+        record.setTradeType(tradeType);
+        record.setQuantity(quantity);
+        record.setPrice(BigDecimal.ZERO);
+        record.setAmount(new BigDecimal(amount));
+        record.setFee(BigDecimal.ZERO);
+        record.setBrokerId(1L);
+        record.setTradeDate(tradeDate);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    private static Stream<TradeLine> lines(TradeRecord... records) {
+        return Stream.of(records).map(TradeLine::of);
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("正股买入后部分卖出 - 按移动加权平均成本计算已实现盈亏")
+    void stockPartialSell_shouldRealizeAgainstAverageCost() {
+        TradeRecord buy1 = buildRecord(1L, "TSLA", AssetType.STOCK, TradeType.BUY, 100, "20000.00", LocalDate.of(2025, 1, 10));
+        TradeRecord buy2 = buildRecord(2L, "TSLA", AssetType.STOCK, TradeType.BUY, 100, "30000.00", LocalDate.of(2025, 1, 20));
+        TradeRecord sell = buildRecord(3L, "TSLA", AssetType.STOCK, TradeType.SELL, 50, "15000.00", LocalDate.of(2025, 2, 10));
+        sell.setFee(new BigDecimal("1.50"));
+
+        when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(0L);
+        when(tradeRecordRepository.streamAllLines()).thenReturn(lines(buy1, buy2, sell));
+
+        List<ProfitSummary> result = profitService.getProfitBySymbol(null, null);
+
+        // 平均成本 250，卖出 50 股 @300 → 已实现盈亏 2500
+        assertEquals(1, result.size());
+        assertEquals("TSLA", result.get(0).getUnderlyingSymbol());
+        assertEquals(new BigDecimal("2500.00"), result.get(0).getRealizedProfit());
+        assertEquals(new BigDecimal("1.50"), result.get(0).getTotalFee());
+        assertEquals(new BigDecimal("2498.50"), result.get(0).getNetProfit());
+        assertEquals(3, result.get(0).getTradeCount());
+        assertEquals(1, result.get(0).getClosedTradeCount());
+    }
+
+    @Test
+    @DisplayName("卖出开仓的期权到期 - 权利金计入底层证券的已实现盈亏")
+    void shortOptionExpired_shouldRollUpPremiumToUnderlying() {
+        // 卖出 2 张 PUT，权利金 2 × 3.5 × 100 = 700
+        TradeRecord sellPut = buildRecord(1L, "TSLA 250321P200", AssetType.OPTION_PUT, TradeType.SELL, 2, "700.00", LocalDate.of(2025, 3, 1));
+        TradeRecord expire = buildRecord(2L, "TSLA 250321P200", AssetType.OPTION_PUT, TradeType.BUY, 2, "0.00", LocalDate.of(2025, 3, 21));
+        expire.setTradeTrigger(TradeTrigger.OPTION);
+        expire.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
+        TradeRecord stockBuy = buildRecord(3L, "TSLA", AssetType.STOCK, TradeType.BUY, 10, "2000.00", LocalDate.of(2025, 3, 22));
+
+        when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(0L);
+        when(tradeRecordRepository.streamAllLines())
+                .thenReturn(lines(sellPut, expire, stockBuy));
+
+        List<ProfitSummary> result = profitService.getProfitBySymbol(null, null);
+
+        assertEquals(1, result.size());
+        assertEquals(new BigDecimal("700.00"), result.get(0).getRealizedProfit());
+        assertEquals(1, result.get(0).getClosedTradeCount());
+    }
+
+    @Test
+    @DisplayName("数据版本未变化 - 复用缓存不重新读取交易记录；版本变化后重建")
+    void cache_shouldFollowDataVersion() {
+        TradeRecord buy = buildRecord(1L, "TSLA", AssetType.STOCK, TradeType.BUY, 10, "2000.00", LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "TSLA", AssetType.STOCK, TradeType.SELL, 10, "2500.00", LocalDate.of(2025, 2, 10));
+        when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(0L, 0L, 1L);
+        when(tradeRecordRepository.streamAllLines())
+                .thenReturn(lines(buy, sell))
+                .thenReturn(lines(buy));
+
+        assertEquals(new BigDecimal("500.00"), profitService.getProfitBySymbol(null, null).get(0).getRealizedProfit());
+        assertEquals(new BigDecimal("500.00"), profitService.getProfitBySymbol(null, null).get(0).getRealizedProfit());
+        assertEquals(new BigDecimal("0.00"), profitService.getProfitBySymbol(null, null).get(0).getRealizedProfit());
+
+        verify(tradeRecordRepository, times(2)).streamAllLines();
+    }
+
+    @Test
+    @DisplayName("按策略汇总 - 盈亏归属于平仓交易的策略，日期区间按平仓日期过滤")
+    void byStrategy_shouldAttributeToClosingTradeAndFilterDates() {
+        TradeRecord buy = buildRecord(1L, "TSLA", AssetType.STOCK, TradeType.BUY, 10, "2000.00", LocalDate.of(2025, 1, 10));
+        TradeRecord sell = buildRecord(2L, "TSLA", AssetType.STOCK, TradeType.SELL, 10, "2500.00", LocalDate.of(2025, 2, 10));
+        sell.setStrategyId(7L);
+
+        when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(0L);
+        when(tradeRecordRepository.streamAllLines()).thenReturn(lines(buy, sell));
+        when(dimensionCache.strategyNames()).thenReturn(Map.of(7L, "波段"));
+
+        List<ProfitSummary> result = profitService.getProfitByStrategy(LocalDate.of(2025, 2, 1), null);
+
+        assertEquals(1, result.size());
+        assertEquals(7L, result.get(0).getStrategyId());
+        assertEquals("波段", result.get(0).getName());
+        assertEquals(new BigDecimal("500.00"), result.get(0).getRealizedProfit());
+    }
+}
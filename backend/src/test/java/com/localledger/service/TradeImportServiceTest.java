@@ -0,0 +1,128 @@
+package com.localledger.service;
+
+import com.localledger.dto.TradeImportResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.TradeRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * TradeImportService 单元测试
+ * 覆盖 CSV 解析、整批校验、分段写入以及导入后的交易记录变动事件与级联重算
+ */
+@ExtendWith(MockitoExtension.class)
+class TradeImportServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private TradeRecordService tradeRecordService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private MarketEventProcessingService marketEventProcessingService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private TradeImportService tradeImportService;
+
+    private static final String HEADER =
+            "tradeDate,brokerId,assetType,symbol,name,underlyingSymbol,tradeType,quantity,price,fee,currency\n";
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("CSV 导入 - 按表头解析并批量写入，之后按 (symbol, brokerId) 发布变动事件并统一级联重算一次")
+    void importCsv_shouldSaveAndCascadeOnce() {
+        String csv = HEADER
+                + "2025-02-10,1,STOCK,AAPL,\"Apple, Inc\",AAPL,BUY,100,150.25,1.00,USD\n"
+                + "2025-01-15,1,STOCK,TSLA,特斯拉,TSLA,SELL,10,200,0,USD\n";
+
+        TradeImportResult result = tradeImportService.importCsv(csv);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(Arrays.asList("AAPL", "TSLA"), result.getAffectedSymbols());
+        assertEquals(LocalDate.of(2025, 1, 15), result.getEarliestTradeDate());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TradeRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(tradeRecordRepository).saveAll(captor.capture());
+        TradeRecord first = captor.getValue().get(0);
+        assertEquals("Apple, Inc", first.getName());
+        assertEquals(AssetType.STOCK, first.getAssetType());
+        assertEquals(new BigDecimal("150.25"), first.getPrice());
+        assertEquals(Currency.USD, first.getCurrency());
+        verify(tradeRecordService, times(2)).validateForCreate(any(TradeRecord.class));
+        verify(entityManager).flush();
+        verify(applicationEventPublisher).publishEvent(new TradeRecordsChangedEvent("AAPL", 1L, LocalDate.of(2025, 2, 10)));
+        verify(applicationEventPublisher).publishEvent(new TradeRecordsChangedEvent("TSLA", 1L, LocalDate.of(2025, 1, 15)));
+        verify(marketEventProcessingService).processTradeImport(Set.of("AAPL", "TSLA"), LocalDate.of(2025, 1, 15));
+    }
+
+    @Test
+    @DisplayName("任意一行校验失败 - 整批不写入，错误信息带行号")
+    void validationFailure_shouldRejectWholeBatch() {
+        String csv = HEADER
+                + "2025-02-10,1,STOCK,AAPL,苹果公司,AAPL,BUY,100,150.25,0,USD\n"
+                + "2025-02-11,9,STOCK,AAPL,苹果公司,AAPL,BUY,100,150.25,0,USD\n";
+        doAnswer(invocation -> {
+            TradeRecord record = invocation.getArgument(0);
+            if (record.getBrokerId() == 9L) {
+                throw new IllegalArgumentException("券商不存在, ID: 9");
+            }
+            return null;
+        }).when(tradeRecordService).validateForCreate(any(TradeRecord.class));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> tradeImportService.importCsv(csv));
+
+        assertTrue(e.getMessage().contains("第 3 行: 券商不存在, ID: 9"));
+        verify(tradeRecordRepository, never()).saveAll(any());
+        verifyNoInteractions(applicationEventPublisher, marketEventProcessingService);
+    }
+
+    @Test
+    @DisplayName("CSV 格式错误 - 缺少必填列或字段格式错误应拒绝")
+    void malformedCsv_shouldBeRejected() {
+        IllegalArgumentException missingColumn = assertThrows(IllegalArgumentException.class,
+                () -> tradeImportService.importCsv("tradeDate,brokerId,symbol\n2025-01-01,1,AAPL\n"));
+        assertTrue(missingColumn.getMessage().contains("CSV 缺少必填列"));
+
+        IllegalArgumentException badValue = assertThrows(IllegalArgumentException.class,
+                () -> tradeImportService.importCsv(HEADER + "2025-13-01,1,STOCK,AAPL,,AAPL,BUY,100,1,0,USD\n"));
+        assertTrue(badValue.getMessage().contains("第 2 行: tradeDate 格式错误"));
+        verify(tradeRecordRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("CSV 解析 - 支持 BOM、CRLF、引号内的逗号、换行和转义双引号，忽略空行")
+    void parseCsv_shouldHandleQuotedFields() {
+        List<String[]> rows = TradeImportService.parseCsv("\uFEFFa,b\r\n\"x, \"\"y\"\"\",\"line1\nline2\"\r\n\r\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"a", "b"}, rows.get(0));
+        assertArrayEquals(new String[]{"x, \"y\"", "line1\nline2"}, rows.get(1));
+    }
+}
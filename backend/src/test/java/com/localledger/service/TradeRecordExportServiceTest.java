@@ -0,0 +1,117 @@
+package com.localledger.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import com.localledger.repository.TradeRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TradeRecordExportService 单元测试
+ * 覆盖 JSONL / CSV 两种格式的逐行写出、CSV 字段转义以及导出格式解析
+ */
+@ExtendWith(MockitoExtension.class)
+class TradeRecordExportServiceTest {
+
+    @Mock
+    private TradeRecordRepository tradeRecordRepository;
+
+    @Mock
+    private DimensionCache dimensionCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private TradeRecordExportService tradeRecordExportService;
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(Long id, String symbol, String name) {
+        TradeRecord record = new TradeRecord();
+        record.setId(id);
+        record.setSymbol(symbol);
+        record.setName(name);
+        record.setUnderlyingSymbol(symbol);
+        record.setAssetType(AssetType.STOCK);
+        record.setCurrency(Currency.USD);
+        record.setTradeType(TradeType.BUY);
+        record.setQuantity(10);
+        record.setPrice(new BigDecimal("150.2500"));
+        record.setAmount(new BigDecimal("1502.50"));
+        record.setFee(new BigDecimal("1.00"));
+        record.setBrokerId(1L);
+        record.setTradeDate(LocalDate.of(2025, 1, 10));
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        record.setIsDeleted(false);
+        return record;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("JSONL 导出 - 每条记录一行，写出后从持久化上下文移除")
+    void exportJsonLines_shouldWriteOneLinePerRecord() throws Exception {
+        TradeRecord first = buildRecord(1L, "AAPL", "苹果公司");
+        TradeRecord second = buildRecord(2L, "TSLA", "特斯拉");
+        when(tradeRecordRepository.streamByIsDeletedFalseOrderByTradeDateAscIdAsc()).thenReturn(Stream.of(first, second));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long count = tradeRecordExportService.export(TradeRecordExportService.Format.JSONL, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertEquals("AAPL", objectMapper.readTree(lines[0]).get("symbol").asText());
+        assertEquals("TSLA", objectMapper.readTree(lines[1]).get("symbol").asText());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    @DisplayName("CSV 导出 - 带表头和券商名称，含逗号和引号的字段应转义")
+    void exportCsv_shouldEscapeFieldsAndResolveNames() throws Exception {
+        TradeRecord record = buildRecord(1L, "BRK.B", "Berkshire \"B\", Inc");
+        when(tradeRecordRepository.streamByIsDeletedFalseOrderByTradeDateAscIdAsc()).thenReturn(Stream.of(record));
+        when(dimensionCache.brokerName(1L)).thenReturn("盈透证券");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tradeRecordExportService.export(TradeRecordExportService.Format.CSV, output);
+
+        String content = output.toString(StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("\uFEFFid,tradeDate,brokerId,brokerName,"));
+        String[] lines = content.split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals("1,2025-01-10,1,盈透证券,STOCK,BRK.B,\"Berkshire \"\"B\"\", Inc\",BRK.B,BUY,10,150.2500,1502.50,1.00,USD,,,MANUAL,NONE,0",
+                lines[1]);
+    }
+
+    @Test
+    @DisplayName("导出格式解析 - 默认 JSONL，不支持的格式应抛出异常")
+    void parseFormat_shouldDefaultToJsonLinesAndRejectUnknown() {
+        assertEquals(TradeRecordExportService.Format.JSONL, TradeRecordExportService.Format.parse(null));
+        assertEquals(TradeRecordExportService.Format.CSV, TradeRecordExportService.Format.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> TradeRecordExportService.Format.parse("xlsx"));
+    }
+}
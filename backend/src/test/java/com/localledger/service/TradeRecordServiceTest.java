@@ -1,9 +1,10 @@
 package com.localledger.service;
 
+import com.localledger.dto.TradeRecordPage;
+import com.localledger.dto.TradeRecordQuery;
+import com.localledger.dto.TradeStatistics;
 import com.localledger.entity.TradeRecord;
 import com.localledger.entity.enums.*;
-import com.localledger.repository.BrokerRepository;
-import com.localledger.repository.StrategyRepository;
 import com.localledger.repository.TradeRecordRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,9 +13,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,10 +39,16 @@ class TradeRecordServiceTest {
     private TradeRecordRepository tradeRecordRepository;
 
     @Mock
-    private BrokerRepository brokerRepository;
+    private DimensionCache dimensionCache;
 
     @Mock
-    private StrategyRepository strategyRepository;
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private CurrencyConversionService currencyConversionService;
 
     @InjectMocks
     private TradeRecordService tradeRecordService;
@@ -83,7 +96,7 @@ class TradeRecordServiceTest {
         @DisplayName("创建合法的股票记录 - 应成功并自动计算金额")
         void createValidStockRecord_shouldCalculateAmount() {
             TradeRecord record = buildValidStockRecord();
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
             when(tradeRecordRepository.save(any(TradeRecord.class))).thenAnswer(i -> i.getArgument(0));
 
             TradeRecord result = tradeRecordService.create(record);
@@ -100,7 +113,7 @@ class TradeRecordServiceTest {
         @DisplayName("创建期权记录 - 金额应乘以100（合约乘数）")
         void createOptionRecord_shouldMultiplyBy100() {
             TradeRecord record = buildValidOptionRecord();
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
             when(tradeRecordRepository.save(any(TradeRecord.class))).thenAnswer(i -> i.getArgument(0));
 
             TradeRecord result = tradeRecordService.create(record);
@@ -113,7 +126,7 @@ class TradeRecordServiceTest {
         @DisplayName("券商不存在 - 应抛出异常")
         void createWithNonExistentBroker_shouldThrow() {
             TradeRecord record = buildValidStockRecord();
-            when(brokerRepository.existsById(1L)).thenReturn(false);
+            when(dimensionCache.brokerExists(1L)).thenReturn(false);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -126,7 +139,7 @@ class TradeRecordServiceTest {
         void createWithEmptyUnderlyingSymbol_shouldThrow() {
             TradeRecord record = buildValidStockRecord();
             record.setUnderlyingSymbol("");
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -139,7 +152,7 @@ class TradeRecordServiceTest {
         void createWithZeroQuantity_shouldThrow() {
             TradeRecord record = buildValidStockRecord();
             record.setQuantity(0);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -152,7 +165,7 @@ class TradeRecordServiceTest {
         void createWithNegativePrice_shouldThrow() {
             TradeRecord record = buildValidStockRecord();
             record.setPrice(new BigDecimal("-1.00"));
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -165,8 +178,8 @@ class TradeRecordServiceTest {
         void createWithNonExistentStrategy_shouldThrow() {
             TradeRecord record = buildValidStockRecord();
             record.setStrategyId(999L);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
-            when(strategyRepository.existsById(999L)).thenReturn(false);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
+            when(dimensionCache.strategyExists(999L)).thenReturn(false);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -189,7 +202,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.MANUAL);
             record.setTriggerRefId(0L);
             record.setTriggerRefType(TriggerRefType.NONE);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
             when(tradeRecordRepository.save(any(TradeRecord.class))).thenAnswer(i -> i.getArgument(0));
 
             assertDoesNotThrow(() -> tradeRecordService.create(record));
@@ -202,7 +215,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.MANUAL);
             record.setTriggerRefId(100L);
             record.setTriggerRefType(TriggerRefType.NONE);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -217,7 +230,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.MARKET_EVENT);
             record.setTriggerRefId(0L);
             record.setTriggerRefType(TriggerRefType.STOCK_SPLIT);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -232,7 +245,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.MARKET_EVENT);
             record.setTriggerRefId(1L);
             record.setTriggerRefType(TriggerRefType.NONE);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -247,7 +260,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.MARKET_EVENT);
             record.setTriggerRefId(1L);
             record.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -261,7 +274,7 @@ class TradeRecordServiceTest {
             TradeRecord record = buildValidStockRecord();
             record.setTradeTrigger(TradeTrigger.OPTION);
             record.setTriggerRefType(TriggerRefType.STOCK_SPLIT);
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -276,7 +289,7 @@ class TradeRecordServiceTest {
             record.setTradeTrigger(TradeTrigger.OPTION);
             record.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
             record.setPrice(new BigDecimal("1.00"));
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
 
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                     () -> tradeRecordService.create(record));
@@ -305,6 +318,7 @@ class TradeRecordServiceTest {
 
             assertTrue(record.getIsDeleted());
             verify(tradeRecordRepository).save(record);
+            verify(applicationEventPublisher).publishEvent(new TradeRecordsChangedEvent("AAPL", 1L, LocalDate.of(2025, 3, 10)));
         }
 
         @Test
@@ -342,13 +356,14 @@ class TradeRecordServiceTest {
             updateData.setPrice(new BigDecimal("160.00")); // 修改价格
 
             when(tradeRecordRepository.findById(1L)).thenReturn(Optional.of(existing));
-            when(brokerRepository.existsById(1L)).thenReturn(true);
+            when(dimensionCache.brokerExists(1L)).thenReturn(true);
             when(tradeRecordRepository.save(any(TradeRecord.class))).thenAnswer(i -> i.getArgument(0));
 
             TradeRecord result = tradeRecordService.update(1L, updateData);
 
             // 金额 = 200 * 160.00 = 32000.00
             assertEquals(0, new BigDecimal("32000.00").compareTo(result.getAmount()));
+            verify(applicationEventPublisher).publishEvent(new TradeRecordsChangedEvent("AAPL", 1L, LocalDate.of(2025, 3, 10)));
         }
 
         @Test
@@ -362,4 +377,143 @@ class TradeRecordServiceTest {
             assertTrue(ex.getMessage().contains("交易记录不存在"));
         }
     }
+
+    // ========================================================
+    // 统计数据测试
+    // ========================================================
+    @Nested
+    @DisplayName("统计数据")
+    class StatisticsTest {
+
+        @Test
+        @DisplayName("统计数据 - 一次聚合查询 + 数据库端截断 Top 10，数据版本不变时复用结果")
+        void getStatistics_shouldUseAggregateQueryAndCache() {
+            TradeRecordRepository.StatisticsRow row = mock(TradeRecordRepository.StatisticsRow.class);
+            when(row.getTotalCount()).thenReturn(12L);
+            when(row.getStockCount()).thenReturn(8L);
+            when(row.getOptionCallCount()).thenReturn(2L);
+            when(row.getOptionPutCount()).thenReturn(1L);
+            when(row.getEtfCount()).thenReturn(1L);
+            when(row.getTotalFeeUSD()).thenReturn(new BigDecimal("12.50"));
+            when(row.getTotalFeeCNY()).thenReturn(BigDecimal.ZERO);
+            when(row.getTotalFeeHKD()).thenReturn(new BigDecimal("30.00"));
+            when(row.getDistinctSymbolCount()).thenReturn(3L);
+            List<Object[]> top = Collections.singletonList(new Object[]{"AAPL", 6L});
+            when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(5L);
+            when(tradeRecordRepository.aggregateStatistics()).thenReturn(row);
+            when(tradeRecordRepository.findTopTradedSymbols(PageRequest.of(0, 10))).thenReturn(top);
+
+            TradeStatistics stats = tradeRecordService.getStatistics();
+            TradeStatistics again = tradeRecordService.getStatistics();
+
+            assertEquals(12L, stats.getTotalCount());
+            assertEquals(8L, stats.getStockCount());
+            assertEquals(new BigDecimal("30.00"), stats.getTotalFeeHKD());
+            assertEquals(3L, stats.getDistinctSymbolCount());
+            assertEquals("AAPL", stats.getTopSymbols().get(0).get("symbol"));
+            assertEquals(6L, stats.getTopSymbols().get(0).get("count"));
+            assertSame(stats, again);
+            verify(tradeRecordRepository, times(1)).aggregateStatistics();
+        }
+
+        @Test
+        @DisplayName("按本位币统计 - 手续费按 (币种, 交易日期) 汇总一次后折算，不修改缓存的统计结果")
+        void getStatistics_withBaseCurrency_shouldConvertDailyFees() {
+            TradeRecordRepository.StatisticsRow row = mock(TradeRecordRepository.StatisticsRow.class);
+            when(row.getTotalFeeUSD()).thenReturn(new BigDecimal("12.50"));
+            List<Object[]> dailyFees = List.of(
+                    new Object[]{Currency.USD, LocalDate.of(2025, 3, 10), new BigDecimal("12.50")},
+                    new Object[]{Currency.HKD, LocalDate.of(2025, 3, 11), new BigDecimal("30.00")});
+            when(dataVersionTracker.current(DataVersionTracker.TRADE_RECORDS)).thenReturn(5L);
+            when(tradeRecordRepository.aggregateStatistics()).thenReturn(row);
+            when(tradeRecordRepository.findTopTradedSymbols(PageRequest.of(0, 10))).thenReturn(Collections.emptyList());
+            when(tradeRecordRepository.sumFeesByCurrencyAndTradeDate()).thenReturn(dailyFees);
+            List<CurrencyConversionService.DatedAmount> expected = List.of(
+                    new CurrencyConversionService.DatedAmount(Currency.USD, LocalDate.of(2025, 3, 10), new BigDecimal("12.50")),
+                    new CurrencyConversionService.DatedAmount(Currency.HKD, LocalDate.of(2025, 3, 11), new BigDecimal("30.00")));
+            when(currencyConversionService.sum(expected, Currency.CNY)).thenReturn(new BigDecimal("117.45"));
+
+            TradeStatistics converted = tradeRecordService.getStatistics(Currency.CNY);
+            TradeStatistics again = tradeRecordService.getStatistics(Currency.CNY);
+            TradeStatistics plain = tradeRecordService.getStatistics();
+
+            assertEquals(Currency.CNY, converted.getBaseCurrency());
+            assertEquals(new BigDecimal("117.45"), converted.getTotalFee());
+            assertEquals(new BigDecimal("12.50"), converted.getTotalFeeUSD());
+            assertEquals(new BigDecimal("117.45"), again.getTotalFee());
+            assertNull(plain.getBaseCurrency());
+            assertNull(plain.getTotalFee());
+            verify(tradeRecordRepository, times(1)).sumFeesByCurrencyAndTradeDate();
+        }
+    }
+
+    // ========================================================
+    // 分页查询测试
+    // ========================================================
+    @Nested
+    @DisplayName("分页查询")
+    class QueryTest {
+
+        private TradeRecord recordOf(Long id, LocalDate tradeDate) {
+            TradeRecord record = buildValidStockRecord();
+            record.setId(id);
+            record.setTradeDate(tradeDate);
+            return record;
+        }
+
+        @Test
+        @DisplayName("多读一条判断下一页 - 返回 size 条记录和最后一条记录的游标")
+        @SuppressWarnings("unchecked")
+        void query_shouldReturnPageWithNextCursor() {
+            TradeRecordQuery query = new TradeRecordQuery();
+            query.setSize(2);
+            query.setIncludeTotal(true);
+            List<TradeRecord> rows = Arrays.asList(
+                    recordOf(30L, LocalDate.of(2025, 3, 10)),
+                    recordOf(20L, LocalDate.of(2025, 3, 10)),
+                    recordOf(10L, LocalDate.of(2025, 3, 9)));
+            when(tradeRecordRepository.findBy(any(Specification.class), any())).thenReturn(rows);
+            when(tradeRecordRepository.count(any(Specification.class))).thenReturn(3L);
+
+            TradeRecordPage page = tradeRecordService.query(query);
+
+            assertEquals(2, page.getItems().size());
+            assertTrue(page.isHasMore());
+            assertEquals(LocalDate.of(2025, 3, 10), page.getNextCursorDate());
+            assertEquals(20L, page.getNextCursorId());
+            assertEquals(3L, page.getTotalCount());
+        }
+
+        @Test
+        @DisplayName("最后一页 - 没有下一页游标，未要求时不统计总数")
+        @SuppressWarnings("unchecked")
+        void lastPage_shouldHaveNoCursorAndSkipCount() {
+            TradeRecordQuery query = new TradeRecordQuery();
+            query.setSize(2);
+            query.setCursorDate(LocalDate.of(2025, 3, 10));
+            query.setCursorId(20L);
+            when(tradeRecordRepository.findBy(any(Specification.class), any()))
+                    .thenReturn(Collections.singletonList(recordOf(10L, LocalDate.of(2025, 3, 9))));
+
+            TradeRecordPage page = tradeRecordService.query(query);
+
+            assertEquals(1, page.getItems().size());
+            assertFalse(page.isHasMore());
+            assertNull(page.getNextCursorDate());
+            assertNull(page.getTotalCount());
+            verify(tradeRecordRepository, never()).count(any(Specification.class));
+        }
+
+        @Test
+        @DisplayName("游标只传一半 - 应抛出异常")
+        void incompleteCursor_shouldThrow() {
+            TradeRecordQuery query = new TradeRecordQuery();
+            query.setCursorDate(LocalDate.of(2025, 3, 10));
+
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> tradeRecordService.query(query));
+
+            assertTrue(ex.getMessage().contains("cursorId"));
+        }
+    }
 }
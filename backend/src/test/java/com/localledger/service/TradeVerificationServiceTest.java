@@ -1,28 +1,44 @@
 package com.localledger.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.localledger.dto.TradeVerificationResult;
 import com.localledger.entity.TradeRecord;
+import com.localledger.entity.TradeVerificationCheck;
 import com.localledger.entity.enums.*;
 import com.localledger.repository.TradeRecordRepository;
+import com.localledger.repository.TradeVerificationCheckRepository;
+import com.localledger.service.verification.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 /**
  * TradeVerificationService 单元测试
- * 覆盖所有6条核对规则的正常与异常场景
+ * 覆盖所有6条核对规则的正常与异常场景、超过单个分段大小时的并行分段核对，
+ * 基于已保存核对结果的增量核对、由数据库筛选可疑记录的下推核对，以及核对耗时指标
  */
 @ExtendWith(MockitoExtension.class)
 class TradeVerificationServiceTest {
@@ -30,6 +46,27 @@ class TradeVerificationServiceTest {
     @Mock
     private TradeRecordRepository tradeRecordRepository;
 
+    @Mock
+    private TradeVerificationCheckRepository tradeVerificationCheckRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private List<VerificationRule> rules = new ArrayList<>(Arrays.asList(
+            new OptionSymbolFormatRule(),
+            new HkStockSymbolFormatRule(),
+            new OptionTriggerFeePriceRule(),
+            new UsStockSymbolFormatRule(),
+            new SymbolAssetTypeConsistencyRule(),
+            new TriggerRefTypeConsistencyRule()));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TradeVerificationService tradeVerificationService;
 
@@ -609,5 +646,208 @@ class TradeVerificationServiceTest {
             assertEquals(3, result.getTotalChecked());
             assertTrue(result.getErrorCount() >= 2);
         }
+
+        @Test
+        @DisplayName("记录数超过分段大小 - 分段并行核对，跨分段的类别冲突应检出且异常按记录顺序排列")
+        void recordsAcrossChunks_shouldMergeInRecordOrder() {
+            int total = TradeVerificationService.VERIFY_CHUNK_SIZE * 3 + 7;
+            List<TradeRecord> records = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                records.add(buildBaseRecord((long) i, "AAPL", "AAPL", AssetType.STOCK, Currency.USD));
+            }
+            // 第一段中一条美股代码含数字，最后一段中 QQQ 与第一段的 QQQ 类别冲突
+            records.get(1).setSymbol("AAPL1");
+            records.set(2, buildBaseRecord(2L, "QQQ", "QQQ", AssetType.ETF, Currency.USD));
+            records.set(total - 1, buildBaseRecord((long) (total - 1), "QQQ", "QQQ", AssetType.STOCK, Currency.USD));
+            when(tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc()).thenReturn(records);
+
+            TradeVerificationResult result = tradeVerificationService.verifyAll();
+
+            assertEquals(total, result.getTotalChecked());
+            assertEquals(3, result.getErrorCount());
+            assertEquals("美股证券代码格式", result.getErrors().get(0).getRuleName());
+            assertEquals(1L, result.getErrors().get(0).getRecordId());
+            assertEquals("证券代码类别一致性", result.getErrors().get(1).getRuleName());
+            assertEquals(2L, result.getErrors().get(1).getRecordId());
+            assertEquals((long) (total - 1), result.getErrors().get(2).getRecordId());
+        }
+    }
+
+    // ========================================================
+    // 增量核对
+    // ========================================================
+    @Nested
+    @DisplayName("增量核对")
+    class IncrementalVerificationTest {
+
+        private TradeVerificationCheck buildCheck(Long recordId, String recordErrors, String aggregateErrors) {
+            TradeVerificationCheck check = new TradeVerificationCheck();
+            check.setRecordId(recordId);
+            check.setRecordErrors(recordErrors);
+            check.setAggregateErrors(aggregateErrors);
+            return check;
+        }
+
+        @Test
+        @DisplayName("首次核对 - 全部核对并保存每条记录的核对结果")
+        void firstRun_shouldVerifyAllAndSaveChecks() {
+            TradeRecord valid = buildBaseRecord(70L, "AAPL", "AAPL", AssetType.STOCK, Currency.USD);
+            valid.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 0));
+            TradeRecord invalid = buildBaseRecord(71L, "AAPL1", "AAPL1", AssetType.STOCK, Currency.USD);
+            when(tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc()).thenReturn(Arrays.asList(valid, invalid));
+
+            TradeVerificationResult result = tradeVerificationService.verifyAll();
+
+            assertEquals(2, result.getRecheckedCount());
+            assertEquals(1, result.getErrorCount());
+            verify(tradeVerificationCheckRepository).deleteAllInBatch();
+            ArgumentCaptor<TradeVerificationCheck> captor = ArgumentCaptor.forClass(TradeVerificationCheck.class);
+            verify(entityManager, times(2)).persist(captor.capture());
+            TradeVerificationCheck validCheck = captor.getAllValues().get(0);
+            assertEquals(70L, validCheck.getRecordId());
+            assertEquals(tradeVerificationService.ruleVersion(), validCheck.getRuleVersion());
+            assertEquals(LocalDateTime.of(2025, 3, 1, 10, 0), validCheck.getRecordUpdatedAt());
+            assertNull(validCheck.getRecordErrors());
+            assertTrue(captor.getAllValues().get(1).getRecordErrors().contains("美股证券代码格式"));
+            // 退化为全量核对时只按 incremental 计一次
+            assertEquals(1, meterRegistry.get(TradeVerificationService.METRIC_VERIFICATION)
+                    .tag("mode", "incremental").timer().count());
+            assertNull(meterRegistry.find(TradeVerificationService.METRIC_VERIFICATION).tag("mode", "full").timer());
+            assertEquals(2.0, meterRegistry.get(TradeVerificationService.METRIC_RECHECKED)
+                    .tag("mode", "incremental").counter().count());
+        }
+
+        @Test
+        @DisplayName("没有变动的记录 - 不加载交易记录，直接返回已保存的核对结果")
+        void nothingStale_shouldServeStoredResults() throws Exception {
+            TradeVerificationResult.ErrorDetail recordError = new TradeVerificationResult.ErrorDetail(5L, "美股证券代码格式", "含数字");
+            TradeVerificationResult.ErrorDetail aggregateError = new TradeVerificationResult.ErrorDetail(6L, "证券代码类别一致性", "类别冲突");
+            String recordErrorsJson = objectMapper.writeValueAsString(List.of(recordError));
+            String aggregateErrorsJson = objectMapper.writeValueAsString(List.of(aggregateError));
+            when(tradeVerificationCheckRepository.countByRuleVersion(anyString())).thenReturn(10L);
+            when(tradeVerificationCheckRepository.findStaleRecordSymbols(anyString())).thenReturn(Collections.emptyList());
+            when(tradeVerificationCheckRepository.findStaleCheckSymbols(anyString())).thenReturn(Collections.emptyList());
+            when(tradeVerificationCheckRepository.findFailedOrderByRecordIdDesc()).thenReturn(Arrays.asList(
+                    buildCheck(6L, null, aggregateErrorsJson),
+                    buildCheck(5L, recordErrorsJson, null)));
+            when(tradeRecordRepository.countByIsDeletedFalse()).thenReturn(10L);
+
+            TradeVerificationResult result = tradeVerificationService.verifyAll();
+
+            assertFalse(result.isPassed());
+            assertEquals(10, result.getTotalChecked());
+            assertEquals(0, result.getRecheckedCount());
+            assertEquals(2, result.getErrorCount());
+            // 逐条规则异常在前，跨记录规则异常在后
+            assertEquals("美股证券代码格式", result.getErrors().get(0).getRuleName());
+            assertEquals("证券代码类别一致性", result.getErrors().get(1).getRuleName());
+            verify(tradeRecordRepository, never()).findByIsDeletedFalseOrderByIdDesc();
+            verify(tradeRecordRepository, never()).findByUpperSymbolInOrderByIdDesc(any());
+            verify(tradeVerificationCheckRepository, never()).deleteOrphans();
+            verifyNoInteractions(entityManager);
+        }
+
+        @Test
+        @DisplayName("记录被修改 - 只重新核对修改前后证券代码组内的记录")
+        void staleRecord_shouldRecheckOnlyTouchedSymbols() {
+            // 记录 2 由 SPY 改为 QQQ（ETF），与已有的 QQQ（STOCK）记录 1 冲突
+            TradeRecord r1 = buildBaseRecord(1L, "QQQ", "QQQ", AssetType.STOCK, Currency.USD);
+            TradeRecord r2 = buildBaseRecord(2L, "QQQ", "QQQ", AssetType.ETF, Currency.USD);
+            when(tradeVerificationCheckRepository.countByRuleVersion(anyString())).thenReturn(100L);
+            when(tradeVerificationCheckRepository.findStaleRecordSymbols(anyString())).thenReturn(List.of("QQQ"));
+            when(tradeVerificationCheckRepository.findStaleCheckSymbols(anyString())).thenReturn(List.of("SPY"));
+            when(tradeRecordRepository.findByUpperSymbolInOrderByIdDesc(List.of("QQQ", "SPY"))).thenReturn(Arrays.asList(r2, r1));
+            List<TradeVerificationCheck> saved = new ArrayList<>();
+            doAnswer(invocation -> saved.add(invocation.getArgument(0))).when(entityManager).persist(any(TradeVerificationCheck.class));
+            when(tradeVerificationCheckRepository.findFailedOrderByRecordIdDesc()).thenAnswer(invocation -> saved);
+            when(tradeRecordRepository.countByIsDeletedFalse()).thenReturn(100L);
+
+            TradeVerificationResult result = tradeVerificationService.verifyAll();
+
+            assertEquals(100, result.getTotalChecked());
+            assertEquals(2, result.getRecheckedCount());
+            assertEquals(2, result.getErrorCount());
+            assertEquals(2L, result.getErrors().get(0).getRecordId());
+            assertEquals("证券代码类别一致性", result.getErrors().get(0).getRuleName());
+            verify(tradeVerificationCheckRepository).deleteOrphans();
+            verify(tradeVerificationCheckRepository).deleteByRecordIdIn(List.of(2L, 1L));
+            verify(tradeVerificationCheckRepository, never()).deleteAllInBatch();
+            verify(tradeRecordRepository, never()).findByIsDeletedFalseOrderByIdDesc();
+        }
+
+        @Test
+        @DisplayName("规则版本 - 规则集或规则版本号变化时版本随之变化")
+        void ruleVersion_shouldChangeWithRuleSet() {
+            String before = tradeVerificationService.ruleVersion();
+            assertEquals(before, tradeVerificationService.ruleVersion());
+
+            rules.set(0, new OptionSymbolFormatRule() {
+                @Override
+                public int getVersion() {
+                    return 2;
+                }
+            });
+
+            assertNotEquals(before, tradeVerificationService.ruleVersion());
+        }
+    }
+
+    // ========================================================
+    // 下推核对
+    // ========================================================
+    @Nested
+    @DisplayName("下推核对")
+    class PushdownVerificationTest {
+
+        @Test
+        @DisplayName("全部规则支持下推 - 只加载数据库筛选出的可疑记录")
+        void pushdown_shouldLoadOnlySuspectRecords() {
+            TradeRecord r3 = buildBaseRecord(3L, "AAPL1", "AAPL1", AssetType.STOCK, Currency.USD);
+            TradeRecord r8 = buildBaseRecord(8L, "TENCENT", "TENCENT", AssetType.STOCK, Currency.HKD);
+            Query query = mock(Query.class);
+            when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+            when(query.getResultList()).thenReturn(Arrays.asList(3L, 8L));
+            when(tradeRecordRepository.findAllById(List.of(3L, 8L))).thenReturn(Arrays.asList(r3, r8));
+            when(tradeRecordRepository.countByIsDeletedFalse()).thenReturn(50L);
+
+            TradeVerificationResult result = tradeVerificationService.verifyPushdown();
+
+            assertEquals(50, result.getTotalChecked());
+            assertEquals(2, result.getRecheckedCount());
+            assertEquals(2, result.getErrorCount());
+            assertEquals(8L, result.getErrors().get(0).getRecordId());
+            assertEquals(3L, result.getErrors().get(1).getRecordId());
+            ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+            verify(entityManager).createNativeQuery(sql.capture());
+            assertEquals(rules.size(), sql.getValue().split(" UNION ").length);
+            for (VerificationRule rule : rules) {
+                assertTrue(((SqlPushdownRule) rule).suspectRecordSql().contains("is_deleted = false"));
+            }
+            verify(tradeRecordRepository, never()).findByIsDeletedFalseOrderByIdDesc();
+            verifyNoInteractions(tradeVerificationCheckRepository);
+        }
+
+        @Test
+        @DisplayName("存在不支持下推的规则 - 退化为加载全部记录核对")
+        void ruleWithoutPushdown_shouldVerifyAllRecords() {
+            rules.add(new RecordVerificationRule() {
+                @Override
+                public String getRuleName() {
+                    return "自定义规则";
+                }
+
+                @Override
+                public void verify(TradeRecord record, List<TradeVerificationResult.ErrorDetail> errors) {
+                }
+            });
+            TradeRecord record = buildBaseRecord(1L, "AAPL", "AAPL", AssetType.STOCK, Currency.USD);
+            when(tradeRecordRepository.findByIsDeletedFalseOrderByIdDesc()).thenReturn(Collections.singletonList(record));
+
+            TradeVerificationResult result = tradeVerificationService.verifyPushdown();
+
+            assertTrue(result.isPassed());
+            assertEquals(1, result.getRecheckedCount());
+            verifyNoInteractions(entityManager);
+        }
     }
 }
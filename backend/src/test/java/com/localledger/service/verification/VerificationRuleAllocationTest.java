@@ -0,0 +1,131 @@
+package com.localledger.service.verification;
+
+import com.localledger.dto.TradeVerificationResult;
+import com.localledger.entity.TradeRecord;
+import com.localledger.entity.enums.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 核对规则快速路径单元测试
+ * 覆盖期权代码快速判定与正则判定的一致性，以及合法记录核对时不分配对象
+ */
+class VerificationRuleAllocationTest {
+
+    private final List<RecordVerificationRule> recordRules = Arrays.asList(
+            new OptionSymbolFormatRule(),
+            new HkStockSymbolFormatRule(),
+            new OptionTriggerFeePriceRule(),
+            new UsStockSymbolFormatRule(),
+            new TriggerRefTypeConsistencyRule());
+
+    private final SymbolAssetTypeConsistencyRule aggregateRule = new SymbolAssetTypeConsistencyRule();
+
+    // ============ 辅助方法 ============
+
+    private TradeRecord buildRecord(String symbol, String underlyingSymbol, AssetType assetType, Currency currency) {
+        TradeRecord record = new TradeRecord();
+        record.setId(1L);
+        record.setSymbol(symbol);
+        record.setUnderlyingSymbol(underlyingSymbol);
+        record.setAssetType(assetType);
+        record.setCurrency(currency);
+        record.setTradeDate(LocalDate.of(2025, 1, 15));
+        record.setTradeType(TradeType.BUY);
+        record.setQuantity(1);
+        record.setPrice(new BigDecimal("2.50"));
+        record.setFee(new BigDecimal("1.00"));
+        record.setBrokerId(1L);
+        record.setTradeTrigger(TradeTrigger.MANUAL);
+        record.setTriggerRefType(TriggerRefType.NONE);
+        record.setTriggerRefId(0L);
+        return record;
+    }
+
+    private List<TradeVerificationResult.ErrorDetail> verifyOption(String symbol, String underlyingSymbol) {
+        List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>();
+        new OptionSymbolFormatRule().verify(
+                buildRecord(symbol, underlyingSymbol, AssetType.OPTION_CALL, Currency.USD), errors);
+        return errors;
+    }
+
+    // ============ 测试用例 ============
+
+    @Test
+    @DisplayName("期权代码快速判定 - 与正则贪婪匹配一致，少见写法交给原有逻辑判断")
+    void optionSymbolFastPath_shouldMatchRegexSemantics() {
+        // 底层证券代码含 '-'：取最后一个满足结构的分隔位置
+        assertTrue(OptionSymbolFormatRule.isWellFormed("BRK-B-20250117-C210", "BRK-B", 'C'));
+        assertTrue(OptionSymbolFormatRule.isWellFormed("aapl-20250321-C17.5", "AAPL", 'C'));
+        assertTrue(OptionSymbolFormatRule.isWellFormed("AAPL-20240229-C.5", "AAPL", 'C'));
+        assertFalse(OptionSymbolFormatRule.isWellFormed("AAPL-20250321-P17.5", "AAPL", 'C'));
+        assertFalse(OptionSymbolFormatRule.isWellFormed("AAPL-20250321-C0", "AAPL", 'C'));
+        assertFalse(OptionSymbolFormatRule.isWellFormed("AAPL-20250321-C1e2", "AAPL", 'C'));
+
+        // 快速判定未通过时结果与原有逻辑一致：2 月 30 日按 yyyyMMdd 解析为当月最后一天，1e2 是合法的正数
+        assertTrue(verifyOption("TSLA-20250230-C210", "TSLA").isEmpty());
+        assertTrue(verifyOption("TSLA-20250117-C1e2", "TSLA").isEmpty());
+        assertEquals(1, verifyOption("TSLA-20250132-C210", "TSLA").size());
+        assertEquals(1, verifyOption("TSLA-20250117-C-5", "TSLA").size());
+        assertEquals(1, verifyOption("TSLA-20250117-C210", null).size());
+    }
+
+    @Test
+    @DisplayName("合法记录核对 - 每条记录几乎不分配对象")
+    void validRecords_shouldNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        TradeRecord expired = buildRecord("TSLA-20250117-P210", "TSLA", AssetType.OPTION_PUT, Currency.USD);
+        expired.setTradeTrigger(TradeTrigger.OPTION);
+        expired.setTriggerRefType(TriggerRefType.OPTION_EXPIRE);
+        expired.setPrice(BigDecimal.ZERO);
+        expired.setFee(BigDecimal.ZERO);
+        TradeRecord[] records = {
+                buildRecord("AAPL", "AAPL", AssetType.STOCK, Currency.USD),
+                buildRecord("00700", "00700", AssetType.STOCK, Currency.HKD),
+                buildRecord("BRK-B-20250117-C210.5", "BRK-B", AssetType.OPTION_CALL, Currency.USD),
+                expired
+        };
+        RecordVerificationRule[] rules = recordRules.toArray(new RecordVerificationRule[0]);
+        List<TradeVerificationResult.ErrorDetail> errors = new ArrayList<>();
+        Map<String, Set<AssetType>> accumulator = aggregateRule.newAccumulator();
+        for (TradeRecord record : records) {
+            aggregateRule.accumulate(accumulator, record);
+        }
+
+        int iterations = 200_000;
+        long allocated = 0;
+        for (int round = 0; round < 3; round++) {
+            long before = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < iterations; i++) {
+                TradeRecord record = records[i & 3];
+                for (RecordVerificationRule rule : rules) {
+                    rule.verify(record, errors);
+                }
+                aggregateRule.accumulate(accumulator, record);
+                aggregateRule.verify(record, accumulator, errors);
+            }
+            allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        }
+
+        assertTrue(errors.isEmpty());
+        double bytesPerRecord = (double) allocated / iterations;
+        assertTrue(bytesPerRecord < 1.0, "allocated bytes per record: " + bytesPerRecord);
+    }
+}
@@ -0,0 +1,108 @@
+#!/bin/bash
+# ============================================================
+# Local Ledger 合成数据生成脚本
+# 以 generate-data profile 启动后端，生成交易记录和市场事件并通过 COPY 写入数据库，完成后退出
+# 注意：数据只追加不清理，请在专用的测试库中使用
+# ============================================================
+
+set -e
+
+# ---------- 颜色定义 ----------
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# ---------- 路径定义 ----------
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+PROJECT_ROOT="$(cd "$SCRIPT_DIR/.." && pwd)"
+JAR_NAME="backend-1.0.0.jar"
+
+# ---------- 可选参数 ----------
+PROFILE="local"
+ARGS=()
+
+usage() {
+    echo -e "${CYAN}用法:${NC} $0 [选项]"
+    echo ""
+    echo "选项:"
+    echo "  -p, --profile NAME       数据库配置所在的 Spring Boot Profile（默认: local）"
+    echo "  -t, --trades N           交易记录条数（默认: 100000）"
+    echo "  -y, --symbols N          证券数量（默认: 1000）"
+    echo "  -b, --brokers N          新建的券商数量（默认: 3）"
+    echo "  -e, --events N           拆股 / 代码变更 / 实物分红事件各 N 个（默认: 30 / 10 / 10）"
+    echo "  -r, --seed N             随机种子（默认: 20240101）"
+    echo "  -i, --invalid-ratio R    核对不通过的交易记录比例 0 ~ 1（默认: 0）"
+    echo "  -n, --no-cascade         写入后不执行市场事件级联重算"
+    echo "  -h, --help               显示帮助信息"
+    echo ""
+    echo "示例:"
+    echo "  $0 -t 1000000 -y 5000 -b 5       # 100 万条交易、5000 个证券、5 个券商"
+    echo "  $0 -t 10000000 -e 200 -n         # 1000 万条交易，每类事件 200 个，不执行级联重算"
+}
+
+while [[ $# -gt 0 ]]; do
+    case "$1" in
+        -p|--profile)
+            PROFILE="$2"
+            shift 2
+            ;;
+        -t|--trades)
+            ARGS+=("--ledger.generator.trades=$2")
+            shift 2
+            ;;
+        -y|--symbols)
+            ARGS+=("--ledger.generator.symbols=$2")
+            shift 2
+            ;;
+        -b|--brokers)
+            ARGS+=("--ledger.generator.brokers=$2")
+            shift 2
+            ;;
+        -e|--events)
+            ARGS+=("--ledger.generator.stock-splits=$2" "--ledger.generator.symbol-changes=$2"
+                   "--ledger.generator.dividends-in-kind=$2")
+            shift 2
+            ;;
+        -r|--seed)
+            ARGS+=("--ledger.generator.seed=$2")
+            shift 2
+            ;;
+        -i|--invalid-ratio)
+            ARGS+=("--ledger.generator.invalid-ratio=$2")
+            shift 2
+            ;;
+        -n|--no-cascade)
+            ARGS+=("--ledger.generator.process-events=false")
+            shift
+            ;;
+        -h|--help)
+            usage
+            exit 0
+            ;;
+        *)
+            echo -e "${RED}错误: 未知参数 $1${NC}"
+            usage
+            exit 1
+            ;;
+    esac
+done
+
+log_info()  { echo -e "${GREEN}[INFO]${NC}  $1"; }
+log_error() { echo -e "${RED}[ERROR]${NC} $1"; }
+
+# ---------- 查找 JAR ----------
+JAR_PATH="$SCRIPT_DIR/output/backend/$JAR_NAME"
+if [ ! -f "$JAR_PATH" ]; then
+    JAR_PATH="$PROJECT_ROOT/backend/target/$JAR_NAME"
+fi
+if [ ! -f "$JAR_PATH" ]; then
+    log_error "未找到 $JAR_NAME，请先执行 $SCRIPT_DIR/build-backend.sh -s"
+    exit 1
+fi
+
+log_info "JAR:     $JAR_PATH"
+log_info "Profile: $PROFILE,generate-data"
+log_info "参数:    ${ARGS[*]:-（使用默认值）}"
+
+java -jar "$JAR_PATH" --spring.profiles.active="$PROFILE,generate-data" "${ARGS[@]}"
@@ -0,0 +1,39 @@
+import axios from 'axios';
+
+const BASE_URL = '/api/cash';
+
+/**
+ * 查询截止某日期各券商、各币种的现金余额
+ * GET /api/cash/balances?date=YYYY-MM-DD&brokerId=xxx
+ *
+ * @param {string} date 截止日期，格式 YYYY-MM-DD（必填）
+ * @param {number|null} brokerId 券商ID（可选）
+ */
+export const fetchCashBalances = async (date, brokerId = null) => {
+  const params = { date };
+  if (brokerId) {
+    params.brokerId = brokerId;
+  }
+  const response = await axios.get(`${BASE_URL}/balances`, { params });
+  return response.data;
+};
+
+/**
+ * 查询日期区间内的现金余额时间线（一次请求得到整段走势，用于绘制现金图表）
+ * GET /api/cash/timeline?from=YYYY-MM-DD&to=YYYY-MM-DD&granularity=day|week|month&brokerId=xxx
+ *
+ * 返回 data.dates 为采样点日期，data.series 中每个 (brokerId, currency) 的 balances 与 dates 一一对应
+ *
+ * @param {string} from 开始日期，格式 YYYY-MM-DD（必填）
+ * @param {string} to 结束日期，格式 YYYY-MM-DD（必填）
+ * @param {string} granularity 采样粒度：day / week / month
+ * @param {number|null} brokerId 券商ID（可选）
+ */
+export const fetchCashTimeline = async (from, to, granularity = 'day', brokerId = null) => {
+  const params = { from, to, granularity };
+  if (brokerId) {
+    params.brokerId = brokerId;
+  }
+  const response = await axios.get(`${BASE_URL}/timeline`, { params });
+  return response.data;
+};
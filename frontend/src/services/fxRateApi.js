@@ -0,0 +1,33 @@
+import axios from 'axios';
+
+const BASE_URL = '/api/fx-rates';
+
+/**
+ * 查询日期区间内的汇率（1 单位外币折合人民币）
+ * GET /api/fx-rates?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD&currency=xxx
+ *
+ * @param {string} startDate 开始日期，格式 YYYY-MM-DD（必填）
+ * @param {string} endDate 结束日期，格式 YYYY-MM-DD（必填）
+ * @param {string|null} currency 币种（可选）
+ */
+export const fetchFxRates = async (startDate, endDate, currency = null) => {
+  const params = { startDate, endDate };
+  if (currency) {
+    params.currency = currency;
+  }
+  const response = await axios.get(BASE_URL, { params });
+  return response.data;
+};
+
+/**
+ * 导入汇率 CSV（列 rateDate,currency,rate）
+ * POST /api/fx-rates/import
+ *
+ * @param {string} content CSV 文本
+ */
+export const importFxRatesCsv = async (content) => {
+  const response = await axios.post(`${BASE_URL}/import`, content, {
+    headers: { 'Content-Type': 'text/csv' },
+  });
+  return response.data;
+};
@@ -17,3 +17,23 @@ export const fetchPositions = async (date, brokerId = null) => {
   const response = await axios.get(BASE_URL, { params });
   return response.data;
 };
+
+/**
+ * 查询日期区间内的持仓历史序列（一次请求得到整段走势，用于绘制持仓图表）
+ * GET /api/positions/history?from=YYYY-MM-DD&to=YYYY-MM-DD&granularity=day|week|month&brokerId=xxx
+ *
+ * 返回 data.dates 为采样点日期，data.series 中每个 (symbol, brokerId) 的 quantities 与 dates 一一对应
+ *
+ * @param {string} from 开始日期，格式 YYYY-MM-DD（必填）
+ * @param {string} to 结束日期，格式 YYYY-MM-DD（必填）
+ * @param {string} granularity 采样粒度：day / week / month
+ * @param {number|null} brokerId 券商ID（可选）
+ */
+export const fetchPositionHistory = async (from, to, granularity = 'day', brokerId = null) => {
+  const params = { from, to, granularity };
+  if (brokerId) {
+    params.brokerId = brokerId;
+  }
+  const response = await axios.get(`${BASE_URL}/history`, { params });
+  return response.data;
+};
@@ -0,0 +1,50 @@
+import axios from 'axios';
+
+const BASE_URL = '/api/profit';
+
+const buildDateParams = (startDate, endDate) => {
+  const params = {};
+  if (startDate) {
+    params.startDate = startDate;
+  }
+  if (endDate) {
+    params.endDate = endDate;
+  }
+  return params;
+};
+
+/**
+ * 按底层证券汇总已实现盈亏（期权归入底层证券）
+ * GET /api/profit/by-symbol?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+ *
+ * @param {string|null} startDate 开始日期（可选）
+ * @param {string|null} endDate 结束日期（可选）
+ */
+export const fetchProfitBySymbol = async (startDate = null, endDate = null) => {
+  const response = await axios.get(`${BASE_URL}/by-symbol`, { params: buildDateParams(startDate, endDate) });
+  return response.data;
+};
+
+/**
+ * 按策略汇总已实现盈亏
+ * GET /api/profit/by-strategy?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+ *
+ * @param {string|null} startDate 开始日期（可选）
+ * @param {string|null} endDate 结束日期（可选）
+ */
+export const fetchProfitByStrategy = async (startDate = null, endDate = null) => {
+  const response = await axios.get(`${BASE_URL}/by-strategy`, { params: buildDateParams(startDate, endDate) });
+  return response.data;
+};
+
+/**
+ * 按券商汇总已实现盈亏
+ * GET /api/profit/by-broker?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+ *
+ * @param {string|null} startDate 开始日期（可选）
+ * @param {string|null} endDate 结束日期（可选）
+ */
+export const fetchProfitByBroker = async (startDate = null, endDate = null) => {
+  const response = await axios.get(`${BASE_URL}/by-broker`, { params: buildDateParams(startDate, endDate) });
+  return response.data;
+};
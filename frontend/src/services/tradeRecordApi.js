@@ -11,12 +11,31 @@ export const fetchAllTradeRecords = async () => {
   return response.data;
 };
 
+/**
+ * 按组合条件分页查询交易记录（游标分页，按交易日期、ID 倒序）
+ * GET /api/trade-records/query
+ *
+ * @param {Object} params 查询条件：brokerId、assetType、strategyId、underlyingSymbol、symbol、
+ *   startDate、endDate、tradeTrigger、triggerRefType、size、includeTotal，
+ *   翻页时追加上一页返回的 nextCursorDate / nextCursorId 作为 cursorDate / cursorId
+ */
+export const queryTradeRecords = async (params = {}) => {
+  const response = await axios.get(`${BASE_URL}/query`, { params });
+  return response.data;
+};
+
 /**
  * 查询交易记录统计数据
- * GET /api/trade-records/statistics
+ * GET /api/trade-records/statistics?baseCurrency=CNY|HKD|USD
+ *
+ * @param {string|null} baseCurrency 本位币（可选，传入时返回按交易日期汇率折算后的 totalFee）
  */
-export const fetchTradeStatistics = async () => {
-  const response = await axios.get(`${BASE_URL}/statistics`);
+export const fetchTradeStatistics = async (baseCurrency = null) => {
+  const params = {};
+  if (baseCurrency) {
+    params.baseCurrency = baseCurrency;
+  }
+  const response = await axios.get(`${BASE_URL}/statistics`, { params });
   return response.data;
 };
 
@@ -104,10 +123,33 @@ export const deleteTradeRecord = async (id) => {
 };
 
 /**
- * 交易数据核对
- * GET /api/trade-records/verify
+ * 交易数据核对（默认只重新核对上次核对之后变动的记录）
+ * GET /api/trade-records/verify?full=false
+ * @param {boolean} full 是否全部重新核对
+ */
+export const verifyTradeRecords = async (full = false) => {
+  const response = await axios.get(`${BASE_URL}/verify`, { params: { full } });
+  return response.data;
+};
+
+/**
+ * 获取交易记录导出地址（由浏览器直接下载，服务端流式写出）
+ * GET /api/trade-records/export?format=jsonl|csv
+ *
+ * @param {'jsonl'|'csv'} format 导出格式，默认 jsonl
  */
-export const verifyTradeRecords = async () => {
-  const response = await axios.get(`${BASE_URL}/verify`);
+export const getTradeRecordExportUrl = (format = 'jsonl') => `${BASE_URL}/export?format=${format}`;
+
+/**
+ * 批量导入交易记录（任意一条校验失败则整批不写入）
+ * POST /api/trade-records/import
+ *
+ * @param {Array<Object>|string} payload 交易记录数组（JSON）或 CSV 文本（列与导出的 CSV 一致）
+ */
+export const importTradeRecords = async (payload) => {
+  const isCsv = typeof payload === 'string';
+  const response = await axios.post(`${BASE_URL}/import`, payload, {
+    headers: { 'Content-Type': isCsv ? 'text/csv' : 'application/json' },
+  });
   return response.data;
 };